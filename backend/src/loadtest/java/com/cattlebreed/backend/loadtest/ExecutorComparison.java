@@ -0,0 +1,82 @@
+package com.cattlebreed.backend.loadtest;
+
+import com.cattlebreed.backend.BackendServer;
+import com.cattlebreed.backend.ServerConfig;
+import com.cattlebreed.backend.concurrency.ExecutorMode;
+import com.cattlebreed.backend.loadtest.LoadRunner.LoadResult;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Runs the sync and upload load tests against an in-process server, once
+ * with fixed platform-thread pools and once with virtual threads, on fresh
+ * data directories, and prints the two side by side.
+ *
+ * Both modes share one JVM, so a full unreported pass of each mode runs
+ * first to warm the JIT. Without it, whichever mode ran first would look
+ * about twice as slow.
+ *
+ * Usage: ExecutorComparison [devices] [rounds] [recordsPerSync] [imageKb]
+ */
+public final class ExecutorComparison {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int recordsPerSync = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int imageKb = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        for (ExecutorMode mode : ExecutorMode.values()) {
+            measure(mode, devices, rounds, recordsPerSync, imageKb);
+        }
+
+        for (ExecutorMode mode : ExecutorMode.values()) {
+            THREADS.resetPeakThreadCount();
+            Measurement result = measure(mode, devices, rounds, recordsPerSync, imageKb);
+
+            System.out.println("== " + mode + " (" + devices + " devices x " + rounds + " rounds)");
+            System.out.print("sync:   ");
+            result.sync().print(System.out);
+            System.out.print("upload: ");
+            result.upload().print(System.out);
+            // Virtual threads are not counted here; this is the OS thread cost of each mode
+            System.out.println("peak platform threads: " + THREADS.getPeakThreadCount());
+        }
+    }
+
+    private static Measurement measure(ExecutorMode mode, int devices, int rounds, int recordsPerSync, int imageKb)
+            throws Exception {
+        Path dataDir = Files.createTempDirectory("cattle-" + mode.name().toLowerCase());
+        ServerConfig config = ServerConfig.fromEnvironment()
+                .withPort(0)
+                .withDataDir(dataDir)
+                .withExecutorMode(mode);
+        try (BackendServer server = BackendServer.start(config)) {
+            String baseUrl = "http://localhost:" + server.port() + "/api/v1/";
+            LoadResult sync = SyncLoadTest.run(baseUrl, devices, rounds, recordsPerSync);
+            LoadResult upload = UploadLoadTest.run(baseUrl, Math.max(1, devices / 4), rounds, imageKb);
+            return new Measurement(sync, upload);
+        } finally {
+            deleteRecursively(dataDir);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private record Measurement(LoadResult sync, LoadResult upload) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.cattlebreed.backend.loadtest;
+
+import com.cattlebreed.backend.analytics.FactStore;
+import com.cattlebreed.backend.analytics.FactStore.FarmScan;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.storage.StoredRecord;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Loads synthetic facts into a {@link FactStore} and times year-range farm
+ * reports and regional averages, without HTTP or storage in the way.
+ *
+ * Usage: FactScanBenchmark [records] [farms] [queries]
+ */
+public final class FactScanBenchmark {
+
+    private static final String[] BREEDS = {"Gir", "Sahiwal", "Red Sindhi", "Tharparkar", "Murrah", "Jaffarabadi", "Unknown"};
+    private static final String[] STATES = {"Gujarat", "Punjab", "Rajasthan", "Haryana", "Uttar Pradesh", "Maharashtra"};
+
+    public static void main(String[] args) {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int farms = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        FactStore store = new FactStore();
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate firstDay = LocalDate.of(2022, 1, 1);
+        long loadStart = System.nanoTime();
+        for (long id = 1; id <= records; id++) {
+            int farm = random.nextInt(farms);
+            long millis = firstDay.plusDays(random.nextInt(3 * 365)).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            LocationDto location = new LocationDto(null, null, null, null, STATES[farm % STATES.length], null);
+            store.onRecordChanged(null, new StoredRecord(
+                    id, "farm-" + farm, "ANM-" + id, null, null, null, millis, 0, 0, 0, 0,
+                    40 + random.nextInt(60), BREEDS[random.nextInt(BREEDS.length)],
+                    random.nextInt(10) == 0 ? null : (float) (50 + random.nextInt(50)),
+                    null, location, null, millis, millis, 1, false, id
+            ));
+        }
+        System.out.printf("loaded %,d facts in %.1fs%n", store.size(), (System.nanoTime() - loadStart) / 1e9);
+
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2023, 12, 31);
+        long[] farmNanos = new long[queries];
+        long[] benchmarkNanos = new long[queries];
+        long checksum = 0;
+        for (int i = 0; i < queries; i++) {
+            String farmId = "farm-" + random.nextInt(farms);
+            long start = System.nanoTime();
+            FarmScan scan = store.scanFarm(farmId, from, to);
+            farmNanos[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            checksum += (long) store.averages(from.plusDays(i % 20), to, scan.homeState()).national();
+            benchmarkNanos[i] = System.nanoTime() - start;
+            checksum += scan.count();
+        }
+        print("farm year report", farmNanos);
+        print("regional averages", benchmarkNanos);
+        System.out.println("checksum " + checksum);
+    }
+
+    private static void print(String label, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-18s p50=%.2fms p95=%.2fms max=%.2fms%n", label,
+                sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.95)] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+}
@@ -0,0 +1,111 @@
+package com.cattlebreed.backend.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Runs one virtual thread per simulated device, each performing {@code rounds}
+ * timed steps, and collects latencies. The OS thread count stays flat however
+ * many devices are simulated.
+ */
+final class LoadRunner {
+
+    static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
+    private LoadRunner() {
+    }
+
+    /**
+     * One request of one device. Returns the number of bytes sent; any
+     * exception or non-2xx response counts as a failure.
+     */
+    @FunctionalInterface
+    interface Step {
+        long run(int device, int round) throws IOException, InterruptedException;
+    }
+
+    static LoadResult run(int devices, int rounds, Step step) throws InterruptedException {
+        long[] latencies = new long[devices * rounds];
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong failures = new AtomicLong();
+        AtomicLong bytesSent = new AtomicLong();
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int device = 0; device < devices; device++) {
+                int id = device;
+                executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        long start = System.nanoTime();
+                        try {
+                            bytesSent.addAndGet(step.run(id, round));
+                        } catch (IOException | RuntimeException e) {
+                            failures.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        } finally {
+                            latencies[next.getAndIncrement()] = System.nanoTime() - start;
+                        }
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        long[] recorded = Arrays.copyOf(latencies, next.get());
+        Arrays.sort(recorded);
+        return new LoadResult(recorded.length, failures.get(), bytesSent.get(), elapsed, recorded);
+    }
+
+    static byte[] readBody(HttpResponse<InputStream> response) throws IOException {
+        InputStream in = response.body();
+        if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(""))) {
+            in = new GZIPInputStream(in);
+        }
+        try (InputStream body = in) {
+            return body.readAllBytes();
+        }
+    }
+
+    static void requireSuccess(HttpResponse<?> response) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+    }
+
+    record LoadResult(long requests, long failures, long bytesSent, long elapsedNanos, long[] sortedLatencies) {
+
+        double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+
+        void print(PrintStream out) {
+            out.printf("requests=%d failures=%d sent=%.1fMB elapsed=%.1fs%n",
+                    requests, failures, bytesSent / 1e6, elapsedNanos / 1e9);
+            out.printf("throughput=%.0f req/s p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n",
+                    throughput(), percentileMillis(0.50), percentileMillis(0.95), percentileMillis(0.99),
+                    percentileMillis(1.0));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.cattlebreed.backend.loadtest;
+
+import com.cattlebreed.backend.BackendServer;
+import com.cattlebreed.backend.ServerConfig;
+import com.cattlebreed.backend.api.ApiModels.AuthResponse;
+import com.cattlebreed.backend.api.ApiModels.LoginRequest;
+import com.cattlebreed.backend.api.ApiModels.SendOtpRequest;
+import com.cattlebreed.backend.http.JsonCodec;
+import com.cattlebreed.backend.loadtest.LoadRunner.LoadResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Floods the OTP endpoints the way a sign-in campaign does: every phone
+ * requests a code and verifies it, then a handful of hot numbers hammer
+ * send to check the per-number rate limit holds under contention.
+ *
+ * Runs against an in-process server started with cattle.otp.echo=true, so
+ * the verify step can read the code back from the send response.
+ *
+ * Usage: OtpStormTest [phones] [hotPhones] [hotRounds]
+ */
+public final class OtpStormTest {
+
+    public static void main(String[] args) throws Exception {
+        int phones = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int hotPhones = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int hotRounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Path dataDir = Files.createTempDirectory("cattle-otp");
+        ServerConfig config = ServerConfig.fromEnvironment()
+                .withPort(0)
+                .withDataDir(dataDir)
+                .withOtpEcho(true);
+        boolean failed;
+        try (BackendServer server = BackendServer.start(config)) {
+            String baseUrl = "http://localhost:" + server.port() + "/api/v1/";
+            // Unreported pass on separate numbers to warm the JIT and the client pool
+            storm(baseUrl, 0, Math.min(phones, 10_000));
+
+            LoadResult storm = storm(baseUrl, 1_000_000, phones);
+            System.out.println("== send + verify (" + phones + " phones)");
+            storm.print(System.out);
+
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger limited = new AtomicInteger();
+            LoadResult hot = hotNumbers(baseUrl, hotPhones, hotRounds, accepted, limited);
+            System.out.println("== hot numbers (" + hotPhones + " phones x " + hotRounds + " sends)");
+            hot.print(System.out);
+            // Inside one cooldown each number gets exactly one code
+            System.out.printf("accepted=%d rate-limited=%d (expected %d accepted)%n",
+                    accepted.get(), limited.get(), hotPhones);
+
+            failed = storm.failures() > 0 || hot.failures() > 0 || accepted.get() != hotPhones;
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Round 0 sends, round 1 verifies with the echoed code
+     */
+    static LoadResult storm(String baseUrl, int firstPhone, int phones) throws InterruptedException {
+        URI sendUri = URI.create(baseUrl).resolve("auth/otp/send");
+        URI verifyUri = URI.create(baseUrl).resolve("auth/otp/verify");
+        String[] codes = new String[phones];
+
+        return LoadRunner.run(phones, 2, (device, round) -> {
+            String phone = phone(firstPhone + device);
+            if (round == 0) {
+                byte[] body = JsonCodec.encode(new SendOtpRequest(phone, "+91"));
+                HttpResponse<InputStream> response = post(sendUri, body);
+                byte[] payload = LoadRunner.readBody(response);
+                LoadRunner.requireSuccess(response);
+                AuthResponse parsed = JsonCodec.decode(payload, AuthResponse.class);
+                codes[device] = parsed.devCode();
+                return body.length;
+            }
+            byte[] body = JsonCodec.encode(new LoginRequest(phone, codes[device], "load-" + device, "loadtest"));
+            HttpResponse<InputStream> response = post(verifyUri, body);
+            LoadRunner.readBody(response);
+            LoadRunner.requireSuccess(response);
+            return body.length;
+        });
+    }
+
+    /**
+     * Every device of a group shares one number; 429 is the expected answer after the first send
+     */
+    static LoadResult hotNumbers(String baseUrl, int hotPhones, int rounds, AtomicInteger accepted,
+                                 AtomicInteger limited) throws InterruptedException {
+        URI sendUri = URI.create(baseUrl).resolve("auth/otp/send");
+        return LoadRunner.run(hotPhones * 10, rounds / 10, (device, round) -> {
+            byte[] body = JsonCodec.encode(new SendOtpRequest(phone(2_000_000 + device % hotPhones), "+91"));
+            HttpResponse<InputStream> response = post(sendUri, body);
+            LoadRunner.readBody(response);
+            if (response.statusCode() == 429) {
+                if (response.headers().firstValue("Retry-After").isEmpty()) {
+                    throw new IOException("429 without Retry-After");
+                }
+                limited.incrementAndGet();
+            } else {
+                LoadRunner.requireSuccess(response);
+                accepted.incrementAndGet();
+            }
+            return body.length;
+        });
+    }
+
+    private static HttpResponse<InputStream> post(URI uri, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return LoadRunner.CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static String phone(int index) {
+        return String.format("9%09d", index);
+    }
+}
@@ -0,0 +1,94 @@
+package com.cattlebreed.backend.loadtest;
+
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsRequest;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsResponse;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.http.JsonCodec;
+import com.cattlebreed.backend.loadtest.LoadRunner.LoadResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Simulates a fleet of devices each pushing several sync batches, the way
+ * OutboxSyncWorker does after a day offline, and reports throughput and
+ * latency percentiles.
+ *
+ * Usage: SyncLoadTest [baseUrl] [devices] [rounds] [recordsPerSync]
+ */
+public final class SyncLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/v1/";
+        int devices = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int recordsPerSync = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        LoadResult result = run(baseUrl, devices, rounds, recordsPerSync);
+        result.print(System.out);
+        if (result.failures() > 0) {
+            System.exit(1);
+        }
+    }
+
+    static LoadResult run(String baseUrl, int devices, int rounds, int recordsPerSync) throws InterruptedException {
+        URI syncUri = URI.create(baseUrl).resolve("records/sync");
+        Long[] lastSync = new Long[devices];
+
+        return LoadRunner.run(devices, rounds, (device, round) -> {
+            String userId = "load-user-" + device;
+            byte[] body = gzip(JsonCodec.encode(batch(userId, round, recordsPerSync, lastSync[device])));
+            HttpRequest request = HttpRequest.newBuilder(syncUri)
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json; charset=utf-8")
+                    .header("Content-Encoding", "gzip")
+                    .header("Accept-Encoding", "gzip")
+                    .header("X-User-Id", userId)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            HttpResponse<InputStream> response = LoadRunner.CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            byte[] payload = LoadRunner.readBody(response);
+            LoadRunner.requireSuccess(response);
+            SyncAnimalRecordsResponse parsed = JsonCodec.decode(payload, SyncAnimalRecordsResponse.class);
+            lastSync[device] = parsed.data().lastSyncTimestamp();
+            return body.length;
+        });
+    }
+
+    private static SyncAnimalRecordsRequest batch(String userId, int round, int size, Long lastSync) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String now = IsoDates.format(System.currentTimeMillis());
+        List<AnimalRecordDto> records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // Later rounds re-send half of the earlier animals as edits
+            int animal = round > 0 && i % 2 == 0 ? random.nextInt(round * size) : round * size + i;
+            records.add(new AnimalRecordDto(
+                    null, (long) animal, "ANM-" + animal, userId, null, null, now,
+                    120 + random.nextDouble(40), 110 + random.nextDouble(30), 40 + random.nextDouble(20),
+                    10 + random.nextDouble(10), 50 + random.nextInt(50), false,
+                    null, null, null, now, now, 1
+            ));
+        }
+        return new SyncAnimalRecordsRequest(records, lastSync, List.of());
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}
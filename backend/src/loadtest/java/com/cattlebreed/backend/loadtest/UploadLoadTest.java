@@ -0,0 +1,66 @@
+package com.cattlebreed.backend.loadtest;
+
+import com.cattlebreed.backend.api.ApiModels.ImageUploadRequest;
+import com.cattlebreed.backend.api.ApiModels.ImageUploadResponse;
+import com.cattlebreed.backend.http.JsonCodec;
+import com.cattlebreed.backend.loadtest.LoadRunner.LoadResult;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulates devices uploading record photos: request an upload URL, then PUT
+ * the image. Each round is timed as one step, like the app's upload flow.
+ *
+ * Usage: UploadLoadTest [baseUrl] [devices] [rounds] [imageKb]
+ */
+public final class UploadLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/v1/";
+        int devices = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int imageKb = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+
+        LoadResult result = run(baseUrl, devices, rounds, imageKb);
+        result.print(System.out);
+        if (result.failures() > 0) {
+            System.exit(1);
+        }
+    }
+
+    static LoadResult run(String baseUrl, int devices, int rounds, int imageKb) throws InterruptedException {
+        URI base = URI.create(baseUrl);
+        byte[] image = new byte[imageKb * 1024];
+        ThreadLocalRandom.current().nextBytes(image);
+
+        return LoadRunner.run(devices, rounds, (device, round) -> {
+            String userId = "load-user-" + device;
+            ImageUploadRequest uploadRequest = new ImageUploadRequest("ANM-" + round, "photo.jpg", "image/jpeg", image.length);
+            HttpRequest create = HttpRequest.newBuilder(base.resolve("uploads"))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", "application/json; charset=utf-8")
+                    .header("X-User-Id", userId)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JsonCodec.encode(uploadRequest)))
+                    .build();
+            HttpResponse<InputStream> created = LoadRunner.CLIENT.send(create, HttpResponse.BodyHandlers.ofInputStream());
+            byte[] payload = LoadRunner.readBody(created);
+            LoadRunner.requireSuccess(created);
+            ImageUploadResponse upload = JsonCodec.decode(payload, ImageUploadResponse.class);
+            String uploadUrl = upload.data().uploadUrl();
+
+            HttpRequest put = HttpRequest.newBuilder(base.resolve(uploadUrl))
+                    .timeout(Duration.ofSeconds(120))
+                    .header("Content-Type", "image/jpeg")
+                    .header("X-User-Id", userId)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(image))
+                    .build();
+            LoadRunner.requireSuccess(LoadRunner.CLIENT.send(put, HttpResponse.BodyHandlers.discarding()));
+            return image.length;
+        });
+    }
+}
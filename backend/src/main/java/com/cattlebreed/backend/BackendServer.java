@@ -0,0 +1,230 @@
+package com.cattlebreed.backend;
+
+import com.cattlebreed.backend.admin.AdminDashboardService;
+import com.cattlebreed.backend.analytics.FactStore;
+import com.cattlebreed.backend.analytics.FarmAnalyticsService;
+import com.cattlebreed.backend.api.ApiModels.AdminDashboardRequest;
+import com.cattlebreed.backend.api.ApiModels.FarmAnalyticsRequest;
+import com.cattlebreed.backend.api.ApiModels.ImageUploadRequest;
+import com.cattlebreed.backend.api.ApiModels.LoginRequest;
+import com.cattlebreed.backend.api.ApiModels.PaginatedRequest;
+import com.cattlebreed.backend.api.ApiModels.SendOtpRequest;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsRequest;
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.ats.YearType;
+import com.cattlebreed.backend.auth.AdminAuth;
+import com.cattlebreed.backend.auth.OtpService;
+import com.cattlebreed.backend.concurrency.Bulkhead;
+import com.cattlebreed.backend.concurrency.ExecutorMode;
+import com.cattlebreed.backend.config.ConfigService;
+import com.cattlebreed.backend.export.ExportFormat;
+import com.cattlebreed.backend.http.ApiHandler;
+import com.cattlebreed.backend.http.ApiRequest;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.http.HttpResult;
+import com.cattlebreed.backend.http.Router;
+import com.cattlebreed.backend.metrics.ServerMetrics;
+import com.cattlebreed.backend.records.RecordExportService;
+import com.cattlebreed.backend.records.RecordQueryService;
+import com.cattlebreed.backend.stats.RegionalStats;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.UploadStore;
+import com.cattlebreed.backend.sync.SyncService;
+import com.cattlebreed.backend.timeseries.TrendStore;
+import com.cattlebreed.backend.upload.UploadService;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Sync backend for the Android app.
+ *
+ * Threading: by default every exchange, storage task and disk task runs on
+ * its own virtual thread, so tens of thousands of open device connections
+ * cost memory, not OS threads. Real concurrency is bounded per resource:
+ * the DB bulkhead matches the connection pool and the disk bulkhead caps
+ * image writers. A slow disk therefore never starves sync, and saturation
+ * turns into a 503 with Retry-After instead of an unbounded queue.
+ * cattle.executor=platform switches back to fixed pools for comparison.
+ */
+public final class BackendServer implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(BackendServer.class.getName());
+    private static final String API_PREFIX = "/api/v1/";
+
+    private final HttpServer httpServer;
+    private final Database database;
+    private final ExecutorService dispatcherExecutor;
+    private final ExecutorService storageExecutor;
+    private final ExecutorService diskExecutor;
+
+    private BackendServer(ServerConfig config) throws IOException, SQLException {
+        Path imageDir = config.dataDir().resolve("images");
+        Files.createDirectories(imageDir);
+
+        database = new Database(config.dataDir(), config.dbConnections(), config.bulkheadWaitMillis());
+        database.migrate();
+        Bulkhead diskBulkhead = new Bulkhead("disk", config.diskWriters(), config.bulkheadWaitMillis());
+
+        ExecutorMode mode = config.executorMode();
+        dispatcherExecutor = mode.newExecutor("http", config.dispatcherThreads());
+        storageExecutor = mode.newExecutor("storage", config.dbConnections());
+        diskExecutor = mode.newExecutor("disk", config.diskWriters());
+
+        RecordStore recordStore = new RecordStore();
+        SyncService syncService = new SyncService(database, recordStore, storageExecutor);
+
+        AtsRollupStore atsRollups = new AtsRollupStore();
+        atsRollups.rebuild(database, recordStore);
+        syncService.addListener(atsRollups);
+
+        FactStore facts = new FactStore();
+        facts.rebuild(database, recordStore);
+        syncService.addListener(facts);
+        RegionalStats regionalStats = new RegionalStats();
+        regionalStats.rebuild(database, recordStore);
+        syncService.addListener(regionalStats);
+        TrendStore trends = new TrendStore();
+        trends.rebuild(database, recordStore);
+        syncService.addListener(trends);
+        FarmAnalyticsService farmAnalytics = new FarmAnalyticsService(facts, regionalStats, trends);
+
+        // Registered after the stores it reads, so invalidation sees their new state
+        ServerMetrics metrics = new ServerMetrics();
+        AdminDashboardService adminDashboard = new AdminDashboardService(
+                facts, regionalStats, metrics, database.bulkhead(), storageExecutor
+        );
+        syncService.addListener(adminDashboard);
+
+        UploadService uploadService = new UploadService(
+                database, new UploadStore(), recordStore, imageDir, storageExecutor, diskExecutor, diskBulkhead
+        );
+        RecordQueryService queryService = new RecordQueryService(database, recordStore, storageExecutor);
+        syncService.addListener(queryService);
+        RecordExportService exportService = new RecordExportService(database, recordStore, storageExecutor);
+        ConfigService configService = new ConfigService(config.dataDir());
+        OtpService otpService = new OtpService(config.otpCapacity(), config.otpEcho());
+        AdminAuth adminAuth = new AdminAuth(config.adminToken());
+
+        Router router = new Router()
+                // In-memory and lock-free per number, so answered on the request thread
+                .post("auth/otp/send", request -> CompletableFuture.completedFuture(HttpResult.ok(
+                        otpService.send(request.bodyAs(SendOtpRequest.class)))))
+                .post("auth/otp/verify", request -> CompletableFuture.completedFuture(HttpResult.ok(
+                        otpService.verify(request.bodyAs(LoginRequest.class)))))
+                .post("records/sync", request -> syncService
+                        .sync(request.requireUserId(), request.bodyAs(SyncAnimalRecordsRequest.class))
+                        .thenApply(HttpResult::ok))
+                .post("records/query", request -> queryService
+                        .list(request.requireUserId(), request.bodyAs(PaginatedRequest.class))
+                        .thenApply(HttpResult::ok))
+                .post("uploads", request -> uploadService
+                        .createUpload(request.requireUserId(), request.bodyAs(ImageUploadRequest.class))
+                        .thenApply(HttpResult::ok))
+                .put("uploads/{fileId}", request -> uploadService
+                        .store(request.requireUserId(), request.pathParam("fileId"), request.body())
+                        .thenApply(ignored -> HttpResult.empty(204)))
+                .get("uploads/{fileId}", request -> uploadService
+                        .load(request.pathParam("fileId"))
+                        .thenApply(image -> HttpResult.bytes(200, image.contentType(), image.bytes())
+                                .header("Cache-Control", "private, max-age=86400")))
+                // In-memory scans: cheap enough to run on the request thread
+                .post("analytics/farm", request -> CompletableFuture.completedFuture(HttpResult.ok(farmAnalytics.report(
+                        request.requireUserId(), request.bodyAs(FarmAnalyticsRequest.class)))))
+                .get("analytics/trends", request -> CompletableFuture.completedFuture(HttpResult.ok(farmAnalytics.regionTrend(
+                        request.query("state"), request.query("startDate"), request.query("endDate")))))
+                .post("admin/dashboard", adminAuth.guard(request -> adminDashboard
+                        .dashboard(request.bodyAs(AdminDashboardRequest.class))
+                        .thenApply(HttpResult::ok)))
+                // Every other query parameter is a filter, as in records/query
+                .get("admin/export", adminAuth.guard(request -> {
+                    Map<String, String> filters = new HashMap<>(request.query());
+                    ExportFormat format = ExportFormat.parse(filters.remove("format"));
+                    return CompletableFuture.completedFuture(exportService.export(format, filters));
+                }))
+                // Cheap rollup reads, revalidated by version ETags so an unchanged view costs a 304
+                .get("ats/states", request -> {
+                    YearType yearType = YearType.parse(request.query("yearType"));
+                    int year = request.intQuery("year", LocalDate.now(AtsRollupStore.REPORTING_ZONE).getYear());
+                    String etag = atsRollups.statesEtag(yearType, year);
+                    return CompletableFuture.completedFuture(revalidated(request, etag,
+                            () -> HttpResult.ok(atsRollups.states(yearType, year))));
+                })
+                .get("ats/districts", request -> {
+                    String state = request.query("state");
+                    if (state == null || state.isBlank()) {
+                        throw HttpError.badRequest("state is required");
+                    }
+                    YearType yearType = YearType.parse(request.query("yearType"));
+                    int year = request.intQuery("year", LocalDate.now(AtsRollupStore.REPORTING_ZONE).getYear());
+                    String etag = atsRollups.stateEtag(yearType, year, state);
+                    return CompletableFuture.completedFuture(revalidated(request, etag,
+                            () -> HttpResult.ok(atsRollups.state(yearType, year, state))));
+                })
+                .get("config", request -> CompletableFuture.completedFuture(revalidated(request, configService.etag(),
+                        () -> HttpResult.bytes(200, "application/json; charset=utf-8", configService.body()))));
+
+        httpServer = HttpServer.create(new InetSocketAddress(config.port()), config.backlog());
+        httpServer.createContext(API_PREFIX, new ApiHandler(API_PREFIX, router, config.maxBodyBytes(), metrics));
+        httpServer.setExecutor(dispatcherExecutor);
+    }
+
+    /**
+     * 304 when the client already holds {@code etag}; otherwise the full response.
+     * Either way the client must revalidate before reusing it.
+     */
+    private static HttpResult revalidated(ApiRequest request, String etag, Supplier<HttpResult> response) {
+        HttpResult result = request.notModified(etag) ? HttpResult.empty(304) : response.get();
+        return result.header("ETag", etag).header("Cache-Control", "no-cache");
+    }
+
+    public static BackendServer start(ServerConfig config) throws IOException, SQLException {
+        BackendServer server = new BackendServer(config);
+        server.httpServer.start();
+        LOG.info("Listening on port " + server.port() + API_PREFIX + " (" + config.executorMode() + " threads)");
+        return server;
+    }
+
+    public int port() {
+        return httpServer.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        shutdown(dispatcherExecutor);
+        shutdown(diskExecutor);
+        shutdown(storageExecutor);
+        database.close();
+    }
+
+    private static void shutdown(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        BackendServer server = start(ServerConfig.fromEnvironment());
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "shutdown"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.cattlebreed.backend;
+
+import com.cattlebreed.backend.concurrency.ExecutorMode;
+
+import java.nio.file.Path;
+
+/**
+ * Server settings. Each value is read from a system property (-Dcattle.port=9090)
+ * or the matching environment variable (CATTLE_PORT), falling back to the default.
+ */
+public record ServerConfig(
+        int port,
+        Path dataDir,
+        ExecutorMode executorMode,
+        int backlog,
+        int dispatcherThreads,
+        int dbConnections,
+        int diskWriters,
+        long bulkheadWaitMillis,
+        long maxBodyBytes,
+        int otpCapacity,
+        boolean otpEcho,
+        String adminToken
+) {
+
+    public static ServerConfig fromEnvironment() {
+        return new ServerConfig(
+                intSetting("port", 8080),
+                Path.of(setting("data.dir", "./data")),
+                ExecutorMode.valueOf(setting("executor", "virtual").toUpperCase()),
+                // Accept queue for connection bursts such as every office syncing at 6pm
+                intSetting("backlog", 8192),
+                // Only used in PLATFORM mode; VIRTUAL runs each exchange on its own thread
+                intSetting("dispatcher.threads", 200),
+                intSetting("db.connections", 16),
+                intSetting("disk.writers", 8),
+                intSetting("bulkhead.wait.ms", 10_000),
+                // Largest accepted body: a 10 MB image plus headroom
+                intSetting("max.body.bytes", 12 * 1024 * 1024),
+                // Phone numbers with a pending OTP or an open rate window; about 100 MB at the cap
+                intSetting("otp.capacity", 500_000),
+                // Returns the code in the send response; local testing only
+                Boolean.parseBoolean(setting("otp.echo", "false")),
+                // Bearer token for admin/*; unset by default, which closes the admin routes
+                setting("admin.token", null)
+        );
+    }
+
+    public ServerConfig withPort(int port) {
+        return new ServerConfig(port, dataDir, executorMode, backlog, dispatcherThreads, dbConnections,
+                diskWriters, bulkheadWaitMillis, maxBodyBytes, otpCapacity, otpEcho, adminToken);
+    }
+
+    public ServerConfig withDataDir(Path dataDir) {
+        return new ServerConfig(port, dataDir, executorMode, backlog, dispatcherThreads, dbConnections,
+                diskWriters, bulkheadWaitMillis, maxBodyBytes, otpCapacity, otpEcho, adminToken);
+    }
+
+    public ServerConfig withExecutorMode(ExecutorMode executorMode) {
+        return new ServerConfig(port, dataDir, executorMode, backlog, dispatcherThreads, dbConnections,
+                diskWriters, bulkheadWaitMillis, maxBodyBytes, otpCapacity, otpEcho, adminToken);
+    }
+
+    public ServerConfig withOtpEcho(boolean otpEcho) {
+        return new ServerConfig(port, dataDir, executorMode, backlog, dispatcherThreads, dbConnections,
+                diskWriters, bulkheadWaitMillis, maxBodyBytes, otpCapacity, otpEcho, adminToken);
+    }
+
+    private static String setting(String name, String defaultValue) {
+        String value = System.getProperty("cattle." + name);
+        if (value == null) {
+            value = System.getenv("CATTLE_" + name.toUpperCase().replace('.', '_'));
+        }
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    private static int intSetting(String name, int defaultValue) {
+        return Integer.parseInt(setting(name, Integer.toString(defaultValue)));
+    }
+}
@@ -0,0 +1,242 @@
+package com.cattlebreed.backend.admin;
+
+import com.cattlebreed.backend.analytics.DaySlice;
+import com.cattlebreed.backend.analytics.FactStore;
+import com.cattlebreed.backend.api.ApiModels.AdminDashboardData;
+import com.cattlebreed.backend.api.ApiModels.AdminDashboardRequest;
+import com.cattlebreed.backend.api.ApiModels.AdminDashboardResponse;
+import com.cattlebreed.backend.api.ApiModels.AlertSeverity;
+import com.cattlebreed.backend.api.ApiModels.AlertType;
+import com.cattlebreed.backend.api.ApiModels.BreedStatistic;
+import com.cattlebreed.backend.api.ApiModels.SystemAlert;
+import com.cattlebreed.backend.api.ApiModels.SystemHealthData;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.cache.SwrCache;
+import com.cattlebreed.backend.concurrency.Bulkhead;
+import com.cattlebreed.backend.metrics.ServerMetrics;
+import com.cattlebreed.backend.stats.RegionalStats;
+import com.cattlebreed.backend.stats.RegionalStats.ActiveCounts;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.RecordChangeListener;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves POST admin/dashboard from two cache levels.
+ *
+ * <ul>
+ *   <li>L1: the assembled analytics per (range, region, day bucket), served
+ *       stale-while-revalidate. When every admin opens the dashboard at 9am,
+ *       the first request of the day computes it once and the rest share
+ *       that load.</li>
+ *   <li>L2: per-(region, day) breed slices. A year is 365 cached slices,
+ *       so a refresh after new records only rescans the days that changed.</li>
+ * </ul>
+ *
+ * Ingested records invalidate the slices of their day and mark the L1
+ * entries covering that day stale. System health is live and never cached.
+ */
+public final class AdminDashboardService implements RecordChangeListener {
+
+    private static final long FRESH_MILLIS = 30_000;
+    private static final long MAX_STALE_MILLIS = 10 * 60_000;
+    private static final int TOP_BREEDS = 5;
+    // Slices older than the longest range, plus slack for the day rollover
+    private static final int SLICE_RETENTION_DAYS = DashboardRange.YEAR.days() + 2;
+
+    private final FactStore facts;
+    private final RegionalStats regionalStats;
+    private final ServerMetrics metrics;
+    private final Bulkhead dbBulkhead;
+    private final Clock clock;
+
+    private final SwrCache<DashboardKey, DashboardAnalytics> dashboards;
+    private final ConcurrentHashMap<SliceKey, DaySlice> slices = new ConcurrentHashMap<>();
+    // Bumped before every slice invalidation; slices scanned across a bump are used but not kept
+    private final AtomicLong sliceGeneration = new AtomicLong();
+
+    public AdminDashboardService(FactStore facts, RegionalStats regionalStats, ServerMetrics metrics,
+                                 Bulkhead dbBulkhead, Executor executor) {
+        this(facts, regionalStats, metrics, dbBulkhead, executor, Clock.systemUTC());
+    }
+
+    public AdminDashboardService(FactStore facts, RegionalStats regionalStats, ServerMetrics metrics,
+                                 Bulkhead dbBulkhead, Executor executor, Clock clock) {
+        this.facts = facts;
+        this.regionalStats = regionalStats;
+        this.metrics = metrics;
+        this.dbBulkhead = dbBulkhead;
+        this.clock = clock;
+        this.dashboards = new SwrCache<>(FRESH_MILLIS, MAX_STALE_MILLIS, executor, clock);
+    }
+
+    public CompletableFuture<AdminDashboardResponse> dashboard(AdminDashboardRequest request) {
+        DashboardRange range = DashboardRange.parse(request.dateRange());
+        String region = request.region() == null || request.region().isBlank() ? null : request.region().trim();
+        long today = LocalDate.now(clock.withZone(AtsRollupStore.REPORTING_ZONE)).toEpochDay();
+
+        DashboardKey key = new DashboardKey(range, region, today);
+        return dashboards.get(key, () -> compute(key))
+                .thenApply(analytics -> new AdminDashboardResponse(true, assemble(analytics)));
+    }
+
+    @Override
+    public void onRecordChanged(StoredRecord before, StoredRecord after) {
+        invalidate(before);
+        invalidate(after);
+    }
+
+    private void invalidate(StoredRecord record) {
+        if (record == null) {
+            return;
+        }
+        long day = Instant.ofEpochMilli(record.recordDate()).atZone(AtsRollupStore.REPORTING_ZONE)
+                .toLocalDate().toEpochDay();
+        String state = record.location() == null || record.location().state() == null
+                || record.location().state().isBlank() ? null : record.location().state().trim();
+
+        sliceGeneration.incrementAndGet();
+        slices.remove(new SliceKey(null, day));
+        if (state != null) {
+            slices.remove(new SliceKey(state, day));
+        }
+        // Totals span all time, so every entry of the record's regions goes stale
+        dashboards.invalidateIf(key -> key.region == null || key.region.equals(state));
+    }
+
+    private DashboardAnalytics compute(DashboardKey key) {
+        long toDay = key.day;
+        long fromDay = toDay - key.range.days() + 1;
+
+        DaySlice.Total total = new DaySlice.Total();
+        long day = fromDay;
+        while (day <= toDay) {
+            DaySlice cached = slices.get(new SliceKey(key.region, day));
+            if (cached != null) {
+                total.add(cached);
+                day++;
+                continue;
+            }
+            // One scan for each run of missing days
+            long runEnd = day;
+            while (runEnd < toDay && !slices.containsKey(new SliceKey(key.region, runEnd + 1))) {
+                runEnd++;
+            }
+            long generation = sliceGeneration.get();
+            DaySlice[] scanned = facts.daySlices(key.region, (int) day, (int) runEnd);
+            for (int i = 0; i < scanned.length; i++) {
+                total.add(scanned[i]);
+                SliceKey sliceKey = new SliceKey(key.region, day + i);
+                slices.put(sliceKey, scanned[i]);
+                // A record landed during the scan: this slice may predate it
+                if (sliceGeneration.get() != generation) {
+                    slices.remove(sliceKey, scanned[i]);
+                }
+            }
+            day = runEnd + 1;
+        }
+        slices.keySet().removeIf(slice -> slice.day < toDay - SLICE_RETENTION_DAYS);
+
+        ActiveCounts active = regionalStats.active(
+                key.region, LocalDate.ofEpochDay(fromDay), LocalDate.ofEpochDay(toDay)
+        );
+        return new DashboardAnalytics(
+                (int) regionalStats.distinctFarmers(key.region),
+                facts.liveCount(key.region),
+                (int) active.farmers(),
+                total.count(),
+                topBreeds(total)
+        );
+    }
+
+    private List<BreedStatistic> topBreeds(DaySlice.Total total) {
+        List<BreedStatistic> breeds = new ArrayList<>();
+        for (int code = 0; code < total.breeds(); code++) {
+            int count = total.breedCount(code);
+            if (count > 0) {
+                breeds.add(new BreedStatistic(
+                        facts.breedName(code),
+                        count,
+                        count * 100f / total.count(),
+                        (float) total.breedAverage(code)
+                ));
+            }
+        }
+        breeds.sort(Comparator.comparingInt(BreedStatistic::count).reversed()
+                .thenComparing(BreedStatistic::breedName));
+        return breeds.size() > TOP_BREEDS ? List.copyOf(breeds.subList(0, TOP_BREEDS)) : breeds;
+    }
+
+    private AdminDashboardData assemble(DashboardAnalytics analytics) {
+        ServerMetrics.Snapshot snapshot = metrics.snapshot();
+        String databaseHealth;
+        if (dbBulkhead.waiting() > 0) {
+            databaseHealth = snapshot.overloaded() > 0 ? "DEGRADED" : "BUSY";
+        } else {
+            databaseHealth = "HEALTHY";
+        }
+        SystemHealthData health = new SystemHealthData(
+                (float) snapshot.meanLatencyMillis(),
+                (float) snapshot.errorPercent(),
+                snapshot.inFlight(),
+                databaseHealth
+        );
+        return new AdminDashboardData(
+                analytics.totalFarmers,
+                analytics.totalAnimals,
+                analytics.activeUsers,
+                analytics.recentAnalyses,
+                analytics.topBreeds,
+                health,
+                alerts(snapshot)
+        );
+    }
+
+    private List<SystemAlert> alerts(ServerMetrics.Snapshot snapshot) {
+        long now = clock.millis();
+        List<SystemAlert> alerts = new ArrayList<>();
+        if (snapshot.errorPercent() >= 5) {
+            alerts.add(alert(AlertType.API_FAILURE, snapshot.errorPercent() >= 20 ? AlertSeverity.HIGH : AlertSeverity.MEDIUM,
+                    String.format("%.1f%% of requests failed in the last minute", snapshot.errorPercent()), now));
+        }
+        if (snapshot.overloaded() > 0) {
+            alerts.add(alert(AlertType.HIGH_LOAD, AlertSeverity.MEDIUM,
+                    snapshot.overloaded() + " requests were shed with 503 in the last minute", now));
+        }
+        if (dbBulkhead.waiting() > 0) {
+            alerts.add(alert(AlertType.DATABASE_ISSUE, AlertSeverity.LOW,
+                    dbBulkhead.waiting() + " requests are waiting for a database connection", now));
+        }
+        return alerts;
+    }
+
+    // Ids are stable within a minute so the dashboard can de-duplicate repeated polls
+    private static SystemAlert alert(AlertType type, AlertSeverity severity, String message, long now) {
+        return new SystemAlert(type.name() + "-" + now / 60_000, type, message, severity, IsoDates.format(now), false);
+    }
+
+    private record DashboardKey(DashboardRange range, String region, long day) {
+    }
+
+    private record SliceKey(String region, long day) {
+    }
+
+    private record DashboardAnalytics(
+            int totalFarmers,
+            int totalAnimals,
+            int activeUsers,
+            int recentAnalyses,
+            List<BreedStatistic> topBreeds
+    ) {
+    }
+}
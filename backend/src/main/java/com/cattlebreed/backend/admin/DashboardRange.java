@@ -0,0 +1,41 @@
+package com.cattlebreed.backend.admin;
+
+import com.cattlebreed.backend.http.HttpError;
+
+/**
+ * Date ranges offered by the admin dashboard, ending today in the reporting zone
+ */
+public enum DashboardRange {
+    DAYS_7("7d", 7),
+    DAYS_30("30d", 30),
+    DAYS_90("90d", 90),
+    YEAR("1y", 365);
+
+    private final String label;
+    private final int days;
+
+    DashboardRange(String label, int days) {
+        this.label = label;
+        this.days = days;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    public static DashboardRange parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DAYS_30;
+        }
+        for (DashboardRange range : values()) {
+            if (range.label.equalsIgnoreCase(value.trim())) {
+                return range;
+            }
+        }
+        throw HttpError.badRequest("dateRange must be one of 7d, 30d, 90d, 1y");
+    }
+}
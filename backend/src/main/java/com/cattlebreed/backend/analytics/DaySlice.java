@@ -0,0 +1,79 @@
+package com.cattlebreed.backend.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Facts of one region on one day, aggregated by breed code.
+ *
+ * Slices are immutable once built, so caches can hold and merge them
+ * without locking. Breed codes are stable for the life of the
+ * {@link FactStore}; slices built earlier are simply shorter.
+ */
+public final class DaySlice {
+
+    static final DaySlice EMPTY = new DaySlice(0, new int[0], new long[0]);
+
+    private final int count;
+    private final int[] breedCounts;
+    private final long[] breedScoreSums;
+
+    DaySlice(int count, int[] breedCounts, long[] breedScoreSums) {
+        this.count = count;
+        this.breedCounts = breedCounts;
+        this.breedScoreSums = breedScoreSums;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /** Number of breed codes this slice knows about */
+    public int breeds() {
+        return breedCounts.length;
+    }
+
+    public int breedCount(int breedCode) {
+        return breedCode < breedCounts.length ? breedCounts[breedCode] : 0;
+    }
+
+    public long breedScoreSum(int breedCode) {
+        return breedCode < breedScoreSums.length ? breedScoreSums[breedCode] : 0;
+    }
+
+    /**
+     * Mutable accumulator for summing slices over a date range
+     */
+    public static final class Total {
+        private int count;
+        private int[] breedCounts = new int[0];
+        private long[] breedScoreSums = new long[0];
+
+        public void add(DaySlice slice) {
+            count += slice.count;
+            if (slice.breedCounts.length > breedCounts.length) {
+                breedCounts = Arrays.copyOf(breedCounts, slice.breedCounts.length);
+                breedScoreSums = Arrays.copyOf(breedScoreSums, slice.breedCounts.length);
+            }
+            for (int code = 0; code < slice.breedCounts.length; code++) {
+                breedCounts[code] += slice.breedCounts[code];
+                breedScoreSums[code] += slice.breedScoreSums[code];
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public int breeds() {
+            return breedCounts.length;
+        }
+
+        public int breedCount(int breedCode) {
+            return breedCounts[breedCode];
+        }
+
+        public double breedAverage(int breedCode) {
+            return breedCounts[breedCode] == 0 ? Double.NaN : (double) breedScoreSums[breedCode] / breedCounts[breedCode];
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cattlebreed.backend.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only string dictionary for dictionary-encoded columns.
+ * Codes are dense from 0, so they index count arrays directly. Callers synchronize.
+ */
+final class Dictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Code of an existing value, or -1 so that a lookup never grows the dictionary
+     */
+    int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,408 @@
+package com.cattlebreed.backend.analytics;
+
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.RecordChangeListener;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * In-memory columnar copy of the analysis facts of every live record,
+ * partitioned by month.
+ *
+ * A fact is the few fields reports aggregate over. Breeds, farms (users) and
+ * states are dictionary-encoded to ints, and dates are epoch days in the
+ * reporting zone. A farm report over a year touches at most twelve
+ * partitions and runs one branch-light loop per partition. The JIT compiles
+ * these loops to straight array scans.
+ */
+public final class FactStore implements RecordChangeListener {
+
+    private static final Logger LOG = Logger.getLogger(FactStore.class.getName());
+
+    public static final int GOOD_SCORE = 70;
+
+    private final NavigableMap<Integer, MonthPartition> partitions = new TreeMap<>();
+    private final Dictionary breeds = new Dictionary();
+    private final Dictionary farms = new Dictionary();
+    private final Dictionary states = new Dictionary();
+
+    // Row of each record, indexed by its storage id. Ids are dense auto-increment
+    // values, so a flat array is smaller than any map: 8 bytes per record.
+    // Packed as monthKey << 32 | (row + 1); 0 means the record has no fact.
+    private long[] rowOf = new long[1024];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Database database, RecordStore store) throws SQLException {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            partitions.clear();
+            Arrays.fill(rowOf, 0);
+            database.withConnection(connection -> {
+                store.forEachLive(connection, this::append);
+                return null;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Loaded " + size() + " analysis facts into " + partitions.size() + " month partitions in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public void onRecordChanged(StoredRecord before, StoredRecord after) {
+        lock.writeLock().lock();
+        try {
+            if (before != null) {
+                remove(before.id());
+            }
+            if (after != null && !after.deleted()) {
+                append(after);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int live = 0;
+            for (MonthPartition partition : partitions.values()) {
+                live += partition.live;
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live facts in a state, or in total when {@code state} is null
+     */
+    public int liveCount(String state) {
+        lock.readLock().lock();
+        try {
+            if (state == null) {
+                int live = 0;
+                for (MonthPartition partition : partitions.values()) {
+                    live += partition.live;
+                }
+                return live;
+            }
+            int stateCode = states.lookup(state);
+            int live = 0;
+            if (stateCode >= 0) {
+                for (MonthPartition partition : partitions.values()) {
+                    live += stateCode < partition.countByState.length ? partition.countByState[stateCode] : 0;
+                }
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds one {@link DaySlice} per day in [startDay, endDay] (epoch days) for
+     * a state, or for every record when {@code state} is null. Each overlapping
+     * partition is scanned once, however many days are requested.
+     */
+    public DaySlice[] daySlices(String state, int startDay, int endDay) {
+        lock.readLock().lock();
+        try {
+            int days = endDay - startDay + 1;
+            int breedCount = breeds.size();
+            int stateCode = state == null ? -1 : states.lookup(state);
+            int[] counts = new int[days];
+            int[][] breedCounts = new int[days][];
+            long[][] scoreSums = new long[days][];
+
+            if (state == null || stateCode >= 0) {
+                for (MonthPartition p : overlapping(startDay, endDay)) {
+                    boolean checkDeleted = p.hasDeletes();
+                    for (int row = 0, size = p.size; row < size; row++) {
+                        int d = p.epochDay[row];
+                        if (d < startDay || d > endDay || (state != null && p.state[row] != stateCode)
+                                || (checkDeleted && p.isDeleted(row))) {
+                            continue;
+                        }
+                        int i = d - startDay;
+                        if (breedCounts[i] == null) {
+                            breedCounts[i] = new int[breedCount];
+                            scoreSums[i] = new long[breedCount];
+                        }
+                        counts[i]++;
+                        breedCounts[i][p.breed[row]]++;
+                        scoreSums[i][p.breed[row]] += p.score[row];
+                    }
+                }
+            }
+
+            DaySlice[] slices = new DaySlice[days];
+            for (int i = 0; i < days; i++) {
+                slices[i] = counts[i] == 0 ? DaySlice.EMPTY : new DaySlice(counts[i], breedCounts[i], scoreSums[i]);
+            }
+            return slices;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String breedName(int breedCode) {
+        lock.readLock().lock();
+        try {
+            return breeds.decode(breedCode);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aggregates one farm's facts dated within [start, end]
+     */
+    public FarmScan scanFarm(String userId, LocalDate start, LocalDate end) {
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            int farmCode = farms.lookup(userId);
+            FarmScan scan = new FarmScan(breeds.size(), states.size());
+            if (farmCode < 0) {
+                return scan;
+            }
+            for (MonthPartition partition : overlapping(startDay, endDay)) {
+                scanPartition(partition, farmCode, startDay, endDay, scan);
+            }
+            scan.resolve(breeds::decode, states::decode);
+            return scan;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void scanPartition(MonthPartition p, int farmCode, int startDay, int endDay, FarmScan scan) {
+        int[] farm = p.farm;
+        int[] day = p.epochDay;
+        int[] score = p.score;
+        int[] breed = p.breed;
+        int[] state = p.state;
+        boolean checkDeleted = p.hasDeletes();
+
+        int count = 0;
+        long scoreSum = 0;
+        int good = 0;
+        for (int row = 0, size = p.size; row < size; row++) {
+            if (farm[row] != farmCode) {
+                continue;
+            }
+            int d = day[row];
+            if (d < startDay || d > endDay || (checkDeleted && p.isDeleted(row))) {
+                continue;
+            }
+            int s = score[row];
+            count++;
+            scoreSum += s;
+            good += s >= GOOD_SCORE ? 1 : 0;
+            scan.breedCounts[breed[row]]++;
+            if (state[row] >= 0) {
+                scan.stateCounts[state[row]]++;
+            }
+        }
+        scan.add(count, scoreSum, good);
+    }
+
+    /**
+     * Average ATC score over [start, end] of records with a known state,
+     * nationally and for one state. Months fully inside the range come from per-state sums; only the
+     * partial months at either end are scanned.
+     */
+    public RegionAverages averages(LocalDate start, LocalDate end, String state) {
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            int stateCode = state == null ? -1 : states.lookup(state);
+            long nationalSum = 0;
+            long nationalCount = 0;
+            long regionalSum = 0;
+            long regionalCount = 0;
+            for (MonthPartition p : overlapping(startDay, endDay)) {
+                if (p.coversWholeMonth(startDay, endDay)) {
+                    for (int code = 0; code < p.countByState.length; code++) {
+                        nationalSum += p.scoreSumByState[code];
+                        nationalCount += p.countByState[code];
+                    }
+                    if (stateCode >= 0 && stateCode < p.countByState.length) {
+                        regionalSum += p.scoreSumByState[stateCode];
+                        regionalCount += p.countByState[stateCode];
+                    }
+                    continue;
+                }
+                boolean checkDeleted = p.hasDeletes();
+                for (int row = 0, size = p.size; row < size; row++) {
+                    int d = p.epochDay[row];
+                    if (d < startDay || d > endDay || p.state[row] < 0 || (checkDeleted && p.isDeleted(row))) {
+                        continue;
+                    }
+                    nationalSum += p.score[row];
+                    nationalCount++;
+                    if (p.state[row] == stateCode) {
+                        regionalSum += p.score[row];
+                        regionalCount++;
+                    }
+                }
+            }
+            return new RegionAverages(mean(nationalSum, nationalCount), mean(regionalSum, regionalCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<MonthPartition> overlapping(int startDay, int endDay) {
+        if (startDay > endDay) {
+            return List.of();
+        }
+        int from = monthKey(LocalDate.ofEpochDay(startDay));
+        int to = monthKey(LocalDate.ofEpochDay(endDay));
+        return new ArrayList<>(partitions.subMap(from, true, to, true).values());
+    }
+
+    private void append(StoredRecord record) {
+        LocalDate date = Instant.ofEpochMilli(record.recordDate()).atZone(AtsRollupStore.REPORTING_ZONE).toLocalDate();
+        int key = monthKey(date);
+        MonthPartition partition = partitions.computeIfAbsent(key, k -> {
+            YearMonth month = YearMonth.of(date.getYear(), date.getMonth());
+            return new MonthPartition(k, (int) month.atDay(1).toEpochDay(), (int) month.atEndOfMonth().toEpochDay());
+        });
+
+        String breed = record.breed() == null || record.breed().isBlank() ? "Unknown" : record.breed().trim();
+        String state = record.location() == null ? null : record.location().state();
+        int row = partition.append(
+                record.id(),
+                (int) date.toEpochDay(),
+                record.atcScore(),
+                breeds.encode(breed),
+                farms.encode(record.userId()),
+                state == null || state.isBlank() ? -1 : states.encode(state.trim())
+        );
+        setRow(record.id(), key, row);
+    }
+
+    private void remove(long recordId) {
+        if (recordId >= rowOf.length || rowOf[(int) recordId] == 0) {
+            return;
+        }
+        long packed = rowOf[(int) recordId];
+        rowOf[(int) recordId] = 0;
+        MonthPartition partition = partitions.get((int) (packed >>> 32));
+        partition.delete((int) (packed & 0xFFFFFFFFL) - 1);
+
+        if (partition.live == 0) {
+            partitions.remove(partition.monthKey);
+        } else if (partition.needsCompaction()) {
+            partition.compact((id, newRow) -> setRow(id, partition.monthKey, newRow));
+        }
+    }
+
+    private void setRow(long recordId, int monthKey, int row) {
+        if (recordId >= rowOf.length) {
+            rowOf = Arrays.copyOf(rowOf, (int) Math.max(recordId + 1, rowOf.length * 2L));
+        }
+        rowOf[(int) recordId] = ((long) monthKey << 32) | (row + 1L);
+    }
+
+    private static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static double mean(long sum, long count) {
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    public record RegionAverages(double national, double regional) {
+    }
+
+    /**
+     * Result of {@link #scanFarm}. Counts are gathered by dictionary code and
+     * resolved to names once at the end.
+     */
+    public static final class FarmScan {
+        final int[] breedCounts;
+        final int[] stateCounts;
+
+        private int count;
+        private long scoreSum;
+        private int good;
+        private final Map<String, Integer> breedDistribution = new LinkedHashMap<>();
+        private String homeState;
+
+        FarmScan(int breedCount, int stateCount) {
+            this.breedCounts = new int[breedCount];
+            this.stateCounts = new int[stateCount];
+        }
+
+        void add(int rows, long sum, int goodRows) {
+            count += rows;
+            scoreSum += sum;
+            good += goodRows;
+        }
+
+        void resolve(IntFunction<String> breedName, IntFunction<String> stateName) {
+            for (int code = 0; code < breedCounts.length; code++) {
+                if (breedCounts[code] > 0) {
+                    breedDistribution.put(breedName.apply(code), breedCounts[code]);
+                }
+            }
+            int best = -1;
+            for (int code = 0; code < stateCounts.length; code++) {
+                if (stateCounts[code] > 0 && (best < 0 || stateCounts[code] > stateCounts[best])) {
+                    best = code;
+                }
+            }
+            homeState = best < 0 ? null : stateName.apply(best);
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public double averageScore() {
+            return count == 0 ? Double.NaN : (double) scoreSum / count;
+        }
+
+        /** Fraction of animals at or above {@link #GOOD_SCORE} */
+        public double goodFraction() {
+            return count == 0 ? Double.NaN : (double) good / count;
+        }
+
+        public Map<String, Integer> breedDistribution() {
+            return breedDistribution;
+        }
+
+        /** State most of the farm's animals were recorded in, or null */
+        public String homeState() {
+            return homeState;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.cattlebreed.backend.analytics;
+
+import com.cattlebreed.backend.analytics.FactStore.FarmScan;
+import com.cattlebreed.backend.analytics.FactStore.RegionAverages;
+import com.cattlebreed.backend.api.ApiModels.AnalyticsData;
+import com.cattlebreed.backend.api.ApiModels.BenchmarkData;
+import com.cattlebreed.backend.api.ApiModels.FarmAnalyticsRequest;
+import com.cattlebreed.backend.api.ApiModels.FarmAnalyticsResponse;
+import com.cattlebreed.backend.api.ApiModels.HealthTrendData;
+import com.cattlebreed.backend.api.ApiModels.PerformanceMetrics;
+import com.cattlebreed.backend.api.ApiModels.RegionTrendData;
+import com.cattlebreed.backend.api.ApiModels.RegionTrendResponse;
+import com.cattlebreed.backend.api.ApiModels.TrendPoint;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.stats.RegionalStats;
+import com.cattlebreed.backend.timeseries.TrendStore;
+import com.cattlebreed.backend.timeseries.TrendStore.Point;
+import com.cattlebreed.backend.timeseries.TrendStore.Trend;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the farm report for POST analytics/farm from the columnar {@link FactStore},
+ * and health trends from the pre-rolled {@link TrendStore}
+ */
+public final class FarmAnalyticsService {
+
+    private static final long MAX_RANGE_DAYS = 5 * 366;
+    // Below this many ranked farms a state's distribution is too thin; rank nationally instead
+    private static final long MIN_REGIONAL_FARMS = 50;
+
+    private final FactStore facts;
+    private final RegionalStats regionalStats;
+    private final TrendStore trends;
+
+    public FarmAnalyticsService(FactStore facts, RegionalStats regionalStats, TrendStore trends) {
+        this.facts = facts;
+        this.regionalStats = regionalStats;
+        this.trends = trends;
+    }
+
+    public FarmAnalyticsResponse report(String userId, FarmAnalyticsRequest request) {
+        LocalDate start = parseDate(request.startDate(), "startDate");
+        LocalDate end = parseDate(request.endDate(), "endDate");
+        checkRange(start, end);
+
+        FarmScan scan = facts.scanFarm(userId, start, end);
+        boolean compare = request.includeComparisons() == null || request.includeComparisons();
+        BenchmarkData benchmark = compare && scan.count() > 0 ? benchmark(scan, start, end) : null;
+
+        // Points are whole buckets, so a weekly or monthly first point may reach back before start
+        List<HealthTrendData> healthTrends = new ArrayList<>();
+        for (Point point : trends.farmTrend(userId, start, end).points()) {
+            // Buckets without any AI health score carry no trend point
+            if (!Double.isNaN(point.averageHealth())) {
+                healthTrends.add(new HealthTrendData(point.start().toString(), (float) point.averageHealth(), point.count()));
+            }
+        }
+
+        float productivity = scan.count() == 0 ? 0f : (float) (scan.goodFraction() * 100);
+        AnalyticsData data = new AnalyticsData(
+                scan.count(),
+                scan.count() == 0 ? 0f : (float) scan.averageScore(),
+                scan.breedDistribution(),
+                healthTrends,
+                new PerformanceMetrics(productivity, improvementSuggestions(scan, benchmark), benchmark),
+                recommendations(scan, healthTrends)
+        );
+        return new FarmAnalyticsResponse(true, data);
+    }
+
+    /**
+     * ATC score and health trend of one state, or of the country when {@code state} is null
+     */
+    public RegionTrendResponse regionTrend(String state, String startDate, String endDate) {
+        LocalDate start = parseDate(startDate, "startDate");
+        LocalDate end = parseDate(endDate, "endDate");
+        checkRange(start, end);
+        String region = state == null || state.isBlank() ? null : state.trim();
+
+        Trend trend = trends.regionTrend(region, start, end);
+        List<TrendPoint> points = new ArrayList<>(trend.points().size());
+        for (Point point : trend.points()) {
+            points.add(new TrendPoint(
+                    point.start().toString(),
+                    point.count(),
+                    (float) point.averageScore(),
+                    Double.isNaN(point.averageHealth()) ? null : (float) point.averageHealth()
+            ));
+        }
+        return new RegionTrendResponse(true, new RegionTrendData(region, trend.resolution().name(), points));
+    }
+
+    private BenchmarkData benchmark(FarmScan scan, LocalDate start, LocalDate end) {
+        RegionAverages averages = facts.averages(start, end, scan.homeState());
+        if (Double.isNaN(averages.national())) {
+            return null;
+        }
+        double regional = Double.isNaN(averages.regional()) ? averages.national() : averages.regional();
+        return new BenchmarkData((float) regional, (float) averages.national(), ranking(scan));
+    }
+
+    /**
+     * Places the farm's average for the range within the distribution of
+     * every farm's overall average, in its state when the state has enough farms
+     */
+    private String ranking(FarmScan scan) {
+        String state = scan.homeState();
+        if (state == null || regionalStats.rankedFarms(state) < MIN_REGIONAL_FARMS) {
+            state = null;
+        }
+        double percentile = regionalStats.farmPercentile(scan.averageScore(), state);
+        if (Double.isNaN(percentile)) {
+            return "AVERAGE";
+        }
+        if (percentile >= 0.90) {
+            return "TOP_10_PERCENT";
+        } else if (percentile >= 0.75) {
+            return "TOP_25_PERCENT";
+        } else if (percentile >= 0.50) {
+            return "ABOVE_AVERAGE";
+        } else if (percentile >= 0.25) {
+            return "BELOW_AVERAGE";
+        }
+        return "BOTTOM_25_PERCENT";
+    }
+
+    private static List<String> improvementSuggestions(FarmScan scan, BenchmarkData benchmark) {
+        List<String> suggestions = new ArrayList<>();
+        if (scan.count() == 0) {
+            return suggestions;
+        }
+        if (scan.averageScore() < 60) {
+            suggestions.add("Average ATC score is below 60; review feeding and body condition of low-scoring animals");
+        }
+        if (scan.goodFraction() < 0.5) {
+            suggestions.add("Fewer than half of the animals score " + FactStore.GOOD_SCORE
+                    + " or above; prioritise them for breeding selection review");
+        }
+        if (benchmark != null && scan.averageScore() < benchmark.regionalAverage()) {
+            suggestions.add(String.format("Farm average is below the regional average of %.1f", benchmark.regionalAverage()));
+        }
+        return suggestions;
+    }
+
+    private static List<String> recommendations(FarmScan scan, List<HealthTrendData> trends) {
+        List<String> recommendations = new ArrayList<>();
+        if (scan.count() == 0) {
+            recommendations.add("No animals were assessed in this period");
+            return recommendations;
+        }
+        if (trends.size() >= 2) {
+            float first = trends.get(0).averageHealth();
+            float last = trends.get(trends.size() - 1).averageHealth();
+            if (last < first - 5) {
+                recommendations.add("Average health has declined over the period; schedule a veterinary check");
+            }
+        } else if (trends.isEmpty()) {
+            recommendations.add("Run AI analysis on new assessments to track herd health over time");
+        }
+        if (scan.breedDistribution().getOrDefault("Unknown", 0) * 2 > scan.count()) {
+            recommendations.add("Most animals have no breed classification; retake photos in good light");
+        }
+        return recommendations;
+    }
+
+    private static void checkRange(LocalDate start, LocalDate end) {
+        if (end.isBefore(start) || ChronoUnit.DAYS.between(start, end) > MAX_RANGE_DAYS) {
+            throw HttpError.badRequest("endDate must be after startDate and within " + MAX_RANGE_DAYS + " days of it");
+        }
+    }
+
+    private static LocalDate parseDate(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw HttpError.badRequest(field + " is required");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException ignored) {
+            // Full timestamp; take its date in the reporting zone
+        }
+        Long millis = IsoDates.parse(value);
+        if (millis == null) {
+            throw HttpError.badRequest(field + " is not an ISO date");
+        }
+        return Instant.ofEpochMilli(millis).atZone(AtsRollupStore.REPORTING_ZONE).toLocalDate();
+    }
+}
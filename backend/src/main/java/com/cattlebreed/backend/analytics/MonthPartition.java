@@ -0,0 +1,136 @@
+package com.cattlebreed.backend.analytics;
+
+import java.util.Arrays;
+
+/**
+ * One calendar month of analysis facts stored column by column.
+ *
+ * Every column is a primitive array indexed by row, so a scan touches only the
+ * columns it needs and runs as a tight loop over contiguous memory. Deletes
+ * set a bit and are reclaimed by {@link #compact}. Per-state sums are kept up
+ * to date so a query that covers the whole month never scans it for regional
+ * averages. Guarded by the owning {@link FactStore}'s lock.
+ */
+final class MonthPartition {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    final int monthKey;
+    final int firstDay;
+    final int lastDay;
+
+    int size;
+    int live;
+
+    long[] recordId = new long[INITIAL_CAPACITY];
+    int[] epochDay = new int[INITIAL_CAPACITY];
+    int[] score = new int[INITIAL_CAPACITY];
+    int[] breed = new int[INITIAL_CAPACITY];
+    int[] farm = new int[INITIAL_CAPACITY];
+    int[] state = new int[INITIAL_CAPACITY];
+    long[] deleted = new long[INITIAL_CAPACITY / 64];
+
+    long[] scoreSumByState = new long[16];
+    int[] countByState = new int[16];
+
+    MonthPartition(int monthKey, int firstDay, int lastDay) {
+        this.monthKey = monthKey;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+    }
+
+    int append(long id, int day, int atcScore, int breedCode, int farmCode, int stateCode) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        recordId[row] = id;
+        epochDay[row] = day;
+        score[row] = atcScore;
+        breed[row] = breedCode;
+        farm[row] = farmCode;
+        state[row] = stateCode;
+        live++;
+        adjustState(stateCode, atcScore, 1);
+        return row;
+    }
+
+    void delete(int row) {
+        if (isDeleted(row)) {
+            return;
+        }
+        deleted[row >>> 6] |= 1L << row;
+        live--;
+        adjustState(state[row], score[row], -1);
+    }
+
+    boolean isDeleted(int row) {
+        return (deleted[row >>> 6] & (1L << row)) != 0;
+    }
+
+    boolean hasDeletes() {
+        return live < size;
+    }
+
+    boolean needsCompaction() {
+        return size >= INITIAL_CAPACITY && live < size * 3 / 4;
+    }
+
+    /**
+     * Drops deleted rows in place and reports each surviving row's new position
+     */
+    void compact(RowMover mover) {
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            if (isDeleted(read)) {
+                continue;
+            }
+            if (write != read) {
+                recordId[write] = recordId[read];
+                epochDay[write] = epochDay[read];
+                score[write] = score[read];
+                breed[write] = breed[read];
+                farm[write] = farm[read];
+                state[write] = state[read];
+                mover.moved(recordId[write], write);
+            }
+            write++;
+        }
+        size = write;
+        Arrays.fill(deleted, 0);
+    }
+
+    boolean coversWholeMonth(int startDay, int endDay) {
+        return startDay <= firstDay && endDay >= lastDay;
+    }
+
+    private void adjustState(int stateCode, int atcScore, int sign) {
+        if (stateCode < 0) {
+            return;
+        }
+        if (stateCode >= countByState.length) {
+            int length = Math.max(stateCode + 1, countByState.length * 2);
+            countByState = Arrays.copyOf(countByState, length);
+            scoreSumByState = Arrays.copyOf(scoreSumByState, length);
+        }
+        countByState[stateCode] += sign;
+        scoreSumByState[stateCode] += (long) atcScore * sign;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= recordId.length) {
+            return;
+        }
+        int capacity = Math.max(required, recordId.length * 2);
+        recordId = Arrays.copyOf(recordId, capacity);
+        epochDay = Arrays.copyOf(epochDay, capacity);
+        score = Arrays.copyOf(score, capacity);
+        breed = Arrays.copyOf(breed, capacity);
+        farm = Arrays.copyOf(farm, capacity);
+        state = Arrays.copyOf(state, capacity);
+        deleted = Arrays.copyOf(deleted, (capacity + 63) / 64);
+    }
+
+    @FunctionalInterface
+    interface RowMover {
+        void moved(long recordId, int newRow);
+    }
+}
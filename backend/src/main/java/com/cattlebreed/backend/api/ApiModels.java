@@ -0,0 +1,415 @@
+package com.cattlebreed.backend.api;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wire models shared with the Android app.
+ * Mirrors frontend_app/.../network/ApiModels.kt; field names must stay in sync.
+ */
+public final class ApiModels {
+
+    private ApiModels() {
+    }
+
+    // Authentication APIs
+
+    // SendOTPRequest and AuthResponse live in the app's data/auth/AuthModels.kt
+    public record SendOtpRequest(
+            String phoneNumber,
+            String countryCode
+    ) {
+    }
+
+    public record AuthResponse(
+            boolean success,
+            String message,
+            String token,
+            UserProfile user,
+            String devCode // the code itself, only when the server runs with cattle.otp.echo
+    ) {
+    }
+
+    public record UserProfile(
+            String phoneNumber,
+            String farmName,
+            String farmerName,
+            String location,
+            String preferredLanguage,
+            boolean isVerified
+    ) {
+    }
+
+    public record LoginRequest(
+            String phoneNumber,
+            String otp,
+            String deviceId,
+            String appVersion
+    ) {
+    }
+
+    public record LoginResponse(
+            boolean success,
+            String message,
+            AuthData data
+    ) {
+    }
+
+    public record AuthData(
+            String token,
+            String refreshToken,
+            ApiUser user,
+            List<String> permissions
+    ) {
+    }
+
+    public record ApiUser(
+            String id,
+            String phoneNumber,
+            String name,
+            String farmName,
+            String location,
+            boolean isVerified,
+            UserRole role,
+            String createdAt,
+            String updatedAt
+    ) {
+    }
+
+    public enum UserRole {
+        FARMER,
+        VETERINARIAN,
+        ADMIN,
+        FIELD_OFFICER
+    }
+
+    // Animal Record APIs
+
+    public record SyncAnimalRecordsRequest(
+            List<AnimalRecordDto> records,
+            Long lastSyncTimestamp,
+            List<String> deletedRecordIds // animalIds deleted on the device
+    ) {
+    }
+
+    public record SyncAnimalRecordsResponse(
+            boolean success,
+            String message,
+            SyncData data
+    ) {
+    }
+
+    public record SyncData(
+            List<String> syncedRecords,
+            List<ConflictRecord> conflicts,
+            List<AnimalRecordDto> serverRecords,
+            List<String> deletedRecords,
+            long lastSyncTimestamp,
+            boolean hasMore // more server changes follow lastSyncTimestamp
+    ) {
+    }
+
+    public record ConflictRecord(
+            AnimalRecordDto localRecord,
+            AnimalRecordDto serverRecord,
+            ConflictType conflictType
+    ) {
+    }
+
+    public enum ConflictType {
+        MODIFIED_ON_BOTH,
+        DELETED_ON_SERVER,
+        NEWER_ON_SERVER
+    }
+
+    public record AnimalRecordDto(
+            String id,
+            Long localId,
+            String animalId,
+            String userId,
+            String imagePath,
+            String imageUrl,
+            String date, // ISO format
+            double bodyLength,
+            double height,
+            double chestWidth,
+            double rumpAngle,
+            int atcScore,
+            boolean synced,
+            AIAnalysisDto aiAnalysis,
+            LocationDto location,
+            String notes,
+            String createdAt,
+            String updatedAt,
+            int version
+    ) {
+    }
+
+    public record AIAnalysisDto(
+            String breedClassification,
+            float confidence,
+            Float healthScore,
+            String qualityGrade,
+            List<String> recommendations,
+            String providerId,
+            String modelVersion,
+            long processingTime
+    ) {
+    }
+
+    public record LocationDto(
+            Double latitude,
+            Double longitude,
+            String address,
+            String farmName,
+            String state, // e.g. "Gujarat"; drives the state/district dashboards
+            String district
+    ) {
+    }
+
+    // File Upload APIs
+
+    public record ImageUploadRequest(
+            String recordId,
+            String fileName,
+            String contentType,
+            long fileSize
+    ) {
+    }
+
+    public record ImageUploadResponse(
+            boolean success,
+            String message,
+            UploadData data
+    ) {
+    }
+
+    public record UploadData(
+            String uploadUrl,
+            String fileId,
+            String expiresAt
+    ) {
+    }
+
+    // Analytics and Reporting APIs
+
+    public record FarmAnalyticsRequest(
+            String startDate,
+            String endDate,
+            Boolean includeComparisons
+    ) {
+    }
+
+    public record FarmAnalyticsResponse(
+            boolean success,
+            AnalyticsData data
+    ) {
+    }
+
+    public record AnalyticsData(
+            int totalAnimals,
+            float averageAtcScore,
+            Map<String, Integer> breedDistribution,
+            List<HealthTrendData> healthTrends,
+            PerformanceMetrics performanceMetrics,
+            List<String> recommendations
+    ) {
+    }
+
+    public record HealthTrendData(
+            String date,
+            float averageHealth,
+            int animalCount
+    ) {
+    }
+
+    public record PerformanceMetrics(
+            float productivityScore,
+            List<String> improvementSuggestions,
+            BenchmarkData benchmarkComparison
+    ) {
+    }
+
+    public record BenchmarkData(
+            float regionalAverage,
+            float nationalAverage,
+            String ranking // TOP_10_PERCENT, ABOVE_AVERAGE, etc.
+    ) {
+    }
+
+    public record RegionTrendResponse(
+            boolean success,
+            RegionTrendData data
+    ) {
+    }
+
+    public record RegionTrendData(
+            String region, // state, or null for national
+            String resolution, // DAY, WEEK or MONTH
+            List<TrendPoint> points
+    ) {
+    }
+
+    public record TrendPoint(
+            String date, // first day of the bucket
+            int animalCount,
+            float averageAtcScore,
+            Float averageHealth // null when no record in the bucket has an AI health score
+    ) {
+    }
+
+    // Admin Panel APIs (for web app integration)
+
+    public record AdminDashboardRequest(
+            String dateRange, // "7d", "30d", "90d", "1y"
+            String region
+    ) {
+    }
+
+    public record AdminDashboardResponse(
+            boolean success,
+            AdminDashboardData data
+    ) {
+    }
+
+    public record AdminDashboardData(
+            int totalFarmers,
+            int totalAnimals,
+            int activeUsers,
+            int recentAnalyses,
+            List<BreedStatistic> topBreeds,
+            SystemHealthData systemHealth,
+            List<SystemAlert> alerts
+    ) {
+    }
+
+    public record BreedStatistic(
+            String breedName,
+            int count,
+            float percentage,
+            float averageScore
+    ) {
+    }
+
+    public record SystemHealthData(
+            float apiResponseTime, // mean over the last minute, ms
+            float errorRate, // percent of requests answered 5xx over the last minute
+            int activeConnections,
+            String databaseHealth
+    ) {
+    }
+
+    public record SystemAlert(
+            String id,
+            AlertType type,
+            String message,
+            AlertSeverity severity,
+            String createdAt,
+            boolean resolved
+    ) {
+    }
+
+    public enum AlertType {
+        SYSTEM_ERROR,
+        HIGH_LOAD,
+        API_FAILURE,
+        DATABASE_ISSUE,
+        SECURITY_CONCERN
+    }
+
+    public enum AlertSeverity {
+        LOW,
+        MEDIUM,
+        HIGH,
+        CRITICAL
+    }
+
+    // Configuration and Settings APIs
+
+    public record AppConfigResponse(
+            boolean success,
+            AppConfigData data
+    ) {
+    }
+
+    public record AppConfigData(
+            AIProviderConfig aiProviderConfig,
+            SyncSettings syncSettings,
+            UISettings uiSettings,
+            Map<String, Boolean> featureFlags
+    ) {
+    }
+
+    public record AIProviderConfig(
+            String defaultProvider,
+            List<String> availableProviders,
+            float confidenceThreshold,
+            boolean enableLocalProcessing
+    ) {
+    }
+
+    public record SyncSettings(
+            boolean autoSyncEnabled,
+            long syncInterval, // minutes
+            boolean wifiOnlySync,
+            int maxRetries
+    ) {
+    }
+
+    public record UISettings(
+            String theme,
+            String defaultLanguage,
+            List<String> availableLanguages,
+            boolean showAdvancedFeatures
+    ) {
+    }
+
+    // Generic API Response Wrapper
+
+    public record ApiResponse<T>(
+            boolean success,
+            String message,
+            T data,
+            ApiError error,
+            String timestamp,
+            String version
+    ) {
+    }
+
+    public record ApiError(
+            String code,
+            String message,
+            Map<String, Object> details
+    ) {
+    }
+
+    // Pagination for list APIs
+
+    public record PaginatedRequest(
+            Integer page,
+            Integer limit,
+            String sortBy,
+            String sortOrder, // asc or desc
+            Map<String, String> filters,
+            String cursor, // nextCursor of the previous page; takes precedence over page
+            Boolean includeTotal // false skips totalItems/totalPages (reported as -1)
+    ) {
+    }
+
+    public record PaginatedResponse<T>(
+            List<T> data,
+            PaginationInfo pagination
+    ) {
+    }
+
+    public record PaginationInfo(
+            int currentPage,
+            int totalPages,
+            int totalItems,
+            int itemsPerPage,
+            boolean hasNext,
+            boolean hasPrevious,
+            String nextCursor
+    ) {
+    }
+}
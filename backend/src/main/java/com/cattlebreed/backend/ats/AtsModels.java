@@ -0,0 +1,43 @@
+package com.cattlebreed.backend.ats;
+
+import java.util.List;
+
+/**
+ * Dashboard wire models. Field names match frontend_web/src/types.ts.
+ */
+public final class AtsModels {
+
+    private AtsModels() {
+    }
+
+    public record AtsRow(
+            String state,
+            String district,
+            long totalEvaluated,
+            long cattle,
+            long buffalo,
+            Double avgScore,
+            String avgRange // interquartile range of ATC scores, e.g. "68–74"
+    ) {
+    }
+
+    public record AtsState(
+            String state,
+            Double avgScore,
+            String avgRange,
+            long totalEvaluated,
+            long cattle,
+            long buffalo,
+            List<AtsRow> districts
+    ) {
+    }
+
+    public record AtsStatesResponse(
+            boolean success,
+            String yearType,
+            int year,
+            AtsRow national,
+            List<AtsState> states
+    ) {
+    }
+}
@@ -0,0 +1,300 @@
+package com.cattlebreed.backend.ats;
+
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.ats.AtsModels.AtsRow;
+import com.cattlebreed.backend.ats.AtsModels.AtsState;
+import com.cattlebreed.backend.ats.AtsModels.AtsStatesResponse;
+import com.cattlebreed.backend.ats.BreedCatalog.Species;
+import com.cattlebreed.backend.stats.ScoreHistogram;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.RecordChangeListener;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Pre-aggregated ATC statistics per (year type, year) → state → district.
+ *
+ * Each synced record moves its contribution between cells as it is inserted,
+ * edited or deleted. A dashboard query reads one cell per region instead of
+ * scanning records. The rollups are rebuilt from storage on startup. Sync
+ * delivers each user's changes in commit order, so a record's removal never
+ * arrives before its addition and the cells stay equal to a rebuild.
+ *
+ * Records without a state in their location can't be placed on the map.
+ * They are left out; records without a district count toward their state only.
+ */
+public final class AtsRollupStore implements RecordChangeListener {
+
+    private static final Logger LOG = Logger.getLogger(AtsRollupStore.class.getName());
+
+    /** Records are assigned to a year by their date in India */
+    public static final ZoneId REPORTING_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final Map<Period, PeriodRollup> periods = new HashMap<>();
+    // Change counters behind the ETags. Kept apart from the rollups, which drop
+    // regions that empty out, so a version never goes backwards.
+    private final Map<Period, Long> periodVersions = new HashMap<>();
+    private final Map<StateKey, Long> stateVersions = new HashMap<>();
+    // Distinguishes this load from earlier processes whose counters also started at zero
+    private String epoch = Long.toString(System.currentTimeMillis(), 36);
+    // Writes touch a handful of cells; queries only read, so they share the lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Database database, RecordStore store) throws SQLException {
+        long started = System.nanoTime();
+        long[] records = new long[1];
+        lock.writeLock().lock();
+        try {
+            periods.clear();
+            periodVersions.clear();
+            stateVersions.clear();
+            epoch = Long.toString(System.currentTimeMillis(), 36);
+            database.withConnection(connection -> {
+                store.forEachLive(connection, record -> {
+                    apply(contributionOf(record), 1);
+                    records[0]++;
+                });
+                return null;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Rebuilt ATS rollups from " + records[0] + " records in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public void onRecordChanged(StoredRecord before, StoredRecord after) {
+        Contribution removed = contributionOf(before);
+        Contribution added = contributionOf(after);
+        if (removed == null && added == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            apply(removed, -1);
+            apply(added, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Every state with data in the period, sorted by name. Districts are left
+     * empty; the dashboard loads them per state through {@link #state}.
+     */
+    public AtsStatesResponse states(YearType yearType, int year) {
+        lock.readLock().lock();
+        try {
+            PeriodRollup period = periods.get(new Period(yearType, year));
+            if (period == null) {
+                return new AtsStatesResponse(true, yearType.label(), year, Cell.EMPTY.toRow(null, null), List.of());
+            }
+            List<AtsState> states = new ArrayList<>(period.states.size());
+            period.states.forEach((name, state) -> states.add(state.toState(name, false)));
+            states.sort(Comparator.comparing(AtsState::state));
+            return new AtsStatesResponse(true, yearType.label(), year, period.national.toRow(null, null), states);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One state with its districts sorted by name; zero totals when it has no data in the period
+     */
+    public AtsState state(YearType yearType, int year, String name) {
+        String state = regionName(name);
+        lock.readLock().lock();
+        try {
+            PeriodRollup period = periods.get(new Period(yearType, year));
+            StateRollup rollup = period == null || state == null ? null : period.states.get(state);
+            return rollup == null ? new StateRollup().toState(state, true) : rollup.toState(state, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Changes whenever any state's figures for the period change */
+    public String statesEtag(YearType yearType, int year) {
+        lock.readLock().lock();
+        try {
+            return etag(periodVersions.getOrDefault(new Period(yearType, year), 0L));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Changes whenever the state's or its districts' figures for the period change */
+    public String stateEtag(YearType yearType, int year, String name) {
+        lock.readLock().lock();
+        try {
+            return etag(stateVersions.getOrDefault(new StateKey(new Period(yearType, year), regionName(name)), 0L));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String etag(long version) {
+        return "\"ats-" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Copy of the score distribution of one region: national when {@code state}
+     * is null, the whole state when {@code district} is null
+     */
+    public ScoreHistogram scores(YearType yearType, int year, String state, String district) {
+        lock.readLock().lock();
+        try {
+            PeriodRollup period = periods.get(new Period(yearType, year));
+            Cell cell = period == null ? null : period.cell(state, district);
+            return cell == null ? new ScoreHistogram() : cell.scores.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution == null) {
+            return;
+        }
+        for (YearType yearType : YearType.values()) {
+            Period key = new Period(yearType, yearType.yearOf(contribution.date()));
+            PeriodRollup period = periods.computeIfAbsent(key, k -> new PeriodRollup());
+            periodVersions.merge(key, 1L, Long::sum);
+            stateVersions.merge(new StateKey(key, contribution.state()), 1L, Long::sum);
+            period.national.apply(contribution, sign);
+
+            StateRollup state = period.states.computeIfAbsent(contribution.state(), k -> new StateRollup());
+            state.total.apply(contribution, sign);
+            if (contribution.district() != null) {
+                Cell district = state.districts.computeIfAbsent(contribution.district(), k -> new Cell());
+                district.apply(contribution, sign);
+                if (district.total == 0) {
+                    state.districts.remove(contribution.district());
+                }
+            }
+
+            // Keep the maps proportional to regions that actually have data
+            if (state.total.total == 0) {
+                period.states.remove(contribution.state());
+            }
+            if (period.national.total == 0) {
+                periods.remove(key);
+            }
+        }
+    }
+
+    private static Contribution contributionOf(StoredRecord record) {
+        if (record == null || record.deleted()) {
+            return null;
+        }
+        LocationDto location = record.location();
+        String state = location == null ? null : regionName(location.state());
+        if (state == null) {
+            return null;
+        }
+        LocalDate date = Instant.ofEpochMilli(record.recordDate()).atZone(REPORTING_ZONE).toLocalDate();
+        return new Contribution(
+                state,
+                regionName(location.district()),
+                date,
+                BreedCatalog.speciesOf(record.breed()),
+                record.atcScore()
+        );
+    }
+
+    private static String regionName(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim().replaceAll("\\s+", " ");
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private record Period(YearType yearType, int year) {
+    }
+
+    private record StateKey(Period period, String state) {
+    }
+
+    private record Contribution(String state, String district, LocalDate date, Species species, int score) {
+    }
+
+    private static final class PeriodRollup {
+        final Cell national = new Cell();
+        final Map<String, StateRollup> states = new HashMap<>();
+
+        Cell cell(String state, String district) {
+            if (state == null) {
+                return national;
+            }
+            StateRollup rollup = states.get(state);
+            if (rollup == null) {
+                return null;
+            }
+            return district == null ? rollup.total : rollup.districts.get(district);
+        }
+    }
+
+    private static final class StateRollup {
+        final Cell total = new Cell();
+        final Map<String, Cell> districts = new TreeMap<>();
+
+        AtsState toState(String name, boolean withDistricts) {
+            List<AtsRow> rows = new ArrayList<>(withDistricts ? districts.size() : 0);
+            if (withDistricts) {
+                districts.forEach((district, cell) -> rows.add(cell.toRow(name, district)));
+            }
+            AtsRow row = total.toRow(name, null);
+            return new AtsState(name, row.avgScore(), row.avgRange(), row.totalEvaluated(), row.cattle(),
+                    row.buffalo(), rows);
+        }
+    }
+
+    private static final class Cell {
+        static final Cell EMPTY = new Cell();
+
+        long total;
+        long cattle;
+        long buffalo;
+        final ScoreHistogram scores = new ScoreHistogram();
+
+        void apply(Contribution contribution, int sign) {
+            total += sign;
+            switch (contribution.species()) {
+                case CATTLE -> cattle += sign;
+                case BUFFALO -> buffalo += sign;
+                case UNKNOWN -> {
+                }
+            }
+            if (sign > 0) {
+                scores.add(contribution.score());
+            } else {
+                scores.remove(contribution.score());
+            }
+        }
+
+        AtsRow toRow(String state, String district) {
+            if (total == 0) {
+                return new AtsRow(state, district, 0, 0, 0, null, null);
+            }
+            double mean = Math.round(scores.mean() * 10) / 10.0;
+            String range = scores.quantile(0.25) + "–" + scores.quantile(0.75);
+            return new AtsRow(state, district, total, cattle, buffalo, mean, range);
+        }
+    }
+}
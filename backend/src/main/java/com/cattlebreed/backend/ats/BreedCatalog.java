@@ -0,0 +1,40 @@
+package com.cattlebreed.backend.ats;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Maps AI breed classifications to species for the cattle/buffalo split
+ */
+public final class BreedCatalog {
+
+    public enum Species {
+        CATTLE,
+        BUFFALO,
+        UNKNOWN
+    }
+
+    // Registered Indian buffalo breeds, normalized to lowercase letters only
+    private static final Set<String> BUFFALO_BREEDS = Set.of(
+            "murrah", "niliravi", "jaffarabadi", "surti", "mehsana", "bhadawari", "nagpuri",
+            "pandharpuri", "toda", "banni", "chilika", "kalahandi", "marathwadi", "luit", "bargur",
+            "chhattisgarhi", "gojri", "dharwadi", "manda", "purnathadi", "swamp", "buffalo"
+    );
+
+    private BreedCatalog() {
+    }
+
+    public static Species speciesOf(String breed) {
+        if (breed == null || breed.isBlank()) {
+            return Species.UNKNOWN;
+        }
+        String normalized = breed.toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+        if (normalized.isEmpty() || normalized.equals("unknown")) {
+            return Species.UNKNOWN;
+        }
+        if (BUFFALO_BREEDS.contains(normalized) || normalized.endsWith("buffalo")) {
+            return Species.BUFFALO;
+        }
+        return Species.CATTLE;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cattlebreed.backend.ats;
+
+import com.cattlebreed.backend.http.HttpError;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * Reporting year, matching the dashboard's YearType ('Calendar' | 'Financial')
+ */
+public enum YearType {
+    CALENDAR,
+    /** Indian financial year, April to March, labelled by the year it starts in (FY 2024-25 is 2024) */
+    FINANCIAL;
+
+    /** Name used by the web dashboard */
+    public String label() {
+        return this == CALENDAR ? "Calendar" : "Financial";
+    }
+
+    public int yearOf(LocalDate date) {
+        if (this == FINANCIAL && date.getMonthValue() < Month.APRIL.getValue()) {
+            return date.getYear() - 1;
+        }
+        return date.getYear();
+    }
+
+    public static YearType parse(String value) {
+        if (value == null || value.isBlank()) {
+            return CALENDAR;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "calendar" -> CALENDAR;
+            case "financial" -> FINANCIAL;
+            default -> throw HttpError.badRequest("Unknown year type " + value);
+        };
+    }
+}
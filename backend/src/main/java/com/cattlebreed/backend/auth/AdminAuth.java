@@ -0,0 +1,52 @@
+package com.cattlebreed.backend.auth;
+
+import com.cattlebreed.backend.http.ApiRequest;
+import com.cattlebreed.backend.http.Endpoint;
+import com.cattlebreed.backend.http.HttpError;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the admin routes, which read every user's records.
+ *
+ * X-User-Id is whatever the client sends, so it can't authorize anything.
+ * Admin callers present the configured secret as a bearer token instead,
+ * compared in constant time. With no secret configured the routes are
+ * closed.
+ */
+public final class AdminAuth {
+
+    // Long enough that the secret can't be guessed online
+    static final int MIN_TOKEN_LENGTH = 32;
+
+    private final byte[] token;
+
+    /**
+     * @param token the admin secret, or null to close the admin routes
+     */
+    public AdminAuth(String token) {
+        if (token != null && token.length() < MIN_TOKEN_LENGTH) {
+            throw new IllegalArgumentException("Admin token must be at least " + MIN_TOKEN_LENGTH + " characters");
+        }
+        this.token = token == null ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public Endpoint guard(Endpoint endpoint) {
+        return request -> {
+            check(request);
+            return endpoint.handle(request);
+        };
+    }
+
+    void check(ApiRequest request) {
+        String authorization = request.header("Authorization");
+        if (token == null || authorization == null || !authorization.startsWith("Bearer ")) {
+            throw HttpError.forbidden("Admin access required");
+        }
+        byte[] presented = authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(token, presented)) {
+            throw HttpError.forbidden("Admin access required");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cattlebreed.backend.auth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: entries are filed under the tick they expire in, so
+ * finding what expired means draining the slots passed since the last
+ * advance, not scanning every entry.
+ *
+ * Scheduling is lock-free. Advancing is done by whichever caller gets there
+ * first after a tick boundary; the others skip it. Deadlines beyond one
+ * revolution stay in their slot until their turn comes round. An entry
+ * filed while its slot is being drained waits one extra revolution, which
+ * is harmless because the expiry callback re-checks the real deadline.
+ */
+final class ExpiryWheel<T> {
+
+    private final long tickMillis;
+    private final List<ConcurrentLinkedQueue<Entry<T>>> slots;
+    private final ReentrantLock advancing = new ReentrantLock();
+    // First tick not drained yet
+    private volatile long nextTick;
+
+    ExpiryWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+        this.nextTick = nowMillis / tickMillis;
+    }
+
+    void schedule(T item, long expiresAtMillis) {
+        long tick = Math.max(Math.ceilDiv(expiresAtMillis, tickMillis), nextTick);
+        slot(tick).add(new Entry<>(item, tick));
+    }
+
+    /**
+     * Hands every entry whose tick has passed to {@code expired}. Returns at
+     * once if another thread is already advancing.
+     */
+    void advance(long nowMillis, Consumer<T> expired) {
+        long now = nowMillis / tickMillis;
+        if (now < nextTick || !advancing.tryLock()) {
+            return;
+        }
+        try {
+            // After a long idle spell one pass over every slot is enough
+            long from = Math.max(nextTick, now - slots.size() + 1);
+            List<Entry<T>> later = new ArrayList<>();
+            for (long tick = from; tick <= now; tick++) {
+                ConcurrentLinkedQueue<Entry<T>> slot = slot(tick);
+                Entry<T> entry;
+                while ((entry = slot.poll()) != null) {
+                    if (entry.tick <= now) {
+                        expired.accept(entry.item);
+                    } else {
+                        later.add(entry);
+                    }
+                }
+                slot.addAll(later);
+                later.clear();
+            }
+            nextTick = now + 1;
+        } finally {
+            advancing.unlock();
+        }
+    }
+
+    private ConcurrentLinkedQueue<Entry<T>> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, slots.size()));
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
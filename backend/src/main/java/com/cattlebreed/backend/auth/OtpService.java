@@ -0,0 +1,261 @@
+package com.cattlebreed.backend.auth;
+
+import com.cattlebreed.backend.api.ApiModels.ApiUser;
+import com.cattlebreed.backend.api.ApiModels.AuthData;
+import com.cattlebreed.backend.api.ApiModels.AuthResponse;
+import com.cattlebreed.backend.api.ApiModels.LoginRequest;
+import com.cattlebreed.backend.api.ApiModels.LoginResponse;
+import com.cattlebreed.backend.api.ApiModels.SendOtpRequest;
+import com.cattlebreed.backend.api.ApiModels.UserRole;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.http.HttpError;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Phone-number sign-in with one-time codes.
+ *
+ * One {@link PhoneState} per number holds the pending code and the send
+ * rate limit, in a concurrent map capped at {@code capacity} numbers; a full
+ * map refuses new numbers with 503 rather than growing. Each state is filed
+ * in an {@link ExpiryWheel} and dropped once both its code and its rate
+ * window have lapsed, so a storm of sends costs memory for minutes, not
+ * forever. The wheel is advanced by the requests themselves.
+ *
+ * Sends for one number are serialised on its state; verification is
+ * lock-free, with an atomic attempt counter per code so concurrent guesses
+ * can't exceed the limit between them.
+ */
+public final class OtpService {
+
+    private static final Logger LOG = Logger.getLogger(OtpService.class.getName());
+
+    static final int CODE_LENGTH = 6;
+    static final int MAX_ATTEMPTS = 3;
+    static final long CODE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    static final long RESEND_COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final int MAX_SENDS_PER_WINDOW = 5;
+    static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final ConcurrentHashMap<String, PhoneState> states = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private final boolean echoCodes;
+    private final Clock clock;
+    private final ExpiryWheel<PhoneState> wheel;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param echoCodes return the code in the send response; for local testing only, there is no SMS gateway yet
+     */
+    public OtpService(int capacity, boolean echoCodes) {
+        this(capacity, echoCodes, Clock.systemUTC());
+    }
+
+    public OtpService(int capacity, boolean echoCodes, Clock clock) {
+        this.capacity = capacity;
+        this.echoCodes = echoCodes;
+        this.clock = clock;
+        // One revolution covers the longest lifetime, so nothing is looked at twice
+        int slots = (int) (WINDOW_MILLIS / TICK_MILLIS) + 1;
+        this.wheel = new ExpiryWheel<>(TICK_MILLIS, slots, clock.millis());
+    }
+
+    public AuthResponse send(SendOtpRequest request) {
+        String phone = normalize(request == null ? null : request.phoneNumber());
+        long now = clock.millis();
+        wheel.advance(now, this::expire);
+
+        while (true) {
+            PhoneState state = stateFor(phone, now);
+            synchronized (state) {
+                if (state.removed) {
+                    continue; // swept between lookup and lock
+                }
+                if (now - state.windowStart >= WINDOW_MILLIS) {
+                    state.windowStart = now;
+                    state.sendsInWindow = 0;
+                }
+                long cooldownLeft = state.lastSentAt + RESEND_COOLDOWN_MILLIS - now;
+                if (state.sendsInWindow > 0 && cooldownLeft > 0) {
+                    throw HttpError.tooManyRequests("Wait before requesting another OTP", seconds(cooldownLeft));
+                }
+                if (state.sendsInWindow >= MAX_SENDS_PER_WINDOW) {
+                    throw HttpError.tooManyRequests("Too many OTP requests for this number",
+                            seconds(state.windowStart + WINDOW_MILLIS - now));
+                }
+                String code = newCode();
+                state.code.set(new Code(code, now + CODE_TTL_MILLIS));
+                state.sendsInWindow++;
+                state.lastSentAt = now;
+                state.expiresAt = Math.max(now + CODE_TTL_MILLIS, state.windowStart + WINDOW_MILLIS);
+                deliver(phone, code);
+                return new AuthResponse(true, "OTP sent to " + mask(phone), null, null, echoCodes ? code : null);
+            }
+        }
+    }
+
+    public LoginResponse verify(LoginRequest request) {
+        String phone = normalize(request == null ? null : request.phoneNumber());
+        String entered = request.otp();
+        if (entered == null || entered.length() != CODE_LENGTH) {
+            throw HttpError.badRequest("otp must be " + CODE_LENGTH + " digits");
+        }
+        long now = clock.millis();
+        wheel.advance(now, this::expire);
+
+        PhoneState state = states.get(phone);
+        Code code = state == null ? null : state.code.get();
+        if (code == null || code.expiresAt <= now) {
+            throw HttpError.unauthorized("OTP expired or not requested");
+        }
+        int attempt = code.attempts.incrementAndGet();
+        if (attempt > MAX_ATTEMPTS) {
+            state.code.compareAndSet(code, null);
+            throw HttpError.tooManyRequests("Too many failed attempts; request a new OTP", 0);
+        }
+        if (!MessageDigest.isEqual(code.value.getBytes(StandardCharsets.US_ASCII),
+                entered.getBytes(StandardCharsets.US_ASCII))) {
+            if (attempt == MAX_ATTEMPTS) {
+                state.code.compareAndSet(code, null);
+            }
+            throw HttpError.unauthorized("Invalid OTP");
+        }
+        // Two correct guesses racing: only one signs in
+        if (!code.used.compareAndSet(false, true)) {
+            throw HttpError.unauthorized("OTP already used");
+        }
+        state.code.compareAndSet(code, null);
+
+        String issuedAt = IsoDates.format(now);
+        ApiUser user = new ApiUser(phone, phone, null, null, null, true, UserRole.FARMER, issuedAt, issuedAt);
+        return new LoginResponse(true, "Signed in", new AuthData(newToken(), newToken(), user, List.of()));
+    }
+
+    /**
+     * Numbers currently tracked
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private PhoneState stateFor(String phone, long now) {
+        PhoneState state = states.get(phone);
+        if (state != null) {
+            return state;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            throw new HttpError(503, "OVERLOADED", "Too many pending OTP requests", seconds(TICK_MILLIS));
+        }
+        PhoneState created = new PhoneState(phone, now);
+        PhoneState existing = states.putIfAbsent(phone, created);
+        if (existing != null) {
+            size.decrementAndGet();
+            return existing;
+        }
+        wheel.schedule(created, created.expiresAt);
+        return created;
+    }
+
+    /**
+     * Wheel callback: drops the state, or files it again if a later send extended it
+     */
+    private void expire(PhoneState state) {
+        synchronized (state) {
+            if (state.expiresAt > clock.millis()) {
+                wheel.schedule(state, state.expiresAt);
+                return;
+            }
+            state.removed = true;
+        }
+        if (states.remove(state.phone, state)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private void deliver(String phone, String code) {
+        // No SMS gateway is wired up yet
+        LOG.fine(() -> "OTP for " + mask(phone) + " issued");
+    }
+
+    private String newCode() {
+        StringBuilder code = new StringBuilder(CODE_LENGTH);
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            code.append((char) ('0' + random.nextInt(10)));
+        }
+        return code.toString();
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Ten-digit Indian mobile number, as the app validates it
+     */
+    static String normalize(String phoneNumber) {
+        String digits = phoneNumber == null ? "" : phoneNumber.replaceAll("\\D", "");
+        if (digits.length() == 12 && digits.startsWith("91")) {
+            digits = digits.substring(2);
+        }
+        if (digits.length() != 10 || digits.charAt(0) < '6') {
+            throw HttpError.badRequest("Invalid phone number format");
+        }
+        return digits;
+    }
+
+    private static String mask(String phone) {
+        return "*".repeat(phone.length() - 4) + phone.substring(phone.length() - 4);
+    }
+
+    private static long seconds(long millis) {
+        return Math.max(1, Math.ceilDiv(millis, 1000));
+    }
+
+    private static final class PhoneState {
+
+        final String phone;
+        final AtomicReference<Code> code = new AtomicReference<>();
+        // Guarded by this
+        long windowStart;
+        int sendsInWindow;
+        long lastSentAt;
+        long expiresAt;
+        boolean removed;
+
+        PhoneState(String phone, long now) {
+            this.phone = phone;
+            this.windowStart = now;
+            this.expiresAt = now + WINDOW_MILLIS;
+        }
+    }
+
+    private static final class Code {
+
+        final String value;
+        final long expiresAt;
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicBoolean used = new AtomicBoolean();
+
+        Code(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
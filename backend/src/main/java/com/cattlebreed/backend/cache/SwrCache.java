@@ -0,0 +1,117 @@
+package com.cattlebreed.backend.cache;
+
+import java.time.Clock;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stale-while-revalidate cache with single-flight loading.
+ *
+ * A fresh entry is returned as is. A stale entry, either past
+ * {@code freshMillis} or explicitly invalidated, is still returned while one
+ * background load replaces it, so readers never wait on a refresh. Only a
+ * missing entry, or one older than {@code maxStaleMillis}, makes callers
+ * wait, and concurrent callers for the same key then share a single load.
+ */
+public final class SwrCache<K, V> {
+
+    private static final Logger LOG = Logger.getLogger(SwrCache.class.getName());
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // Keys invalidated while their load was running; that load's result is stored as stale.
+    // Guarded by this, together with storing load results.
+    private final Set<K> invalidatedDuringLoad = new HashSet<>();
+
+    private final long freshMillis;
+    private final long maxStaleMillis;
+    private final Executor executor;
+    private final Clock clock;
+
+    public SwrCache(long freshMillis, long maxStaleMillis, Executor executor, Clock clock) {
+        this.freshMillis = freshMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    public CompletableFuture<V> get(K key, Supplier<V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            long age = clock.millis() - entry.loadedAt;
+            if (!entry.stale && age < freshMillis) {
+                return CompletableFuture.completedFuture(entry.value);
+            }
+            if (age < maxStaleMillis) {
+                load(key, loader).exceptionally(error -> {
+                    LOG.log(Level.WARNING, "Background refresh failed for " + key, error);
+                    return null;
+                });
+                return CompletableFuture.completedFuture(entry.value);
+            }
+        }
+        return load(key, loader);
+    }
+
+    /**
+     * Marks matching entries stale. They keep being served until their refresh lands.
+     */
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        entries.replaceAll((key, entry) -> predicate.test(key) && !entry.stale
+                ? new Entry<>(entry.value, entry.loadedAt, true) : entry);
+        for (K key : inFlight.keySet()) {
+            if (predicate.test(key)) {
+                invalidatedDuringLoad.add(key);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private CompletableFuture<V> load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running;
+        }
+        synchronized (this) {
+            invalidatedDuringLoad.remove(key);
+        }
+        long startedAt = clock.millis();
+        try {
+            executor.execute(() -> {
+                try {
+                    V value = loader.get();
+                    store(key, value, startedAt);
+                    mine.complete(value);
+                } catch (Throwable t) {
+                    mine.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    private synchronized void store(K key, V value, long loadedAt) {
+        boolean stale = invalidatedDuringLoad.remove(key);
+        entries.put(key, new Entry<>(value, loadedAt, stale));
+        entries.values().removeIf(entry -> loadedAt - entry.loadedAt >= maxStaleMillis);
+    }
+
+    private record Entry<V>(V value, long loadedAt, boolean stale) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.cattlebreed.backend.concurrency;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many callers use a resource at once.
+ *
+ * With virtual threads the thread count no longer limits concurrency, so
+ * every scarce resource (DB connections, disk writers) gets a bulkhead.
+ * Callers queue fairly for a permit. A caller that waits longer than
+ * {@code maxWaitMillis} is rejected, so an overloaded node sheds load instead
+ * of piling up requests.
+ */
+public final class Bulkhead {
+
+    private final String name;
+    private final int permits;
+    private final long maxWaitMillis;
+    private final Semaphore semaphore;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int permits, long maxWaitMillis) {
+        this.name = name;
+        this.permits = permits;
+        this.maxWaitMillis = maxWaitMillis;
+        this.semaphore = new Semaphore(permits, true);
+    }
+
+    public <T, E extends Exception> T call(Work<T, E> work) throws E {
+        acquire();
+        try {
+            return work.run();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (!semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new BulkheadFullException(name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException(name);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int inUse() {
+        return permits - semaphore.availablePermits();
+    }
+
+    public int waiting() {
+        return semaphore.getQueueLength();
+    }
+
+    public long rejected() {
+        return rejected.get();
+    }
+
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T run() throws E;
+    }
+}
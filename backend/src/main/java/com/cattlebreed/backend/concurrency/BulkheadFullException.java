@@ -0,0 +1,11 @@
+package com.cattlebreed.backend.concurrency;
+
+/**
+ * Thrown when no permit became free in time; surfaced to clients as 503 with Retry-After
+ */
+public final class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String resource) {
+        super("Server busy: " + resource + " saturated");
+    }
+}
@@ -0,0 +1,23 @@
+package com.cattlebreed.backend.concurrency;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * How request and I/O work is scheduled.
+ *
+ * VIRTUAL gives every task its own virtual thread, and the bulkheads bound
+ * actual resource use. PLATFORM keeps fixed thread pools. It exists for
+ * comparison runs and as a fallback.
+ */
+public enum ExecutorMode {
+    VIRTUAL,
+    PLATFORM;
+
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (this == VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, Thread.ofPlatform().name(name + "-", 0).factory());
+    }
+}
@@ -0,0 +1,143 @@
+package com.cattlebreed.backend.concurrency;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Fails response writes that stop making progress.
+ *
+ * The JDK HTTP server writes to the socket with blocking I/O and has no
+ * write timeout, so a client that stops reading parks the writer, and
+ * whatever it holds, until the connection dies. A periodic check interrupts
+ * any guarded write blocked for longer than the timeout, which closes the
+ * socket channel and fails the write with an IOException. The interrupt is
+ * only delivered while the writer is inside a guarded write, never while it
+ * is, say, reading from H2.
+ */
+public final class WriteWatchdog {
+
+    private static final Logger LOG = Logger.getLogger(WriteWatchdog.class.getName());
+
+    private final long timeoutMillis;
+    private final Set<GuardedStream> active = ConcurrentHashMap.newKeySet();
+
+    public WriteWatchdog(String name, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name(name + "-watchdog").daemon().factory());
+        long period = Math.max(timeoutMillis / 4, 10);
+        timer.scheduleAtFixedRate(this::check, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code work} with {@code out} wrapped so that a stalled write fails
+     */
+    public <T, E extends Exception> T guard(OutputStream out, GuardedWork<T, E> work) throws E {
+        GuardedStream stream = new GuardedStream(out);
+        active.add(stream);
+        try {
+            return work.run(stream);
+        } finally {
+            active.remove(stream);
+        }
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (GuardedStream stream : active) {
+            stream.interruptIfStalled(now);
+        }
+    }
+
+    @FunctionalInterface
+    public interface GuardedWork<T, E extends Exception> {
+        T run(OutputStream out) throws E;
+    }
+
+    private final class GuardedStream extends OutputStream {
+
+        private final OutputStream target;
+        // A lock rather than synchronized, so a parked virtual thread doesn't pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private Thread writer;
+        private long writeStarted;
+        private volatile boolean stalled;
+
+        GuardedStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            guarded(() -> target.write(b));
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            guarded(() -> target.write(b, off, len));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            guarded(target::flush);
+        }
+
+        @Override
+        public void close() throws IOException {
+            guarded(target::close);
+        }
+
+        private void guarded(Write write) throws IOException {
+            if (stalled) {
+                throw new InterruptedIOException("Write stalled for over " + timeoutMillis + " ms");
+            }
+            lock.lock();
+            try {
+                writer = Thread.currentThread();
+                writeStarted = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                write.run();
+            } finally {
+                lock.lock();
+                try {
+                    writer = null;
+                } finally {
+                    lock.unlock();
+                }
+                if (stalled) {
+                    // The interrupt was ours; it must not reach the caller's next blocking call
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        void interruptIfStalled(long now) {
+            lock.lock();
+            try {
+                if (writer != null && !stalled && now - writeStarted > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+                    stalled = true;
+                    LOG.warning("Interrupting a write stalled for over " + timeoutMillis + " ms");
+                    writer.interrupt();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws IOException;
+    }
+}
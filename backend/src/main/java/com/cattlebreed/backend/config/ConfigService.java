@@ -0,0 +1,78 @@
+package com.cattlebreed.backend.config;
+
+import com.cattlebreed.backend.api.ApiModels.AIProviderConfig;
+import com.cattlebreed.backend.api.ApiModels.AppConfigData;
+import com.cattlebreed.backend.api.ApiModels.AppConfigResponse;
+import com.cattlebreed.backend.api.ApiModels.SyncSettings;
+import com.cattlebreed.backend.api.ApiModels.UISettings;
+import com.cattlebreed.backend.http.JsonCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the app configuration. The body is encoded once and tagged with a
+ * content hash so devices revalidate with If-None-Match and get a 304.
+ *
+ * Operators can override the defaults with app-config.json in the data directory.
+ */
+public final class ConfigService {
+
+    private static final String CONFIG_FILE = "app-config.json";
+
+    // Same codes as the app's LanguageManager.SupportedLanguage
+    private static final List<String> LANGUAGES = List.of(
+            "en", "hi", "ta", "te", "gu", "mr", "bn", "kn", "ml", "pa", "or", "as"
+    );
+
+    private final byte[] body;
+    private final String etag;
+
+    public ConfigService(Path dataDir) {
+        this.body = JsonCodec.encode(load(dataDir.resolve(CONFIG_FILE)));
+        this.etag = "\"" + sha256(body).substring(0, 32) + "\"";
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    private static AppConfigResponse load(Path file) {
+        if (!Files.exists(file)) {
+            return new AppConfigResponse(true, defaults());
+        }
+        try {
+            return JsonCodec.decode(Files.readAllBytes(file), AppConfigResponse.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AppConfigData defaults() {
+        return new AppConfigData(
+                new AIProviderConfig("local", List.of("local", "remote"), 0.7f, true),
+                new SyncSettings(true, 360, false, 3),
+                new UISettings("system", "en", LANGUAGES, false),
+                Map.of("cloudSync", true, "imageUpload", true)
+        );
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
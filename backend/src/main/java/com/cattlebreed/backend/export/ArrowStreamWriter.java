@@ -0,0 +1,288 @@
+package com.cattlebreed.backend.export;
+
+import com.cattlebreed.backend.export.ExportColumn.Kind;
+import com.cattlebreed.backend.storage.StoredRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Arrow IPC streaming format (columnar format version 1.0, metadata V5): a
+ * schema message, one record batch per {@link #BATCH_ROWS} rows, then the
+ * end-of-stream marker. pyarrow, DuckDB, Polars and Arrow Java read it as is.
+ *
+ * Rows are appended straight into per-column little-endian buffers, which
+ * are reused for every batch. Memory is one batch whatever the export size.
+ * A stream cut short lacks the end-of-stream marker, so readers notice.
+ */
+final class ArrowStreamWriter implements ExportWriter {
+
+    static final int BATCH_ROWS = 8192;
+
+    private static final short METADATA_V5 = 4;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final short PRECISION_SINGLE = 1;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short UNIT_MILLISECOND = 1;
+    private static final int CONTINUATION = -1;
+    private static final byte[] PADDING = new byte[8];
+
+    private final OutputStream out;
+    private final ColumnBuffer[] columns;
+    private final byte[] intBytes = new byte[4];
+    private int rows;
+
+    ArrowStreamWriter(OutputStream out) throws IOException {
+        this.out = out;
+        this.columns = new ColumnBuffer[ExportColumn.ALL.length];
+        for (ExportColumn column : ExportColumn.ALL) {
+            columns[column.ordinal()] = new ColumnBuffer(column);
+        }
+        writeSchema();
+    }
+
+    @Override
+    public void write(StoredRecord record) throws IOException {
+        for (ColumnBuffer column : columns) {
+            column.append(rows, column.column.value(record));
+        }
+        if (++rows == BATCH_ROWS) {
+            writeBatch();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeBatch();
+        }
+        writeInt(CONTINUATION);
+        writeInt(0);
+        out.flush();
+    }
+
+    private void writeSchema() throws IOException {
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        int[] fields = new int[columns.length];
+        for (ExportColumn column : ExportColumn.ALL) {
+            fields[column.ordinal()] = field(builder, column);
+        }
+        int fieldVector = builder.createOffsetVector(fields);
+        builder.startTable(4);
+        builder.addOffset(1, fieldVector);
+        builder.addShort(0, (short) 0); // little-endian
+        writeMessage(builder, HEADER_SCHEMA, builder.endTable(), 0);
+    }
+
+    private static int field(FlatBufferBuilder builder, ExportColumn column) {
+        int name = builder.createString(column.label);
+        int type = type(builder, column.kind);
+        int children = builder.createOffsetVector(new int[0]);
+        builder.startTable(7);
+        builder.addOffset(0, name);
+        builder.addOffset(3, type);
+        builder.addOffset(5, children);
+        builder.addBoolean(1, column.nullable);
+        builder.addByte(2, typeId(column.kind));
+        return builder.endTable();
+    }
+
+    private static byte typeId(Kind kind) {
+        return switch (kind) {
+            case INT32, INT64 -> TYPE_INT;
+            case FLOAT32, FLOAT64 -> TYPE_FLOATING_POINT;
+            case TIMESTAMP -> TYPE_TIMESTAMP;
+            case UTF8 -> TYPE_UTF8;
+        };
+    }
+
+    private static int type(FlatBufferBuilder builder, Kind kind) {
+        switch (kind) {
+            case INT32, INT64 -> {
+                builder.startTable(2);
+                builder.addInt(0, kind.width * 8);
+                builder.addBoolean(1, true);
+            }
+            case FLOAT32, FLOAT64 -> {
+                builder.startTable(1);
+                builder.addShort(0, kind == Kind.FLOAT32 ? PRECISION_SINGLE : PRECISION_DOUBLE);
+            }
+            case TIMESTAMP -> {
+                int timezone = builder.createString("UTC");
+                builder.startTable(2);
+                builder.addOffset(1, timezone);
+                builder.addShort(0, UNIT_MILLISECOND);
+            }
+            case UTF8 -> builder.startTable(0);
+        }
+        return builder.endTable();
+    }
+
+    /**
+     * One record batch message for the buffered rows, then its body. Buffers
+     * are laid out validity, [offsets,] values per column, each padded to 8 bytes.
+     */
+    private void writeBatch() throws IOException {
+        long[] nodes = new long[columns.length * 2];
+        long[] buffers = new long[columns.length * 6];
+        int buffer = 0;
+        long bodyLength = 0;
+        for (int i = 0; i < columns.length; i++) {
+            ColumnBuffer column = columns[i];
+            nodes[2 * i] = rows;
+            nodes[2 * i + 1] = column.nulls;
+            for (int length : column.bufferLengths(rows)) {
+                buffers[buffer++] = bodyLength;
+                buffers[buffer++] = length;
+                bodyLength += padded(length);
+            }
+        }
+
+        FlatBufferBuilder builder = new FlatBufferBuilder();
+        int nodeVector = builder.createLongPairVector(nodes);
+        int bufferVector = builder.createLongPairVector(Arrays.copyOf(buffers, buffer));
+        builder.startTable(5);
+        builder.addLong(0, rows);
+        builder.addOffset(1, nodeVector);
+        builder.addOffset(2, bufferVector);
+        writeMessage(builder, HEADER_RECORD_BATCH, builder.endTable(), bodyLength);
+
+        for (ColumnBuffer column : columns) {
+            column.writeBody(rows);
+            column.reset();
+        }
+        rows = 0;
+    }
+
+    private void writeMessage(FlatBufferBuilder builder, byte headerType, int header, long bodyLength) throws IOException {
+        builder.startTable(5);
+        builder.addLong(3, bodyLength);
+        builder.addOffset(2, header);
+        builder.addShort(0, METADATA_V5);
+        builder.addByte(1, headerType);
+        byte[] metadata = builder.finish(builder.endTable());
+        // The body that follows must start 8-byte aligned, counting the 8-byte prefix
+        int length = padded(metadata.length);
+        writeInt(CONTINUATION);
+        writeInt(length);
+        out.write(metadata);
+        out.write(PADDING, 0, length - metadata.length);
+    }
+
+    private void writeInt(int value) throws IOException {
+        intBytes[0] = (byte) value;
+        intBytes[1] = (byte) (value >> 8);
+        intBytes[2] = (byte) (value >> 16);
+        intBytes[3] = (byte) (value >> 24);
+        out.write(intBytes);
+    }
+
+    private static int padded(int length) {
+        return (length + 7) & ~7;
+    }
+
+    /**
+     * One column of the current batch: validity bits, UTF-8 offsets for text,
+     * and the values (fixed width, or the UTF-8 bytes)
+     */
+    private final class ColumnBuffer {
+
+        final ExportColumn column;
+        final byte[] validity = new byte[BATCH_ROWS / 8];
+        final ByteBuffer offsets;
+        ByteBuffer values;
+        int nulls;
+
+        ColumnBuffer(ExportColumn column) {
+            this.column = column;
+            boolean text = column.kind == Kind.UTF8;
+            this.offsets = text ? ByteBuffer.allocate((BATCH_ROWS + 1) * 4).order(ByteOrder.LITTLE_ENDIAN) : null;
+            this.values = ByteBuffer.allocate(text ? 64 * 1024 : BATCH_ROWS * column.kind.width)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            reset();
+        }
+
+        void append(int row, Object value) {
+            if (value == null) {
+                nulls++;
+                // A null slot still takes its width; text just repeats the previous offset
+                if (offsets == null) {
+                    for (int i = 0; i < column.kind.width; i++) {
+                        values.put((byte) 0);
+                    }
+                } else {
+                    offsets.putInt(values.position());
+                }
+                return;
+            }
+            validity[row >> 3] |= (byte) (1 << (row & 7));
+            switch (column.kind) {
+                case INT32 -> values.putInt((Integer) value);
+                case INT64, TIMESTAMP -> values.putLong((Long) value);
+                case FLOAT32 -> values.putFloat((Float) value);
+                case FLOAT64 -> values.putDouble((Double) value);
+                case UTF8 -> {
+                    byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    ensureCapacity(bytes.length);
+                    values.put(bytes);
+                    offsets.putInt(values.position());
+                }
+            }
+        }
+
+        /**
+         * Validity is sent empty when nothing is null, which readers take as all valid
+         */
+        int[] bufferLengths(int rowCount) {
+            int validityLength = nulls == 0 ? 0 : (rowCount + 7) / 8;
+            return offsets == null
+                    ? new int[]{validityLength, values.position()}
+                    : new int[]{validityLength, offsets.position(), values.position()};
+        }
+
+        void writeBody(int rowCount) throws IOException {
+            if (nulls > 0) {
+                writePadded(validity, (rowCount + 7) / 8);
+            }
+            if (offsets != null) {
+                writePadded(offsets.array(), offsets.position());
+            }
+            writePadded(values.array(), values.position());
+        }
+
+        void reset() {
+            Arrays.fill(validity, (byte) 0);
+            values.clear();
+            nulls = 0;
+            if (offsets != null) {
+                offsets.clear();
+                offsets.putInt(0);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (values.remaining() >= extra) {
+                return;
+            }
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(values.capacity() * 2, values.position() + extra))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            values.flip();
+            grown.put(values);
+            values = grown;
+        }
+
+        private void writePadded(byte[] bytes, int length) throws IOException {
+            out.write(bytes, 0, length);
+            out.write(PADDING, 0, padded(length) - length);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.cattlebreed.backend.export;
+
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.storage.StoredRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV with a header row. Timestamps are ISO-8601 UTC and missing
+ * values are empty fields.
+ */
+final class CsvExportWriter implements ExportWriter {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final Writer out;
+
+    CsvExportWriter(OutputStream out) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        for (ExportColumn column : ExportColumn.ALL) {
+            if (column.ordinal() > 0) {
+                this.out.write(',');
+            }
+            this.out.write(column.label);
+        }
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(StoredRecord record) throws IOException {
+        for (ExportColumn column : ExportColumn.ALL) {
+            if (column.ordinal() > 0) {
+                out.write(',');
+            }
+            Object value = column.value(record);
+            if (value == null) {
+                continue;
+            }
+            switch (column.kind) {
+                case TIMESTAMP -> out.write(IsoDates.format((Long) value));
+                case UTF8 -> writeText((String) value);
+                default -> out.write(value.toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private void writeText(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+}
@@ -0,0 +1,89 @@
+package com.cattlebreed.backend.export;
+
+import com.cattlebreed.backend.api.ApiModels.AIAnalysisDto;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.storage.StoredRecord;
+
+/**
+ * Columns of a record export, in output order. Both formats write exactly
+ * these, so a CSV and an Arrow extract of the same filters line up.
+ */
+public enum ExportColumn {
+    ID("id", Kind.INT64, false),
+    USER_ID("user_id", Kind.UTF8, false),
+    ANIMAL_ID("animal_id", Kind.UTF8, false),
+    RECORD_DATE("record_date", Kind.TIMESTAMP, false),
+    BODY_LENGTH("body_length", Kind.FLOAT64, false),
+    HEIGHT("height", Kind.FLOAT64, false),
+    CHEST_WIDTH("chest_width", Kind.FLOAT64, false),
+    RUMP_ANGLE("rump_angle", Kind.FLOAT64, false),
+    ATC_SCORE("atc_score", Kind.INT32, false),
+    BREED("breed", Kind.UTF8, true),
+    BREED_CONFIDENCE("breed_confidence", Kind.FLOAT32, true),
+    HEALTH_SCORE("health_score", Kind.FLOAT32, true),
+    STATE("state", Kind.UTF8, true),
+    DISTRICT("district", Kind.UTF8, true),
+    FARM_NAME("farm_name", Kind.UTF8, true),
+    LATITUDE("latitude", Kind.FLOAT64, true),
+    LONGITUDE("longitude", Kind.FLOAT64, true),
+    NOTES("notes", Kind.UTF8, true),
+    CREATED_AT("created_at", Kind.TIMESTAMP, false),
+    UPDATED_AT("updated_at", Kind.TIMESTAMP, false),
+    VERSION("version", Kind.INT32, false);
+
+    /**
+     * Value types; TIMESTAMP is epoch millis, UTC
+     */
+    enum Kind {
+        INT32(4), INT64(8), FLOAT32(4), FLOAT64(8), TIMESTAMP(8), UTF8(0);
+
+        final int width;
+
+        Kind(int width) {
+            this.width = width;
+        }
+    }
+
+    static final ExportColumn[] ALL = values();
+
+    final String label;
+    final Kind kind;
+    final boolean nullable;
+
+    ExportColumn(String label, Kind kind, boolean nullable) {
+        this.label = label;
+        this.kind = kind;
+        this.nullable = nullable;
+    }
+
+    /**
+     * The record's value: Integer, Long, Float, Double or String by kind, or null
+     */
+    Object value(StoredRecord record) {
+        AIAnalysisDto analysis = record.aiAnalysis();
+        LocationDto location = record.location();
+        return switch (this) {
+            case ID -> record.id();
+            case USER_ID -> record.userId();
+            case ANIMAL_ID -> record.animalId();
+            case RECORD_DATE -> record.recordDate();
+            case BODY_LENGTH -> record.bodyLength();
+            case HEIGHT -> record.height();
+            case CHEST_WIDTH -> record.chestWidth();
+            case RUMP_ANGLE -> record.rumpAngle();
+            case ATC_SCORE -> record.atcScore();
+            case BREED -> record.breed();
+            case BREED_CONFIDENCE -> analysis == null ? null : analysis.confidence();
+            case HEALTH_SCORE -> record.healthScore();
+            case STATE -> location == null ? null : location.state();
+            case DISTRICT -> location == null ? null : location.district();
+            case FARM_NAME -> location == null ? null : location.farmName();
+            case LATITUDE -> location == null ? null : location.latitude();
+            case LONGITUDE -> location == null ? null : location.longitude();
+            case NOTES -> record.notes();
+            case CREATED_AT -> record.createdAt();
+            case UPDATED_AT -> record.updatedAt();
+            case VERSION -> record.version();
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.cattlebreed.backend.export;
+
+import com.cattlebreed.backend.http.HttpError;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Record export formats, selected by the {@code format} query parameter
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv; charset=utf-8", "csv"),
+    ARROW("arrow", "application/vnd.apache.arrow.stream", "arrows");
+
+    private final String name;
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String name, String contentType, String extension) {
+        this.name = name;
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static ExportFormat parse(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        for (ExportFormat format : values()) {
+            if (format.name.equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        throw HttpError.badRequest("Unknown export format " + value + "; supported: csv, arrow");
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public ExportWriter open(OutputStream out) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvExportWriter(out);
+            case ARROW -> new ArrowStreamWriter(out);
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.cattlebreed.backend.export;
+
+import com.cattlebreed.backend.storage.StoredRecord;
+
+import java.io.IOException;
+
+/**
+ * Encodes records onto an output stream one at a time. A writer holds at
+ * most one batch of rows, however many it is given.
+ */
+public interface ExportWriter {
+
+    void write(StoredRecord record) throws IOException;
+
+    /**
+     * Writes anything still buffered and the format's trailer, then flushes.
+     * Does not close the stream.
+     */
+    void finish() throws IOException;
+}
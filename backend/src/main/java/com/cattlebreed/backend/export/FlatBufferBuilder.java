@@ -0,0 +1,185 @@
+package com.cattlebreed.backend.export;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Just enough of a FlatBuffers builder to encode Arrow IPC metadata: tables,
+ * strings, offset vectors and vectors of 16-byte structs, little-endian.
+ *
+ * Like the reference builder it writes back to front, so every object is
+ * finished before the object that points at it. Offsets returned by the
+ * {@code create}/{@code end} methods count from the end of the buffer.
+ * Vtables are not shared; Arrow messages are small enough not to care.
+ */
+final class FlatBufferBuilder {
+
+    private byte[] buffer = new byte[512];
+    private int space = buffer.length;
+    private int minAlign = 1;
+
+    private int[] vtable;
+    private int objectStart;
+
+    int offset() {
+        return buffer.length - space;
+    }
+
+    int createString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        addByte((byte) 0);
+        startVector(1, bytes.length, 1);
+        space -= bytes.length;
+        System.arraycopy(bytes, 0, buffer, space, bytes.length);
+        return endVector(bytes.length);
+    }
+
+    int createOffsetVector(int[] offsets) {
+        startVector(4, offsets.length, 4);
+        for (int i = offsets.length - 1; i >= 0; i--) {
+            addOffset(offsets[i]);
+        }
+        return endVector(offsets.length);
+    }
+
+    /**
+     * Vector of structs made of two longs each, given as {@code a0, b0, a1, b1, ...}
+     */
+    int createLongPairVector(long[] pairs) {
+        int count = pairs.length / 2;
+        startVector(16, count, 8);
+        for (int i = count - 1; i >= 0; i--) {
+            // Struct fields are written last to first
+            putLong(pairs[2 * i + 1]);
+            putLong(pairs[2 * i]);
+        }
+        return endVector(count);
+    }
+
+    void startTable(int fields) {
+        vtable = new int[fields];
+        objectStart = offset();
+    }
+
+    void addByte(int field, byte value) {
+        addByte(value);
+        vtable[field] = offset();
+    }
+
+    void addBoolean(int field, boolean value) {
+        addByte(field, (byte) (value ? 1 : 0));
+    }
+
+    void addShort(int field, short value) {
+        addShort(value);
+        vtable[field] = offset();
+    }
+
+    void addInt(int field, int value) {
+        addInt(value);
+        vtable[field] = offset();
+    }
+
+    void addLong(int field, long value) {
+        addLong(value);
+        vtable[field] = offset();
+    }
+
+    void addOffset(int field, int target) {
+        addOffset(target);
+        vtable[field] = offset();
+    }
+
+    int endTable() {
+        addInt(0); // replaced by the offset to the vtable below
+        int table = offset();
+        for (int i = vtable.length - 1; i >= 0; i--) {
+            addShort((short) (vtable[i] == 0 ? 0 : table - vtable[i]));
+        }
+        addShort((short) (table - objectStart));
+        addShort((short) ((vtable.length + 2) * 2));
+        putIntAt(buffer.length - table, offset() - table);
+        vtable = null;
+        return table;
+    }
+
+    byte[] finish(int root) {
+        prep(minAlign, 4);
+        addOffset(root);
+        return Arrays.copyOfRange(buffer, space, buffer.length);
+    }
+
+    private void startVector(int elementSize, int count, int alignment) {
+        prep(4, elementSize * count);
+        prep(alignment, elementSize * count);
+    }
+
+    private int endVector(int count) {
+        putInt(count);
+        return offset();
+    }
+
+    private void addByte(byte value) {
+        prep(1, 0);
+        buffer[--space] = value;
+    }
+
+    private void addShort(short value) {
+        prep(2, 0);
+        space -= 2;
+        buffer[space] = (byte) value;
+        buffer[space + 1] = (byte) (value >> 8);
+    }
+
+    private void addInt(int value) {
+        prep(4, 0);
+        putInt(value);
+    }
+
+    private void addLong(long value) {
+        prep(8, 0);
+        putLong(value);
+    }
+
+    private void addOffset(int target) {
+        prep(4, 0);
+        putInt(offset() - target + 4);
+    }
+
+    /**
+     * Pads so that after {@code additional} more bytes the next {@code size}-byte value is aligned
+     */
+    private void prep(int size, int additional) {
+        minAlign = Math.max(minAlign, size);
+        int padding = -(offset() + additional) & (size - 1);
+        while (space < padding + size + additional) {
+            int old = buffer.length;
+            byte[] grown = new byte[old * 2];
+            System.arraycopy(buffer, 0, grown, old, old);
+            buffer = grown;
+            space += old;
+        }
+        for (int i = 0; i < padding; i++) {
+            buffer[--space] = 0;
+        }
+    }
+
+    private void putInt(int value) {
+        space -= 4;
+        putIntAt(space, value);
+    }
+
+    private void putLong(long value) {
+        space -= 8;
+        for (int i = 0; i < 8; i++) {
+            buffer[space + i] = (byte) (value >> (8 * i));
+        }
+    }
+
+    private void putIntAt(int position, int value) {
+        buffer[position] = (byte) value;
+        buffer[position + 1] = (byte) (value >> 8);
+        buffer[position + 2] = (byte) (value >> 16);
+        buffer[position + 3] = (byte) (value >> 24);
+    }
+}
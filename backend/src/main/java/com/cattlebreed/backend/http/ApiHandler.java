@@ -0,0 +1,301 @@
+package com.cattlebreed.backend.http;
+
+import com.cattlebreed.backend.api.ApiModels.ApiError;
+import com.cattlebreed.backend.api.ApiModels.ApiResponse;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.concurrency.BulkheadFullException;
+import com.cattlebreed.backend.metrics.ServerMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Entry point for every request under the API prefix.
+ *
+ * The handler only decodes the request and routes it; the endpoint returns a
+ * future and the response is written from whichever thread completes it, so
+ * HTTP dispatcher threads are never parked on storage or disk I/O.
+ */
+public final class ApiHandler implements HttpHandler {
+
+    private static final Logger LOG = Logger.getLogger(ApiHandler.class.getName());
+    private static final int GZIP_MIN_BYTES = 1024;
+    private static final int STREAM_GZIP_BUFFER = 64 * 1024;
+
+    private final String prefix;
+    private final Router router;
+    private final long maxBodyBytes;
+    private final ServerMetrics metrics;
+
+    public ApiHandler(String prefix, Router router, long maxBodyBytes, ServerMetrics metrics) {
+        this.prefix = prefix;
+        this.router = router;
+        this.maxBodyBytes = maxBodyBytes;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) {
+        long started = System.nanoTime();
+        metrics.requestStarted();
+        CompletableFuture<HttpResult> future;
+        try {
+            future = dispatch(exchange);
+        } catch (Throwable t) {
+            future = CompletableFuture.failedFuture(t);
+        }
+        future.whenComplete((result, error) -> {
+            if (error == null && result.bodyWriter() != null) {
+                try {
+                    result.writerExecutor().execute(() -> stream(exchange, result, started));
+                } catch (RejectedExecutionException e) {
+                    finish(exchange, null, e, started);
+                }
+            } else {
+                finish(exchange, result, error, started);
+            }
+        });
+    }
+
+    private void finish(HttpExchange exchange, HttpResult result, Throwable error, long started) {
+        int status = respond(exchange, result, error);
+        metrics.requestFinished(status, System.nanoTime() - started);
+    }
+
+    private CompletableFuture<HttpResult> dispatch(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(prefix.length() - 1);
+
+        boolean[] methodMismatch = new boolean[1];
+        Router.Match match = router.match(method, path, methodMismatch);
+        if (match == null) {
+            if (methodMismatch[0]) {
+                throw new HttpError(405, "METHOD_NOT_ALLOWED", method + " not allowed on " + path);
+            }
+            throw HttpError.notFound("No route for " + path);
+        }
+
+        ApiRequest request = new ApiRequest(
+                method,
+                path,
+                match.pathParams(),
+                parseQuery(exchange.getRequestURI().getRawQuery()),
+                exchange.getRequestHeaders(),
+                readBody(exchange)
+        );
+        return match.endpoint().handle(request);
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        try (InputStream body = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBodyBytes) {
+                    throw HttpError.payloadTooLarge("Request body exceeds " + maxBodyBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the response and returns its status
+     */
+    private int respond(HttpExchange exchange, HttpResult result, Throwable error) {
+        if (error != null) {
+            result = errorResult(error);
+        }
+        try (exchange) {
+            applyHeaders(exchange, result);
+            byte[] body = result.encodedBody();
+            if (body == null || result.status() == 204 || result.status() == 304) {
+                exchange.sendResponseHeaders(result.status(), -1);
+                return result.status();
+            }
+
+            if (body.length >= GZIP_MIN_BYTES && acceptsGzip(exchange)) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+                exchange.sendResponseHeaders(result.status(), 0);
+                try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                    out.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(result.status(), body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException e) {
+            // Client went away; nothing left to report to
+            LOG.log(Level.FINE, "Failed to write response", e);
+        }
+        return result.status();
+    }
+
+    /**
+     * Runs a streamed result's writer. An error before the first byte becomes a
+     * normal error response; after it the status is already sent, so the body
+     * just ends early. Metrics count the time to the first byte, so a long
+     * download does not read as a slow API.
+     */
+    private void stream(HttpExchange exchange, HttpResult result, long started) {
+        StreamedBody body = new StreamedBody(exchange, result, started);
+        try {
+            result.bodyWriter().writeTo(body);
+            body.close();
+        } catch (Throwable t) {
+            if (!body.committed()) {
+                finish(exchange, null, t, started);
+                return;
+            }
+            if (t instanceof IOException) {
+                LOG.log(Level.FINE, "Client went away during a streamed response", t);
+            } else {
+                LOG.log(Level.SEVERE, "Streamed response failed part way", t);
+            }
+        }
+        exchange.close();
+    }
+
+    private static void applyHeaders(HttpExchange exchange, HttpResult result) {
+        result.headers().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        if (result.contentType() != null) {
+            exchange.getResponseHeaders().set("Content-Type", result.contentType());
+        }
+    }
+
+    private static HttpResult errorResult(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        HttpError httpError;
+        if (cause instanceof HttpError e) {
+            httpError = e;
+        } else if (cause instanceof BulkheadFullException) {
+            // The app's RetryInterceptor backs off on 503 and honours Retry-After
+            return errorBody(new HttpError(503, "OVERLOADED", cause.getMessage())).header("Retry-After", "2");
+        } else {
+            LOG.log(Level.SEVERE, "Unhandled error", cause);
+            httpError = new HttpError(500, "INTERNAL_ERROR", "Internal server error");
+        }
+        HttpResult result = errorBody(httpError);
+        return httpError.retryAfterSeconds() > 0
+                ? result.header("Retry-After", Long.toString(httpError.retryAfterSeconds()))
+                : result;
+    }
+
+    private static HttpResult errorBody(HttpError httpError) {
+        ApiResponse<Void> body = new ApiResponse<>(
+                false,
+                httpError.getMessage(),
+                null,
+                new ApiError(httpError.code(), httpError.getMessage(), null),
+                IsoDates.format(System.currentTimeMillis()),
+                "1.0"
+        );
+        return HttpResult.json(httpError.status(), body);
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return accept != null && accept.contains("gzip");
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Response body that sends status and headers (chunked, gzipped when
+     * accepted) on the first write
+     */
+    private final class StreamedBody extends OutputStream {
+
+        private final HttpExchange exchange;
+        private final HttpResult result;
+        private final long started;
+        private OutputStream target;
+
+        StreamedBody(HttpExchange exchange, HttpResult result, long started) {
+            this.exchange = exchange;
+            this.result = result;
+            this.started = started;
+        }
+
+        boolean committed() {
+            return target != null;
+        }
+
+        private OutputStream target() throws IOException {
+            if (target == null) {
+                applyHeaders(exchange, result);
+                boolean gzip = acceptsGzip(exchange);
+                if (gzip) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+                }
+                exchange.sendResponseHeaders(result.status(), 0);
+                metrics.requestFinished(result.status(), System.nanoTime() - started);
+                target = gzip
+                        ? new GZIPOutputStream(exchange.getResponseBody(), STREAM_GZIP_BUFFER)
+                        : exchange.getResponseBody();
+            }
+            return target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            target().close();
+        }
+    }
+}
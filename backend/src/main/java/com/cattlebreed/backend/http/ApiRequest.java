@@ -0,0 +1,87 @@
+package com.cattlebreed.backend.http;
+
+import com.sun.net.httpserver.Headers;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Decoded request handed to an {@link Endpoint}. The body is already read
+ * and, if it was sent gzip-encoded, inflated.
+ */
+public record ApiRequest(
+        String method,
+        String path,
+        Map<String, String> pathParams,
+        Map<String, String> query,
+        Headers headers,
+        byte[] body
+) {
+
+    public static final String USER_HEADER = "X-User-Id";
+
+    public <T> T bodyAs(Type type) {
+        return JsonCodec.decode(body, type);
+    }
+
+    public String pathParam(String name) {
+        return pathParams.get(name);
+    }
+
+    public String query(String name) {
+        return query.get(name);
+    }
+
+    public String query(String name, String defaultValue) {
+        return query.getOrDefault(name, defaultValue);
+    }
+
+    public int intQuery(String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw HttpError.badRequest("Query parameter " + name + " must be an integer");
+        }
+    }
+
+    public String header(String name) {
+        return headers.getFirst(name);
+    }
+
+    /**
+     * True when If-None-Match already names {@code etag}, so a bodiless 304 will do
+     */
+    public boolean notModified(String etag) {
+        String ifNoneMatch = headers.getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * User id supplied by the app's session interceptor, or null for anonymous calls
+     */
+    public String userId() {
+        String userId = headers.getFirst(USER_HEADER);
+        return userId == null || userId.isBlank() ? null : userId;
+    }
+
+    public String requireUserId() {
+        String userId = userId();
+        if (userId == null) {
+            throw HttpError.unauthorized("Missing " + USER_HEADER + " header");
+        }
+        return userId;
+    }
+}
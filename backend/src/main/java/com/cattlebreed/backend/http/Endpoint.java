@@ -0,0 +1,12 @@
+package com.cattlebreed.backend.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous request handler. Implementations must not block the calling
+ * thread; storage and disk work is handed to the service executors.
+ */
+@FunctionalInterface
+public interface Endpoint {
+    CompletableFuture<HttpResult> handle(ApiRequest request);
+}
@@ -0,0 +1,61 @@
+package com.cattlebreed.backend.http;
+
+/**
+ * Thrown by endpoints to produce a non-2xx JSON error response
+ */
+public class HttpError extends RuntimeException {
+
+    private final int status;
+    private final String code;
+    private final long retryAfterSeconds;
+
+    public HttpError(int status, String code, String message) {
+        this(status, code, message, 0);
+    }
+
+    /**
+     * @param retryAfterSeconds sent as Retry-After when positive
+     */
+    public HttpError(int status, String code, String message, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.code = code;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public static HttpError badRequest(String message) {
+        return new HttpError(400, "BAD_REQUEST", message);
+    }
+
+    public static HttpError unauthorized(String message) {
+        return new HttpError(401, "UNAUTHORIZED", message);
+    }
+
+    public static HttpError forbidden(String message) {
+        return new HttpError(403, "FORBIDDEN", message);
+    }
+
+    public static HttpError notFound(String message) {
+        return new HttpError(404, "NOT_FOUND", message);
+    }
+
+    public static HttpError payloadTooLarge(String message) {
+        return new HttpError(413, "PAYLOAD_TOO_LARGE", message);
+    }
+
+    public static HttpError tooManyRequests(String message, long retryAfterSeconds) {
+        return new HttpError(429, "TOO_MANY_REQUESTS", message, retryAfterSeconds);
+    }
+}
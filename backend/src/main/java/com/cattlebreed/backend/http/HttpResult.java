@@ -0,0 +1,97 @@
+package com.cattlebreed.backend.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Response produced by an {@link Endpoint}: a JSON value, raw bytes, a streamed body or no body
+ */
+public final class HttpResult {
+
+    private final int status;
+    private final String contentType;
+    private final Object jsonBody;
+    private final byte[] rawBody;
+    private final BodyWriter bodyWriter;
+    private final Executor writerExecutor;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    private HttpResult(int status, String contentType, Object jsonBody, byte[] rawBody,
+                       BodyWriter bodyWriter, Executor writerExecutor) {
+        this.status = status;
+        this.contentType = contentType;
+        this.jsonBody = jsonBody;
+        this.rawBody = rawBody;
+        this.bodyWriter = bodyWriter;
+        this.writerExecutor = writerExecutor;
+    }
+
+    public static HttpResult ok(Object body) {
+        return json(200, body);
+    }
+
+    public static HttpResult json(int status, Object body) {
+        return new HttpResult(status, "application/json; charset=utf-8", body, null, null, null);
+    }
+
+    public static HttpResult bytes(int status, String contentType, byte[] body) {
+        return new HttpResult(status, contentType, null, body, null, null);
+    }
+
+    public static HttpResult empty(int status) {
+        return new HttpResult(status, null, null, null, null, null);
+    }
+
+    /**
+     * Body of unknown length, sent with chunked transfer encoding as {@code writer}
+     * produces it. The writer runs on {@code executor}, never on an HTTP dispatcher
+     * thread. Status and headers go out with the first byte, so a writer that fails
+     * before writing anything still gets a proper error response.
+     */
+    public static HttpResult streamed(int status, String contentType, Executor executor, BodyWriter writer) {
+        return new HttpResult(status, contentType, null, null, writer, executor);
+    }
+
+    public HttpResult header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public Map<String, String> headers() {
+        return headers;
+    }
+
+    public BodyWriter bodyWriter() {
+        return bodyWriter;
+    }
+
+    public Executor writerExecutor() {
+        return writerExecutor;
+    }
+
+    /**
+     * Serialized body, or null when the response has none or is streamed
+     */
+    public byte[] encodedBody() {
+        if (rawBody != null) {
+            return rawBody;
+        }
+        return jsonBody == null ? null : JsonCodec.encode(jsonBody);
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,44 @@
+package com.cattlebreed.backend.http;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared Gson instance; Gson is thread-safe once built
+ */
+public final class JsonCodec {
+
+    private static final Gson GSON = new GsonBuilder()
+            .serializeNulls()
+            .create();
+
+    private JsonCodec() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    public static byte[] encode(Object value) {
+        return GSON.toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static <T> T decode(byte[] body, Type type) {
+        if (body == null || body.length == 0) {
+            throw HttpError.badRequest("Request body is required");
+        }
+        try {
+            T value = GSON.fromJson(new String(body, StandardCharsets.UTF_8), type);
+            if (value == null) {
+                throw HttpError.badRequest("Request body is required");
+            }
+            return value;
+        } catch (JsonParseException e) {
+            throw HttpError.badRequest("Malformed JSON: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cattlebreed.backend.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps "METHOD path/{param}" patterns, relative to the API prefix, to endpoints
+ */
+public final class Router {
+
+    private final List<Route> routes = new ArrayList<>();
+
+    public Router get(String pattern, Endpoint endpoint) {
+        return add("GET", pattern, endpoint);
+    }
+
+    public Router post(String pattern, Endpoint endpoint) {
+        return add("POST", pattern, endpoint);
+    }
+
+    public Router put(String pattern, Endpoint endpoint) {
+        return add("PUT", pattern, endpoint);
+    }
+
+    private Router add(String method, String pattern, Endpoint endpoint) {
+        routes.add(new Route(method, split(pattern), endpoint));
+        return this;
+    }
+
+    /**
+     * Returns the matching route, or null. A path that matches with another
+     * method is reported through {@code methodMismatch}.
+     */
+    Match match(String method, String path, boolean[] methodMismatch) {
+        String[] segments = split(path);
+        for (Route route : routes) {
+            Map<String, String> params = route.match(segments);
+            if (params == null) {
+                continue;
+            }
+            if (route.method.equals(method)) {
+                return new Match(route.endpoint, params);
+            }
+            methodMismatch[0] = true;
+        }
+        return null;
+    }
+
+    private static String[] split(String path) {
+        String trimmed = path.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/");
+    }
+
+    record Match(Endpoint endpoint, Map<String, String> pathParams) {
+    }
+
+    private record Route(String method, String[] segments, Endpoint endpoint) {
+
+        Map<String, String> match(String[] path) {
+            if (path.length != segments.length) {
+                return null;
+            }
+            Map<String, String> params = new HashMap<>();
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    params.put(segment.substring(1, segment.length() - 1), path[i]);
+                } else if (!segment.equals(path[i])) {
+                    return null;
+                }
+            }
+            return params;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.cattlebreed.backend.metrics;
+
+/**
+ * Request counters over a sliding one-minute window, fed by the API handler.
+ *
+ * The window is 60 one-second slots. Recording takes a short monitor that
+ * never blocks inside, so it is cheap even with thousands of virtual threads.
+ */
+public final class ServerMetrics {
+
+    private static final int SLOTS = 60;
+
+    private final long[] slotSecond = new long[SLOTS];
+    private final long[] requests = new long[SLOTS];
+    private final long[] serverErrors = new long[SLOTS];
+    private final long[] overloaded = new long[SLOTS];
+    private final long[] latencyNanos = new long[SLOTS];
+
+    private int inFlight;
+
+    public synchronized void requestStarted() {
+        inFlight++;
+    }
+
+    public synchronized void requestFinished(int status, long elapsedNanos) {
+        inFlight--;
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % SLOTS);
+        if (slotSecond[slot] != second) {
+            slotSecond[slot] = second;
+            requests[slot] = 0;
+            serverErrors[slot] = 0;
+            overloaded[slot] = 0;
+            latencyNanos[slot] = 0;
+        }
+        requests[slot]++;
+        latencyNanos[slot] += elapsedNanos;
+        if (status >= 500) {
+            serverErrors[slot]++;
+        }
+        if (status == 503) {
+            overloaded[slot]++;
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        long errors = 0;
+        long rejected = 0;
+        long latency = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (now - slotSecond[slot] < SLOTS) {
+                total += requests[slot];
+                errors += serverErrors[slot];
+                rejected += overloaded[slot];
+                latency += latencyNanos[slot];
+            }
+        }
+        double meanMillis = total == 0 ? 0 : latency / 1e6 / total;
+        double errorPercent = total == 0 ? 0 : errors * 100.0 / total;
+        return new Snapshot(total, meanMillis, errorPercent, rejected, inFlight);
+    }
+
+    /**
+     * Last-minute view. {@code overloaded} counts 503s from saturated bulkheads.
+     */
+    public record Snapshot(long requests, double meanLatencyMillis, double errorPercent, long overloaded, int inFlight) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.cattlebreed.backend.records;
+
+import com.cattlebreed.backend.http.HttpError;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset listing: the sort value and id of the last row
+ * served, plus the page number for {@code currentPage}. The plan signature
+ * hash rejects a cursor replayed with a different sort or filters.
+ */
+record PageCursor(int planHash, long lastValue, long lastId, int page) {
+
+    private static final String VERSION = "1";
+
+    String encode() {
+        String raw = VERSION + "." + planHash + "." + lastValue + "." + lastId + "." + page;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static PageCursor decode(String cursor, String planSignature) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            String[] parts = raw.split("\\.");
+            if (parts.length == 5 && parts[0].equals(VERSION)) {
+                PageCursor decoded = new PageCursor(
+                        Integer.parseInt(parts[1]),
+                        Long.parseLong(parts[2]),
+                        Long.parseLong(parts[3]),
+                        Integer.parseInt(parts[4])
+                );
+                if (decoded.planHash != planSignature.hashCode()) {
+                    throw new HttpError(400, "INVALID_CURSOR", "Cursor was issued for a different sort or filter");
+                }
+                return decoded;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // Not base64 or not numeric; reported below
+        }
+        throw new HttpError(400, "INVALID_CURSOR", "Malformed cursor");
+    }
+}
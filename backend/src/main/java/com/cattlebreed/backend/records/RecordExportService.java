@@ -0,0 +1,91 @@
+package com.cattlebreed.backend.records;
+
+import com.cattlebreed.backend.concurrency.Bulkhead;
+import com.cattlebreed.backend.concurrency.WriteWatchdog;
+import com.cattlebreed.backend.export.ExportFormat;
+import com.cattlebreed.backend.export.ExportWriter;
+import com.cattlebreed.backend.http.HttpResult;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.RecordStore.Query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Bulk extracts of live records across all users, for the admin panel.
+ *
+ * Rows go from a lazy H2 cursor through the format writer into the chunked
+ * response without being collected, so ten million rows need the same memory
+ * as ten. An export holds a DB connection for as long as the client keeps
+ * reading. A separate bulkhead therefore caps concurrent exports, so they
+ * can't take the pool from sync; an extra export is refused with a 503. A
+ * client that stops reading for {@link #WRITE_TIMEOUT_MILLIS} has its
+ * export cut off, which frees the permit and the connection.
+ */
+public final class RecordExportService {
+
+    private static final int MAX_CONCURRENT_EXPORTS = 2;
+    static final long WRITE_TIMEOUT_MILLIS = 30_000;
+
+    private final Database database;
+    private final RecordStore store;
+    private final Executor storageExecutor;
+    private final Bulkhead exports = new Bulkhead("export", MAX_CONCURRENT_EXPORTS, 0);
+    private final WriteWatchdog watchdog;
+
+    public RecordExportService(Database database, RecordStore store, Executor storageExecutor) {
+        this(database, store, storageExecutor, WRITE_TIMEOUT_MILLIS);
+    }
+
+    RecordExportService(Database database, RecordStore store, Executor storageExecutor, long writeTimeoutMillis) {
+        this.database = database;
+        this.store = store;
+        this.storageExecutor = storageExecutor;
+        this.watchdog = new WriteWatchdog("export", writeTimeoutMillis);
+    }
+
+    /**
+     * Streamed export of the records matching {@code filters}, which take the
+     * same keys as a listing's. Bad filters fail here, before anything is sent.
+     */
+    public HttpResult export(ExportFormat format, Map<String, String> filters) {
+        Query query = RecordQueryPlanner.export(filters);
+        String fileName = "animal-records-" + LocalDate.now(ZoneOffset.UTC) + "." + format.extension();
+        return HttpResult.streamed(200, format.contentType(), storageExecutor, out -> {
+            try {
+                exports.call(() -> database.withConnection(connection ->
+                        watchdog.guard(out, guarded -> copy(connection, query, format, guarded))));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).header("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+    }
+
+    private Void copy(Connection connection, Query query, ExportFormat format, OutputStream out) throws SQLException {
+        try {
+            ExportWriter writer = format.open(out);
+            store.forEachLive(connection, query, record -> {
+                try {
+                    writer.write(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return null;
+    }
+}
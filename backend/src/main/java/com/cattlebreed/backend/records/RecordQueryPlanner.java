@@ -0,0 +1,200 @@
+package com.cattlebreed.backend.records;
+
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.storage.RecordStore.Query;
+import com.cattlebreed.backend.storage.StoredRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps a listing request's sort and {@code filters} onto the keyset indexes.
+ *
+ * Every listing index leads with user_id, then the sort key and id in one
+ * direction. An equality filter an index carries (breed, with the default
+ * newest-first date sort) extends that prefix. Range filters on the sort key
+ * bound the index seek, and other filters are checked on the rows the index
+ * walk visits. The ORDER BY repeats the equality prefix; that is what lets
+ * H2 read the index in order and stop after one page instead of sorting.
+ * Exports take the same filters across all users.
+ */
+final class RecordQueryPlanner {
+
+    private static final String FILTER_KEYS = "breed, dateFrom, dateTo, minAtcScore, maxAtcScore";
+
+    enum SortKey {
+        DATE("date", "record_date", "date"),
+        ATC_SCORE("atcScore", "atc_score", "score"),
+        CREATED_AT("createdAt", "created_at", "created"),
+        UPDATED_AT("updatedAt", "updated_at", "updated");
+
+        final String name;
+        final String column;
+        final String indexName;
+
+        SortKey(String name, String column, String indexName) {
+            this.name = name;
+            this.column = column;
+            this.indexName = indexName;
+        }
+
+        static SortKey parse(String value) {
+            if (value == null) {
+                return DATE;
+            }
+            for (SortKey key : values()) {
+                if (key.name.equals(value)) {
+                    return key;
+                }
+            }
+            throw HttpError.badRequest("Cannot sort by " + value);
+        }
+    }
+
+    private RecordQueryPlanner() {
+    }
+
+    static Plan plan(String userId, String sortBy, String sortOrder, Map<String, String> filters) {
+        SortKey sortKey = SortKey.parse(sortBy);
+        boolean descending = !"asc".equalsIgnoreCase(sortOrder);
+        // Canonical order, so the same filters always give the same signature
+        Map<String, String> sorted = filters == null ? Map.of() : new TreeMap<>(filters);
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        conditions.add("user_id = ?");
+        params.add(userId);
+        String prefix = "user_id";
+        String index = "idx_records_user_" + sortKey.indexName + (descending ? "_desc" : "_asc");
+
+        for (Map.Entry<String, String> filter : sorted.entrySet()) {
+            String value = filter.getValue();
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            addFilter(filter.getKey(), value, conditions, params);
+            if (filter.getKey().equals("breed") && sortKey == SortKey.DATE && descending) {
+                prefix = "user_id, breed";
+                index = "idx_records_user_breed_date_desc";
+            }
+        }
+
+        String signature = sortKey.name + (descending ? ":desc" : ":asc") + sorted;
+        return new Plan(sortKey, descending, signature, sorted.toString(), conditions, params, prefix, index);
+    }
+
+    /**
+     * Every live record matching {@code filters}, across all users, in id order.
+     * The primary key supplies that order, so H2 can stream the rows without a
+     * sort; the filters are checked on the rows as they pass.
+     */
+    static Query export(Map<String, String> filters) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (filters != null) {
+            for (Map.Entry<String, String> filter : new TreeMap<>(filters).entrySet()) {
+                String value = filter.getValue();
+                if (value != null && !value.isBlank()) {
+                    addFilter(filter.getKey(), value, conditions, params);
+                }
+            }
+        }
+        String where = conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+        return new Query(where, params, "id", null);
+    }
+
+    private static void addFilter(String key, String value, List<String> conditions, List<Object> params) {
+        switch (key) {
+            case "breed" -> {
+                conditions.add("breed = ?");
+                params.add(value.trim());
+            }
+            case "dateFrom" -> {
+                conditions.add("record_date >= ?");
+                params.add(parseDate(value, false));
+            }
+            case "dateTo" -> {
+                conditions.add("record_date <= ?");
+                params.add(parseDate(value, true));
+            }
+            case "minAtcScore" -> {
+                conditions.add("atc_score >= ?");
+                params.add(parseScore(value));
+            }
+            case "maxAtcScore" -> {
+                conditions.add("atc_score <= ?");
+                params.add(parseScore(value));
+            }
+            default -> throw HttpError.badRequest("Unknown filter " + key + "; supported: " + FILTER_KEYS);
+        }
+    }
+
+    private static long parseDate(String value, boolean endOfDay) {
+        Long millis = IsoDates.parse(value.trim());
+        if (millis == null) {
+            throw HttpError.badRequest(value + " is not an ISO date");
+        }
+        // A plain date as the upper bound includes that whole day
+        return endOfDay && value.trim().length() == 10 ? millis + 86_399_999L : millis;
+    }
+
+    private static int parseScore(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw HttpError.badRequest(value + " is not a score");
+        }
+    }
+
+    /**
+     * @param signature      identifies sort and filters; a cursor is only valid for the plan that issued it
+     * @param countSignature identifies the filters alone, which is all the total depends on
+     */
+    record Plan(
+            SortKey sortKey,
+            boolean descending,
+            String signature,
+            String countSignature,
+            List<String> conditions,
+            List<Object> params,
+            String prefix,
+            String index
+    ) {
+
+        /**
+         * Page query, continuing after {@code cursor} when it is not null
+         */
+        Query page(PageCursor cursor) {
+            List<String> where = new ArrayList<>(conditions);
+            List<Object> values = new ArrayList<>(params);
+            if (cursor != null) {
+                String column = sortKey.column;
+                String op = descending ? "<" : ">";
+                // The leading inclusive bound is what H2 turns into an index seek
+                where.add(column + " " + op + "= ? AND (" + column + " " + op + " ? OR id " + op + " ?)");
+                values.add(cursor.lastValue());
+                values.add(cursor.lastValue());
+                values.add(cursor.lastId());
+            }
+            String direction = descending ? " DESC" : "";
+            String orderBy = prefix + ", " + sortKey.column + direction + ", id" + direction;
+            return new Query(String.join(" AND ", where), values, orderBy, index);
+        }
+
+        Query count() {
+            return new Query(String.join(" AND ", conditions), params, null, null);
+        }
+
+        long sortValue(StoredRecord record) {
+            return switch (sortKey) {
+                case DATE -> record.recordDate();
+                case ATC_SCORE -> record.atcScore();
+                case CREATED_AT -> record.createdAt();
+                case UPDATED_AT -> record.updatedAt();
+            };
+        }
+    }
+}
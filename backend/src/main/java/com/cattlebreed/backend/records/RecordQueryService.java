@@ -0,0 +1,122 @@
+package com.cattlebreed.backend.records;
+
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.PaginatedRequest;
+import com.cattlebreed.backend.api.ApiModels.PaginatedResponse;
+import com.cattlebreed.backend.api.ApiModels.PaginationInfo;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.records.RecordQueryPlanner.Plan;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.RecordChangeListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Paged listing of one user's live records.
+ *
+ * Pages after the first are addressed by an opaque keyset cursor (the last
+ * row's sort value and id), so page 500 is one index seek like page 1.
+ * Totals are counted once per (user, filters) and reused until one of the
+ * user's records changes. Plain {@code page} numbers still work through
+ * OFFSET for older clients.
+ */
+public final class RecordQueryService implements RecordChangeListener {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 100;
+    // Cached totals are cheap to recount; just start over past this many
+    private static final int MAX_CACHED_COUNTS = 50_000;
+
+    private final Database database;
+    private final RecordStore store;
+    private final Executor storageExecutor;
+
+    private final ConcurrentHashMap<String, Long> userVersions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<CountKey, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public RecordQueryService(Database database, RecordStore store, Executor storageExecutor) {
+        this.database = database;
+        this.store = store;
+        this.storageExecutor = storageExecutor;
+    }
+
+    public CompletableFuture<PaginatedResponse<AnimalRecordDto>> list(String userId, PaginatedRequest request) {
+        int limit = request.limit() == null ? DEFAULT_LIMIT : request.limit();
+        int requestedPage = request.page() == null ? 1 : request.page();
+        if (requestedPage < 1 || limit < 1 || limit > MAX_LIMIT) {
+            throw HttpError.badRequest("page must be >= 1 and limit between 1 and " + MAX_LIMIT);
+        }
+        Plan plan = RecordQueryPlanner.plan(userId, request.sortBy(), request.sortOrder(), request.filters());
+        PageCursor cursor = request.cursor() == null || request.cursor().isBlank()
+                ? null : PageCursor.decode(request.cursor(), plan.signature());
+        int page = cursor == null ? requestedPage : cursor.page();
+        int offset = cursor == null ? (page - 1) * limit : 0;
+        boolean includeTotal = request.includeTotal() == null || request.includeTotal();
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return database.withConnection(connection -> {
+                    // One extra row tells whether a next page exists without counting
+                    List<StoredRecord> rows = store.queryLive(connection, plan.page(cursor), limit + 1, offset);
+                    boolean hasNext = rows.size() > limit;
+                    if (hasNext) {
+                        rows = rows.subList(0, limit);
+                    }
+
+                    List<AnimalRecordDto> data = new ArrayList<>(rows.size());
+                    rows.forEach(row -> data.add(row.toDto()));
+                    String nextCursor = null;
+                    if (hasNext) {
+                        StoredRecord last = rows.get(rows.size() - 1);
+                        nextCursor = new PageCursor(plan.signature().hashCode(), plan.sortValue(last), last.id(), page + 1)
+                                .encode();
+                    }
+
+                    int total = includeTotal ? total(connection, userId, plan) : -1;
+                    int totalPages = includeTotal ? (total + limit - 1) / limit : -1;
+                    PaginationInfo info = new PaginationInfo(page, totalPages, total, limit, hasNext, page > 1, nextCursor);
+                    return new PaginatedResponse<>(data, info);
+                });
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, storageExecutor);
+    }
+
+    @Override
+    public void onRecordChanged(StoredRecord before, StoredRecord after) {
+        StoredRecord changed = after != null ? after : before;
+        userVersions.merge(changed.userId(), 1L, Long::sum);
+    }
+
+    private int total(Connection connection, String userId, Plan plan) throws SQLException {
+        CountKey key = new CountKey(userId, plan.countSignature());
+        // Read before counting: a change during the count leaves a stale version that is never served
+        long version = userVersions.getOrDefault(userId, 0L);
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.version == version) {
+            return cached.count;
+        }
+        int count = store.countLive(connection, plan.count());
+        if (counts.size() >= MAX_CACHED_COUNTS) {
+            counts.clear();
+        }
+        counts.put(key, new CachedCount(version, count));
+        return count;
+    }
+
+    private record CountKey(String userId, String filters) {
+    }
+
+    private record CachedCount(long version, int count) {
+    }
+}
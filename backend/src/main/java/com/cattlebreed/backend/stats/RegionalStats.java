@@ -0,0 +1,235 @@
+package com.cattlebreed.backend.stats;
+
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.RecordChangeListener;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Constant-size summaries for benchmarks and the admin dashboard.
+ *
+ * <ul>
+ *   <li>Distinct farmers per state, all time: one HyperLogLog per state.</li>
+ *   <li>Distinct active farmers and assessed animals per state and day:
+ *       HyperLogLogs merged over the requested days.</li>
+ *   <li>Farm ranking: a histogram of farm average scores per state and
+ *       nationally. A farm's percentile is a 101-bucket lookup instead of
+ *       a sort of every farm.</li>
+ * </ul>
+ *
+ * Region keys are state names. Records without a state count nationally only.
+ */
+public final class RegionalStats implements RecordChangeListener {
+
+    private static final int TOTAL_PRECISION = 14;
+    // Sparse until a region's day passes ~500 distinct values, so quiet days cost bytes, not 4 KB
+    private static final int DAILY_PRECISION = 11;
+    // Daily sketches cover the longest dashboard range ("1y") plus slack
+    private static final int DAILY_RETENTION_DAYS = 400;
+    private static final String NATIONAL = "";
+
+    private final Clock clock;
+    private final Map<String, HyperLogLog> farmersByRegion = new HashMap<>();
+    private final Map<String, NavigableMap<Long, DailySketch>> dailyByRegion = new HashMap<>();
+
+    // Exact per-farm running averages; only their distribution is queried
+    private final Map<String, FarmTotals> farms = new HashMap<>();
+    private final Map<String, ScoreHistogram> farmAveragesByRegion = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RegionalStats() {
+        this(Clock.systemUTC());
+    }
+
+    public RegionalStats(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void rebuild(Database database, RecordStore store) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            farmersByRegion.clear();
+            dailyByRegion.clear();
+            farms.clear();
+            farmAveragesByRegion.clear();
+            database.withConnection(connection -> {
+                store.forEachLive(connection, this::add);
+                return null;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRecordChanged(StoredRecord before, StoredRecord after) {
+        lock.writeLock().lock();
+        try {
+            // Distinct counts only grow; a delete still leaves the farmer counted
+            if (before != null && !before.deleted()) {
+                adjustFarm(before, -1);
+            }
+            if (after != null && !after.deleted()) {
+                add(after);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long distinctFarmers(String state) {
+        lock.readLock().lock();
+        try {
+            HyperLogLog sketch = farmersByRegion.get(regionKey(state));
+            return sketch == null ? 0 : sketch.estimate();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Farmers and animals with an assessment dated within [from, to]
+     */
+    public ActiveCounts active(String state, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, DailySketch> days = dailyByRegion.get(regionKey(state));
+            if (days == null) {
+                return new ActiveCounts(0, 0);
+            }
+            HyperLogLog farmers = new HyperLogLog(DAILY_PRECISION);
+            HyperLogLog animals = new HyperLogLog(DAILY_PRECISION);
+            for (DailySketch day : days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values()) {
+                farmers.merge(day.farmers);
+                animals.merge(day.animals);
+            }
+            return new ActiveCounts(farmers.estimate(), animals.estimate());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fraction of farms in the region (national when {@code state} is null)
+     * whose average ATC score is below {@code farmAverage}
+     */
+    public double farmPercentile(double farmAverage, String state) {
+        lock.readLock().lock();
+        try {
+            ScoreHistogram histogram = farmAveragesByRegion.get(regionKey(state));
+            if (histogram == null || histogram.count() == 0) {
+                return Double.NaN;
+            }
+            return histogram.fractionBelow(Math.round(farmAverage));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long rankedFarms(String state) {
+        lock.readLock().lock();
+        try {
+            ScoreHistogram histogram = farmAveragesByRegion.get(regionKey(state));
+            return histogram == null ? 0 : histogram.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(StoredRecord record) {
+        String state = stateOf(record);
+        long farmerHash = HyperLogLog.hash64(record.userId());
+        long animalHash = HyperLogLog.hash64(record.userId() + '/' + record.animalId());
+
+        LocalDate day = Instant.ofEpochMilli(record.recordDate()).atZone(AtsRollupStore.REPORTING_ZONE).toLocalDate();
+        long cutoff = LocalDate.now(clock.withZone(AtsRollupStore.REPORTING_ZONE)).toEpochDay() - DAILY_RETENTION_DAYS;
+
+        for (String region : state == null ? new String[]{NATIONAL} : new String[]{NATIONAL, state}) {
+            farmersByRegion.computeIfAbsent(region, k -> new HyperLogLog(TOTAL_PRECISION)).addHash(farmerHash);
+            if (day.toEpochDay() >= cutoff) {
+                NavigableMap<Long, DailySketch> days = dailyByRegion.computeIfAbsent(region, k -> new TreeMap<>());
+                DailySketch sketch = days.computeIfAbsent(day.toEpochDay(), k -> new DailySketch());
+                sketch.farmers.addHash(farmerHash);
+                sketch.animals.addHash(animalHash);
+                days.headMap(cutoff, false).clear();
+            }
+        }
+        adjustFarm(record, 1);
+    }
+
+    private void adjustFarm(StoredRecord record, int sign) {
+        FarmTotals totals = farms.computeIfAbsent(record.userId(), k -> new FarmTotals());
+        totals.moveHistogram(-1);
+        totals.count += sign;
+        totals.sum += (long) record.atcScore() * sign;
+        if (totals.region == null || totals.region.equals(NATIONAL)) {
+            String state = stateOf(record);
+            totals.region = state == null ? NATIONAL : state;
+        }
+        if (totals.count == 0) {
+            farms.remove(record.userId());
+        } else {
+            totals.moveHistogram(1);
+        }
+    }
+
+    private static String stateOf(StoredRecord record) {
+        if (record.location() == null || record.location().state() == null) {
+            return null;
+        }
+        String state = record.location().state().trim().replaceAll("\\s+", " ");
+        return state.isEmpty() ? null : state;
+    }
+
+    private static String regionKey(String state) {
+        return state == null || state.isBlank() ? NATIONAL : state.trim().replaceAll("\\s+", " ");
+    }
+
+    public record ActiveCounts(long farmers, long animals) {
+    }
+
+    private static final class DailySketch {
+        final HyperLogLog farmers = new HyperLogLog(DAILY_PRECISION);
+        final HyperLogLog animals = new HyperLogLog(DAILY_PRECISION);
+    }
+
+    private final class FarmTotals {
+        long sum;
+        int count;
+        String region;
+
+        // Adds or removes this farm's current average from its region and the nation
+        void moveHistogram(int sign) {
+            if (count <= 0) {
+                return;
+            }
+            int average = (int) Math.round((double) sum / count);
+            update(NATIONAL, average, sign);
+            if (region != null && !region.equals(NATIONAL)) {
+                update(region, average, sign);
+            }
+        }
+
+        private void update(String key, int average, int sign) {
+            ScoreHistogram histogram = farmAveragesByRegion.computeIfAbsent(key, k -> new ScoreHistogram());
+            if (sign > 0) {
+                histogram.add(average);
+            } else {
+                histogram.remove(average);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cattlebreed.backend.stats;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of ATC scores (integers 0..100) as one counter per score.
+ *
+ * This is the whole distribution in 101 longs, so it is exact, mergeable
+ * across regions and supports removals, which approximate sketches such
+ * as t-digest or KLL cannot do. Not thread-safe.
+ */
+public final class ScoreHistogram {
+
+    public static final int MIN_SCORE = 0;
+    public static final int MAX_SCORE = 100;
+
+    private final long[] counts = new long[MAX_SCORE - MIN_SCORE + 1];
+    private long total;
+    private long sum;
+
+    public void add(int score) {
+        adjust(score, 1);
+    }
+
+    public void remove(int score) {
+        adjust(score, -1);
+    }
+
+    private void adjust(int score, int delta) {
+        int clamped = clamp(score);
+        counts[clamped - MIN_SCORE] += delta;
+        total += delta;
+        sum += (long) clamped * delta;
+    }
+
+    public void merge(ScoreHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public double mean() {
+        return total == 0 ? Double.NaN : (double) sum / total;
+    }
+
+    /**
+     * Smallest score with at least {@code q} of the mass at or below it
+     */
+    public int quantile(double q) {
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i + MIN_SCORE;
+            }
+        }
+        return MAX_SCORE;
+    }
+
+    /**
+     * Fraction of scores strictly below {@code score}, for percentile ranking
+     */
+    public double fractionBelow(double score) {
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long below = 0;
+        int limit = Math.min(counts.length, (int) Math.ceil(score) - MIN_SCORE);
+        for (int i = 0; i < limit; i++) {
+            below += counts[i];
+        }
+        return (double) below / total;
+    }
+
+    public ScoreHistogram copy() {
+        ScoreHistogram copy = new ScoreHistogram();
+        copy.merge(this);
+        return copy;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+    }
+
+    private static int clamp(int score) {
+        return Math.max(MIN_SCORE, Math.min(MAX_SCORE, score));
+    }
+}
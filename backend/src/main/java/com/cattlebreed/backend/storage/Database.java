@@ -0,0 +1,150 @@
+package com.cattlebreed.backend.storage;
+
+import com.cattlebreed.backend.concurrency.Bulkhead;
+import org.h2.jdbcx.JdbcConnectionPool;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Embedded H2 database with a bounded connection pool.
+ *
+ * Callers queue on a bulkhead sized to the pool rather than on the pool
+ * itself. The wait is bounded, and only permit holders run JDBC code, which
+ * also bounds how many carrier threads H2's synchronized sections can pin.
+ */
+public final class Database implements AutoCloseable {
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE SEQUENCE IF NOT EXISTS change_seq",
+            """
+            CREATE TABLE IF NOT EXISTS animal_records (
+                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                user_id VARCHAR(64) NOT NULL,
+                animal_id VARCHAR(64) NOT NULL,
+                local_id BIGINT,
+                image_path VARCHAR(512),
+                image_url VARCHAR(512),
+                record_date BIGINT NOT NULL,
+                body_length DOUBLE PRECISION NOT NULL,
+                height DOUBLE PRECISION NOT NULL,
+                chest_width DOUBLE PRECISION NOT NULL,
+                rump_angle DOUBLE PRECISION NOT NULL,
+                atc_score INT NOT NULL,
+                breed VARCHAR(64),
+                health_score REAL,
+                ai_analysis CHARACTER LARGE OBJECT,
+                location CHARACTER LARGE OBJECT,
+                notes VARCHAR(2000),
+                created_at BIGINT NOT NULL,
+                updated_at BIGINT NOT NULL,
+                version INT NOT NULL,
+                deleted BOOLEAN NOT NULL DEFAULT FALSE,
+                change_seq BIGINT NOT NULL,
+                CONSTRAINT uq_records_user_animal UNIQUE (user_id, animal_id)
+            )
+            """,
+            "CREATE INDEX IF NOT EXISTS idx_records_user_changes ON animal_records (user_id, change_seq)",
+            // One row per user, locked by every transaction that writes or reads that user's changes
+            """
+            CREATE TABLE IF NOT EXISTS user_change_locks (
+                user_id VARCHAR(64) PRIMARY KEY,
+                locked_at BIGINT NOT NULL
+            )
+            """,
+            // Keyset listing indexes, one per sort key and direction: H2 only reads an index forwards.
+            // Names are referenced by RecordQueryPlanner.
+            "CREATE INDEX IF NOT EXISTS idx_records_user_date_asc ON animal_records (user_id, record_date, id)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_date_desc ON animal_records (user_id, record_date DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_score_asc ON animal_records (user_id, atc_score, id)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_score_desc ON animal_records (user_id, atc_score DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_created_asc ON animal_records (user_id, created_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_created_desc ON animal_records (user_id, created_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_updated_asc ON animal_records (user_id, updated_at, id)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_updated_desc ON animal_records (user_id, updated_at DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_records_user_breed_date_desc "
+                    + "ON animal_records (user_id, breed, record_date DESC, id DESC)",
+            """
+            CREATE TABLE IF NOT EXISTS uploads (
+                file_id VARCHAR(36) PRIMARY KEY,
+                user_id VARCHAR(64) NOT NULL,
+                record_id VARCHAR(64) NOT NULL,
+                file_name VARCHAR(255) NOT NULL,
+                content_type VARCHAR(64) NOT NULL,
+                declared_size BIGINT NOT NULL,
+                stored_size BIGINT,
+                expires_at BIGINT NOT NULL,
+                completed_at BIGINT
+            )
+            """
+    );
+
+    private final JdbcConnectionPool pool;
+    private final Bulkhead bulkhead;
+
+    public Database(Path dataDir, int maxConnections, long maxWaitMillis) {
+        String url = "jdbc:h2:file:" + dataDir.resolve("cattle").toAbsolutePath() + ";DB_CLOSE_DELAY=-1";
+        this.pool = JdbcConnectionPool.create(url, "sa", "");
+        this.pool.setMaxConnections(maxConnections);
+        this.bulkhead = new Bulkhead("db", maxConnections, maxWaitMillis);
+    }
+
+    public Bulkhead bulkhead() {
+        return bulkhead;
+    }
+
+    public void migrate() throws SQLException {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    public <T> T withConnection(SqlFunction<T> work) throws SQLException {
+        return bulkhead.call(() -> {
+            try (Connection connection = pool.getConnection()) {
+                return work.apply(connection);
+            }
+        });
+    }
+
+    public <T> T inTransaction(SqlFunction<T> work) throws SQLException {
+        return bulkhead.call(() -> transaction(work));
+    }
+
+    private <T> T transaction(SqlFunction<T> work) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.apply(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // DB_CLOSE_DELAY=-1 keeps the database open after the last connection; close it explicitly
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException ignored) {
+            // Already closed
+        }
+        pool.dispose();
+    }
+
+    @FunctionalInterface
+    public interface SqlFunction<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+}
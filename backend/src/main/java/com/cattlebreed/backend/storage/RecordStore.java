@@ -0,0 +1,324 @@
+package com.cattlebreed.backend.storage;
+
+import com.cattlebreed.backend.api.ApiModels.AIAnalysisDto;
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.http.JsonCodec;
+import org.h2.api.ErrorCode;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to animal_records. Every method runs on the caller's
+ * connection so services control transaction boundaries.
+ */
+public final class RecordStore {
+
+    static final String COLUMNS = "id, user_id, animal_id, local_id, image_path, image_url, record_date, "
+            + "body_length, height, chest_width, rump_angle, atc_score, breed, health_score, ai_analysis, "
+            + "location, notes, created_at, updated_at, version, deleted, change_seq";
+
+    /**
+     * Holds the user's change lock until the transaction ends.
+     *
+     * change_seq is drawn when a row is written but only visible at commit,
+     * so two open transactions of one user could commit out of sequence
+     * order, and a device that read the later change would move its sync
+     * point past the earlier one for good. Everything that writes a user's
+     * rows or reads their changes takes this lock first, so a user's changes
+     * commit in sequence order and a reader never sees a gap that is later
+     * filled.
+     */
+    public void lockChanges(Connection connection, String userId) throws SQLException {
+        while (true) {
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE user_change_locks SET locked_at = ? WHERE user_id = ?")) {
+                update.setLong(1, System.currentTimeMillis());
+                update.setString(2, userId);
+                if (update.executeUpdate() == 1) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO user_change_locks (user_id, locked_at) VALUES (?, ?)")) {
+                insert.setString(1, userId);
+                insert.setLong(2, System.currentTimeMillis());
+                insert.executeUpdate();
+                return;
+            } catch (SQLException e) {
+                // Another transaction created the row first; lock it instead
+                if (e.getErrorCode() != ErrorCode.DUPLICATE_KEY_1) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public Optional<StoredRecord> find(Connection connection, String userId, String animalId) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM animal_records WHERE user_id = ? AND animal_id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, userId);
+            statement.setString(2, animalId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? Optional.of(map(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    public StoredRecord insert(Connection connection, String userId, AnimalRecordDto dto, long now) throws SQLException {
+        String sql = "INSERT INTO animal_records (user_id, animal_id, local_id, image_path, image_url, record_date, "
+                + "body_length, height, chest_width, rump_angle, atc_score, breed, health_score, ai_analysis, location, "
+                + "notes, created_at, updated_at, version, deleted, change_seq) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, FALSE, NEXT VALUE FOR change_seq)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int i = 1;
+            statement.setString(i++, userId);
+            statement.setString(i++, dto.animalId());
+            setNullableLong(statement, i++, dto.localId());
+            statement.setString(i++, dto.imagePath());
+            statement.setString(i++, dto.imageUrl());
+            i = bindPayload(statement, i, dto, now);
+            statement.setLong(i++, millisOr(dto.createdAt(), now));
+            statement.setLong(i, millisOr(dto.updatedAt(), now));
+            statement.executeUpdate();
+        }
+        return find(connection, userId, dto.animalId()).orElseThrow();
+    }
+
+    /**
+     * Overwrites the payload of an existing row (reviving it if it was deleted)
+     */
+    public StoredRecord update(Connection connection, StoredRecord existing, AnimalRecordDto dto, long now) throws SQLException {
+        String sql = "UPDATE animal_records SET local_id = ?, image_path = ?, record_date = ?, body_length = ?, "
+                + "height = ?, chest_width = ?, rump_angle = ?, atc_score = ?, breed = ?, health_score = ?, "
+                + "ai_analysis = ?, location = ?, notes = ?, updated_at = ?, version = version + 1, deleted = FALSE, "
+                + "change_seq = NEXT VALUE FOR change_seq WHERE id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int i = 1;
+            setNullableLong(statement, i++, dto.localId());
+            statement.setString(i++, dto.imagePath());
+            i = bindPayload(statement, i, dto, now);
+            statement.setLong(i++, millisOr(dto.updatedAt(), now));
+            statement.setLong(i, existing.id());
+            statement.executeUpdate();
+        }
+        return find(connection, existing.userId(), existing.animalId()).orElseThrow();
+    }
+
+    /**
+     * Marks a row deleted; tombstones are kept so other devices learn about the delete
+     */
+    public void tombstone(Connection connection, StoredRecord existing, long now) throws SQLException {
+        String sql = "UPDATE animal_records SET deleted = TRUE, updated_at = ?, version = version + 1, "
+                + "change_seq = NEXT VALUE FOR change_seq WHERE id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, now);
+            statement.setLong(2, existing.id());
+            statement.executeUpdate();
+        }
+    }
+
+    public void setImageUrl(Connection connection, String userId, String animalId, String imageUrl) throws SQLException {
+        String sql = "UPDATE animal_records SET image_url = ?, change_seq = NEXT VALUE FOR change_seq "
+                + "WHERE user_id = ? AND animal_id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, imageUrl);
+            statement.setString(2, userId);
+            statement.setString(3, animalId);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Rows of one user written after {@code sinceSeq}, oldest change first
+     */
+    public List<StoredRecord> changesSince(Connection connection, String userId, long sinceSeq, int limit) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM animal_records WHERE user_id = ? AND change_seq > ? "
+                + "ORDER BY change_seq LIMIT ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, userId);
+            statement.setLong(2, sinceSeq);
+            statement.setInt(3, limit);
+            return mapAll(statement);
+        }
+    }
+
+    /**
+     * Live rows matching a planned query. {@link Query} SQL fragments come
+     * from the planner, never from client input; values are bound parameters.
+     */
+    public List<StoredRecord> queryLive(Connection connection, Query query, int limit, int offset) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM animal_records"
+                + (query.index() == null ? "" : " USE INDEX (" + query.index() + ")")
+                + " WHERE deleted = FALSE AND " + query.where()
+                + " ORDER BY " + query.orderBy()
+                + " LIMIT ?" + (offset > 0 ? " OFFSET ?" : "");
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int i = bind(statement, query.params());
+            statement.setInt(i++, limit);
+            if (offset > 0) {
+                statement.setInt(i, offset);
+            }
+            return mapAll(statement);
+        }
+    }
+
+    public int countLive(Connection connection, Query query) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM animal_records WHERE deleted = FALSE AND " + query.where();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, query.params());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static int bind(PreparedStatement statement, List<Object> params) throws SQLException {
+        int i = 1;
+        for (Object param : params) {
+            statement.setObject(i++, param);
+        }
+        return i;
+    }
+
+    /**
+     * Streams every live row to {@code consumer} without materializing the table
+     */
+    public void forEachLive(Connection connection, RowConsumer consumer) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM animal_records WHERE deleted = FALSE";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setFetchSize(1000);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(map(rs));
+                }
+            }
+        }
+    }
+
+    /**
+     * Streams the live rows matching a planned query to {@code consumer}.
+     * The connection runs the query lazily for the duration, so H2 hands rows
+     * over as it reads them rather than building the result first; memory use
+     * does not depend on how many rows match.
+     */
+    public void forEachLive(Connection connection, Query query, RowConsumer consumer) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM animal_records"
+                + (query.index() == null ? "" : " USE INDEX (" + query.index() + ")")
+                + " WHERE deleted = FALSE AND " + query.where()
+                + (query.orderBy() == null ? "" : " ORDER BY " + query.orderBy());
+        try (Statement lazy = connection.createStatement()) {
+            lazy.execute("SET LAZY_QUERY_EXECUTION TRUE");
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bind(statement, query.params());
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(map(rs));
+                    }
+                }
+            } finally {
+                // Pooled connections are reused, so the setting must not leak into the next caller
+                lazy.execute("SET LAZY_QUERY_EXECUTION FALSE");
+            }
+        }
+    }
+
+    /**
+     * Planned listing query: a WHERE fragment with its parameters, the ORDER BY
+     * clause and the index expected to serve it (null lets H2 choose)
+     */
+    public record Query(String where, List<Object> params, String orderBy, String index) {
+    }
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(StoredRecord record);
+    }
+
+    static List<StoredRecord> mapAll(PreparedStatement statement) throws SQLException {
+        List<StoredRecord> records = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                records.add(map(rs));
+            }
+        }
+        return records;
+    }
+
+    static StoredRecord map(ResultSet rs) throws SQLException {
+        long localId = rs.getLong("local_id");
+        boolean localIdNull = rs.wasNull();
+        float healthScore = rs.getFloat("health_score");
+        boolean healthNull = rs.wasNull();
+        return new StoredRecord(
+                rs.getLong("id"),
+                rs.getString("user_id"),
+                rs.getString("animal_id"),
+                localIdNull ? null : localId,
+                rs.getString("image_path"),
+                rs.getString("image_url"),
+                rs.getLong("record_date"),
+                rs.getDouble("body_length"),
+                rs.getDouble("height"),
+                rs.getDouble("chest_width"),
+                rs.getDouble("rump_angle"),
+                rs.getInt("atc_score"),
+                rs.getString("breed"),
+                healthNull ? null : healthScore,
+                fromJson(rs.getString("ai_analysis"), AIAnalysisDto.class),
+                fromJson(rs.getString("location"), LocationDto.class),
+                rs.getString("notes"),
+                rs.getLong("created_at"),
+                rs.getLong("updated_at"),
+                rs.getInt("version"),
+                rs.getBoolean("deleted"),
+                rs.getLong("change_seq")
+        );
+    }
+
+    private static int bindPayload(PreparedStatement statement, int i, AnimalRecordDto dto, long now) throws SQLException {
+        AIAnalysisDto analysis = dto.aiAnalysis();
+        statement.setLong(i++, millisOr(dto.date(), now));
+        statement.setDouble(i++, dto.bodyLength());
+        statement.setDouble(i++, dto.height());
+        statement.setDouble(i++, dto.chestWidth());
+        statement.setDouble(i++, dto.rumpAngle());
+        statement.setInt(i++, dto.atcScore());
+        statement.setString(i++, analysis == null ? null : analysis.breedClassification());
+        if (analysis == null || analysis.healthScore() == null) {
+            statement.setNull(i++, Types.REAL);
+        } else {
+            statement.setFloat(i++, analysis.healthScore());
+        }
+        statement.setString(i++, analysis == null ? null : JsonCodec.gson().toJson(analysis));
+        statement.setString(i++, dto.location() == null ? null : JsonCodec.gson().toJson(dto.location()));
+        statement.setString(i++, dto.notes());
+        return i;
+    }
+
+    private static long millisOr(String iso, long fallback) {
+        Long millis = IsoDates.parse(iso);
+        return millis == null ? fallback : millis;
+    }
+
+    private static void setNullableLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    private static <T> T fromJson(String json, Class<T> type) {
+        return json == null ? null : JsonCodec.gson().fromJson(json, type);
+    }
+}
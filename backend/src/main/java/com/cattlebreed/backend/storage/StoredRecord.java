@@ -0,0 +1,60 @@
+package com.cattlebreed.backend.storage;
+
+import com.cattlebreed.backend.api.ApiModels.AIAnalysisDto;
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.api.IsoDates;
+
+/**
+ * Server-side row of animal_records. Times are epoch millis; changeSeq orders
+ * every write so devices can pull "changes since" without clock skew.
+ */
+public record StoredRecord(
+        long id,
+        String userId,
+        String animalId,
+        Long localId,
+        String imagePath,
+        String imageUrl,
+        long recordDate,
+        double bodyLength,
+        double height,
+        double chestWidth,
+        double rumpAngle,
+        int atcScore,
+        String breed,
+        Float healthScore,
+        AIAnalysisDto aiAnalysis,
+        LocationDto location,
+        String notes,
+        long createdAt,
+        long updatedAt,
+        int version,
+        boolean deleted,
+        long changeSeq
+) {
+
+    public AnimalRecordDto toDto() {
+        return new AnimalRecordDto(
+                Long.toString(id),
+                localId,
+                animalId,
+                userId,
+                imagePath,
+                imageUrl,
+                IsoDates.format(recordDate),
+                bodyLength,
+                height,
+                chestWidth,
+                rumpAngle,
+                atcScore,
+                true,
+                aiAnalysis,
+                location,
+                notes,
+                IsoDates.format(createdAt),
+                IsoDates.format(updatedAt),
+                version
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package com.cattlebreed.backend.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * JDBC access to pending and completed image uploads
+ */
+public final class UploadStore {
+
+    public record Upload(
+            String fileId,
+            String userId,
+            String recordId,
+            String fileName,
+            String contentType,
+            long declaredSize,
+            Long storedSize,
+            long expiresAt,
+            Long completedAt
+    ) {
+    }
+
+    public void create(Connection connection, Upload upload) throws SQLException {
+        String sql = "INSERT INTO uploads (file_id, user_id, record_id, file_name, content_type, declared_size, expires_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, upload.fileId());
+            statement.setString(2, upload.userId());
+            statement.setString(3, upload.recordId());
+            statement.setString(4, upload.fileName());
+            statement.setString(5, upload.contentType());
+            statement.setLong(6, upload.declaredSize());
+            statement.setLong(7, upload.expiresAt());
+            statement.executeUpdate();
+        }
+    }
+
+    public Optional<Upload> find(Connection connection, String fileId) throws SQLException {
+        String sql = "SELECT file_id, user_id, record_id, file_name, content_type, declared_size, stored_size, "
+                + "expires_at, completed_at FROM uploads WHERE file_id = ?";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, fileId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                long storedSize = rs.getLong("stored_size");
+                Long stored = rs.wasNull() ? null : storedSize;
+                long completedAt = rs.getLong("completed_at");
+                Long completed = rs.wasNull() ? null : completedAt;
+                return Optional.of(new Upload(
+                        rs.getString("file_id"),
+                        rs.getString("user_id"),
+                        rs.getString("record_id"),
+                        rs.getString("file_name"),
+                        rs.getString("content_type"),
+                        rs.getLong("declared_size"),
+                        stored,
+                        rs.getLong("expires_at"),
+                        completed
+                ));
+            }
+        }
+    }
+
+    public void complete(Connection connection, String fileId, long storedSize, long now) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE uploads SET stored_size = ?, completed_at = ? WHERE file_id = ?")) {
+            statement.setLong(1, storedSize);
+            statement.setLong(2, now);
+            statement.setString(3, fileId);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.cattlebreed.backend.sync;
+
+import com.cattlebreed.backend.storage.StoredRecord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands committed changes to the listeners, each user's in commit order.
+ *
+ * A transaction takes a ticket while it holds the user's change lock, so
+ * tickets follow commit order. Results are handed in by ticket once the
+ * transaction ends, empty for a rollback. A result that arrives early waits
+ * until the earlier tickets are in, and whichever thread finds the next ticket
+ * ready delivers it. Without this, two syncs of the same record that commit
+ * A then B could reach the listeners as B then A. The read models would then
+ * remove B's copy before adding it, and prune regions that only look empty.
+ *
+ * Different users never touch the same record, so their changes are not ordered
+ * against each other.
+ */
+final class ChangePublisher {
+
+    private static final Logger LOG = Logger.getLogger(ChangePublisher.class.getName());
+
+    private final List<RecordChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // Users with a transaction in flight or changes waiting; guarded by this
+    private final Map<String, UserQueue> queues = new HashMap<>();
+
+    void addListener(RecordChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Position of the caller's changes; take it while holding the user's change lock
+     */
+    synchronized long ticket(String userId) {
+        return queues.computeIfAbsent(userId, k -> new UserQueue()).issued++;
+    }
+
+    /**
+     * Hands in a ticket's changes, empty if its transaction rolled back, and
+     * delivers every ticket that is now next in line
+     */
+    void complete(String userId, long ticket, List<RecordChange> changes) {
+        UserQueue queue;
+        synchronized (this) {
+            queue = queues.get(userId);
+            queue.ready.put(ticket, changes);
+            if (queue.delivering) {
+                return; // the delivering thread picks these up
+            }
+            queue.delivering = true;
+        }
+        while (true) {
+            List<RecordChange> next;
+            synchronized (this) {
+                next = queue.ready.remove(queue.next);
+                if (next == null) {
+                    queue.delivering = false;
+                    if (queue.next == queue.issued) {
+                        queues.remove(userId);
+                    }
+                    return;
+                }
+                queue.next++;
+            }
+            deliver(next);
+        }
+    }
+
+    /**
+     * Users with tickets not yet delivered
+     */
+    synchronized int pendingUsers() {
+        return queues.size();
+    }
+
+    // A failing listener never fails the sync
+    private void deliver(List<RecordChange> changes) {
+        for (RecordChangeListener listener : listeners) {
+            for (RecordChange change : changes) {
+                try {
+                    listener.onRecordChanged(change.before(), change.after());
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Record change listener failed", e);
+                }
+            }
+        }
+    }
+
+    record RecordChange(StoredRecord before, StoredRecord after) {
+    }
+
+    private static final class UserQueue {
+        long issued;
+        long next;
+        boolean delivering;
+        final Map<Long, List<RecordChange>> ready = new HashMap<>();
+    }
+}
@@ -0,0 +1,15 @@
+package com.cattlebreed.backend.sync;
+
+import com.cattlebreed.backend.storage.StoredRecord;
+
+/**
+ * Notified after a sync transaction commits, once per changed record.
+ *
+ * {@code before} is null for a new record and {@code after} is null for a
+ * delete. Read models use the pair to move a record's contribution instead
+ * of rescanning storage.
+ */
+@FunctionalInterface
+public interface RecordChangeListener {
+    void onRecordChanged(StoredRecord before, StoredRecord after);
+}
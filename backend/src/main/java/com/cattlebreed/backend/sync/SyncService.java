@@ -0,0 +1,162 @@
+package com.cattlebreed.backend.sync;
+
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.ConflictRecord;
+import com.cattlebreed.backend.api.ApiModels.ConflictType;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsRequest;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsResponse;
+import com.cattlebreed.backend.api.ApiModels.SyncData;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.ChangePublisher.RecordChange;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Applies a device's sync batch and returns what changed on the server since
+ * the device last synced.
+ *
+ * Conflicts are resolved last-writer-wins on the client's updatedAt. A
+ * deleted record is only revived by a write newer than the delete, never by
+ * a stale device.
+ */
+public final class SyncService {
+
+    // Bounds the response size of a first sync; the device pages with lastSyncTimestamp
+    private static final int MAX_SERVER_RECORDS = 500;
+
+    private final Database database;
+    private final RecordStore store;
+    private final Executor storageExecutor;
+    private final ChangePublisher publisher = new ChangePublisher();
+
+    public SyncService(Database database, RecordStore store, Executor storageExecutor) {
+        this.database = database;
+        this.store = store;
+        this.storageExecutor = storageExecutor;
+    }
+
+    public void addListener(RecordChangeListener listener) {
+        publisher.addListener(listener);
+    }
+
+    public CompletableFuture<SyncAnimalRecordsResponse> sync(String userId, SyncAnimalRecordsRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<RecordChange> written = new ArrayList<>();
+            long[] ticket = {-1};
+            boolean committed = false;
+            try {
+                SyncAnimalRecordsResponse response = database.inTransaction(connection -> {
+                    written.clear();
+                    SyncAnimalRecordsResponse applied = apply(connection, userId, request, written);
+                    // Still under the change lock, so tickets follow commit order
+                    ticket[0] = publisher.ticket(userId);
+                    return applied;
+                });
+                committed = true;
+                return response;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                // Only committed changes reach listeners; a rollback still gives up its turn
+                if (ticket[0] >= 0) {
+                    publisher.complete(userId, ticket[0], committed ? written : List.of());
+                }
+            }
+        }, storageExecutor);
+    }
+
+    private SyncAnimalRecordsResponse apply(
+            Connection connection,
+            String userId,
+            SyncAnimalRecordsRequest request,
+            List<RecordChange> written
+    ) throws SQLException {
+        // Taken before anything else, so the changes read below can't later gain an earlier one
+        store.lockChanges(connection, userId);
+        long now = System.currentTimeMillis();
+        List<String> synced = new ArrayList<>();
+        List<ConflictRecord> conflicts = new ArrayList<>();
+        Set<String> touched = new HashSet<>();
+
+        for (AnimalRecordDto dto : nullSafe(request.records())) {
+            if (dto.animalId() == null || dto.animalId().isBlank()) {
+                throw HttpError.badRequest("Record without animalId");
+            }
+            touched.add(dto.animalId());
+
+            Optional<StoredRecord> existing = store.find(connection, userId, dto.animalId());
+            if (existing.isEmpty()) {
+                written.add(new RecordChange(null, store.insert(connection, userId, dto, now)));
+                synced.add(dto.animalId());
+                continue;
+            }
+
+            StoredRecord current = existing.get();
+            Long incomingUpdatedAt = IsoDates.parse(dto.updatedAt());
+            if (current.deleted()) {
+                if (incomingUpdatedAt != null && incomingUpdatedAt > current.updatedAt()) {
+                    // Captured or edited after the delete, e.g. a new animal given a freed tag number
+                    written.add(new RecordChange(null, store.update(connection, current, dto, now)));
+                    synced.add(dto.animalId());
+                } else {
+                    conflicts.add(new ConflictRecord(dto, current.toDto(), ConflictType.DELETED_ON_SERVER));
+                }
+            } else if (incomingUpdatedAt != null && current.updatedAt() > incomingUpdatedAt) {
+                conflicts.add(new ConflictRecord(dto, current.toDto(), ConflictType.NEWER_ON_SERVER));
+            } else {
+                written.add(new RecordChange(current, store.update(connection, current, dto, now)));
+                synced.add(dto.animalId());
+            }
+        }
+
+        for (String animalId : nullSafe(request.deletedRecordIds())) {
+            touched.add(animalId);
+            Optional<StoredRecord> existing = store.find(connection, userId, animalId);
+            if (existing.isPresent() && !existing.get().deleted()) {
+                store.tombstone(connection, existing.get(), now);
+                written.add(new RecordChange(existing.get(), null));
+            }
+            // Deleting something the server never saw is still a success
+            synced.add(animalId);
+        }
+
+        long since = request.lastSyncTimestamp() == null ? 0L : request.lastSyncTimestamp();
+        List<StoredRecord> changes = store.changesSince(connection, userId, since, MAX_SERVER_RECORDS);
+        // Taken from the rows returned, so a write committed after the read is not skipped
+        long nextSyncPoint = changes.isEmpty() ? since : changes.get(changes.size() - 1).changeSeq();
+
+        List<AnimalRecordDto> serverRecords = new ArrayList<>();
+        List<String> deletedRecords = new ArrayList<>();
+        for (StoredRecord change : changes) {
+            if (touched.contains(change.animalId())) {
+                continue;
+            }
+            if (change.deleted()) {
+                deletedRecords.add(change.animalId());
+            } else {
+                serverRecords.add(change.toDto());
+            }
+        }
+
+        boolean hasMore = changes.size() == MAX_SERVER_RECORDS;
+        SyncData data = new SyncData(synced, conflicts, serverRecords, deletedRecords, nextSyncPoint, hasMore);
+        return new SyncAnimalRecordsResponse(true, "Synced " + synced.size() + " records", data);
+    }
+
+    private static <T> List<T> nullSafe(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
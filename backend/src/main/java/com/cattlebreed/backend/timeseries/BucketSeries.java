@@ -0,0 +1,118 @@
+package com.cattlebreed.backend.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Sparse series of buckets at one resolution, kept as parallel primitive
+ * arrays sorted by bucket index. Only buckets that received a record exist.
+ *
+ * New assessments land in the newest bucket or just after it, which is an
+ * array write; a record dated earlier than the tail (a device syncing late)
+ * costs a binary search and, for a new bucket, one shift. A range read is a
+ * binary search and a contiguous walk. Sums are exact under add and remove,
+ * so an edited record moves between buckets without a rebuild.
+ */
+final class BucketSeries {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    int size;
+    int[] index = new int[INITIAL_CAPACITY];
+    int[] count = new int[INITIAL_CAPACITY];
+    long[] scoreSum = new long[INITIAL_CAPACITY];
+    int[] healthCount = new int[INITIAL_CAPACITY];
+    double[] healthSum = new double[INITIAL_CAPACITY];
+
+    void add(int bucket, int score, float health) {
+        int slot = slotFor(bucket);
+        count[slot]++;
+        scoreSum[slot] += score;
+        if (!Float.isNaN(health)) {
+            healthCount[slot]++;
+            healthSum[slot] += health;
+        }
+    }
+
+    /**
+     * Takes a record back out. A bucket already dropped by retention has nothing to undo.
+     */
+    void remove(int bucket, int score, float health) {
+        int slot = Arrays.binarySearch(index, 0, size, bucket);
+        if (slot < 0) {
+            return;
+        }
+        count[slot]--;
+        scoreSum[slot] -= score;
+        if (!Float.isNaN(health)) {
+            healthCount[slot]--;
+            healthSum[slot] -= health;
+        }
+    }
+
+    /**
+     * First slot whose bucket is at or after {@code bucket}
+     */
+    int lowerBound(int bucket) {
+        int slot = Arrays.binarySearch(index, 0, size, bucket);
+        return slot >= 0 ? slot : -slot - 1;
+    }
+
+    /**
+     * Drops every bucket before {@code bucket}
+     */
+    void trimBefore(int bucket) {
+        int from = lowerBound(bucket);
+        if (from == 0) {
+            return;
+        }
+        int kept = size - from;
+        System.arraycopy(index, from, index, 0, kept);
+        System.arraycopy(count, from, count, 0, kept);
+        System.arraycopy(scoreSum, from, scoreSum, 0, kept);
+        System.arraycopy(healthCount, from, healthCount, 0, kept);
+        System.arraycopy(healthSum, from, healthSum, 0, kept);
+        size = kept;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int slotFor(int bucket) {
+        if (size > 0 && index[size - 1] == bucket) {
+            return size - 1;
+        }
+        int slot = size == 0 || index[size - 1] < bucket ? size : Arrays.binarySearch(index, 0, size, bucket);
+        if (slot >= 0 && slot < size) {
+            return slot;
+        }
+        slot = slot < 0 ? -slot - 1 : slot;
+        if (size == index.length) {
+            grow();
+        }
+        int moved = size - slot;
+        if (moved > 0) {
+            System.arraycopy(index, slot, index, slot + 1, moved);
+            System.arraycopy(count, slot, count, slot + 1, moved);
+            System.arraycopy(scoreSum, slot, scoreSum, slot + 1, moved);
+            System.arraycopy(healthCount, slot, healthCount, slot + 1, moved);
+            System.arraycopy(healthSum, slot, healthSum, slot + 1, moved);
+        }
+        index[slot] = bucket;
+        count[slot] = 0;
+        scoreSum[slot] = 0;
+        healthCount[slot] = 0;
+        healthSum[slot] = 0;
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = index.length * 2;
+        index = Arrays.copyOf(index, capacity);
+        count = Arrays.copyOf(count, capacity);
+        scoreSum = Arrays.copyOf(scoreSum, capacity);
+        healthCount = Arrays.copyOf(healthCount, capacity);
+        healthSum = Arrays.copyOf(healthSum, capacity);
+    }
+}
@@ -0,0 +1,36 @@
+package com.cattlebreed.backend.timeseries;
+
+import java.time.LocalDate;
+
+/**
+ * Bucket widths of a trend series. A bucket is addressed by an int index:
+ * the epoch day, the Monday-based week since the epoch, or year * 12 + month.
+ */
+public enum Resolution {
+    DAY,
+    WEEK,
+    MONTH;
+
+    int index(int epochDay) {
+        return switch (this) {
+            case DAY -> epochDay;
+            // 1970-01-01 was a Thursday; shifting by three puts Mondays on week boundaries
+            case WEEK -> Math.floorDiv(epochDay + 3, 7);
+            case MONTH -> {
+                LocalDate date = LocalDate.ofEpochDay(epochDay);
+                yield date.getYear() * 12 + date.getMonthValue() - 1;
+            }
+        };
+    }
+
+    /**
+     * First day of the bucket
+     */
+    LocalDate start(int index) {
+        return switch (this) {
+            case DAY -> LocalDate.ofEpochDay(index);
+            case WEEK -> LocalDate.ofEpochDay(index * 7L - 3);
+            case MONTH -> LocalDate.of(Math.floorDiv(index, 12), Math.floorMod(index, 12) + 1, 1);
+        };
+    }
+}
@@ -0,0 +1,286 @@
+package com.cattlebreed.backend.timeseries;
+
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.RecordChangeListener;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Pre-rolled ATC score and health trends per farm, per state and nationally.
+ *
+ * Every record is added to a daily, a weekly and a monthly bucket series as
+ * it arrives, so a trend query reads buckets and never touches records. Each
+ * query picks the finest resolution that still has the whole range and fits
+ * in {@link #MAX_POINTS} buckets: a quarter is daily, two years weekly, five
+ * years monthly. Fine tiers are only kept for a while (see {@link Retention});
+ * buckets that fall out of a tier's window are dropped once a day. Monthly
+ * buckets are kept forever.
+ */
+public final class TrendStore implements RecordChangeListener {
+
+    private static final Logger LOG = Logger.getLogger(TrendStore.class.getName());
+
+    public static final int MAX_POINTS = 200;
+
+    /**
+     * How far back the daily and weekly tiers reach. Farm series are many and
+     * sparse, so they keep less daily detail than the state series.
+     */
+    enum Retention {
+        FARM(120, 3 * 53),
+        REGION(400, 5 * 53);
+
+        final int days;
+        final int weeks;
+
+        Retention(int days, int weeks) {
+            this.days = days;
+            this.weeks = weeks;
+        }
+
+        /**
+         * Oldest bucket of {@code resolution} still kept on {@code today} (an epoch day)
+         */
+        int firstKept(Resolution resolution, int today) {
+            return switch (resolution) {
+                case DAY -> today - days + 1;
+                case WEEK -> Resolution.WEEK.index(today) - weeks + 1;
+                case MONTH -> Integer.MIN_VALUE;
+            };
+        }
+    }
+
+    private final Clock clock;
+    private final Map<String, Series> farms = new HashMap<>();
+    private final Map<String, Series> states = new HashMap<>();
+    private final Series national = new Series(Retention.REGION);
+    // Epoch day the tiers were last trimmed for
+    private int trimmedFor = Integer.MIN_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TrendStore() {
+        this(Clock.systemUTC());
+    }
+
+    public TrendStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    public void rebuild(Database database, RecordStore store) throws SQLException {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            farms.clear();
+            states.clear();
+            national.clear();
+            trimmedFor = today();
+            database.withConnection(connection -> {
+                store.forEachLive(connection, record -> apply(record, true));
+                return null;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Built trend series for " + farms.size() + " farms and " + states.size() + " states in "
+                + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    @Override
+    public void onRecordChanged(StoredRecord before, StoredRecord after) {
+        lock.writeLock().lock();
+        try {
+            trimIfNewDay();
+            if (before != null && !before.deleted()) {
+                apply(before, false);
+            }
+            if (after != null && !after.deleted()) {
+                apply(after, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * One farm's buckets overlapping [start, end], oldest first. Edge buckets
+     * are not clipped: only per-bucket sums are kept, so a weekly or monthly
+     * first point also counts the days of its period before {@code start},
+     * and the last point those after {@code end}.
+     */
+    public Trend farmTrend(String userId, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            return trend(farms.get(userId), Retention.FARM, start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One state's buckets overlapping [start, end], or the national ones when
+     * {@code state} is null. Edge buckets count their whole period, as in {@link #farmTrend}.
+     */
+    public Trend regionTrend(String state, LocalDate start, LocalDate end) {
+        lock.readLock().lock();
+        try {
+            Series series = state == null ? national : states.get(state.trim());
+            return trend(series, Retention.REGION, start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Trend trend(Series series, Retention retention, LocalDate start, LocalDate end) {
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+        Resolution resolution = resolution(retention, startDay, endDay, today());
+        List<Point> points = new ArrayList<>();
+        if (series != null) {
+            BucketSeries buckets = series.tiers[resolution.ordinal()];
+            int last = resolution.index(endDay);
+            for (int slot = buckets.lowerBound(resolution.index(startDay)); slot < buckets.size; slot++) {
+                int bucket = buckets.index[slot];
+                int count = buckets.count[slot];
+                if (bucket > last) {
+                    break;
+                }
+                if (count == 0) {
+                    continue;
+                }
+                int healthCount = buckets.healthCount[slot];
+                points.add(new Point(
+                        resolution.start(bucket),
+                        count,
+                        (double) buckets.scoreSum[slot] / count,
+                        healthCount == 0 ? Double.NaN : buckets.healthSum[slot] / healthCount
+                ));
+            }
+        }
+        return new Trend(resolution, points);
+    }
+
+    /**
+     * Finest resolution that still holds the start of the range and covers it in at most MAX_POINTS buckets
+     */
+    static Resolution resolution(Retention retention, int startDay, int endDay, int today) {
+        for (Resolution resolution : Resolution.values()) {
+            int first = resolution.index(startDay);
+            if (first >= retention.firstKept(resolution, today)
+                    && resolution.index(endDay) - first < MAX_POINTS) {
+                return resolution;
+            }
+        }
+        return Resolution.MONTH;
+    }
+
+    private void apply(StoredRecord record, boolean add) {
+        int day = (int) Instant.ofEpochMilli(record.recordDate()).atZone(AtsRollupStore.REPORTING_ZONE)
+                .toLocalDate().toEpochDay();
+        float health = record.healthScore() == null ? Float.NaN : record.healthScore();
+        int score = record.atcScore();
+        int today = trimmedFor;
+
+        series(farms, record.userId(), Retention.FARM).apply(day, score, health, add, today);
+        String state = record.location() == null ? null : record.location().state();
+        if (state != null && !state.isBlank()) {
+            series(states, state.trim(), Retention.REGION).apply(day, score, health, add, today);
+        }
+        national.apply(day, score, health, add, today);
+    }
+
+    private static Series series(Map<String, Series> map, String key, Retention retention) {
+        return map.computeIfAbsent(key, k -> new Series(retention));
+    }
+
+    private void trimIfNewDay() {
+        int today = today();
+        if (today == trimmedFor) {
+            return;
+        }
+        trimmedFor = today;
+        farms.values().removeIf(series -> series.trim(today));
+        states.values().removeIf(series -> series.trim(today));
+        national.trim(today);
+    }
+
+    private int today() {
+        return (int) LocalDate.ofInstant(clock.instant(), AtsRollupStore.REPORTING_ZONE).toEpochDay();
+    }
+
+    /**
+     * The three tiers of one farm, state or the whole country
+     */
+    private static final class Series {
+
+        final Retention retention;
+        final BucketSeries[] tiers = new BucketSeries[Resolution.values().length];
+
+        Series(Retention retention) {
+            this.retention = retention;
+            clear();
+        }
+
+        void clear() {
+            for (int i = 0; i < tiers.length; i++) {
+                tiers[i] = new BucketSeries();
+            }
+        }
+
+        /**
+         * Adds or removes one record. Tiers whose window has already passed the
+         * record's date skip it, in both directions, so they stay consistent.
+         */
+        void apply(int day, int score, float health, boolean add, int today) {
+            for (Resolution resolution : Resolution.values()) {
+                int bucket = resolution.index(day);
+                if (bucket < retention.firstKept(resolution, today)) {
+                    continue;
+                }
+                BucketSeries tier = tiers[resolution.ordinal()];
+                if (add) {
+                    tier.add(bucket, score, health);
+                } else {
+                    tier.remove(bucket, score, health);
+                }
+            }
+        }
+
+        /**
+         * Drops buckets older than each tier's window; true when nothing is left
+         */
+        boolean trim(int today) {
+            boolean empty = true;
+            for (Resolution resolution : Resolution.values()) {
+                BucketSeries tier = tiers[resolution.ordinal()];
+                tier.trimBefore(retention.firstKept(resolution, today));
+                empty &= tier.isEmpty();
+            }
+            return empty;
+        }
+    }
+
+    /**
+     * @param start         first day of the bucket
+     * @param count         records dated in the bucket
+     * @param averageHealth NaN when none of them has an AI health score
+     */
+    public record Point(LocalDate start, int count, double averageScore, double averageHealth) {
+    }
+
+    public record Trend(Resolution resolution, List<Point> points) {
+    }
+}
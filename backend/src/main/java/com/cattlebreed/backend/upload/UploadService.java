@@ -0,0 +1,184 @@
+package com.cattlebreed.backend.upload;
+
+import com.cattlebreed.backend.api.ApiModels.ImageUploadRequest;
+import com.cattlebreed.backend.api.ApiModels.ImageUploadResponse;
+import com.cattlebreed.backend.api.ApiModels.UploadData;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.concurrency.Bulkhead;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.UploadStore;
+import com.cattlebreed.backend.storage.UploadStore.Upload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Two-step image upload: the app asks for an upload URL, then PUTs the bytes
+ * to it. Images are stored under the data directory and linked to the record.
+ */
+public final class UploadService {
+
+    public static final long MAX_IMAGE_BYTES = 10L * 1024 * 1024;
+    private static final long UPLOAD_URL_TTL_MILLIS = 15 * 60 * 1000L;
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/webp", ".webp"
+    );
+
+    private final Database database;
+    private final UploadStore uploads;
+    private final RecordStore records;
+    private final Path imageDir;
+    private final Executor storageExecutor;
+    private final Executor diskExecutor;
+    private final Bulkhead diskBulkhead;
+
+    public UploadService(
+            Database database,
+            UploadStore uploads,
+            RecordStore records,
+            Path imageDir,
+            Executor storageExecutor,
+            Executor diskExecutor,
+            Bulkhead diskBulkhead
+    ) {
+        this.database = database;
+        this.uploads = uploads;
+        this.records = records;
+        this.imageDir = imageDir;
+        this.storageExecutor = storageExecutor;
+        this.diskExecutor = diskExecutor;
+        this.diskBulkhead = diskBulkhead;
+    }
+
+    public CompletableFuture<ImageUploadResponse> createUpload(String userId, ImageUploadRequest request) {
+        if (request.recordId() == null || request.recordId().isBlank()) {
+            throw HttpError.badRequest("recordId is required");
+        }
+        if (!EXTENSIONS.containsKey(request.contentType())) {
+            throw HttpError.badRequest("Unsupported content type " + request.contentType());
+        }
+        if (request.fileSize() <= 0 || request.fileSize() > MAX_IMAGE_BYTES) {
+            throw HttpError.payloadTooLarge("Images must be between 1 byte and " + MAX_IMAGE_BYTES + " bytes");
+        }
+
+        long expiresAt = System.currentTimeMillis() + UPLOAD_URL_TTL_MILLIS;
+        Upload upload = new Upload(
+                UUID.randomUUID().toString(),
+                userId,
+                request.recordId(),
+                request.fileName() == null ? "image" : request.fileName(),
+                request.contentType(),
+                request.fileSize(),
+                null,
+                expiresAt,
+                null
+        );
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                database.withConnection(connection -> {
+                    uploads.create(connection, upload);
+                    return null;
+                });
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+            UploadData data = new UploadData("uploads/" + upload.fileId(), upload.fileId(), IsoDates.format(expiresAt));
+            return new ImageUploadResponse(true, "Upload URL created", data);
+        }, storageExecutor);
+    }
+
+    /**
+     * Stores the bytes of a pending upload and points the record at the image
+     */
+    public CompletableFuture<Void> store(String userId, String fileId, byte[] body) {
+        return findUpload(fileId)
+                .thenApply(upload -> {
+                    if (!upload.userId().equals(userId)) {
+                        throw HttpError.notFound("Unknown upload " + fileId);
+                    }
+                    if (upload.completedAt() == null && upload.expiresAt() < System.currentTimeMillis()) {
+                        throw new HttpError(410, "UPLOAD_EXPIRED", "Upload URL expired");
+                    }
+                    if (body.length == 0 || body.length > MAX_IMAGE_BYTES) {
+                        throw HttpError.payloadTooLarge("Images must be between 1 byte and " + MAX_IMAGE_BYTES + " bytes");
+                    }
+                    return upload;
+                })
+                .thenApplyAsync(upload -> {
+                    diskBulkhead.call(() -> {
+                        writeAtomically(imagePath(upload), body);
+                        return null;
+                    });
+                    return upload;
+                }, diskExecutor)
+                .thenAcceptAsync(upload -> {
+                    try {
+                        database.inTransaction(connection -> {
+                            records.lockChanges(connection, userId);
+                            uploads.complete(connection, fileId, body.length, System.currentTimeMillis());
+                            records.setImageUrl(connection, userId, upload.recordId(), "uploads/" + fileId);
+                            return null;
+                        });
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, storageExecutor);
+    }
+
+    public CompletableFuture<StoredImage> load(String fileId) {
+        return findUpload(fileId).thenApplyAsync(upload -> {
+            if (upload.completedAt() == null) {
+                throw HttpError.notFound("Upload " + fileId + " has no image yet");
+            }
+            try {
+                byte[] bytes = diskBulkhead.call(() -> Files.readAllBytes(imagePath(upload)));
+                return new StoredImage(upload.contentType(), bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, diskExecutor);
+    }
+
+    private CompletableFuture<Upload> findUpload(String fileId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return database.withConnection(connection -> uploads.find(connection, fileId))
+                        .orElseThrow(() -> HttpError.notFound("Unknown upload " + fileId));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, storageExecutor);
+    }
+
+    private Path imagePath(Upload upload) {
+        return imageDir.resolve(upload.fileId() + EXTENSIONS.get(upload.contentType()));
+    }
+
+    // Readers never see a half-written image
+    private static void writeAtomically(Path target, byte[] body) {
+        try {
+            Path temp = Files.createTempFile(target.getParent(), "upload", ".tmp");
+            Files.write(temp, body);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record StoredImage(String contentType, byte[] bytes) {
+    }
+}
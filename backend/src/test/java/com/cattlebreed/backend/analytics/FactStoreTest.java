@@ -0,0 +1,247 @@
+package com.cattlebreed.backend.analytics;
+
+import com.cattlebreed.backend.analytics.FactStore.FarmScan;
+import com.cattlebreed.backend.analytics.FactStore.RegionAverages;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every query against a plain scan of the records the store should hold
+ */
+class FactStoreTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final String[] FARMS = {"9000000001", "9000000002", "9000000003", "9000000004"};
+    private static final String[] STATES = {"Gujarat", "Punjab", "Haryana", null};
+    private static final String[] BREEDS = {"Gir", "Sahiwal", "Murrah", null};
+
+    private final FactStore facts = new FactStore();
+    // What the store should hold, by record id
+    private final Map<Long, StoredRecord> live = new LinkedHashMap<>();
+    private final Random random = new Random(42);
+    private long nextId = 1;
+
+    @Test
+    void insertsUpdatesAndDeletesMatchAPlainScan() {
+        for (int step = 0; step < 3_000; step++) {
+            int op = random.nextInt(10);
+            if (live.isEmpty() || op < 5) {
+                insert(randomRecord(nextId++, FARMS[random.nextInt(FARMS.length)]));
+            } else if (op < 8) {
+                StoredRecord before = pick();
+                update(before, randomRecord(before.id(), before.userId()));
+            } else {
+                delete(pick());
+            }
+            if (step % 250 == 0) {
+                assertMatchesScan();
+            }
+        }
+        assertMatchesScan();
+    }
+
+    @Test
+    void compactedPartitionsStillFindTheirRows() {
+        // One month big enough to compact, then thinned out past the threshold
+        List<StoredRecord> january = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            StoredRecord record = record(nextId++, FARMS[i % 4], FIRST_DAY.plusDays(i % 31), 40 + i % 60,
+                    BREEDS[i % 3], STATES[i % 3]);
+            january.add(record);
+            insert(record);
+        }
+        for (int i = 0; i < 600; i += 2) {
+            delete(january.get(i));
+        }
+        assertMatchesScan();
+
+        // Rows moved by compaction must still be found by their record id
+        for (int i = 1; i < 600; i += 4) {
+            StoredRecord before = january.get(i);
+            update(before, record(before.id(), before.userId(), FIRST_DAY.plusMonths(1), 99, "Gir", "Punjab"));
+        }
+        for (int i = 3; i < 600; i += 8) {
+            delete(january.get(i));
+        }
+        assertMatchesScan();
+
+        // Emptied partitions go away and come back
+        live.values().stream().toList().forEach(this::delete);
+        assertEquals(0, facts.size());
+        insert(record(nextId++, FARMS[0], FIRST_DAY, 75, "Gir", "Gujarat"));
+        assertMatchesScan();
+    }
+
+    @Test
+    void removingAnUnknownRecordIsANoOp() {
+        insert(record(nextId++, FARMS[0], FIRST_DAY, 75, "Gir", "Gujarat"));
+
+        facts.onRecordChanged(record(999_999, FARMS[0], FIRST_DAY, 75, "Gir", "Gujarat"), null);
+
+        assertMatchesScan();
+    }
+
+    private void assertMatchesScan() {
+        assertEquals(live.size(), facts.size());
+        for (String state : STATES) {
+            assertEquals(expected(state).size(), facts.liveCount(state), "state " + state);
+        }
+
+        LocalDate last = FIRST_DAY.plusDays(200);
+        List<LocalDate[]> ranges = List.of(
+                new LocalDate[]{FIRST_DAY, last},
+                new LocalDate[]{FIRST_DAY.plusDays(10), FIRST_DAY.plusDays(75)},
+                new LocalDate[]{LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 31)},
+                new LocalDate[]{FIRST_DAY.plusDays(45), FIRST_DAY.plusDays(45)});
+        for (LocalDate[] range : ranges) {
+            for (String farm : FARMS) {
+                assertFarmScan(farm, range[0], range[1]);
+            }
+            for (String state : STATES) {
+                assertAverages(range[0], range[1], state);
+            }
+            assertDaySlices(null, range[0], range[1]);
+            assertDaySlices("Punjab", range[0], range[1]);
+        }
+    }
+
+    private void assertFarmScan(String farm, LocalDate start, LocalDate end) {
+        List<StoredRecord> rows = expected(null).stream()
+                .filter(record -> record.userId().equals(farm) && within(record, start, end))
+                .toList();
+        FarmScan scan = facts.scanFarm(farm, start, end);
+
+        String where = farm + " " + start + ".." + end;
+        assertEquals(rows.size(), scan.count(), where);
+        if (rows.isEmpty()) {
+            return;
+        }
+        assertEquals(rows.stream().mapToInt(StoredRecord::atcScore).average().orElseThrow(), scan.averageScore(),
+                1e-9, where);
+        assertEquals(rows.stream().filter(r -> r.atcScore() >= FactStore.GOOD_SCORE).count() / (double) rows.size(),
+                scan.goodFraction(), 1e-9, where);
+        Map<String, Integer> breeds = new HashMap<>();
+        Map<String, Integer> states = new HashMap<>();
+        for (StoredRecord record : rows) {
+            breeds.merge(breedOf(record), 1, Integer::sum);
+            if (record.location().state() != null) {
+                states.merge(record.location().state(), 1, Integer::sum);
+            }
+        }
+        assertEquals(breeds, new HashMap<>(scan.breedDistribution()), where);
+        if (states.isEmpty()) {
+            assertNull(scan.homeState(), where);
+        } else {
+            int most = states.values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+            assertEquals(most, states.get(scan.homeState()), where);
+        }
+    }
+
+    private void assertAverages(LocalDate start, LocalDate end, String state) {
+        List<StoredRecord> placed = expected(null).stream()
+                .filter(record -> record.location().state() != null && within(record, start, end))
+                .toList();
+        RegionAverages averages = facts.averages(start, end, state);
+
+        assertMean(placed, averages.national());
+        assertMean(placed.stream().filter(record -> record.location().state().equals(state)).toList(),
+                averages.regional());
+    }
+
+    private void assertDaySlices(String state, LocalDate start, LocalDate end) {
+        int startDay = (int) start.toEpochDay();
+        DaySlice[] slices = facts.daySlices(state, startDay, (int) end.toEpochDay());
+        assertEquals(end.toEpochDay() - start.toEpochDay() + 1, slices.length);
+
+        for (int i = 0; i < slices.length; i++) {
+            LocalDate day = start.plusDays(i);
+            List<StoredRecord> rows = expected(state).stream().filter(record -> within(record, day, day)).toList();
+            assertEquals(rows.size(), slices[i].count(), state + " " + day);
+            Map<String, int[]> byBreed = new HashMap<>();
+            for (StoredRecord record : rows) {
+                int[] countAndSum = byBreed.computeIfAbsent(breedOf(record), k -> new int[2]);
+                countAndSum[0]++;
+                countAndSum[1] += record.atcScore();
+            }
+            for (int code = 0; code < slices[i].breeds(); code++) {
+                int[] countAndSum = byBreed.getOrDefault(facts.breedName(code), new int[2]);
+                assertEquals(countAndSum[0], slices[i].breedCount(code), state + " " + day);
+                assertEquals(countAndSum[1], slices[i].breedScoreSum(code), state + " " + day);
+            }
+        }
+    }
+
+    private static void assertMean(List<StoredRecord> rows, double actual) {
+        if (rows.isEmpty()) {
+            assertTrue(Double.isNaN(actual));
+        } else {
+            assertEquals(rows.stream().mapToInt(StoredRecord::atcScore).average().orElseThrow(), actual, 1e-9);
+        }
+    }
+
+    /**
+     * Live records in a state, or all of them when {@code state} is null
+     */
+    private List<StoredRecord> expected(String state) {
+        return live.values().stream()
+                .filter(record -> state == null || state.equals(record.location().state()))
+                .toList();
+    }
+
+    private void insert(StoredRecord record) {
+        live.put(record.id(), record);
+        facts.onRecordChanged(null, record);
+    }
+
+    private void update(StoredRecord before, StoredRecord after) {
+        live.put(after.id(), after);
+        facts.onRecordChanged(before, after);
+    }
+
+    private void delete(StoredRecord record) {
+        live.remove(record.id());
+        facts.onRecordChanged(record, null);
+    }
+
+    private StoredRecord pick() {
+        List<StoredRecord> records = new ArrayList<>(live.values());
+        return records.get(random.nextInt(records.size()));
+    }
+
+    private StoredRecord randomRecord(long id, String farm) {
+        return record(id, farm, FIRST_DAY.plusDays(random.nextInt(200)), random.nextInt(101),
+                BREEDS[random.nextInt(BREEDS.length)], STATES[random.nextInt(STATES.length)]);
+    }
+
+    private static boolean within(StoredRecord record, LocalDate start, LocalDate end) {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(record.recordDate()),
+                AtsRollupStore.REPORTING_ZONE);
+        return !day.isBefore(start) && !day.isAfter(end);
+    }
+
+    private static String breedOf(StoredRecord record) {
+        return record.breed() == null ? "Unknown" : record.breed();
+    }
+
+    private static StoredRecord record(long id, String farm, LocalDate date, int score, String breed, String state) {
+        long millis = date.atTime(9, 30).atZone(AtsRollupStore.REPORTING_ZONE).toInstant().toEpochMilli();
+        return new StoredRecord(id, farm, "A-" + id, null, null, null, millis, 150.0, 130.0, 45.0, 20.0, score,
+                breed, null, null, new LocationDto(null, null, null, null, state, null), null,
+                millis, millis, 1, false, id);
+    }
+}
@@ -0,0 +1,120 @@
+package com.cattlebreed.backend.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MonthPartitionTest {
+
+    private final MonthPartition partition = new MonthPartition(2024 * 12, 19723, 19753);
+
+    @Test
+    void deleteBitsLandOnTheirOwnRowAcrossWordBoundaries() {
+        fill(300);
+        int[] rows = {0, 63, 64, 127, 128, 255, 299};
+
+        for (int row : rows) {
+            partition.delete(row);
+        }
+
+        for (int row = 0; row < 300; row++) {
+            boolean expected = false;
+            for (int deleted : rows) {
+                expected |= deleted == row;
+            }
+            assertEquals(expected, partition.isDeleted(row), "row " + row);
+        }
+        assertEquals(300 - rows.length, partition.live);
+        assertTrue(partition.hasDeletes());
+    }
+
+    @Test
+    void deletingTwiceCountsOnce() {
+        fill(10);
+
+        partition.delete(3);
+        partition.delete(3);
+
+        assertEquals(9, partition.live);
+        assertEquals(9, partition.countByState[0] + partition.countByState[1]);
+    }
+
+    @Test
+    void compactionKeepsLiveRowsInOrderAndReportsEveryMove() {
+        fill(400);
+        for (int row = 0; row < 400; row += 3) {
+            partition.delete(row);
+        }
+        assertTrue(partition.needsCompaction());
+        long[] scoreSums = partition.scoreSumByState.clone();
+        int[] counts = partition.countByState.clone();
+
+        Map<Long, Integer> moves = new HashMap<>();
+        partition.compact((id, newRow) -> assertNull(moves.put(id, newRow)));
+
+        List<Long> expected = new ArrayList<>();
+        for (int row = 0; row < 400; row++) {
+            if (row % 3 != 0) {
+                expected.add(1_000L + row);
+            }
+        }
+        assertEquals(expected.size(), partition.size);
+        assertEquals(partition.size, partition.live);
+        assertFalse(partition.hasDeletes());
+        for (int row = 0; row < partition.size; row++) {
+            long id = expected.get(row);
+            assertEquals(id, partition.recordId[row]);
+            assertFalse(partition.isDeleted(row));
+            // Columns move together
+            int original = (int) (id - 1_000);
+            assertEquals(original % 101, partition.score[row]);
+            assertEquals(original % 2, partition.state[row]);
+            assertEquals(19723 + original % 31, partition.epochDay[row]);
+            // Rows that stayed put need no remapping
+            assertEquals(row == original ? null : row, moves.get(id));
+        }
+        assertEquals(scoreSums[0], partition.scoreSumByState[0]);
+        assertEquals(counts[1], partition.countByState[1]);
+
+        // The cleared bitmap is usable again
+        partition.delete(5);
+        assertEquals(partition.size - 1, partition.live);
+    }
+
+    @Test
+    void smallPartitionsAreNotCompacted() {
+        fill(100);
+        for (int row = 0; row < 90; row++) {
+            partition.delete(row);
+        }
+
+        assertFalse(partition.needsCompaction());
+    }
+
+    @Test
+    void stateSumsFollowAppendsAndDeletes() {
+        partition.append(1, 19723, 60, 0, 0, 5);
+        partition.append(2, 19724, 80, 0, 0, 5);
+        partition.append(3, 19725, 70, 0, 0, -1);
+
+        partition.delete(0);
+
+        assertEquals(1, partition.countByState[5]);
+        assertEquals(80, partition.scoreSumByState[5]);
+        assertEquals(2, partition.live);
+    }
+
+    private void fill(int rows) {
+        for (int row = 0; row < rows; row++) {
+            partition.append(1_000L + row, 19723 + row % 31, row % 101, row % 4, row % 7, row % 2);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.cattlebreed.backend.ats;
+
+import com.cattlebreed.backend.api.ApiModels.AIAnalysisDto;
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsRequest;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.ats.AtsModels.AtsRow;
+import com.cattlebreed.backend.ats.AtsModels.AtsState;
+import com.cattlebreed.backend.ats.AtsModels.AtsStatesResponse;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.sync.SyncService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtsRollupStoreTest {
+
+    private static final String FARMER = "9876543210";
+
+    @TempDir
+    Path dataDir;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final AtsRollupStore rollups = new AtsRollupStore();
+    private final RecordStore store = new RecordStore();
+    private Database database;
+    private SyncService syncService;
+    // Client timestamps only need to increase for each edit to win
+    private long clientClock = System.currentTimeMillis() - 3_600_000;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new Database(dataDir, 4, 1_000);
+        database.migrate();
+        syncService = new SyncService(database, store, executor);
+        syncService.addListener(rollups);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    void cellsFollowInsertsEditsAndDeletes() throws Exception {
+        sync(FARMER, record("GIR-1", "2024-03-10", "Gujarat", "Amreli", "Gir", 70));
+        sync(FARMER, record("GIR-2", "2024-03-11", "Gujarat", "Amreli", "Gir", 80));
+        sync(FARMER, record("MUR-1", "2024-05-02", "Haryana", "Hisar", "Murrah", 60));
+
+        AtsState gujarat = rollups.state(YearType.CALENDAR, 2024, "Gujarat");
+        assertEquals(2, gujarat.totalEvaluated());
+        assertEquals(75.0, gujarat.avgScore());
+        assertEquals(new AtsRow("Gujarat", "Amreli", 2, 2, 0, 75.0, "70–80"), gujarat.districts().get(0));
+        assertEquals(1, rollups.states(YearType.CALENDAR, 2024).national().buffalo());
+        // March is the end of financial year 2023-24
+        assertEquals(2, rollups.states(YearType.FINANCIAL, 2023).national().totalEvaluated());
+
+        // Moves district, year and score at once
+        sync(FARMER, record("GIR-2", "2025-01-15", "Gujarat", "Kutch", "Gir", 90));
+        gujarat = rollups.state(YearType.CALENDAR, 2024, "Gujarat");
+        assertEquals(1, gujarat.totalEvaluated());
+        assertEquals(70.0, gujarat.avgScore());
+        assertEquals(90.0, rollups.state(YearType.CALENDAR, 2025, "Gujarat").avgScore());
+        assertEquals(3, rollups.states(YearType.FINANCIAL, 2024).national().totalEvaluated()
+                + rollups.states(YearType.FINANCIAL, 2023).national().totalEvaluated());
+
+        syncDeletes(FARMER, "MUR-1");
+        assertEquals(List.of("Gujarat"), stateNames(rollups.states(YearType.CALENDAR, 2024)));
+        assertEquals(0, rollups.state(YearType.CALENDAR, 2024, "Haryana").totalEvaluated());
+
+        syncDeletes(FARMER, "GIR-1", "GIR-2");
+        assertTrue(rollups.states(YearType.CALENDAR, 2024).states().isEmpty());
+        assertNull(rollups.states(YearType.CALENDAR, 2025).national().avgScore());
+
+        assertMatchesRebuild(2023, 2024, 2025);
+    }
+
+    @Test
+    void recordsWithoutAStateStayOffTheMap() throws Exception {
+        sync(FARMER, record("GIR-1", "2024-03-10", null, "Amreli", "Gir", 70));
+        sync(FARMER, record("GIR-2", "2024-03-10", "Gujarat", " ", "Gir", 80));
+
+        AtsStatesResponse states = rollups.states(YearType.CALENDAR, 2024);
+        assertEquals(1, states.national().totalEvaluated());
+        assertTrue(rollups.state(YearType.CALENDAR, 2024, "Gujarat").districts().isEmpty());
+
+        // Gaining a state later puts it on the map
+        sync(FARMER, record("GIR-1", "2024-03-10", "Gujarat", "Amreli", "Gir", 70));
+        assertEquals(2, rollups.states(YearType.CALENDAR, 2024).national().totalEvaluated());
+        assertMatchesRebuild(2024);
+    }
+
+    @Test
+    void concurrentSyncsOfTheSameRecordsEndEqualToARebuild() throws Exception {
+        String[] states = {"Gujarat", "Haryana", "Punjab"};
+        List<CompletableFuture<?>> syncs = new ArrayList<>();
+        for (int round = 0; round < 60; round++) {
+            List<AnimalRecordDto> batch = new ArrayList<>();
+            for (int animal = 0; animal < 4; animal++) {
+                // Every round moves each animal to another state, year and score
+                int spin = round + animal;
+                batch.add(record("GIR-" + animal, (2023 + spin % 2) + "-06-01", states[spin % 3],
+                        "District " + spin % 2, spin % 2 == 0 ? "Gir" : "Murrah", 50 + spin % 40));
+            }
+            SyncAnimalRecordsRequest request = new SyncAnimalRecordsRequest(batch, null, List.of());
+            syncs.add(syncService.sync(FARMER, request));
+            if (round % 7 == 6) {
+                syncs.add(syncService.sync(FARMER,
+                        new SyncAnimalRecordsRequest(List.of(), null, List.of("GIR-" + round % 4))));
+            }
+        }
+        for (CompletableFuture<?> sync : syncs) {
+            sync.get(30, TimeUnit.SECONDS);
+        }
+
+        assertMatchesRebuild(2022, 2023, 2024);
+    }
+
+    private void assertMatchesRebuild(int... years) throws Exception {
+        AtsRollupStore rebuilt = new AtsRollupStore();
+        rebuilt.rebuild(database, store);
+        for (YearType yearType : YearType.values()) {
+            for (int year : years) {
+                AtsStatesResponse expected = rebuilt.states(yearType, year);
+                assertEquals(expected, rollups.states(yearType, year), yearType + " " + year);
+                for (AtsState state : expected.states()) {
+                    assertEquals(rebuilt.state(yearType, year, state.state()),
+                            rollups.state(yearType, year, state.state()));
+                }
+            }
+        }
+    }
+
+    private void sync(String userId, AnimalRecordDto record) throws Exception {
+        syncService.sync(userId, new SyncAnimalRecordsRequest(List.of(record), null, List.of())).get();
+    }
+
+    private void syncDeletes(String userId, String... animalIds) throws Exception {
+        syncService.sync(userId, new SyncAnimalRecordsRequest(List.of(), null, List.of(animalIds))).get();
+    }
+
+    private static List<String> stateNames(AtsStatesResponse response) {
+        return response.states().stream().map(AtsState::state).toList();
+    }
+
+    private synchronized AnimalRecordDto record(String animalId, String date, String state, String district,
+                                                String breed, int score) {
+        long recordDate = LocalDate.parse(date).atTime(12, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        String updatedAt = IsoDates.format(clientClock += 1_000);
+        AIAnalysisDto analysis = new AIAnalysisDto(breed, 0.9f, null, "A", List.of(), "test", "1", 0);
+        LocationDto location = new LocationDto(null, null, null, null, state, district);
+        return new AnimalRecordDto(null, null, animalId, null, null, null, IsoDates.format(recordDate), 150.0, 130.0,
+                45.0, 20.0, score, false, analysis, location, null, updatedAt, updatedAt, 0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.cattlebreed.backend.auth;
+
+import com.cattlebreed.backend.http.ApiRequest;
+import com.cattlebreed.backend.http.Endpoint;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.http.HttpResult;
+import com.sun.net.httpserver.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdminAuthTest {
+
+    private static final String TOKEN = "0123456789abcdef0123456789abcdef";
+
+    private final Endpoint export = request -> CompletableFuture.completedFuture(HttpResult.empty(204));
+
+    @Test
+    void spoofedUserHeaderIsForbidden() {
+        Endpoint guarded = new AdminAuth(TOKEN).guard(export);
+
+        HttpError error = assertThrows(HttpError.class, () -> guarded.handle(request(Map.of("X-User-Id", "9876543210"))));
+
+        assertEquals(403, error.status());
+    }
+
+    @Test
+    void wrongTokenIsForbidden() {
+        Endpoint guarded = new AdminAuth(TOKEN).guard(export);
+
+        HttpError error = assertThrows(HttpError.class,
+                () -> guarded.handle(request(Map.of("Authorization", "Bearer " + TOKEN.replace('0', '1')))));
+
+        assertEquals(403, error.status());
+    }
+
+    @Test
+    void routesAreClosedWithoutAConfiguredToken() {
+        Endpoint guarded = new AdminAuth(null).guard(export);
+
+        HttpError error = assertThrows(HttpError.class,
+                () -> guarded.handle(request(Map.of("Authorization", "Bearer " + TOKEN))));
+
+        assertEquals(403, error.status());
+    }
+
+    @Test
+    void configuredTokenIsLetThrough() {
+        Endpoint guarded = new AdminAuth(TOKEN).guard(export);
+
+        assertEquals(204, guarded.handle(request(Map.of("Authorization", "Bearer " + TOKEN))).join().status());
+    }
+
+    @Test
+    void shortTokensAreRejectedAtStartup() {
+        assertThrows(IllegalArgumentException.class, () -> new AdminAuth("admin"));
+    }
+
+    private static ApiRequest request(Map<String, String> headerValues) {
+        Headers headers = new Headers();
+        headerValues.forEach(headers::add);
+        return new ApiRequest("GET", "admin/export", Map.of(), Map.of(), headers, new byte[0]);
+    }
+}
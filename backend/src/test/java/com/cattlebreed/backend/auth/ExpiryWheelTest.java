@@ -0,0 +1,87 @@
+package com.cattlebreed.backend.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpiryWheelTest {
+
+    private final List<String> expired = new ArrayList<>();
+    private final ExpiryWheel<String> wheel = new ExpiryWheel<>(1000, 4, 0);
+
+    @Test
+    void entriesExpireInTheTickAfterTheirDeadline() {
+        wheel.schedule("a", 2500);
+        wheel.schedule("b", 3000);
+
+        wheel.advance(2999, expired::add);
+        assertEquals(List.of(), expired);
+
+        wheel.advance(3000, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+
+        // Drained slots stay empty
+        wheel.advance(3500, expired::add);
+        assertEquals(2, expired.size());
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitTheirTurn() {
+        // Same slot as tick 2 on a four-slot wheel
+        wheel.schedule("late", 10_000);
+        wheel.schedule("soon", 2000);
+
+        wheel.advance(2000, expired::add);
+        assertEquals(List.of("soon"), expired);
+        wheel.advance(6000, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(10_000, expired::add);
+        assertEquals(List.of("soon", "late"), expired);
+    }
+
+    @Test
+    void oneAdvanceAfterALongIdleSpellCatchesEverythingUp() {
+        wheel.schedule("a", 1000);
+        wheel.schedule("b", 3000);
+        wheel.schedule("c", 7000);
+
+        wheel.advance(60_000, expired::add);
+
+        assertEquals(3, expired.size());
+    }
+
+    @Test
+    void pastDeadlinesExpireOnTheNextAdvance() {
+        wheel.advance(5000, expired::add);
+        wheel.schedule("past", 1000);
+
+        wheel.advance(5999, expired::add);
+        assertEquals(List.of(), expired);
+        wheel.advance(6000, expired::add);
+        assertEquals(List.of("past"), expired);
+    }
+
+    @Test
+    void theCallbackCanFileAnEntryAgain() {
+        long[] deadline = {2000};
+        wheel.schedule("renewed", deadline[0]);
+
+        // Extended twice, like a state whose number asked for a new code
+        for (long now = 0; now <= 20_000; now += 500) {
+            long at = now;
+            wheel.advance(now, item -> {
+                expired.add(item + "@" + at);
+                if (deadline[0] < 8000) {
+                    deadline[0] += 3000;
+                    wheel.schedule(item, deadline[0]);
+                }
+            });
+        }
+
+        assertEquals(List.of("renewed@2000", "renewed@5000", "renewed@8000"), expired);
+    }
+}
@@ -0,0 +1,220 @@
+package com.cattlebreed.backend.auth;
+
+import com.cattlebreed.backend.api.ApiModels.LoginRequest;
+import com.cattlebreed.backend.api.ApiModels.LoginResponse;
+import com.cattlebreed.backend.api.ApiModels.SendOtpRequest;
+import com.cattlebreed.backend.http.HttpError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OtpServiceTest {
+
+    private static final String PHONE = "9876543210";
+
+    private final MutableClock clock = new MutableClock();
+    private final OtpService service = new OtpService(100, true, clock);
+
+    @Test
+    void aCodeSignsInOnce() {
+        String code = send(PHONE);
+
+        assertTrue(service.verify(login(PHONE, code)).success());
+        assertStatus(401, () -> service.verify(login(PHONE, code)));
+    }
+
+    @Test
+    void thirdWrongGuessBurnsTheCode() {
+        String code = send(PHONE);
+        String wrong = wrong(code);
+
+        for (int i = 0; i < OtpService.MAX_ATTEMPTS; i++) {
+            assertStatus(401, () -> service.verify(login(PHONE, wrong)));
+        }
+        assertStatus(401, () -> service.verify(login(PHONE, code)));
+    }
+
+    @Test
+    void concurrentGuessesShareTheAttemptLimit() throws Exception {
+        String code = send(PHONE);
+        String wrong = wrong(code);
+
+        List<String> outcomes = race(50, () -> service.verify(login(PHONE, wrong)));
+
+        // Only three guesses are compared; the rest hit the limit or find the code gone
+        assertEquals(OtpService.MAX_ATTEMPTS, outcomes.stream().filter("Invalid OTP"::equals).count(),
+                outcomes.toString());
+        assertStatus(401, () -> service.verify(login(PHONE, code)));
+    }
+
+    @Test
+    void concurrentCorrectGuessesSignInOnce() throws Exception {
+        String code = send(PHONE);
+
+        List<String> outcomes = race(OtpService.MAX_ATTEMPTS, () -> service.verify(login(PHONE, code)));
+
+        assertEquals(1, outcomes.stream().filter("Signed in"::equals).count(), outcomes.toString());
+    }
+
+    @Test
+    void codesExpire() {
+        String code = send(PHONE);
+        clock.advance(OtpService.CODE_TTL_MILLIS);
+
+        assertStatus(401, () -> service.verify(login(PHONE, code)));
+    }
+
+    @Test
+    void resendsWaitForTheCooldownAndTheWindow() {
+        send(PHONE);
+        clock.advance(10_000);
+        HttpError cooling = assertStatus(429, () -> service.send(new SendOtpRequest(PHONE, "+91")));
+        assertEquals(20, cooling.retryAfterSeconds());
+
+        long sentFor = 10_000;
+        for (int i = 1; i < OtpService.MAX_SENDS_PER_WINDOW; i++) {
+            clock.advance(OtpService.RESEND_COOLDOWN_MILLIS);
+            sentFor += OtpService.RESEND_COOLDOWN_MILLIS;
+            send(PHONE);
+        }
+        clock.advance(OtpService.RESEND_COOLDOWN_MILLIS);
+        sentFor += OtpService.RESEND_COOLDOWN_MILLIS;
+        HttpError window = assertStatus(429, () -> service.send(new SendOtpRequest(PHONE, "+91")));
+        assertEquals((OtpService.WINDOW_MILLIS - sentFor) / 1000, window.retryAfterSeconds());
+
+        clock.advance(OtpService.WINDOW_MILLIS - sentFor);
+        send(PHONE);
+    }
+
+    @Test
+    void aFullStoreRefusesNewNumbersUntilEntriesExpire() {
+        OtpService small = new OtpService(2, true, clock);
+        small.send(new SendOtpRequest("9000000001", "+91"));
+        small.send(new SendOtpRequest("9000000002", "+91"));
+
+        HttpError full = assertStatus(503, () -> small.send(new SendOtpRequest("9000000003", "+91")));
+        assertTrue(full.retryAfterSeconds() > 0);
+        assertEquals(2, small.size());
+
+        // Known numbers keep their place; a late code keeps this one past its window
+        clock.advance(OtpService.WINDOW_MILLIS - 60_000);
+        small.send(new SendOtpRequest("9000000001", "+91"));
+
+        // The second number lapses first; the wheel drops it on the next request
+        clock.advance(61_000);
+        small.send(new SendOtpRequest("9000000003", "+91"));
+        assertEquals(2, small.size());
+        assertStatus(503, () -> small.send(new SendOtpRequest("9000000004", "+91")));
+    }
+
+    @Test
+    void aResendKeepsTheNumberPastItsFirstDeadline() {
+        OtpService small = new OtpService(1, true, clock);
+        small.send(new SendOtpRequest(PHONE, "+91"));
+        // Late in the window, so the new code outlives it
+        clock.advance(OtpService.WINDOW_MILLIS - 60_000);
+        String code = small.send(new SendOtpRequest(PHONE, "+91")).devCode();
+
+        clock.advance(120_000);
+        assertStatus(503, () -> small.send(new SendOtpRequest("9000000001", "+91")));
+        assertTrue(small.verify(login(PHONE, code)).success());
+    }
+
+    @Test
+    void normalizesIndianNumbers() {
+        assertEquals(PHONE, OtpService.normalize("+91 98765-43210"));
+        assertEquals(PHONE, OtpService.normalize("919876543210"));
+        assertStatus(400, () -> OtpService.normalize("1234567890"));
+        assertStatus(400, () -> service.verify(login(PHONE, "123")));
+    }
+
+    private String send(String phone) {
+        return service.send(new SendOtpRequest(phone, "+91")).devCode();
+    }
+
+    private static LoginRequest login(String phone, String otp) {
+        return new LoginRequest(phone, otp, "device", "test");
+    }
+
+    private static String wrong(String code) {
+        String wrong = code.charAt(0) == '0' ? "1" + code.substring(1) : "0" + code.substring(1);
+        assertNotEquals(code, wrong);
+        return wrong;
+    }
+
+    private static HttpError assertStatus(int status, Executable call) {
+        HttpError error = assertThrows(HttpError.class, call);
+        assertEquals(status, error.status(), error.getMessage());
+        return error;
+    }
+
+    /**
+     * Runs {@code call} on as many threads at once and returns each one's response or error message
+     */
+    private static List<String> race(int threads, Supplier<LoginResponse> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return call.get().message();
+                    } catch (HttpError e) {
+                        return e.getMessage();
+                    }
+                }));
+            }
+            start.countDown();
+            List<String> outcomes = new ArrayList<>();
+            for (Future<String> result : results) {
+                outcomes.add(result.get(10, TimeUnit.SECONDS));
+            }
+            return outcomes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile long millis = Instant.parse("2024-06-12T06:30:00Z").toEpochMilli();
+
+        void advance(long by) {
+            millis += by;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.cattlebreed.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SwrCacheTest {
+
+    private static final long FRESH = 1_000;
+    private static final long MAX_STALE = 10_000;
+
+    private final MutableClock clock = new MutableClock();
+    // Loads run only when the test says so
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private final SwrCache<String, String> cache = new SwrCache<>(FRESH, MAX_STALE, pending::add, clock);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            SwrCache<String, String> shared = new SwrCache<>(FRESH, MAX_STALE, executor, clock);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch start = new CountDownLatch(1);
+            Supplier<String> slowLoader = () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "report";
+            };
+
+            List<CompletableFuture<CompletableFuture<String>>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return shared.get("2024", slowLoader);
+                }, executor));
+            }
+            start.countDown();
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (CompletableFuture<CompletableFuture<String>> caller : callers) {
+                results.add(caller.get(10, TimeUnit.SECONDS));
+            }
+            release.countDown();
+
+            for (CompletableFuture<String> result : results) {
+                assertEquals("report", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void aFreshHitDoesNotLoad() throws Exception {
+        prime("v1");
+        clock.advance(FRESH - 1);
+
+        assertEquals("v1", cache.get("k", loader("v2")).getNow(null));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void aStaleHitReturnsAtOnceAndRefreshesOnce() throws Exception {
+        prime("v1");
+        clock.advance(FRESH);
+
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<String> hit = cache.get("k", loader("v2"));
+            assertTrue(hit.isDone());
+            assertEquals("v1", hit.get());
+        }
+        assertEquals(1, pending.size());
+
+        runPending();
+        assertEquals("v2", cache.get("k", loader("v3")).getNow(null));
+        assertEquals(2, loads.get());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void aFailedRefreshKeepsTheStaleValue() throws Exception {
+        prime("v1");
+        clock.advance(FRESH);
+
+        assertEquals("v1", cache.get("k", () -> {
+            throw new IllegalStateException("database down");
+        }).get());
+        runPending();
+
+        // Still served, and the next read tries again
+        assertEquals("v1", cache.get("k", loader("v2")).getNow(null));
+        runPending();
+        assertEquals("v2", cache.get("k", loader("v3")).getNow(null));
+    }
+
+    @Test
+    void entriesPastMaxStaleMakeCallersWait() throws Exception {
+        prime("v1");
+        clock.advance(MAX_STALE);
+
+        CompletableFuture<String> result = cache.get("k", loader("v2"));
+
+        assertFalse(result.isDone());
+        runPending();
+        assertEquals("v2", result.get());
+    }
+
+    @Test
+    void aFailedLoadOnAMissIsNotCached() {
+        CompletableFuture<String> failed = cache.get("k", () -> {
+            throw new IllegalStateException("database down");
+        });
+        runPending();
+
+        assertThrows(ExecutionException.class, failed::get);
+        CompletableFuture<String> retried = cache.get("k", loader("v1"));
+        assertFalse(retried.isDone());
+        runPending();
+        assertEquals("v1", retried.getNow(null));
+    }
+
+    @Test
+    void invalidatedEntriesAreServedWhileTheyRefresh() throws Exception {
+        prime("v1");
+
+        cache.invalidateIf("k"::equals);
+
+        assertEquals("v1", cache.get("k", loader("v2")).getNow(null));
+        runPending();
+        assertEquals("v2", cache.get("k", loader("v3")).getNow(null));
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void anInvalidationDuringALoadLeavesItsResultStale() throws Exception {
+        CompletableFuture<String> first = cache.get("k", loader("v1"));
+        cache.invalidateIf(key -> true);
+        runPending();
+        assertEquals("v1", first.get());
+
+        // The write landed after the load read its data, so the next read refreshes
+        assertEquals("v1", cache.get("k", loader("v2")).getNow(null));
+        assertEquals(1, pending.size());
+        runPending();
+        assertEquals("v2", cache.get("k", loader("v3")).getNow(null));
+    }
+
+    private void prime(String value) throws Exception {
+        CompletableFuture<String> loaded = cache.get("k", loader(value));
+        runPending();
+        assertEquals(value, loaded.get());
+    }
+
+    private Supplier<String> loader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    private void runPending() {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile long millis = Instant.parse("2024-06-12T06:30:00Z").toEpochMilli();
+
+        void advance(long by) {
+            millis += by;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.cattlebreed.backend.export;
+
+import com.cattlebreed.backend.api.ApiModels.AIAnalysisDto;
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.storage.StoredRecord;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportWriterTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void arrowRoundTripsEveryColumnAcrossBatches() throws IOException {
+        // Two full batches and a partial one
+        int count = ArrowStreamWriter.BATCH_ROWS * 2 + 17;
+        byte[] stream = export(ExportFormat.ARROW, count);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            List<Field> fields = root.getSchema().getFields();
+            assertEquals(ExportColumn.ALL.length, fields.size());
+            for (ExportColumn column : ExportColumn.ALL) {
+                Field field = fields.get(column.ordinal());
+                assertEquals(column.label, field.getName());
+                assertEquals(column.nullable, field.isNullable());
+            }
+            assertEquals(new ArrowType.Timestamp(org.apache.arrow.vector.types.TimeUnit.MILLISECOND, "UTC"),
+                    fields.get(ExportColumn.RECORD_DATE.ordinal()).getType());
+
+            int row = 0;
+            int batches = 0;
+            while (reader.loadNextBatch()) {
+                batches++;
+                for (int i = 0; i < root.getRowCount(); i++, row++) {
+                    assertRow(root, i, record(row));
+                }
+            }
+            assertEquals(3, batches);
+            assertEquals(count, row);
+        }
+    }
+
+    @Test
+    void arrowStreamEndsWithTheEndOfStreamMarker() throws IOException {
+        byte[] stream = export(ExportFormat.ARROW, 3);
+
+        byte[] marker = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0, 0};
+        assertArrayEquals(marker, Arrays.copyOfRange(stream, stream.length - 8, stream.length));
+    }
+
+    @Test
+    void arrowStreamWithoutRowsHasOnlyTheSchema() throws IOException {
+        byte[] stream = export(ExportFormat.ARROW, 0);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(stream), allocator)) {
+            assertEquals(ExportColumn.ALL.length, reader.getVectorSchemaRoot().getSchema().getFields().size());
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    void truncatedArrowStreamIsNoticed() throws IOException {
+        byte[] stream = export(ExportFormat.ARROW, ArrowStreamWriter.BATCH_ROWS + 5);
+        byte[] cut = Arrays.copyOf(stream, stream.length - 200);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(cut), allocator)) {
+            assertTrue(reader.loadNextBatch());
+            assertThrows(IOException.class, reader::loadNextBatch);
+        }
+    }
+
+    @Test
+    void csvQuotesFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        StoredRecord tricky = record(1, "Said \"calm\", mostly\r\nfeeds well", "Ahmedabad, West");
+        StoredRecord plain = record(2, null, null);
+
+        String csv = new String(export(ExportFormat.CSV, List.of(tricky, plain)), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n(?=[0-9])|\r\n$");
+
+        assertTrue(lines[0].startsWith("id,user_id,animal_id,record_date,"));
+        assertEquals(ExportColumn.ALL.length, lines[0].split(",").length);
+        assertTrue(lines[1].contains(",\"Ahmedabad, West\","));
+        assertTrue(lines[1].contains(",\"Said \"\"calm\"\", mostly\r\nfeeds well\","));
+        assertTrue(lines[1].contains(",2023-11-14T22:13:20.000Z,"));
+        // Missing values are empty fields: farm name, latitude, longitude and notes here
+        assertTrue(lines[2].contains(",Gujarat,,,,,"), lines[2]);
+        assertEquals(3, lines.length);
+    }
+
+    private static void assertRow(VectorSchemaRoot root, int i, StoredRecord expected) {
+        assertEquals(expected.id(), ((BigIntVector) vector(root, ExportColumn.ID)).get(i));
+        assertEquals(expected.userId(), text(root, ExportColumn.USER_ID, i));
+        assertEquals(expected.animalId(), text(root, ExportColumn.ANIMAL_ID, i));
+        assertEquals(expected.recordDate(), ((TimeStampMilliTZVector) vector(root, ExportColumn.RECORD_DATE)).get(i));
+        assertEquals(expected.bodyLength(), ((Float8Vector) vector(root, ExportColumn.BODY_LENGTH)).get(i));
+        assertEquals(expected.atcScore(), ((IntVector) vector(root, ExportColumn.ATC_SCORE)).get(i));
+        assertEquals(expected.breed(), text(root, ExportColumn.BREED, i));
+        assertEquals(expected.notes(), text(root, ExportColumn.NOTES, i));
+        assertEquals(expected.location() == null ? null : expected.location().district(),
+                text(root, ExportColumn.DISTRICT, i));
+
+        Float4Vector health = (Float4Vector) vector(root, ExportColumn.HEALTH_SCORE);
+        if (expected.healthScore() == null) {
+            assertTrue(health.isNull(i));
+        } else {
+            assertEquals(expected.healthScore(), health.get(i));
+        }
+        Float4Vector confidence = (Float4Vector) vector(root, ExportColumn.BREED_CONFIDENCE);
+        if (expected.aiAnalysis() == null) {
+            assertTrue(confidence.isNull(i));
+        } else {
+            assertEquals(expected.aiAnalysis().confidence(), confidence.get(i));
+        }
+        Float8Vector latitude = (Float8Vector) vector(root, ExportColumn.LATITUDE);
+        if (expected.location() == null) {
+            assertTrue(latitude.isNull(i));
+        } else {
+            assertEquals(expected.location().latitude(), latitude.get(i));
+        }
+        assertEquals(expected.version(), ((IntVector) vector(root, ExportColumn.VERSION)).get(i));
+    }
+
+    private static Object vector(VectorSchemaRoot root, ExportColumn column) {
+        return root.getVector(column.ordinal());
+    }
+
+    private static String text(VectorSchemaRoot root, ExportColumn column, int i) {
+        VarCharVector vector = (VarCharVector) root.getVector(column.ordinal());
+        return vector.isNull(i) ? null : new String(vector.get(i), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] export(ExportFormat format, int count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = format.open(out);
+        for (int i = 0; i < count; i++) {
+            writer.write(record(i));
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static byte[] export(ExportFormat format, List<StoredRecord> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = format.open(out);
+        for (StoredRecord record : records) {
+            writer.write(record);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    /**
+     * Every third row has no location, analysis or notes; the rest carry non-ASCII text
+     */
+    private static StoredRecord record(int i) {
+        boolean sparse = i % 3 == 0;
+        return new StoredRecord(i + 1L, "98765" + (i % 7), "GIR-" + i, null, null, null, T0 + i * 60_000L,
+                150.0 + i % 10, 130.0, 45.0, 20.0, 60 + i % 40,
+                sparse ? null : "गिर",
+                sparse ? null : 0.5f + i % 5 / 10f,
+                sparse ? null : new AIAnalysisDto("गिर", 0.9f, 0.8f, "A", List.of(), "p", "m", 1),
+                sparse ? null : new LocationDto(22.0 + i / 1e4, 71.0, null, "Farm " + i, "ગુજરાત", "अमरेली " + i),
+                sparse ? null : "Notes ✓ " + i,
+                T0, T0 + i, 1 + i % 3, false, i);
+    }
+
+    private static StoredRecord record(long id, String notes, String district) {
+        return new StoredRecord(id, "9876543210", "GIR-" + id, null, null, null, T0, 150.0, 130.0, 45.0, 20.0, 80,
+                null, null, null, new LocationDto(null, null, null, null, "Gujarat", district), notes,
+                T0, T0, 1, false, id);
+    }
+}
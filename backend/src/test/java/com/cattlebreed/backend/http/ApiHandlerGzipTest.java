@@ -0,0 +1,133 @@
+package com.cattlebreed.backend.http;
+
+import com.cattlebreed.backend.metrics.ServerMetrics;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiHandlerGzipTest {
+
+    private static final String PREFIX = "/api/v1/";
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer server;
+    private URI base;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Echoes the request body as the endpoint saw it
+        Router router = new Router().post("echo", request ->
+                CompletableFuture.completedFuture(HttpResult.bytes(200, "text/plain", request.body())));
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(PREFIX, new ApiHandler(PREFIX, router, MAX_BODY_BYTES, new ServerMetrics()));
+        server.start();
+        base = URI.create("http://localhost:" + server.getAddress().getPort() + PREFIX);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void gzippedRequestBodyIsInflatedBeforeTheEndpoint() throws Exception {
+        byte[] payload = text(4_000);
+
+        HttpResponse<byte[]> response = send(post(gzip(payload)).header("Content-Encoding", "gzip"));
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(payload, response.body());
+    }
+
+    @Test
+    void largeResponseIsGzippedWhenAccepted() throws Exception {
+        byte[] payload = text(4_000);
+
+        HttpResponse<byte[]> response = send(post(payload).header("Accept-Encoding", "gzip"));
+
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(response.body().length < payload.length);
+        assertArrayEquals(payload, gunzip(response.body()));
+    }
+
+    @Test
+    void responseIsSentPlainWithoutAcceptEncoding() throws Exception {
+        byte[] payload = text(4_000);
+
+        HttpResponse<byte[]> response = send(post(payload));
+
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertArrayEquals(payload, response.body());
+    }
+
+    @Test
+    void smallResponseIsNotWorthCompressing() throws Exception {
+        byte[] payload = text(100);
+
+        HttpResponse<byte[]> response = send(post(payload).header("Accept-Encoding", "gzip"));
+
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertArrayEquals(payload, response.body());
+    }
+
+    @Test
+    void bodyLimitAppliesToTheInflatedSize() throws Exception {
+        // Compresses to a few hundred bytes but inflates past the limit
+        byte[] bomb = new byte[MAX_BODY_BYTES * 4];
+
+        HttpResponse<byte[]> response = send(post(gzip(bomb)).header("Content-Encoding", "gzip"));
+
+        assertEquals(413, response.statusCode());
+    }
+
+    private HttpRequest.Builder post(byte[] body) {
+        return HttpRequest.newBuilder(base.resolve("echo")).POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] text(int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < length; i++) {
+            text.append("{\"animalId\":\"GIR-").append(i).append("\",\"atcScore\":80}");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cattlebreed.backend.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouterTest {
+
+    private final Endpoint sync = request -> CompletableFuture.completedFuture(HttpResult.empty(204));
+    private final Endpoint upload = request -> CompletableFuture.completedFuture(HttpResult.empty(204));
+    private final Endpoint uploadRequest = request -> CompletableFuture.completedFuture(HttpResult.empty(204));
+
+    private final Router router = new Router()
+            .post("records/sync", sync)
+            .post("uploads", uploadRequest)
+            .put("uploads/{fileId}", upload);
+
+    @Test
+    void matchesLiteralPaths() {
+        Router.Match match = router.match("POST", "/records/sync", new boolean[1]);
+
+        assertSame(sync, match.endpoint());
+        assertTrue(match.pathParams().isEmpty());
+    }
+
+    @Test
+    void bindsPathParameters() {
+        Router.Match match = router.match("PUT", "/uploads/abc-123", new boolean[1]);
+
+        assertSame(upload, match.endpoint());
+        assertEquals(Map.of("fileId", "abc-123"), match.pathParams());
+    }
+
+    @Test
+    void ignoresLeadingAndTrailingSlashes() {
+        assertSame(sync, router.match("POST", "records/sync/", new boolean[1]).endpoint());
+        assertSame(uploadRequest, router.match("POST", "//uploads", new boolean[1]).endpoint());
+    }
+
+    @Test
+    void segmentCountMustMatch() {
+        boolean[] methodMismatch = new boolean[1];
+
+        assertNull(router.match("PUT", "/uploads/abc/extra", methodMismatch));
+        assertNull(router.match("POST", "/records", methodMismatch));
+        assertFalse(methodMismatch[0]);
+    }
+
+    @Test
+    void reportsWrongMethodOnAKnownPath() {
+        boolean[] methodMismatch = new boolean[1];
+
+        assertNull(router.match("GET", "/records/sync", methodMismatch));
+        assertTrue(methodMismatch[0]);
+    }
+}
@@ -0,0 +1,120 @@
+package com.cattlebreed.backend.records;
+
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.export.ExportFormat;
+import com.cattlebreed.backend.http.ApiHandler;
+import com.cattlebreed.backend.http.Router;
+import com.cattlebreed.backend.metrics.ServerMetrics;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordExportServiceTest {
+
+    private static final String PREFIX = "/api/v1/";
+    private static final int RECORDS = 25_000;
+    private static final long WRITE_TIMEOUT_MILLIS = 300;
+
+    @TempDir
+    Path dataDir;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Socket> stalledClients = new ArrayList<>();
+    private Database database;
+    private HttpServer server;
+    private int port;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new Database(dataDir, 4, 1_000);
+        database.migrate();
+        RecordStore store = new RecordStore();
+        database.inTransaction(connection -> {
+            for (int i = 0; i < RECORDS; i++) {
+                store.insert(connection, "user-" + (i % 50), record("GIR-" + i), 1_700_000_000_000L);
+            }
+            return null;
+        });
+
+        RecordExportService exportService = new RecordExportService(database, store, executor, WRITE_TIMEOUT_MILLIS);
+        Router router = new Router().get("admin/export", request ->
+                CompletableFuture.completedFuture(exportService.export(ExportFormat.CSV, Map.of())));
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(PREFIX, new ApiHandler(PREFIX, router, 1 << 20, new ServerMetrics()));
+        server.setExecutor(executor);
+        server.start();
+        port = server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Socket socket : stalledClients) {
+            socket.close();
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    @Timeout(60)
+    void clientsThatStopReadingReleaseTheirExportSlots() throws Exception {
+        // Both export permits end up held by clients that read one chunk and stop
+        stallExport();
+        stallExport();
+
+        Thread.sleep(WRITE_TIMEOUT_MILLIS * 6);
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + PREFIX + "admin/export")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        // Header row plus one line per record
+        assertEquals(RECORDS + 1, response.body().lines().count());
+    }
+
+    private void stallExport() throws IOException {
+        Socket socket = new Socket();
+        // Set before connecting, so the advertised window stays small
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", port));
+        stalledClients.add(socket);
+        OutputStream out = socket.getOutputStream();
+        out.write(("GET " + PREFIX + "admin/export HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        InputStream in = socket.getInputStream();
+        in.readNBytes(1024);
+    }
+
+    private static AnimalRecordDto record(String animalId) {
+        String date = IsoDates.format(1_700_000_000_000L);
+        return new AnimalRecordDto(null, 1L, animalId, null, null, null, date, 150.0, 130.0, 45.0, 20.0,
+                75, false, null, null, "Sampled during the district survey, calm temperament", date, date, 0);
+    }
+}
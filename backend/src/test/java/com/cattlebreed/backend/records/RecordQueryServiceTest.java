@@ -0,0 +1,250 @@
+package com.cattlebreed.backend.records;
+
+import com.cattlebreed.backend.api.ApiModels.AIAnalysisDto;
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.PaginatedRequest;
+import com.cattlebreed.backend.api.ApiModels.PaginatedResponse;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.http.HttpError;
+import com.cattlebreed.backend.records.RecordQueryPlanner.Plan;
+import com.cattlebreed.backend.records.RecordQueryPlanner.SortKey;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import com.cattlebreed.backend.storage.RecordStore.Query;
+import com.cattlebreed.backend.storage.StoredRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordQueryServiceTest {
+
+    private static final String FARMER = "9876543210";
+    private static final long DAY = 86_400_000L;
+    private static final long BASE = 1_700_000_000_000L;
+
+    @TempDir
+    Path dataDir;
+
+    private final RecordStore store = new RecordStore();
+    private final List<StoredRecord> records = new ArrayList<>();
+    private Database database;
+    private RecordQueryService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new Database(dataDir, 4, 1_000);
+        database.migrate();
+        // Few distinct dates, scores and timestamps, so every page boundary falls inside a tie
+        database.inTransaction(connection -> {
+            for (int i = 0; i < 53; i++) {
+                StoredRecord record = store.insert(connection, FARMER,
+                        record("GIR-" + i, BASE + (i % 5) * DAY, 60 + (i % 4) * 5, i % 3 == 0 ? "Sahiwal" : "Gir"),
+                        BASE + (i % 6) * 1000);
+                records.add(record);
+                store.insert(connection, "other-farmer", record("OTHER-" + i, BASE, 70, "Gir"), BASE);
+            }
+            return null;
+        });
+        service = new RecordQueryService(database, store, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void cursorsWalkEveryRowOnceInEverySortAndDirection() throws Exception {
+        List<Map<String, String>> filterSets = List.of(
+                Map.of(),
+                Map.of("breed", "Gir"),
+                Map.of("minAtcScore", "65", "maxAtcScore", "70"),
+                Map.of("dateFrom", IsoDates.format(BASE + DAY), "breed", "Sahiwal"));
+        for (SortKey sortKey : SortKey.values()) {
+            for (String order : new String[]{"asc", "desc"}) {
+                for (Map<String, String> filters : filterSets) {
+                    List<Long> expected = expected(sortKey, "desc".equals(order), filters);
+
+                    List<Long> walked = walk(sortKey.name, order, filters, 7);
+
+                    assertEquals(expected, walked, sortKey.name + " " + order + " " + filters);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cursorPagesNumberOnAndMatchOffsetPages() throws Exception {
+        PaginatedRequest first = new PaginatedRequest(null, 10, "atcScore", "asc", Map.of(), null, true);
+        PaginatedResponse<AnimalRecordDto> page1 = service.list(FARMER, first).get();
+        PaginatedResponse<AnimalRecordDto> page2 = service.list(FARMER,
+                new PaginatedRequest(null, 10, "atcScore", "asc", Map.of(), page1.pagination().nextCursor(), true)).get();
+        PaginatedResponse<AnimalRecordDto> offset2 = service.list(FARMER,
+                new PaginatedRequest(2, 10, "atcScore", "asc", Map.of(), null, true)).get();
+
+        assertEquals(2, page2.pagination().currentPage());
+        assertTrue(page2.pagination().hasPrevious());
+        assertEquals(53, page2.pagination().totalItems());
+        assertEquals(6, page2.pagination().totalPages());
+        assertEquals(ids(offset2), ids(page2));
+    }
+
+    @Test
+    void aCursorOnlyWorksForThePlanThatIssuedIt() throws Exception {
+        Map<String, String> filters = new LinkedHashMap<>();
+        filters.put("minAtcScore", "60");
+        filters.put("breed", "Gir");
+        String cursor = service.list(FARMER, new PaginatedRequest(null, 5, "date", "desc", filters, null, false))
+                .get().pagination().nextCursor();
+
+        Map<String, String> sameFilters = Map.of("breed", "Gir", "minAtcScore", "60");
+        assertInvalidCursor(new PaginatedRequest(null, 5, "date", "desc",
+                Map.of("breed", "Sahiwal", "minAtcScore", "60"), cursor, false));
+        assertInvalidCursor(new PaginatedRequest(null, 5, "date", "desc", Map.of("breed", "Gir"), cursor, false));
+        assertInvalidCursor(new PaginatedRequest(null, 5, "date", "asc", sameFilters, cursor, false));
+        assertInvalidCursor(new PaginatedRequest(null, 5, "atcScore", "desc", sameFilters, cursor, false));
+        assertInvalidCursor(new PaginatedRequest(null, 5, "date", "desc", sameFilters, "not-a-cursor", false));
+
+        // The same filters given in another order are the same plan
+        PaginatedResponse<AnimalRecordDto> page2 = service.list(FARMER,
+                new PaginatedRequest(null, 5, "date", "desc", sameFilters, cursor, false)).get();
+        assertEquals(2, page2.pagination().currentPage());
+    }
+
+    @Test
+    void aBreedFilterOnTheDefaultSortSeeksTheBreedIndex() throws Exception {
+        Plan plan = RecordQueryPlanner.plan(FARMER, null, null, Map.of("breed", "Gir"));
+        assertEquals("idx_records_user_breed_date_desc", plan.index());
+        assertEquals("user_id, breed", plan.prefix());
+        assertTrue(explain(plan.page(new PageCursor(0, BASE + 2 * DAY, 10, 2))).contains("index sorted"));
+
+        // Other sorts keep the user index and check breed on the rows they visit
+        Plan ascending = RecordQueryPlanner.plan(FARMER, "date", "asc", Map.of("breed", "Gir"));
+        assertEquals("idx_records_user_date_asc", ascending.index());
+        assertEquals("user_id", ascending.prefix());
+        assertTrue(explain(ascending.page(null)).contains("index sorted"));
+    }
+
+    @Test
+    void cachedTotalsLastUntilTheUsersRecordsChange() throws Exception {
+        PaginatedRequest request = new PaginatedRequest(null, 10, null, null, Map.of("breed", "Gir"), null, true);
+        assertEquals(35, total(request));
+
+        StoredRecord added = database.inTransaction(connection ->
+                store.insert(connection, FARMER, record("GIR-NEW", BASE, 80, "Gir"), BASE));
+        // Not announced yet, so the count is served from the cache
+        assertEquals(35, total(request));
+        service.onRecordChanged(null, otherFarmersRecord());
+        assertEquals(35, total(request));
+
+        service.onRecordChanged(null, added);
+        assertEquals(36, total(request));
+        // Totals don't depend on the sort, so other sorts share the entry
+        assertEquals(36, total(new PaginatedRequest(null, 10, "atcScore", "asc", Map.of("breed", "Gir"), null, true)));
+
+        PaginatedResponse<AnimalRecordDto> skipped = service.list(FARMER,
+                new PaginatedRequest(null, 10, null, null, Map.of("breed", "Gir"), null, false)).get();
+        assertEquals(-1, skipped.pagination().totalItems());
+        assertEquals(-1, skipped.pagination().totalPages());
+    }
+
+    private List<Long> walk(String sortBy, String order, Map<String, String> filters, int limit) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int page = 1;
+        while (true) {
+            PaginatedResponse<AnimalRecordDto> response = service.list(FARMER,
+                    new PaginatedRequest(null, limit, sortBy, order, filters, cursor, false)).get();
+            assertEquals(page, response.pagination().currentPage());
+            ids.addAll(ids(response));
+            cursor = response.pagination().nextCursor();
+            if (cursor == null) {
+                assertFalse(response.pagination().hasNext());
+                return ids;
+            }
+            assertEquals(limit, response.data().size());
+            page++;
+            assertTrue(page <= records.size(), "cursor does not advance");
+        }
+    }
+
+    /**
+     * The same listing from a plain sort of every record
+     */
+    private List<Long> expected(SortKey sortKey, boolean descending, Map<String, String> filters) {
+        Plan plan = RecordQueryPlanner.plan(FARMER, sortKey.name, descending ? "desc" : "asc", filters);
+        Comparator<StoredRecord> order = Comparator.comparingLong(plan::sortValue)
+                .thenComparingLong(StoredRecord::id);
+        return records.stream()
+                .filter(matches(filters))
+                .sorted(descending ? order.reversed() : order)
+                .map(StoredRecord::id)
+                .toList();
+    }
+
+    private static Predicate<StoredRecord> matches(Map<String, String> filters) {
+        return record -> filters.entrySet().stream().allMatch(filter -> switch (filter.getKey()) {
+            case "breed" -> filter.getValue().equals(record.breed());
+            case "dateFrom" -> record.recordDate() >= IsoDates.parse(filter.getValue());
+            case "minAtcScore" -> record.atcScore() >= Integer.parseInt(filter.getValue());
+            case "maxAtcScore" -> record.atcScore() <= Integer.parseInt(filter.getValue());
+            default -> throw new IllegalArgumentException(filter.getKey());
+        });
+    }
+
+    private int total(PaginatedRequest request) throws Exception {
+        return service.list(FARMER, request).get().pagination().totalItems();
+    }
+
+    private void assertInvalidCursor(PaginatedRequest request) {
+        HttpError error = assertThrows(HttpError.class, () -> service.list(FARMER, request));
+        assertEquals(400, error.status());
+        assertEquals("INVALID_CURSOR", error.code());
+    }
+
+    private String explain(Query query) throws Exception {
+        String sql = "EXPLAIN SELECT id FROM animal_records USE INDEX (" + query.index() + ")"
+                + " WHERE deleted = FALSE AND " + query.where() + " ORDER BY " + query.orderBy() + " LIMIT 8";
+        return database.withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < query.params().size(); i++) {
+                    statement.setObject(i + 1, query.params().get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+
+    private StoredRecord otherFarmersRecord() throws Exception {
+        return database.withConnection(connection -> store.find(connection, "other-farmer", "OTHER-0").orElseThrow());
+    }
+
+    private static List<Long> ids(PaginatedResponse<AnimalRecordDto> response) {
+        return response.data().stream().map(record -> Long.parseLong(record.id())).toList();
+    }
+
+    private static AnimalRecordDto record(String animalId, long date, int score, String breed) {
+        AIAnalysisDto analysis = new AIAnalysisDto(breed, 0.9f, null, "A", List.of(), "test", "1", 0);
+        return new AnimalRecordDto(null, null, animalId, null, null, null, IsoDates.format(date), 150.0, 130.0, 45.0,
+                20.0, score, false, analysis, null, null, null, null, 0);
+    }
+}
@@ -0,0 +1,116 @@
+package com.cattlebreed.backend.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int precision : new int[]{11, 14}) {
+            double standardError = 1.04 / Math.sqrt(1 << precision);
+            for (int n : new int[]{1, 10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+                HyperLogLog sketch = sketch(precision, 0, n);
+
+                double error = Math.abs(sketch.estimate() - n) / (double) n;
+                assertTrue(error <= 3 * standardError,
+                        "precision " + precision + ", n " + n + ": estimate " + sketch.estimate());
+            }
+        }
+    }
+
+    @Test
+    void repeatedValuesCountOnce() {
+        HyperLogLog sketch = sketch(11, 0, 5_000);
+        long before = sketch.estimate();
+
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(farmer(i));
+        }
+
+        assertEquals(before, sketch.estimate());
+    }
+
+    @Test
+    void mergeEqualsAddingTheUnion() {
+        HyperLogLog union = sketch(14, 0, 100_000);
+        HyperLogLog merged = sketch(14, 0, 60_000);
+        merged.merge(sketch(14, 40_000, 100_000));
+
+        assertEquals(union.estimate(), merged.estimate());
+        double error = Math.abs(merged.estimate() - 100_000) / 100_000.0;
+        assertTrue(error <= 3 * 1.04 / Math.sqrt(1 << 14), "estimate " + merged.estimate());
+    }
+
+    @Test
+    void sparseAndDenseFormsMergeAlike() {
+        // 30 days of a small state, each sparse
+        HyperLogLog days = new HyperLogLog(11);
+        HyperLogLog direct = new HyperLogLog(11);
+        direct.densify();
+        for (int day = 0; day < 30; day++) {
+            HyperLogLog daily = sketch(11, day * 20, day * 20 + 40);
+            assertTrue(daily.isSparse());
+            days.merge(daily);
+            for (int i = day * 20; i < day * 20 + 40; i++) {
+                direct.add(farmer(i));
+            }
+        }
+        assertEquals(direct.estimate(), days.estimate());
+
+        // Dense into sparse switches the target over
+        HyperLogLog small = sketch(11, 0, 10);
+        small.merge(direct);
+        assertFalse(small.isSparse());
+        assertEquals(direct.estimate(), small.estimate());
+    }
+
+    @Test
+    void sparseSketchesStaySmallAndSwitchOverWithoutAJump() {
+        HyperLogLog sparse = new HyperLogLog(11);
+        HyperLogLog dense = new HyperLogLog(11);
+        dense.densify();
+        for (int i = 0; i < 2_000; i++) {
+            sparse.add(farmer(i));
+            dense.add(farmer(i));
+            assertEquals(dense.estimate(), sparse.estimate(), "after " + (i + 1));
+            assertTrue(sparse.memoryBytes() <= dense.memoryBytes());
+        }
+        assertFalse(sparse.isSparse());
+
+        HyperLogLog quietDay = sketch(11, 0, 30);
+        assertTrue(quietDay.memoryBytes() <= 128, quietDay.memoryBytes() + " bytes");
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        HyperLogLog original = sketch(11, 0, 10);
+        HyperLogLog copy = original.copy();
+
+        copy.merge(sketch(11, 10, 1_000));
+
+        assertEquals(10, original.estimate());
+        assertTrue(copy.estimate() > 900);
+    }
+
+    @Test
+    void mergeRefusesADifferentPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(11).merge(new HyperLogLog(14)));
+    }
+
+    private static HyperLogLog sketch(int precision, int from, int to) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        for (int i = from; i < to; i++) {
+            sketch.add(farmer(i));
+        }
+        return sketch;
+    }
+
+    private static String farmer(int i) {
+        return String.format("9%09d", i);
+    }
+}
@@ -0,0 +1,82 @@
+package com.cattlebreed.backend.sync;
+
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.sync.ChangePublisher.RecordChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChangePublisherTest {
+
+    private final ChangePublisher publisher = new ChangePublisher();
+    private final List<String> delivered = new ArrayList<>();
+
+    ChangePublisherTest() {
+        publisher.addListener((before, after) -> delivered.add(after.userId() + ":" + after.animalId()));
+    }
+
+    @Test
+    void aUsersChangesArriveInTicketOrder() {
+        long first = publisher.ticket("farmer");
+        long second = publisher.ticket("farmer");
+        long third = publisher.ticket("farmer");
+
+        publisher.complete("farmer", third, changes("farmer", "C"));
+        publisher.complete("farmer", second, changes("farmer", "B"));
+        assertEquals(List.of(), delivered);
+
+        publisher.complete("farmer", first, changes("farmer", "A"));
+        assertEquals(List.of("farmer:A", "farmer:B", "farmer:C"), delivered);
+        assertEquals(0, publisher.pendingUsers());
+    }
+
+    @Test
+    void aRolledBackTicketGivesUpItsTurn() {
+        long rolledBack = publisher.ticket("farmer");
+        long next = publisher.ticket("farmer");
+
+        publisher.complete("farmer", next, changes("farmer", "B"));
+        publisher.complete("farmer", rolledBack, List.of());
+
+        assertEquals(List.of("farmer:B"), delivered);
+        assertEquals(0, publisher.pendingUsers());
+    }
+
+    @Test
+    void otherUsersDoNotWaitForAnOpenTicket() {
+        long open = publisher.ticket("farmer");
+        long other = publisher.ticket("neighbour");
+
+        publisher.complete("neighbour", other, changes("neighbour", "X"));
+        assertEquals(List.of("neighbour:X"), delivered);
+        assertEquals(1, publisher.pendingUsers());
+
+        publisher.complete("farmer", open, changes("farmer", "A"));
+        assertEquals(List.of("neighbour:X", "farmer:A"), delivered);
+    }
+
+    @Test
+    void aFailingListenerDoesNotStopTheOthers() {
+        ChangePublisher failing = new ChangePublisher();
+        failing.addListener((before, after) -> {
+            throw new IllegalStateException("read model bug");
+        });
+        failing.addListener((before, after) -> delivered.add(after.animalId()));
+
+        failing.complete("farmer", failing.ticket("farmer"), changes("farmer", "A", "B"));
+
+        assertEquals(List.of("A", "B"), delivered);
+    }
+
+    private static List<RecordChange> changes(String userId, String... animalIds) {
+        List<RecordChange> changes = new ArrayList<>();
+        for (String animalId : animalIds) {
+            changes.add(new RecordChange(null, new StoredRecord(1, userId, animalId, null, null, null, 0, 0, 0, 0, 0,
+                    70, null, null, null, null, null, 0, 0, 1, false, 1)));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,198 @@
+package com.cattlebreed.backend.sync;
+
+import com.cattlebreed.backend.api.ApiModels.AnimalRecordDto;
+import com.cattlebreed.backend.api.ApiModels.ConflictType;
+import com.cattlebreed.backend.api.ApiModels.SyncAnimalRecordsRequest;
+import com.cattlebreed.backend.api.ApiModels.SyncData;
+import com.cattlebreed.backend.api.IsoDates;
+import com.cattlebreed.backend.storage.Database;
+import com.cattlebreed.backend.storage.RecordStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyncServiceTest {
+
+    private static final String USER = "9876543210";
+    private static final long T0 = 1_700_000_000_000L;
+
+    @TempDir
+    Path dataDir;
+
+    private Database database;
+    private RecordStore store;
+    private SyncService syncService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new Database(dataDir, 4, 1_000);
+        database.migrate();
+        store = new RecordStore();
+        syncService = new SyncService(database, store, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void newRecordReachesOtherDevicesButIsNotEchoedBack() {
+        SyncData pushed = sync(List.of(record("GIR-1", T0, 80)), List.of(), null);
+        assertEquals(List.of("GIR-1"), pushed.syncedRecords());
+        assertTrue(pushed.serverRecords().isEmpty());
+
+        SyncData pulled = sync(List.of(), List.of(), null);
+        assertEquals(1, pulled.serverRecords().size());
+        assertEquals(80, pulled.serverRecords().get(0).atcScore());
+    }
+
+    @Test
+    void olderEditIsReturnedAsNewerOnServer() {
+        sync(List.of(record("GIR-1", T0 + 1_000, 80)), List.of(), null);
+
+        SyncData stale = sync(List.of(record("GIR-1", T0, 60)), List.of(), null);
+
+        assertTrue(stale.syncedRecords().isEmpty());
+        assertEquals(1, stale.conflicts().size());
+        assertEquals(ConflictType.NEWER_ON_SERVER, stale.conflicts().get(0).conflictType());
+        assertEquals(80, stale.conflicts().get(0).serverRecord().atcScore());
+    }
+
+    @Test
+    void newerEditOverwritesTheServerCopy() {
+        sync(List.of(record("GIR-1", T0, 60)), List.of(), null);
+
+        SyncData newer = sync(List.of(record("GIR-1", T0 + 1_000, 85)), List.of(), null);
+
+        assertEquals(List.of("GIR-1"), newer.syncedRecords());
+        assertTrue(newer.conflicts().isEmpty());
+        assertEquals(85, sync(List.of(), List.of(), null).serverRecords().get(0).atcScore());
+    }
+
+    @Test
+    void deletedRecordIsNotRevivedByAStaleDevice() {
+        sync(List.of(record("GIR-1", T0, 80)), List.of(), null);
+        SyncData deleted = sync(List.of(), List.of("GIR-1"), null);
+        assertEquals(List.of("GIR-1"), deleted.syncedRecords());
+
+        SyncData revived = sync(List.of(record("GIR-1", T0 + 60_000, 90)), List.of(), null);
+
+        assertEquals(1, revived.conflicts().size());
+        assertEquals(ConflictType.DELETED_ON_SERVER, revived.conflicts().get(0).conflictType());
+        SyncData other = sync(List.of(), List.of(), null);
+        assertEquals(List.of("GIR-1"), other.deletedRecords());
+        assertTrue(other.serverRecords().isEmpty());
+    }
+
+    @Test
+    void captureNewerThanTheDeleteRevivesTheRecord() {
+        sync(List.of(record("GIR-1", T0, 80)), List.of(), null);
+        sync(List.of(), List.of("GIR-1"), null);
+
+        SyncData recaptured = sync(List.of(record("GIR-1", System.currentTimeMillis() + 60_000, 65)), List.of(), null);
+
+        assertEquals(List.of("GIR-1"), recaptured.syncedRecords());
+        assertTrue(recaptured.conflicts().isEmpty());
+        SyncData other = sync(List.of(), List.of(), null);
+        assertTrue(other.deletedRecords().isEmpty());
+        assertEquals(65, other.serverRecords().get(0).atcScore());
+    }
+
+    @Test
+    void deletingAnUnknownRecordSucceeds() {
+        SyncData deleted = sync(List.of(), List.of("NEVER-SEEN"), null);
+
+        assertEquals(List.of("NEVER-SEEN"), deleted.syncedRecords());
+        assertTrue(sync(List.of(), List.of(), null).deletedRecords().isEmpty());
+    }
+
+    @Test
+    void syncPointPagesThroughEveryChange() {
+        List<AnimalRecordDto> records = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            records.add(record("GIR-" + i, T0, 70));
+        }
+        sync(records, List.of(), null);
+
+        SyncData first = sync(List.of(), List.of(), null);
+        assertEquals(500, first.serverRecords().size());
+        assertTrue(first.hasMore());
+
+        SyncData second = sync(List.of(), List.of(), first.lastSyncTimestamp());
+        assertEquals(200, second.serverRecords().size());
+        assertFalse(second.hasMore());
+
+        SyncData caughtUp = sync(List.of(), List.of(), second.lastSyncTimestamp());
+        assertTrue(caughtUp.serverRecords().isEmpty());
+        assertEquals(second.lastSyncTimestamp(), caughtUp.lastSyncTimestamp());
+    }
+
+    @Test
+    void syncWaitsForAnOpenWriteOfTheSameUser() throws Exception {
+        sync(List.of(record("GIR-1", T0, 80)), List.of(), null);
+        long point = sync(List.of(), List.of(), null).lastSyncTimestamp();
+
+        // An upload completing: its change_seq is drawn now but committed only when released
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() -> {
+            try {
+                database.inTransaction(connection -> {
+                    store.lockChanges(connection, USER);
+                    store.setImageUrl(connection, USER, "GIR-1", "uploads/abc");
+                    written.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+
+        // Another device pushes a record, which draws a later change_seq
+        CompletableFuture<SyncData> other = CompletableFuture.supplyAsync(
+                () -> sync(List.of(record("GIR-2", T0, 70)), List.of(), point));
+        Thread.sleep(300);
+        assertFalse(other.isDone());
+
+        release.countDown();
+        upload.join();
+        SyncData pushed = other.get(5, TimeUnit.SECONDS);
+
+        List<AnimalRecordDto> seen = new ArrayList<>(pushed.serverRecords());
+        seen.addAll(sync(List.of(), List.of(), pushed.lastSyncTimestamp()).serverRecords());
+        assertEquals(1, seen.size());
+        assertEquals("GIR-1", seen.get(0).animalId());
+        assertEquals("uploads/abc", seen.get(0).imageUrl());
+    }
+
+    private SyncData sync(List<AnimalRecordDto> records, List<String> deleted, Long since) {
+        return syncService.sync(USER, new SyncAnimalRecordsRequest(records, since, deleted)).join().data();
+    }
+
+    private static AnimalRecordDto record(String animalId, long updatedAt, int atcScore) {
+        String date = IsoDates.format(T0);
+        return new AnimalRecordDto(null, 1L, animalId, USER, null, null, date, 150.0, 130.0, 45.0, 20.0,
+                atcScore, false, null, null, null, date, IsoDates.format(updatedAt), 0);
+    }
+}
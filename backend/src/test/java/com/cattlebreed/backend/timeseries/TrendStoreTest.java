@@ -0,0 +1,195 @@
+package com.cattlebreed.backend.timeseries;
+
+import com.cattlebreed.backend.api.ApiModels.LocationDto;
+import com.cattlebreed.backend.ats.AtsRollupStore;
+import com.cattlebreed.backend.storage.StoredRecord;
+import com.cattlebreed.backend.timeseries.TrendStore.Point;
+import com.cattlebreed.backend.timeseries.TrendStore.Retention;
+import com.cattlebreed.backend.timeseries.TrendStore.Trend;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendStoreTest {
+
+    private static final String FARM = "9876543210";
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 12); // a Wednesday
+
+    private final MutableClock clock = new MutableClock(TODAY);
+    private final TrendStore store = new TrendStore(clock);
+
+    @Test
+    void weeksStartOnMonday() {
+        for (int day = (int) TODAY.minusDays(30).toEpochDay(); day <= TODAY.toEpochDay(); day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            LocalDate weekStart = Resolution.WEEK.start(Resolution.WEEK.index(day));
+
+            assertEquals(DayOfWeek.MONDAY, weekStart.getDayOfWeek());
+            assertTrue(!weekStart.isAfter(date) && weekStart.plusDays(7).isAfter(date), date.toString());
+        }
+        // Days before the epoch as well
+        assertEquals(LocalDate.of(1969, 12, 29), Resolution.WEEK.start(Resolution.WEEK.index(-1)));
+        assertEquals(LocalDate.of(2024, 2, 1),
+                Resolution.MONTH.start(Resolution.MONTH.index((int) LocalDate.of(2024, 2, 29).toEpochDay())));
+    }
+
+    @Test
+    void picksTheFinestTierThatHoldsTheRange() {
+        int today = (int) TODAY.toEpochDay();
+
+        assertEquals(Resolution.DAY, TrendStore.resolution(Retention.REGION, today - 90, today, today));
+        // Short, but older than the farm's 120 daily buckets
+        assertEquals(Resolution.WEEK, TrendStore.resolution(Retention.FARM, today - 150, today - 140, today));
+        // Within the region's daily window, but more than 200 days
+        assertEquals(Resolution.WEEK, TrendStore.resolution(Retention.REGION, today - 300, today, today));
+        assertEquals(Resolution.WEEK, TrendStore.resolution(Retention.REGION, today - 2 * 365, today, today));
+        assertEquals(Resolution.MONTH, TrendStore.resolution(Retention.REGION, today - 5 * 365, today, today));
+        assertEquals(Resolution.MONTH, TrendStore.resolution(Retention.FARM, today - 20 * 365, today, today));
+    }
+
+    @Test
+    void removingARecordUndoesAddingIt() {
+        StoredRecord record = record(1, TODAY.minusDays(3), 80, 0.9f);
+        store.onRecordChanged(null, record(2, TODAY.minusDays(3), 60, null));
+
+        store.onRecordChanged(null, record);
+        store.onRecordChanged(record, null);
+
+        for (LocalDate start : List.of(TODAY.minusDays(30), TODAY.minusYears(2), TODAY.minusYears(10))) {
+            Point point = single(store.farmTrend(FARM, start, TODAY));
+            assertEquals(1, point.count());
+            assertEquals(60.0, point.averageScore());
+            assertTrue(Double.isNaN(point.averageHealth()));
+        }
+    }
+
+    @Test
+    void anEditMovesTheRecordBetweenBuckets() {
+        StoredRecord before = record(1, TODAY.minusDays(10), 70, 0.5f);
+        StoredRecord after = record(1, TODAY.minusDays(2), 90, 0.7f);
+        store.onRecordChanged(null, before);
+
+        store.onRecordChanged(before, after);
+
+        Trend daily = store.regionTrend("Gujarat", TODAY.minusDays(30), TODAY);
+        assertEquals(Resolution.DAY, daily.resolution());
+        Point point = single(daily);
+        assertEquals(TODAY.minusDays(2), point.start());
+        assertEquals(90.0, point.averageScore());
+        assertEquals(0.7, point.averageHealth(), 1e-6);
+        assertEquals(1, single(store.regionTrend(null, TODAY.minusDays(30), TODAY)).count());
+    }
+
+    @Test
+    void edgeBucketsCountTheirWholePeriod() {
+        // Monday, before the Wednesday the range starts on
+        store.onRecordChanged(null, record(1, LocalDate.of(2023, 1, 2), 50, null));
+        store.onRecordChanged(null, record(2, LocalDate.of(2023, 1, 4), 70, null));
+
+        Trend weekly = store.farmTrend(FARM, LocalDate.of(2023, 1, 4), TODAY);
+
+        assertEquals(Resolution.WEEK, weekly.resolution());
+        Point point = single(weekly);
+        assertEquals(LocalDate.of(2023, 1, 2), point.start());
+        assertEquals(2, point.count());
+    }
+
+    @Test
+    void fineTiersDropBucketsOnceTheyAgeOut() {
+        StoredRecord old = record(1, TODAY.minusDays(100), 80, null);
+        store.onRecordChanged(null, old);
+        assertEquals(Resolution.DAY, store.farmTrend(FARM, TODAY.minusDays(110), TODAY).resolution());
+
+        // 30 days later the record is past the farm's 120 daily buckets; the next change trims them
+        clock.set(TODAY.plusDays(30));
+        store.onRecordChanged(null, record(2, TODAY.plusDays(30), 60, null));
+        LocalDate today = TODAY.plusDays(30);
+
+        assertEquals(Resolution.WEEK, store.farmTrend(FARM, TODAY.minusDays(110), today).resolution());
+        assertEquals(2, store.farmTrend(FARM, TODAY.minusDays(110), today).points().size());
+
+        // Removing it afterwards leaves the trimmed daily tier alone and still clears the coarser ones
+        store.onRecordChanged(old, null);
+        assertEquals(1, store.farmTrend(FARM, TODAY.minusDays(110), today).points().size());
+        assertEquals(1, single(store.farmTrend(FARM, today.minusDays(10), today)).count());
+    }
+
+    @Test
+    void lateRecordsOlderThanATierAreOnlyAddedToTheCoarserOnes() {
+        store.onRecordChanged(null, record(1, TODAY.minusDays(500), 75, null));
+
+        Trend weekly = store.regionTrend("Gujarat", TODAY.minusDays(510), TODAY.minusDays(490));
+        assertEquals(Resolution.WEEK, weekly.resolution());
+        assertEquals(1, single(weekly).count());
+        assertEquals(1, single(store.regionTrend("Gujarat", TODAY.minusYears(5), TODAY)).count());
+    }
+
+    @Test
+    void bucketSeriesKeepsBucketsSortedWhateverTheArrivalOrder() {
+        BucketSeries series = new BucketSeries();
+        for (int bucket : new int[]{10, 12, 11, 3, 12, 20, 7}) {
+            series.add(bucket, bucket, Float.NaN);
+        }
+
+        assertEquals(6, series.size);
+        assertEquals(List.of(3, 7, 10, 11, 12, 20), List.of(series.index[0], series.index[1], series.index[2],
+                series.index[3], series.index[4], series.index[5]));
+        assertEquals(2, series.count[4]);
+
+        series.trimBefore(11);
+        assertEquals(3, series.size);
+        assertEquals(11, series.index[0]);
+        series.remove(10, 10, Float.NaN);
+        assertEquals(3, series.size);
+        assertEquals(1, series.count[0]);
+    }
+
+    private static Point single(Trend trend) {
+        assertEquals(1, trend.points().size(), trend.toString());
+        return trend.points().get(0);
+    }
+
+    private static StoredRecord record(long id, LocalDate date, int score, Float health) {
+        long millis = date.atTime(12, 0).atZone(AtsRollupStore.REPORTING_ZONE).toInstant().toEpochMilli();
+        return new StoredRecord(id, FARM, "GIR-" + id, null, null, null, millis, 150.0, 130.0, 45.0, 20.0, score,
+                null, health, null, new LocationDto(null, null, null, null, "Gujarat", "Amreli"), null,
+                millis, millis, 1, false, id);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(LocalDate today) {
+            set(today);
+        }
+
+        void set(LocalDate today) {
+            instant = today.atTime(12, 0).atZone(AtsRollupStore.REPORTING_ZONE).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
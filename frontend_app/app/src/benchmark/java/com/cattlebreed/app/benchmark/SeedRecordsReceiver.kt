@@ -0,0 +1,74 @@
+package com.cattlebreed.app.benchmark
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.util.Log
+import androidx.room.withTransaction
+import com.cattlebreed.app.CattleBreedApplication
+import com.cattlebreed.app.data.entity.AnimalRecord
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import java.util.Date
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Replaces the local records with [EXTRA_COUNT] generated ones and enters
+ * guest mode, so a benchmark journey starts on a filled HomeScreen.
+ *
+ * Only present in the benchmark build type. Records are written as already
+ * synced, straight through the DAO, so seeding queues no outbox work.
+ * `am broadcast` returns once the records are committed.
+ */
+class SeedRecordsReceiver : BroadcastReceiver() {
+
+    companion object {
+        private const val TAG = "SeedRecordsReceiver"
+        private const val EXTRA_COUNT = "count"
+        private const val DEFAULT_COUNT = 10_000
+        private val BREEDS = listOf("Gir", "Sahiwal", "Red Sindhi", "Tharparkar", "Murrah", "Jaffarabadi")
+    }
+
+    override fun onReceive(context: Context, intent: Intent) {
+        val count = intent.getIntExtra(EXTRA_COUNT, DEFAULT_COUNT)
+        val container = (context.applicationContext as CattleBreedApplication).container
+        val pending = goAsync()
+
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                val database = container.database
+                val dao = database.animalRecordDao()
+                // Fixed seed: every run scrolls the same data
+                val random = Random(42)
+                val now = System.currentTimeMillis()
+                database.withTransaction {
+                    dao.deleteAllRecords()
+                    repeat(count) { i ->
+                        dao.insertRecord(
+                            AnimalRecord(
+                                animalId = "BENCH-%05d".format(i),
+                                date = Date(now - TimeUnit.MINUTES.toMillis(i * 37L)),
+                                imagePath = "",
+                                bodyLength = 120.0 + random.nextDouble(40.0),
+                                height = 110.0 + random.nextDouble(30.0),
+                                chestWidth = 40.0 + random.nextDouble(20.0),
+                                rumpAngle = 5.0 + random.nextDouble(15.0),
+                                atcScore = 50 + random.nextInt(50),
+                                synced = true,
+                                breed = BREEDS[i % BREEDS.size]
+                            )
+                        )
+                    }
+                }
+                container.authRepository.setGuestMode()
+                Log.i(TAG, "Seeded $count records")
+            } catch (e: Exception) {
+                Log.e(TAG, "Seeding failed", e)
+            } finally {
+                pending.finish()
+            }
+        }
+    }
+}
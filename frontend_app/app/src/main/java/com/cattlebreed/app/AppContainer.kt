@@ -0,0 +1,57 @@
+package com.cattlebreed.app
+
+import android.content.Context
+import com.cattlebreed.app.data.auth.AuthRepository
+import com.cattlebreed.app.data.database.AppDatabase
+import com.cattlebreed.app.data.repository.AnimalRepository
+import com.cattlebreed.app.data.session.SessionStore
+import com.cattlebreed.app.data.storage.StorageMaintenanceWorker
+import com.cattlebreed.app.data.storage.StorageManager
+import com.cattlebreed.app.data.sync.OutboxSyncWorker
+import com.cattlebreed.app.data.sync.SyncMetrics
+import com.cattlebreed.app.utils.FileUtils
+import com.cattlebreed.app.utils.PDFUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Application-scoped dependencies, each built on first use.
+ *
+ * Nothing here is touched before the first frame: the database and the
+ * session store are opened by [warmUp] on a background dispatcher,
+ * and the export utilities are only created when a screen asks for them.
+ */
+class AppContainer(context: Context) {
+
+    private val appContext = context.applicationContext
+
+    val database: AppDatabase by lazy { AppDatabase.getDatabase(appContext) }
+
+    val animalRepository: AnimalRepository by lazy {
+        AnimalRepository(database, OutboxSyncWorker.scheduler(appContext), storageManager)
+    }
+
+    val storageManager: StorageManager by lazy { StorageManager(appContext, database.tracedAnimalRecordDao()) }
+
+    val sessionStore: SessionStore by lazy { SessionStore.getInstance(appContext) }
+
+    val authRepository: AuthRepository by lazy { AuthRepository(appContext, sessionStore) }
+
+    val fileUtils: FileUtils by lazy { FileUtils(appContext) }
+
+    val pdfUtils: PDFUtils by lazy { PDFUtils(appContext) }
+
+    val syncMetrics: SyncMetrics by lazy { SyncMetrics.getInstance(appContext) }
+
+    /**
+     * Reads the saved session, opens (and if needed migrates) the database
+     * and schedules the periodic sync and storage maintenance, all off the
+     * main thread
+     */
+    suspend fun warmUp() = withContext(Dispatchers.IO) {
+        authRepository.restoreSession()
+        database.openHelper.writableDatabase
+        OutboxSyncWorker.schedulePeriodic(appContext)
+        StorageMaintenanceWorker.schedulePeriodic(appContext)
+    }
+}
@@ -0,0 +1,29 @@
+package com.cattlebreed.app
+
+import android.app.Application
+import android.util.Log
+import kotlinx.coroutines.CoroutineExceptionHandler
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+
+class CattleBreedApplication : Application() {
+
+    val container: AppContainer by lazy { AppContainer(this) }
+
+    /**
+     * Outlives every screen; used for work that must finish even if the activity goes away
+     */
+    val applicationScope = CoroutineScope(
+        SupervisorJob() + Dispatchers.Default + CoroutineExceptionHandler { _, e ->
+            Log.e("CattleBreedApplication", "Background startup work failed", e)
+        }
+    )
+
+    override fun onCreate() {
+        super.onCreate()
+        // Started here so it overlaps with activity creation instead of following it
+        applicationScope.launch { container.warmUp() }
+    }
+}
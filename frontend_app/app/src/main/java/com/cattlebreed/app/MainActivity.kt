@@ -2,6 +2,7 @@ package com.cattlebreed.app
 
 import android.os.Bundle
 import androidx.activity.ComponentActivity
+import androidx.activity.compose.ReportDrawnWhen
 import androidx.activity.compose.setContent
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.foundation.layout.padding
@@ -11,58 +12,54 @@ import androidx.compose.material3.Surface
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.getValue
+import androidx.compose.runtime.remember
+import androidx.compose.ui.ExperimentalComposeUiApi
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.semantics.testTagsAsResourceId
+import androidx.lifecycle.viewmodel.compose.LocalViewModelStoreOwner
 import androidx.lifecycle.viewmodel.compose.viewModel
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import androidx.navigation.compose.NavHost
 import androidx.navigation.compose.composable
 import androidx.navigation.compose.rememberNavController
-import com.cattlebreed.app.data.auth.AuthRepository
 import com.cattlebreed.app.data.auth.AuthState
-import com.cattlebreed.app.data.database.AppDatabase
-import com.cattlebreed.app.data.repository.AnimalRepository
 import com.cattlebreed.app.navigation.NavigationArguments
 import com.cattlebreed.app.navigation.NavigationDestination
 import com.cattlebreed.app.ui.screens.auth.OTPVerificationScreen
 import com.cattlebreed.app.ui.screens.auth.PhoneInputScreen
 import com.cattlebreed.app.ui.screens.capture.CaptureScreen
+import com.cattlebreed.app.ui.screens.debug.MetricsScreen
 import com.cattlebreed.app.ui.screens.export.ExportScreen
 import com.cattlebreed.app.ui.screens.history.AnimalDetailScreen
 import com.cattlebreed.app.ui.screens.history.HistoryScreen
 import com.cattlebreed.app.ui.screens.home.HomeScreen
 import com.cattlebreed.app.ui.screens.settings.SettingsScreen
 import com.cattlebreed.app.ui.theme.CattleBreedAppTheme
-import com.cattlebreed.app.utils.FileUtils
-import com.cattlebreed.app.utils.PDFUtils
 import com.cattlebreed.app.viewmodel.AuthViewModel
 import com.cattlebreed.app.viewmodel.ExportViewModel
 import com.cattlebreed.app.viewmodel.MainViewModel
 
 class MainActivity : ComponentActivity() {
     
-    private lateinit var repository: AnimalRepository
-    private lateinit var authRepository: AuthRepository
-    private lateinit var fileUtils: FileUtils
-    private lateinit var pdfUtils: PDFUtils
-    
+    @OptIn(ExperimentalComposeUiApi::class)
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
         
-        // Initialize dependencies
-        val database = AppDatabase.getDatabase(this)
-        repository = AnimalRepository(database.animalRecordDao())
-        val preferences = getSharedPreferences("cattle_breed_prefs", MODE_PRIVATE)
-        authRepository = AuthRepository(this, preferences)
-        fileUtils = FileUtils(this)
-        pdfUtils = PDFUtils(this)
+        // Dependencies are resolved lazily; the database and preferences are
+        // already being opened in the background by CattleBreedApplication
+        val container = (application as CattleBreedApplication).container
         
         setContent {
             CattleBreedAppTheme {
                 Surface(
-                    modifier = Modifier.fillMaxSize(),
+                    // Exposes testTag()s to UiAutomator for the :benchmark journeys
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .semantics { testTagsAsResourceId = true },
                     color = MaterialTheme.colorScheme.background
                 ) {
-                    CattleBreedApp(repository, authRepository, fileUtils, pdfUtils)
+                    CattleBreedApp(container)
                 }
             }
         }
@@ -70,28 +67,34 @@ class MainActivity : ComponentActivity() {
 }
 
 @Composable
-fun CattleBreedApp(
-    repository: AnimalRepository,
-    authRepository: AuthRepository,
-    fileUtils: FileUtils,
-    pdfUtils: PDFUtils
-) {
+fun CattleBreedApp(container: AppContainer) {
     val navController = rememberNavController()
+    val activityViewModelStoreOwner = checkNotNull(LocalViewModelStoreOwner.current)
     
     // Create ViewModels
-    val mainViewModel: MainViewModel = viewModel { MainViewModel(repository) }
-    val exportViewModel: ExportViewModel = viewModel { ExportViewModel(repository, fileUtils, pdfUtils) }
-    val authViewModel: AuthViewModel = viewModel { AuthViewModel(authRepository) }
+    val mainViewModel: MainViewModel = viewModel { MainViewModel(container.animalRepository) }
+    val authViewModel: AuthViewModel = viewModel { AuthViewModel(container.authRepository) }
     
     // Observe authentication state
     val authState by authViewModel.authState.collectAsStateWithLifecycle()
+    val restoring = authState is AuthState.Restoring
     
-    // Determine start destination based on auth state
-    val startDestination = when (val state = authState) {
-        is AuthState.Authenticated -> NavigationDestination.HOME.route
-        is AuthState.Guest -> NavigationDestination.HOME.route
-        is AuthState.OTPPending -> "otp_verification/${state.phoneNumber}"
-        else -> NavigationDestination.PHONE_INPUT.route
+    // Decided once, when the saved session has been read
+    val startDestination = remember(restoring) {
+        when (val state = authState) {
+            is AuthState.Authenticated -> NavigationDestination.HOME.route
+            is AuthState.Guest -> NavigationDestination.HOME.route
+            is AuthState.OTPPending -> "otp_verification/${state.phoneNumber}"
+            else -> NavigationDestination.PHONE_INPUT.route
+        }
+    }
+    
+    // Lets startup traces measure time to the first usable screen
+    ReportDrawnWhen { !restoring }
+    
+    if (restoring) {
+        // The themed background is the first frame; the real screen follows in milliseconds
+        return
     }
     
     Scaffold { innerPadding ->
@@ -134,7 +137,9 @@ fun CattleBreedApp(
                 )
             }
             composable(NavigationDestination.HOME.route) {
+                val summary by mainViewModel.summary.collectAsStateWithLifecycle()
                 HomeScreen(
+                    summary = summary,
                     onNavigateToCapture = {
                         navController.navigate(NavigationDestination.CAPTURE.route)
                     },
@@ -153,7 +158,7 @@ fun CattleBreedApp(
             composable(NavigationDestination.CAPTURE.route) {
                 CaptureScreen(
                     viewModel = mainViewModel,
-                    fileUtils = fileUtils,
+                    fileUtils = container.fileUtils,
                     onNavigateBack = {
                         navController.popBackStack()
                     },
@@ -168,7 +173,6 @@ fun CattleBreedApp(
             composable(NavigationDestination.HISTORY.route) {
                 HistoryScreen(
                     viewModel = mainViewModel,
-                    fileUtils = fileUtils,
                     onNavigateBack = {
                         navController.popBackStack()
                     },
@@ -179,6 +183,11 @@ fun CattleBreedApp(
             }
             
             composable(NavigationDestination.EXPORT.route) {
+                // Activity-scoped like the others, but only built (with the PDF
+                // and file utilities) the first time the export screen opens
+                val exportViewModel: ExportViewModel = viewModel(viewModelStoreOwner = activityViewModelStoreOwner) {
+                    ExportViewModel(container.animalRepository, container.fileUtils, container.pdfUtils, container.syncMetrics)
+                }
                 ExportScreen(
                     viewModel = exportViewModel,
                     onNavigateBack = {
@@ -203,17 +212,33 @@ fun CattleBreedApp(
                     },
                     onNavigateToLogin = {
                         navController.navigate(NavigationDestination.PHONE_INPUT.route)
+                    },
+                    onNavigateToMetrics = if (BuildConfig.DEBUG) {
+                        { navController.navigate(NavigationDestination.METRICS.route) }
+                    } else {
+                        null
                     }
                 )
             }
             
+            if (BuildConfig.DEBUG) {
+                composable(NavigationDestination.METRICS.route) {
+                    MetricsScreen(
+                        fileUtils = container.fileUtils,
+                        onNavigateBack = {
+                            navController.popBackStack()
+                        }
+                    )
+                }
+            }
+            
             composable("animal_detail/{${NavigationArguments.ANIMAL_ID}}") { backStackEntry ->
                 val animalId = backStackEntry.arguments?.getString(NavigationArguments.ANIMAL_ID)?.toLongOrNull()
                 if (animalId != null) {
                     AnimalDetailScreen(
                         animalId = animalId,
                         viewModel = mainViewModel,
-                        fileUtils = fileUtils,
+                        fileUtils = container.fileUtils,
                         onNavigateBack = {
                             navController.popBackStack()
                         }
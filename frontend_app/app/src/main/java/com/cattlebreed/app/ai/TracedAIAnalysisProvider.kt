@@ -0,0 +1,29 @@
+package com.cattlebreed.app.ai
+
+import com.cattlebreed.app.metrics.MetricsRegistry
+import com.cattlebreed.app.metrics.tracedSuspend
+import java.io.File
+
+/**
+ * Times [analyzeCattleImage] of any provider under `ai.analyze`, and
+ * records the size of the analyzed image next to it
+ */
+class TracedAIAnalysisProvider(
+    private val delegate: AIAnalysisProvider
+) : AIAnalysisProvider by delegate {
+
+    override suspend fun analyzeCattleImage(imageFile: File): AIAnalysisResult {
+        MetricsRegistry.recordValue("ai.analyze.imageBytes", imageFile.length())
+        val result = tracedSuspend("ai.analyze") { delegate.analyzeCattleImage(imageFile) }
+        if (!result.success) {
+            MetricsRegistry.increment("ai.analyze.unsuccessful")
+        }
+        return result
+    }
+}
+
+/**
+ * Wrap providers with this where they are created
+ */
+fun AIAnalysisProvider.traced(): AIAnalysisProvider =
+    this as? TracedAIAnalysisProvider ?: TracedAIAnalysisProvider(this)
@@ -21,21 +21,11 @@ data class User(
     val syncEnabled: Boolean = true
 )
 
-/**
- * OTP session data model for temporary storage
- */
-data class OTPSession(
-    val phoneNumber: String,
-    val otp: String,
-    val expiryTime: Long, // Timestamp when OTP expires
-    val attempts: Int = 0,
-    val isUsed: Boolean = false
-)
-
 /**
  * Authentication state
  */
 sealed class AuthState {
+    object Restoring : AuthState()  // Saved session not read yet
     object Unauthenticated : AuthState()
     object PhoneNumberEntry : AuthState()
     data class OTPPending(val phoneNumber: String, val maskedNumber: String) : AuthState()
@@ -62,7 +52,8 @@ data class AuthResponse(
     val success: Boolean,
     val message: String,
     val token: String? = null,
-    val user: UserProfile? = null
+    val user: UserProfile? = null,
+    val devCode: String? = null // Only from a backend run with cattle.otp.echo
 )
 
 data class UserProfile(
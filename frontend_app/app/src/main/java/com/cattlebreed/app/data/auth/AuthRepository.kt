@@ -1,15 +1,14 @@
 package com.cattlebreed.app.data.auth
 
 import android.content.Context
-import android.content.SharedPreferences
 import android.provider.Settings
+import com.cattlebreed.app.data.session.SessionStore
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import java.security.SecureRandom
 import java.util.Date
-import java.util.concurrent.TimeUnit
 
 /**
  * Repository for handling authentication operations
@@ -17,44 +16,42 @@ import java.util.concurrent.TimeUnit
  */
 class AuthRepository(
     private val context: Context,
-    private val preferences: SharedPreferences
+    private val sessionStore: SessionStore
 ) {
     
     companion object {
-        private const val PREF_CURRENT_USER = "current_user_phone"
-        private const val PREF_AUTH_TOKEN = "auth_token"
-        private const val PREF_LANGUAGE = "preferred_language"
         private const val OTP_LENGTH = 6
-        private const val OTP_EXPIRY_MINUTES = 5L
-        private const val MAX_OTP_ATTEMPTS = 3
     }
     
-    private val _authState = MutableStateFlow<AuthState>(AuthState.Unauthenticated)
+    private val _authState = MutableStateFlow<AuthState>(AuthState.Restoring)
     val authState: StateFlow<AuthState> = _authState.asStateFlow()
     
     // In-memory OTP sessions for demo purposes
     // In production, this would be handled by backend
-    private val otpSessions = mutableMapOf<String, OTPSession>()
+    private val otpSessions = OtpSessionStore()
+    private val random = SecureRandom()
     
-    init {
-        // Check if user is already authenticated or in guest mode
-        val currentPhone = preferences.getString(PREF_CURRENT_USER, null)
-        val isGuest = preferences.getBoolean("is_guest_mode", false)
-        
-        when {
-            currentPhone != null -> {
-                val user = getUserFromStorage(currentPhone)
-                if (user != null) {
-                    _authState.value = AuthState.Authenticated(user)
-                }
-            }
-            isGuest -> {
-                _authState.value = AuthState.Guest
-            }
-            else -> {
-                _authState.value = AuthState.Unauthenticated
-            }
+    /**
+     * Checks whether a user is already signed in or in guest mode.
+     * Waits for the session store's first read, which happens off the main
+     * thread; the state stays [AuthState.Restoring] until then. Later calls
+     * are no-ops.
+     */
+    suspend fun restoreSession() {
+        if (_authState.value !is AuthState.Restoring) {
+            return
+        }
+        val session = sessionStore.current()
+        val currentPhone = session.phoneNumber
+        val restored = when {
+            currentPhone != null -> getUserFromStorage(currentPhone)
+                ?.let { AuthState.Authenticated(it) }
+                ?: AuthState.Unauthenticated
+            session.isGuest -> AuthState.Guest
+            else -> AuthState.Unauthenticated
         }
+        // Leaves a state set by a sign-in or sign-out in the meantime alone
+        _authState.compareAndSet(AuthState.Restoring, restored)
     }
     
     /**
@@ -68,16 +65,14 @@ class AuthRepository(
                 return Result.failure(Exception("Invalid phone number format"))
             }
             
-            // Generate OTP
+            // Generate and store OTP, unless this number asked too recently
             val otp = generateOTP()
-            val expiryTime = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(OTP_EXPIRY_MINUTES)
-            
-            // Store OTP session
-            otpSessions[phoneNumber] = OTPSession(
-                phoneNumber = phoneNumber,
-                otp = otp,
-                expiryTime = expiryTime
-            )
+            val issued = otpSessions.issue(phoneNumber, otp)
+            if (issued is OtpSessionStore.IssueResult.RateLimited) {
+                return Result.failure(
+                    Exception("Too many OTP requests. Try again in ${issued.retryAfterSeconds} seconds")
+                )
+            }
             
             // In production, send actual SMS here
             // For demo, we'll just log the OTP
@@ -102,35 +97,18 @@ class AuthRepository(
      */
     suspend fun verifyOTP(phoneNumber: String, enteredOTP: String): Result<User> {
         return try {
-            val session = otpSessions[phoneNumber]
-                ?: return Result.failure(Exception("No OTP session found"))
-            
-            // Check if OTP is expired
-            if (System.currentTimeMillis() > session.expiryTime) {
-                otpSessions.remove(phoneNumber)
-                return Result.failure(Exception("OTP has expired"))
-            }
-            
-            // Check if OTP is already used
-            if (session.isUsed) {
-                return Result.failure(Exception("OTP already used"))
+            when (otpSessions.verify(phoneNumber, enteredOTP)) {
+                OtpSessionStore.VerifyResult.Verified -> Unit
+                OtpSessionStore.VerifyResult.NotRequested ->
+                    return Result.failure(Exception("No OTP session found"))
+                OtpSessionStore.VerifyResult.Expired ->
+                    return Result.failure(Exception("OTP has expired"))
+                OtpSessionStore.VerifyResult.Invalid ->
+                    return Result.failure(Exception("Invalid OTP"))
+                OtpSessionStore.VerifyResult.TooManyAttempts ->
+                    return Result.failure(Exception("Too many failed attempts"))
             }
             
-            // Check attempts
-            if (session.attempts >= MAX_OTP_ATTEMPTS) {
-                otpSessions.remove(phoneNumber)
-                return Result.failure(Exception("Too many failed attempts"))
-            }
-            
-            // Verify OTP
-            if (session.otp != enteredOTP) {
-                otpSessions[phoneNumber] = session.copy(attempts = session.attempts + 1)
-                return Result.failure(Exception("Invalid OTP"))
-            }
-            
-            // OTP verified successfully
-            otpSessions[phoneNumber] = session.copy(isUsed = true)
-            
             // Create or get user
             val user = createOrGetUser(phoneNumber)
             
@@ -139,9 +117,6 @@ class AuthRepository(
             
             _authState.value = AuthState.Authenticated(user)
             
-            // Clean up OTP session
-            otpSessions.remove(phoneNumber)
-            
             Result.success(user)
             
         } catch (e: Exception) {
@@ -153,34 +128,32 @@ class AuthRepository(
     /**
      * Set guest mode
      */
-    fun setGuestMode() {
-        preferences.edit()
-            .remove(PREF_CURRENT_USER)
-            .remove(PREF_AUTH_TOKEN)
-            .putBoolean("is_guest_mode", true)
-            .apply()
-        
+    suspend fun setGuestMode() {
         _authState.value = AuthState.Guest
+        sessionStore.update {
+            clearPhoneNumber()
+            clearAuthToken()
+            setGuestMode(true)
+        }
     }
     
     /**
      * Sign out current user
      */
-    fun signOut() {
-        preferences.edit()
-            .remove(PREF_CURRENT_USER)
-            .remove(PREF_AUTH_TOKEN)
-            .remove("is_guest_mode")
-            .apply()
-        
+    suspend fun signOut() {
         _authState.value = AuthState.Unauthenticated
+        sessionStore.update {
+            clearPhoneNumber()
+            clearAuthToken()
+            setGuestMode(false)
+        }
     }
     
     /**
      * Get current authenticated user
      */
     fun getCurrentUser(): User? {
-        val currentPhone = preferences.getString(PREF_CURRENT_USER, null)
+        val currentPhone = sessionStore.session.value?.phoneNumber
         return if (currentPhone != null) {
             getUserFromStorage(currentPhone)
         } else null
@@ -189,7 +162,7 @@ class AuthRepository(
     /**
      * Update user profile
      */
-    fun updateUserProfile(user: User): User {
+    suspend fun updateUserProfile(user: User): User {
         saveUserToStorage(user)
         _authState.value = AuthState.Authenticated(user)
         return user
@@ -212,7 +185,6 @@ class AuthRepository(
     // Private helper methods
     
     private fun generateOTP(): String {
-        val random = SecureRandom()
         val otp = StringBuilder()
         repeat(OTP_LENGTH) {
             otp.append(random.nextInt(10))
@@ -233,22 +205,23 @@ class AuthRepository(
         } else phoneNumber
     }
     
-    private fun createOrGetUser(phoneNumber: String): User {
+    private suspend fun createOrGetUser(phoneNumber: String): User {
         val existingUser = getUserFromStorage(phoneNumber)
         return existingUser ?: User(
             phoneNumber = phoneNumber,
             isVerified = true,
             lastLoginDate = Date(),
-            preferredLanguage = preferences.getString(PREF_LANGUAGE, "en") ?: "en"
+            preferredLanguage = preferredLanguage()
         ).also { saveUserToStorage(it) }
     }
     
-    private fun saveUserSession(user: User) {
-        preferences.edit()
-            .putString(PREF_CURRENT_USER, user.phoneNumber)
-            .putString(PREF_AUTH_TOKEN, generateSessionToken())
-            .remove("is_guest_mode")  // Clear guest mode when user authenticates
-            .apply()
+    private suspend fun saveUserSession(user: User) {
+        val token = generateSessionToken()
+        sessionStore.update {
+            setPhoneNumber(user.phoneNumber)
+            setAuthToken(token)
+            setGuestMode(false)  // Clear guest mode when user authenticates
+        }
     }
     
     private fun generateSessionToken(): String {
@@ -263,15 +236,17 @@ class AuthRepository(
             phoneNumber = phoneNumber,
             isVerified = true,
             lastLoginDate = Date(),
-            preferredLanguage = preferences.getString(PREF_LANGUAGE, "en") ?: "en"
+            preferredLanguage = preferredLanguage()
         )
     }
     
-    private fun saveUserToStorage(user: User) {
+    private suspend fun saveUserToStorage(user: User) {
         // In a real app, this would save to database
-        // For now, just update preferences
-        preferences.edit()
-            .putString(PREF_LANGUAGE, user.preferredLanguage)
-            .apply()
+        // For now, just update the session store
+        sessionStore.update { setPreferredLanguage(user.preferredLanguage) }
+    }
+    
+    private fun preferredLanguage(): String {
+        return sessionStore.session.value?.preferredLanguage ?: SessionStore.DEFAULT_LANGUAGE
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.cattlebreed.app.data.auth
+
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Pending OTPs for the local sign-in flow, mirroring the backend's
+ * OtpService rules so the demo behaves like the real endpoint.
+ *
+ * Safe to call from any thread: each number's state is changed under its
+ * own lock, and each code has an atomic attempt counter, so a double-tapped
+ * verify can't get an extra guess. At most [capacity] numbers are kept;
+ * expired entries are swept on the next send once the map fills.
+ */
+class OtpSessionStore(
+    private val capacity: Int = DEFAULT_CAPACITY,
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    companion object {
+        const val DEFAULT_CAPACITY = 64
+        const val MAX_ATTEMPTS = 3
+        val CODE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5)
+        val RESEND_COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(30)
+        const val MAX_SENDS_PER_WINDOW = 5
+        val WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15)
+    }
+
+    sealed class IssueResult {
+        object Issued : IssueResult()
+        data class RateLimited(val retryAfterSeconds: Long) : IssueResult()
+    }
+
+    sealed class VerifyResult {
+        object Verified : VerifyResult()
+        object NotRequested : VerifyResult()
+        object Expired : VerifyResult()
+        object Invalid : VerifyResult()
+        object TooManyAttempts : VerifyResult()
+    }
+
+    private class Code(val value: String, val expiresAt: Long) {
+        val attempts = AtomicInteger()
+        val used = AtomicBoolean()
+    }
+
+    private class PhoneState(now: Long) {
+        // Guarded by this
+        var windowStart = now
+        var sendsInWindow = 0
+        var lastSentAt = 0L
+        @Volatile
+        var code: Code? = null
+
+        fun expiresAt() = maxOf(windowStart + WINDOW_MILLIS, code?.expiresAt ?: 0L)
+    }
+
+    private val states = ConcurrentHashMap<String, PhoneState>()
+
+    /**
+     * Stores [code] for [phoneNumber] unless the number is still cooling
+     * down or has used up its sends for the window
+     */
+    fun issue(phoneNumber: String, code: String): IssueResult {
+        val now = clock()
+        if (states.size >= capacity && !states.containsKey(phoneNumber)) {
+            sweep(now)
+            if (states.size >= capacity) {
+                return IssueResult.RateLimited(seconds(RESEND_COOLDOWN_MILLIS))
+            }
+        }
+        while (true) {
+            val state = states.computeIfAbsent(phoneNumber) { PhoneState(now) }
+            synchronized(state) {
+                // Otherwise it was swept between lookup and lock; go round again
+                if (states[phoneNumber] === state) {
+                    return issueLocked(state, code, now)
+                }
+            }
+        }
+    }
+
+    private fun issueLocked(state: PhoneState, code: String, now: Long): IssueResult {
+        if (now - state.windowStart >= WINDOW_MILLIS) {
+            state.windowStart = now
+            state.sendsInWindow = 0
+        }
+        val cooldownLeft = state.lastSentAt + RESEND_COOLDOWN_MILLIS - now
+        if (state.sendsInWindow > 0 && cooldownLeft > 0) {
+            return IssueResult.RateLimited(seconds(cooldownLeft))
+        }
+        if (state.sendsInWindow >= MAX_SENDS_PER_WINDOW) {
+            return IssueResult.RateLimited(seconds(state.windowStart + WINDOW_MILLIS - now))
+        }
+        state.code = Code(code, now + CODE_TTL_MILLIS)
+        state.sendsInWindow++
+        state.lastSentAt = now
+        return IssueResult.Issued
+    }
+
+    fun verify(phoneNumber: String, entered: String): VerifyResult {
+        val now = clock()
+        val state = states[phoneNumber] ?: return VerifyResult.NotRequested
+        val code = state.code ?: return VerifyResult.NotRequested
+        if (code.expiresAt <= now) {
+            return VerifyResult.Expired
+        }
+        val attempt = code.attempts.incrementAndGet()
+        if (attempt > MAX_ATTEMPTS) {
+            discard(state, code)
+            return VerifyResult.TooManyAttempts
+        }
+        if (!MessageDigest.isEqual(code.value.toByteArray(), entered.toByteArray())) {
+            if (attempt == MAX_ATTEMPTS) {
+                discard(state, code)
+            }
+            return VerifyResult.Invalid
+        }
+        if (!code.used.compareAndSet(false, true)) {
+            return VerifyResult.NotRequested
+        }
+        discard(state, code)
+        return VerifyResult.Verified
+    }
+
+    private fun discard(state: PhoneState, code: Code) {
+        synchronized(state) {
+            if (state.code === code) {
+                state.code = null
+            }
+        }
+    }
+
+    /**
+     * Drops numbers whose code and rate window have both lapsed
+     */
+    private fun sweep(now: Long) {
+        val iterator = states.entries.iterator()
+        while (iterator.hasNext()) {
+            val state = iterator.next().value
+            synchronized(state) {
+                if (state.expiresAt() <= now) {
+                    iterator.remove()
+                }
+            }
+        }
+    }
+
+    private fun seconds(millis: Long) = maxOf(1L, (millis + 999) / 1000)
+}
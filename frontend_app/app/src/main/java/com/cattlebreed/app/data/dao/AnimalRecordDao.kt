@@ -1,8 +1,10 @@
 package com.cattlebreed.app.data.dao
 
 import androidx.room.*
+import androidx.sqlite.db.SupportSQLiteQuery
 import com.cattlebreed.app.data.entity.AnimalRecord
 import kotlinx.coroutines.flow.Flow
+import java.util.Date
 
 @Dao
 interface AnimalRecordDao {
@@ -10,9 +12,37 @@ interface AnimalRecordDao {
     @Query("SELECT * FROM animal_records ORDER BY date DESC")
     fun getAllRecords(): Flow<List<AnimalRecord>>
     
+    /**
+     * Built by [RecordSearch.toQuery]; re-runs whenever a record changes
+     */
+    @RawQuery(observedEntities = [AnimalRecord::class])
+    fun searchRecords(query: SupportSQLiteQuery): Flow<List<AnimalRecord>>
+    
+    /**
+     * One page, newest first, after the record at ([date], [id]). Keyset rather
+     * than OFFSET, so every page is a seek on the date index however deep it is
+     */
+    @Query(
+        "SELECT * FROM animal_records WHERE date < :date OR (date = :date AND id < :id) " +
+            "ORDER BY date DESC, id DESC LIMIT :limit"
+    )
+    suspend fun getRecordsPage(date: Date, id: Long, limit: Int): List<AnimalRecord>
+    
     @Query("SELECT * FROM animal_records WHERE id = :id")
     suspend fun getRecordById(id: Long): AnimalRecord?
     
+    @Query("SELECT * FROM animal_records WHERE id IN (:ids)")
+    suspend fun getRecordsByIds(ids: List<Long>): List<AnimalRecord>
+    
+    @Query("SELECT * FROM animal_records WHERE animalId = :animalId LIMIT 1")
+    suspend fun getRecordByAnimalId(animalId: String): AnimalRecord?
+    
+    /**
+     * Animal ids are not unique: a deleted animal's id can be given to a new capture
+     */
+    @Query("SELECT * FROM animal_records WHERE animalId = :animalId")
+    suspend fun getRecordsByAnimalId(animalId: String): List<AnimalRecord>
+    
     @Insert
     suspend fun insertRecord(record: AnimalRecord): Long
     
@@ -25,9 +55,32 @@ interface AnimalRecordDao {
     @Query("DELETE FROM animal_records")
     suspend fun deleteAllRecords()
     
+    @Query("SELECT imagePath FROM animal_records WHERE imagePath != ''")
+    suspend fun getImagePaths(): List<String>
+    
+    /**
+     * Local images that also have a completed upload on the server, oldest record first
+     */
+    @Query(
+        "SELECT id, imagePath FROM animal_records WHERE imageUrl IS NOT NULL AND imagePath != '' " +
+            "ORDER BY date ASC"
+    )
+    suspend fun getUploadedRecordImages(): List<RecordImage>
+    
+    /**
+     * Only swaps a path the record still has; returns 0 if it changed meanwhile
+     */
+    @Query("UPDATE animal_records SET imagePath = :newPath WHERE id = :id AND imagePath = :oldPath")
+    suspend fun replaceImagePath(id: Long, oldPath: String, newPath: String): Int
+    
     @Query("SELECT * FROM animal_records WHERE synced = 0")
     suspend fun getUnsyncedRecords(): List<AnimalRecord>
     
     @Query("UPDATE animal_records SET synced = 1 WHERE id = :id")
     suspend fun markAsSynced(id: Long)
-}
\ No newline at end of file
+}
+
+data class RecordImage(
+    val id: Long,
+    val imagePath: String
+)
@@ -0,0 +1,34 @@
+package com.cattlebreed.app.data.dao
+
+import androidx.room.*
+import com.cattlebreed.app.data.entity.OutboxOperation
+import kotlinx.coroutines.flow.Flow
+import java.util.Date
+
+@Dao
+interface OutboxDao {
+    
+    @Insert
+    suspend fun enqueue(operation: OutboxOperation): Long
+    
+    @Query("INSERT INTO sync_outbox (recordId, animalId, operation, createdAt, attempts) SELECT id, animalId, 'DELETE', :createdAt, 0 FROM animal_records")
+    suspend fun enqueueDeleteForAllRecords(createdAt: Date)
+    
+    @Query("SELECT * FROM sync_outbox ORDER BY id ASC LIMIT :limit")
+    suspend fun getPending(limit: Int): List<OutboxOperation>
+    
+    @Query("SELECT COUNT(*) FROM sync_outbox WHERE recordId = :recordId")
+    suspend fun countForRecord(recordId: Long): Int
+    
+    @Query("SELECT COUNT(*) FROM sync_outbox")
+    fun observePendingCount(): Flow<Int>
+    
+    @Query("DELETE FROM sync_outbox WHERE id IN (:ids)")
+    suspend fun deleteByIds(ids: List<Long>)
+    
+    @Query("DELETE FROM sync_outbox WHERE recordId = :recordId")
+    suspend fun deleteForRecord(recordId: Long)
+    
+    @Query("UPDATE sync_outbox SET attempts = attempts + 1, lastError = :error WHERE id IN (:ids)")
+    suspend fun recordFailure(ids: List<Long>, error: String?)
+}
@@ -0,0 +1,82 @@
+package com.cattlebreed.app.data.dao
+
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteQuery
+import java.util.Date
+
+/**
+ * A HistoryScreen search: free text matched against animal id, breed and
+ * notes, plus optional inclusive ranges. Unset bounds are left out of the
+ * SQL altogether rather than written as `? IS NULL OR ...`, so SQLite can
+ * use the column indices for whichever bounds are set.
+ */
+data class RecordSearch(
+    val text: String = "",
+    val minAtcScore: Int? = null,
+    val maxAtcScore: Int? = null,
+    val dateFrom: Date? = null,
+    val dateTo: Date? = null,
+    val minBodyLength: Double? = null,
+    val maxBodyLength: Double? = null,
+    val minHeight: Double? = null,
+    val maxHeight: Double? = null,
+    val minChestWidth: Double? = null,
+    val maxChestWidth: Double? = null
+) {
+
+    companion object {
+        // A search lists the newest matches, never the whole table
+        const val MAX_RESULTS = 500
+    }
+
+    /**
+     * True when nothing narrows the list: no searchable words and no bounds
+     */
+    val isEmpty: Boolean get() = matchExpression() == null && copy(text = "") == RecordSearch()
+
+    fun toQuery(): SupportSQLiteQuery {
+        val where = mutableListOf<String>()
+        val args = mutableListOf<Any>()
+
+        matchExpression()?.let {
+            where += "id IN (SELECT docid FROM animal_records_fts WHERE animal_records_fts MATCH ?)"
+            args += it
+        }
+        range("atcScore", minAtcScore, maxAtcScore, where, args)
+        range("date", dateFrom?.time, dateTo?.time, where, args)
+        range("bodyLength", minBodyLength, maxBodyLength, where, args)
+        range("height", minHeight, maxHeight, where, args)
+        range("chestWidth", minChestWidth, maxChestWidth, where, args)
+
+        val sql = buildString {
+            append("SELECT * FROM animal_records")
+            if (where.isNotEmpty()) {
+                append(" WHERE ").append(where.joinToString(" AND "))
+            }
+            append(" ORDER BY date DESC LIMIT ").append(MAX_RESULTS)
+        }
+        return SimpleSQLiteQuery(sql, args.toTypedArray())
+    }
+
+    /**
+     * Every word of [text] as a prefix term, so "gir 12" finds "GIR-1234".
+     * Punctuation is dropped, which also keeps FTS operators out of user input.
+     */
+    private fun matchExpression(): String? {
+        val terms = text.lowercase()
+            .split(Regex("[^\\p{L}\\p{N}]+"))
+            .filter { it.isNotEmpty() }
+        return if (terms.isEmpty()) null else terms.joinToString(" ") { "$it*" }
+    }
+
+    private fun range(column: String, min: Any?, max: Any?, where: MutableList<String>, args: MutableList<Any>) {
+        if (min != null) {
+            where += "$column >= ?"
+            args += min
+        }
+        if (max != null) {
+            where += "$column <= ?"
+            args += max
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.cattlebreed.app.data.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import com.cattlebreed.app.data.entity.RecordSummary
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Read-only: the row is written by triggers on animal_records
+ */
+@Dao
+interface RecordSummaryDao {
+    
+    @Query("SELECT * FROM record_summary WHERE id = 0")
+    fun observeSummary(): Flow<RecordSummary?>
+    
+    @Query("SELECT * FROM record_summary WHERE id = 0")
+    suspend fun getSummary(): RecordSummary?
+}
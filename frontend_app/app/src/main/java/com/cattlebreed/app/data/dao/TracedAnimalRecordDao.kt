@@ -0,0 +1,89 @@
+package com.cattlebreed.app.data.dao
+
+import androidx.sqlite.db.SupportSQLiteQuery
+import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.metrics.MetricsRegistry
+import com.cattlebreed.app.metrics.TraceSpan
+import com.cattlebreed.app.metrics.tracedSuspend
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import java.util.Date
+
+/**
+ * [AnimalRecordDao] with every call timed under `db.<method>`.
+ *
+ * Observed queries are timed from collection to the first list, the load
+ * a screen waits for; later re-queries only count `db.<method>.emissions`.
+ */
+class TracedAnimalRecordDao(private val delegate: AnimalRecordDao) : AnimalRecordDao {
+
+    override fun getAllRecords(): Flow<List<AnimalRecord>> =
+        delegate.getAllRecords().tracedFirst("db.getAllRecords")
+
+    override fun searchRecords(query: SupportSQLiteQuery): Flow<List<AnimalRecord>> =
+        delegate.searchRecords(query).tracedFirst("db.searchRecords")
+
+    override suspend fun getRecordsPage(date: Date, id: Long, limit: Int): List<AnimalRecord> =
+        tracedSuspend("db.getRecordsPage") { delegate.getRecordsPage(date, id, limit) }
+
+    override suspend fun getRecordById(id: Long): AnimalRecord? =
+        tracedSuspend("db.getRecordById") { delegate.getRecordById(id) }
+
+    override suspend fun getRecordsByIds(ids: List<Long>): List<AnimalRecord> =
+        tracedSuspend("db.getRecordsByIds") { delegate.getRecordsByIds(ids) }
+
+    override suspend fun getRecordByAnimalId(animalId: String): AnimalRecord? =
+        tracedSuspend("db.getRecordByAnimalId") { delegate.getRecordByAnimalId(animalId) }
+
+    override suspend fun getRecordsByAnimalId(animalId: String): List<AnimalRecord> =
+        tracedSuspend("db.getRecordsByAnimalId") { delegate.getRecordsByAnimalId(animalId) }
+
+    override suspend fun insertRecord(record: AnimalRecord): Long =
+        tracedSuspend("db.insertRecord") { delegate.insertRecord(record) }
+
+    override suspend fun updateRecord(record: AnimalRecord) =
+        tracedSuspend("db.updateRecord") { delegate.updateRecord(record) }
+
+    override suspend fun deleteRecord(record: AnimalRecord) =
+        tracedSuspend("db.deleteRecord") { delegate.deleteRecord(record) }
+
+    override suspend fun deleteAllRecords() =
+        tracedSuspend("db.deleteAllRecords") { delegate.deleteAllRecords() }
+
+    override suspend fun getImagePaths(): List<String> =
+        tracedSuspend("db.getImagePaths") { delegate.getImagePaths() }
+
+    override suspend fun getUploadedRecordImages(): List<RecordImage> =
+        tracedSuspend("db.getUploadedRecordImages") { delegate.getUploadedRecordImages() }
+
+    override suspend fun replaceImagePath(id: Long, oldPath: String, newPath: String): Int =
+        tracedSuspend("db.replaceImagePath") { delegate.replaceImagePath(id, oldPath, newPath) }
+
+    override suspend fun getUnsyncedRecords(): List<AnimalRecord> =
+        tracedSuspend("db.getUnsyncedRecords") { delegate.getUnsyncedRecords() }
+
+    override suspend fun markAsSynced(id: Long) =
+        tracedSuspend("db.markAsSynced") { delegate.markAsSynced(id) }
+
+    private fun <T> Flow<T>.tracedFirst(name: String): Flow<T> = flow {
+        var span: TraceSpan? = TraceSpan.start(name)
+        try {
+            collect { value ->
+                span?.let {
+                    it.end()
+                    span = null
+                }
+                MetricsRegistry.increment("$name.emissions")
+                emit(value)
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Throwable) {
+            span?.fail()
+            throw e
+        } finally {
+            span?.cancel()
+        }
+    }
+}
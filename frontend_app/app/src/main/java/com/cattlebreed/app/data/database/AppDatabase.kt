@@ -4,35 +4,222 @@ import androidx.room.Database
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 import android.content.Context
 import com.cattlebreed.app.data.converter.Converters
 import com.cattlebreed.app.data.dao.AnimalRecordDao
+import com.cattlebreed.app.data.dao.OutboxDao
+import com.cattlebreed.app.data.dao.RecordSummaryDao
+import com.cattlebreed.app.data.dao.TracedAnimalRecordDao
 import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.entity.AnimalRecordFts
+import com.cattlebreed.app.data.entity.OutboxOperation
+import com.cattlebreed.app.data.entity.RecordSummary
 
 @Database(
-    entities = [AnimalRecord::class],
-    version = 1,
+    entities = [AnimalRecord::class, AnimalRecordFts::class, OutboxOperation::class, RecordSummary::class],
+    version = 6,
     exportSchema = false
 )
 @TypeConverters(Converters::class)
 abstract class AppDatabase : RoomDatabase() {
-    
+
     abstract fun animalRecordDao(): AnimalRecordDao
-    
+
+    private val tracedRecordDao by lazy { TracedAnimalRecordDao(animalRecordDao()) }
+
+    /**
+     * [animalRecordDao] with every call timed in MetricsRegistry; what the app itself uses
+     */
+    fun tracedAnimalRecordDao(): AnimalRecordDao = tracedRecordDao
+
+    abstract fun outboxDao(): OutboxDao
+
+    abstract fun recordSummaryDao(): RecordSummaryDao
+
     companion object {
         @Volatile
         private var INSTANCE: AppDatabase? = null
-        
+
+        /**
+         * Adds the sync outbox and seeds it with every record that was never synced
+         */
+        val MIGRATION_1_2 = object : Migration(1, 2) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `sync_outbox` (" +
+                        "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                        "`recordId` INTEGER NOT NULL, " +
+                        "`animalId` TEXT NOT NULL, " +
+                        "`operation` TEXT NOT NULL, " +
+                        "`createdAt` INTEGER NOT NULL, " +
+                        "`attempts` INTEGER NOT NULL, " +
+                        "`lastError` TEXT)"
+                )
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_sync_outbox_recordId` ON `sync_outbox` (`recordId`)")
+                db.execSQL(
+                    "INSERT INTO `sync_outbox` (`recordId`, `animalId`, `operation`, `createdAt`, `attempts`) " +
+                        "SELECT `id`, `animalId`, 'INSERT', `date`, 0 FROM `animal_records` WHERE `synced` = 0"
+                )
+            }
+        }
+
+        /**
+         * Adds breed and notes, the range-filter indices and the full-text
+         * index, with the same sync triggers Room creates for a fresh install
+         */
+        val MIGRATION_2_3 = object : Migration(2, 3) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE `animal_records` ADD COLUMN `breed` TEXT")
+                db.execSQL("ALTER TABLE `animal_records` ADD COLUMN `notes` TEXT")
+                for (column in listOf("date", "atcScore", "bodyLength", "height", "chestWidth")) {
+                    db.execSQL(
+                        "CREATE INDEX IF NOT EXISTS `index_animal_records_$column` ON `animal_records` (`$column`)"
+                    )
+                }
+
+                db.execSQL(
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS `animal_records_fts` USING FTS4(" +
+                        "`animalId` TEXT NOT NULL, `breed` TEXT, `notes` TEXT, content=`animal_records`)"
+                )
+                for (timing in listOf("BEFORE_UPDATE", "BEFORE_DELETE")) {
+                    db.execSQL(
+                        "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_animal_records_fts_$timing " +
+                            "${timing.replace('_', ' ')} ON `animal_records` BEGIN " +
+                            "DELETE FROM `animal_records_fts` WHERE `docid`=OLD.`rowid`; END"
+                    )
+                }
+                for (timing in listOf("AFTER_UPDATE", "AFTER_INSERT")) {
+                    db.execSQL(
+                        "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_animal_records_fts_$timing " +
+                            "${timing.replace('_', ' ')} ON `animal_records` BEGIN " +
+                            "INSERT INTO `animal_records_fts`(`docid`, `animalId`, `breed`, `notes`) " +
+                            "VALUES (NEW.`rowid`, NEW.`animalId`, NEW.`breed`, NEW.`notes`); END"
+                    )
+                }
+                // Index the records that already exist
+                db.execSQL("INSERT INTO `animal_records_fts`(`animal_records_fts`) VALUES('rebuild')")
+            }
+        }
+
+        /**
+         * Adds the summary row, seeded from the records already stored
+         */
+        val MIGRATION_3_4 = object : Migration(3, 4) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL(
+                    "CREATE TABLE IF NOT EXISTS `record_summary` (" +
+                        "`id` INTEGER NOT NULL, " +
+                        "`recordCount` INTEGER NOT NULL, " +
+                        "`atcScoreSum` INTEGER NOT NULL, " +
+                        "`atcScoreSumOfSquares` INTEGER NOT NULL, " +
+                        "`bodyLengthSum` REAL NOT NULL, " +
+                        "`bodyLengthSumOfSquares` REAL NOT NULL, " +
+                        "`heightSum` REAL NOT NULL, " +
+                        "`heightSumOfSquares` REAL NOT NULL, " +
+                        "`chestWidthSum` REAL NOT NULL, " +
+                        "`chestWidthSumOfSquares` REAL NOT NULL, " +
+                        "`excellentCount` INTEGER NOT NULL, " +
+                        "`goodCount` INTEGER NOT NULL, " +
+                        "`fairCount` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`id`))"
+                )
+                db.execSQL(
+                    "INSERT OR REPLACE INTO `record_summary` SELECT 0, COUNT(*), " +
+                        "TOTAL(atcScore), TOTAL(atcScore * atcScore), " +
+                        "TOTAL(bodyLength), TOTAL(bodyLength * bodyLength), " +
+                        "TOTAL(height), TOTAL(height * height), " +
+                        "TOTAL(chestWidth), TOTAL(chestWidth * chestWidth), " +
+                        "TOTAL(atcScore >= 85), TOTAL(atcScore >= 70 AND atcScore < 85), TOTAL(atcScore < 70) " +
+                        "FROM `animal_records`"
+                )
+                createSummaryTriggers(db)
+            }
+        }
+
+        /**
+         * Adds the edit time that sync sends as the record's version
+         */
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE `animal_records` ADD COLUMN `updatedAt` INTEGER NOT NULL DEFAULT 0")
+                // The capture time is the best guess for rows that were never edited since
+                db.execSQL("UPDATE `animal_records` SET `updatedAt` = `date`")
+            }
+        }
+
+        /**
+         * Adds the server copy of each photo; no existing photo has one yet
+         */
+        val MIGRATION_5_6 = object : Migration(5, 6) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE `animal_records` ADD COLUMN `imageUrl` TEXT")
+            }
+        }
+
+        /**
+         * Fresh installs get the tables from Room; the summary row and its
+         * triggers are added here
+         */
+        private val CREATE_CALLBACK = object : RoomDatabase.Callback() {
+            override fun onCreate(db: SupportSQLiteDatabase) {
+                db.execSQL("INSERT OR IGNORE INTO `record_summary` VALUES (0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0)")
+                createSummaryTriggers(db)
+            }
+        }
+
+        /**
+         * Moves each inserted, updated or deleted record in or out of the
+         * summary row within the same transaction as the change. Covers
+         * every writer, including sync and bulk deletes, with no repository hook.
+         */
+        private fun createSummaryTriggers(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS `record_summary_after_insert` AFTER INSERT ON `animal_records` BEGIN " +
+                    "UPDATE `record_summary` SET ${summaryDelta("+", "NEW")} WHERE id = 0; END"
+            )
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS `record_summary_after_delete` AFTER DELETE ON `animal_records` BEGIN " +
+                    "UPDATE `record_summary` SET ${summaryDelta("-", "OLD")} WHERE id = 0; END"
+            )
+            // An update is the old row out and the new row in; unrelated columns such as synced don't fire it
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS `record_summary_after_update` " +
+                    "AFTER UPDATE OF atcScore, bodyLength, height, chestWidth ON `animal_records` BEGIN " +
+                    "UPDATE `record_summary` SET ${summaryDelta("-", "OLD")} WHERE id = 0; " +
+                    "UPDATE `record_summary` SET ${summaryDelta("+", "NEW")} WHERE id = 0; END"
+            )
+        }
+
+        private fun summaryDelta(op: String, row: String) = listOf(
+            "recordCount = recordCount $op 1",
+            "atcScoreSum = atcScoreSum $op $row.atcScore",
+            "atcScoreSumOfSquares = atcScoreSumOfSquares $op $row.atcScore * $row.atcScore",
+            "bodyLengthSum = bodyLengthSum $op $row.bodyLength",
+            "bodyLengthSumOfSquares = bodyLengthSumOfSquares $op $row.bodyLength * $row.bodyLength",
+            "heightSum = heightSum $op $row.height",
+            "heightSumOfSquares = heightSumOfSquares $op $row.height * $row.height",
+            "chestWidthSum = chestWidthSum $op $row.chestWidth",
+            "chestWidthSumOfSquares = chestWidthSumOfSquares $op $row.chestWidth * $row.chestWidth",
+            "excellentCount = excellentCount $op ($row.atcScore >= 85)",
+            "goodCount = goodCount $op ($row.atcScore >= 70 AND $row.atcScore < 85)",
+            "fairCount = fairCount $op ($row.atcScore < 70)"
+        ).joinToString(", ")
+
         fun getDatabase(context: Context): AppDatabase {
+            // Checked again under the lock: startup warm-up and the first screen can race here
             return INSTANCE ?: synchronized(this) {
-                val instance = Room.databaseBuilder(
+                INSTANCE ?: Room.databaseBuilder(
                     context.applicationContext,
                     AppDatabase::class.java,
                     "cattle_breed_database"
-                ).build()
-                INSTANCE = instance
-                instance
+                )
+                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6)
+                    .addCallback(CREATE_CALLBACK)
+                    .build()
+                    .also { INSTANCE = it }
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,25 @@
 package com.cattlebreed.app.data.entity
 
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import java.util.Date
 
-@Entity(tableName = "animal_records")
+/**
+ * The single-column indices back the history sort and the range filters
+ * of [com.cattlebreed.app.data.dao.RecordSearch]; text search goes through
+ * [AnimalRecordFts].
+ */
+@Entity(
+    tableName = "animal_records",
+    indices = [
+        Index("date"),
+        Index("atcScore"),
+        Index("bodyLength"),
+        Index("height"),
+        Index("chestWidth")
+    ]
+)
 data class AnimalRecord(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
@@ -16,5 +31,11 @@ data class AnimalRecord(
     val chestWidth: Double,
     val rumpAngle: Double,
     val atcScore: Int,
-    val synced: Boolean = false
-)
\ No newline at end of file
+    val synced: Boolean = false,
+    val breed: String? = null,      // AI breed classification, once the server has one
+    val notes: String? = null,
+    // Time of the last edit, set by AnimalRepository; the server resolves conflicts on it
+    val updatedAt: Date = date,
+    // Server copy of the photo, set once its upload has completed
+    val imageUrl: String? = null
+)
@@ -0,0 +1,19 @@
+package com.cattlebreed.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Fts4
+
+/**
+ * Full-text index over the searchable text of [AnimalRecord].
+ *
+ * External content: the text lives only in animal_records, and Room's
+ * triggers keep this index in step with every insert, update and delete.
+ * The FTS docid is the record id.
+ */
+@Fts4(contentEntity = AnimalRecord::class)
+@Entity(tableName = "animal_records_fts")
+data class AnimalRecordFts(
+    val animalId: String,
+    val breed: String?,
+    val notes: String?
+)
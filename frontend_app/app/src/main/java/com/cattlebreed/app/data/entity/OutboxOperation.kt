@@ -0,0 +1,32 @@
+package com.cattlebreed.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import androidx.room.PrimaryKey
+import java.util.Date
+
+/**
+ * A local change that still has to be propagated to the server.
+ * Rows are appended in the same transaction as the change to [AnimalRecord]
+ * and removed once the server has acknowledged them.
+ */
+@Entity(
+    tableName = "sync_outbox",
+    indices = [Index("recordId")]
+)
+data class OutboxOperation(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val recordId: Long,             // Local AnimalRecord id
+    val animalId: String,           // Server-side reference, survives deletion of the local row
+    val operation: OutboxOperationType,
+    val createdAt: Date = Date(),
+    val attempts: Int = 0,
+    val lastError: String? = null
+)
+
+enum class OutboxOperationType {
+    INSERT,
+    UPDATE,
+    DELETE
+}
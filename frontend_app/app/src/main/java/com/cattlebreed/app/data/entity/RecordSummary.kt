@@ -0,0 +1,51 @@
+package com.cattlebreed.app.data.entity
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import kotlin.math.sqrt
+
+/**
+ * Running totals over every row of animal_records, kept in a single row
+ * (id 0) by triggers on that table, so summaries read one row instead of
+ * scanning every record. See AppDatabase.createSummaryTriggers.
+ *
+ * Sums of squares give the spread. The ATC buckets match the history
+ * badges and the PDF report: 85+, 70-84 and below 70.
+ */
+@Entity(tableName = "record_summary")
+data class RecordSummary(
+    @PrimaryKey
+    val id: Int = SINGLETON_ID,
+    val recordCount: Long = 0,
+    val atcScoreSum: Long = 0,
+    val atcScoreSumOfSquares: Long = 0,
+    val bodyLengthSum: Double = 0.0,
+    val bodyLengthSumOfSquares: Double = 0.0,
+    val heightSum: Double = 0.0,
+    val heightSumOfSquares: Double = 0.0,
+    val chestWidthSum: Double = 0.0,
+    val chestWidthSumOfSquares: Double = 0.0,
+    val excellentCount: Long = 0,   // ATC 85+
+    val goodCount: Long = 0,        // ATC 70-84
+    val fairCount: Long = 0         // ATC below 70
+) {
+
+    companion object {
+        const val SINGLETON_ID = 0
+    }
+
+    val averageAtcScore: Double get() = mean(atcScoreSum.toDouble())
+    val atcScoreStdDev: Double get() = stdDev(atcScoreSum.toDouble(), atcScoreSumOfSquares.toDouble())
+    val averageBodyLength: Double get() = mean(bodyLengthSum)
+    val averageHeight: Double get() = mean(heightSum)
+    val averageChestWidth: Double get() = mean(chestWidthSum)
+
+    private fun mean(sum: Double) = if (recordCount == 0L) 0.0 else sum / recordCount
+
+    private fun stdDev(sum: Double, sumOfSquares: Double): Double {
+        if (recordCount == 0L) return 0.0
+        val mean = sum / recordCount
+        // Clamped: rounding can leave a tiny negative variance
+        return sqrt(maxOf(0.0, sumOfSquares / recordCount - mean * mean))
+    }
+}
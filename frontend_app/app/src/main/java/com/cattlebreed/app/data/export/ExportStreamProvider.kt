@@ -0,0 +1,186 @@
+package com.cattlebreed.app.data.export
+
+import android.content.ContentProvider
+import android.content.ContentResolver
+import android.content.ContentValues
+import android.content.Intent
+import android.database.Cursor
+import android.database.MatrixCursor
+import android.net.Uri
+import android.os.ParcelFileDescriptor
+import android.provider.OpenableColumns
+import android.util.Log
+import com.cattlebreed.app.CattleBreedApplication
+import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.repository.AnimalRepository
+import com.cattlebreed.app.metrics.traced
+import kotlinx.coroutines.runBlocking
+import java.io.BufferedOutputStream
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+enum class ExportFormat(val extension: String, val mimeType: String) {
+    JSON("json", "application/json"),
+    CSV("csv", "text/csv"),
+    PDF("pdf", "application/pdf");
+
+    companion object {
+        fun fromFileName(name: String): ExportFormat? =
+            values().firstOrNull { name.endsWith(".${it.extension}") }
+    }
+}
+
+/**
+ * Serves exports for sharing without writing them to disk first.
+ *
+ * Each read of a `content://com.cattlebreed.app.exports/cattle_records_<time>.<ext>`
+ * uri gets one end of a reliable pipe, and the export is generated into the
+ * other end as the receiving app reads. Records are paged from the
+ * database, so memory stays flat however many records there are.
+ *
+ * Only JSON and CSV are served. A PDF needs every record in memory
+ * (PdfDocument has no incremental writer), so it is saved and shared as a
+ * file instead. If generation fails part way, the writer closes its end
+ * with an error, but readers going through ContentResolver.openInputStream
+ * never check for it and just see the stream end: the shared file is
+ * truncated.
+ */
+class ExportStreamProvider : ContentProvider() {
+
+    companion object {
+        private const val TAG = "ExportStreamProvider"
+        const val AUTHORITY = "com.cattlebreed.app.exports"
+
+        // Records read from the database per query while streaming
+        private const val PAGE_SIZE = 200
+
+        // At most this many exports are generated at once; further reads queue
+        private val writers: ExecutorService by lazy { Executors.newFixedThreadPool(2) }
+
+        private fun canStream(format: ExportFormat): Boolean = format != ExportFormat.PDF
+
+        fun uriFor(format: ExportFormat): Uri {
+            val timestamp = SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(Date())
+            return Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(AUTHORITY)
+                .appendPath("cattle_records_$timestamp.${format.extension}")
+                .build()
+        }
+
+        /**
+         * A chooser that shares a freshly generated export of every record
+         */
+        fun shareIntent(format: ExportFormat): Intent {
+            val send = Intent(Intent.ACTION_SEND)
+                .setType(format.mimeType)
+                .putExtra(Intent.EXTRA_STREAM, uriFor(format))
+                .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+            return Intent.createChooser(send, null)
+        }
+    }
+
+    override fun onCreate(): Boolean = true
+
+    override fun getType(uri: Uri): String? = formatOf(uri)?.mimeType
+
+    /**
+     * Just what a receiving app asks for before reading: the name, and
+     * no size, since the content doesn't exist until it is read
+     */
+    override fun query(
+        uri: Uri,
+        projection: Array<out String>?,
+        selection: String?,
+        selectionArgs: Array<out String>?,
+        sortOrder: String?
+    ): Cursor {
+        val columns = projection ?: arrayOf(OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE)
+        val row = columns.map { column ->
+            when (column) {
+                OpenableColumns.DISPLAY_NAME -> uri.lastPathSegment
+                else -> null
+            }
+        }
+        return MatrixCursor(columns, 1).apply { addRow(row) }
+    }
+
+    override fun openFile(uri: Uri, mode: String): ParcelFileDescriptor {
+        if (mode != "r") {
+            throw FileNotFoundException("Exports are read-only: $uri")
+        }
+        val format = formatOf(uri)?.takeIf { canStream(it) } ?: throw FileNotFoundException("Unknown export: $uri")
+        val repository = application().container.animalRepository
+
+        val (readSide, writeSide) = ParcelFileDescriptor.createReliablePipe()
+        writers.execute { stream(format, repository, writeSide) }
+        return readSide
+    }
+
+    private fun stream(format: ExportFormat, repository: AnimalRepository, writeSide: ParcelFileDescriptor) {
+        try {
+            val out = BufferedOutputStream(FileOutputStream(writeSide.fileDescriptor))
+            traced("export.${format.extension}.stream") { write(format, repository, out) }
+            out.flush()
+            writeSide.close()
+        } catch (e: IOException) {
+            // Usually the reader closed its end early
+            Log.w(TAG, "Export stream for $format ended early: ${e.message}")
+            closeWithError(writeSide, e)
+        } catch (e: Exception) {
+            Log.e(TAG, "Export stream for $format failed", e)
+            closeWithError(writeSide, e)
+        }
+    }
+
+    private fun write(format: ExportFormat, repository: AnimalRepository, out: OutputStream) {
+        val container = application().container
+        when (format) {
+            ExportFormat.JSON -> container.fileUtils.writeRecordsJson(pages(repository), OutputStreamWriter(out, Charsets.UTF_8))
+            ExportFormat.CSV -> container.fileUtils.writeRecordsCsv(pages(repository), OutputStreamWriter(out, Charsets.UTF_8))
+            ExportFormat.PDF -> throw IllegalArgumentException("PDF exports are shared as saved files")
+        }
+    }
+
+    /**
+     * Every record, newest first, loaded [PAGE_SIZE] at a time as the writer asks for more
+     */
+    private fun pages(repository: AnimalRepository): Sequence<AnimalRecord> = sequence {
+        var last: AnimalRecord? = null
+        while (true) {
+            val page = runBlocking { repository.getRecordsPage(last, PAGE_SIZE) }
+            yieldAll(page)
+            if (page.size < PAGE_SIZE) break
+            last = page.last()
+        }
+    }
+
+    private fun closeWithError(writeSide: ParcelFileDescriptor, error: Exception) {
+        try {
+            writeSide.closeWithError(error.message ?: error.javaClass.simpleName)
+        } catch (ignored: IOException) {
+            // The reader is gone; nobody is left to tell
+        }
+    }
+
+    private fun formatOf(uri: Uri): ExportFormat? = uri.lastPathSegment?.let { ExportFormat.fromFileName(it) }
+
+    private fun application() = context!!.applicationContext as CattleBreedApplication
+
+    override fun insert(uri: Uri, values: ContentValues?): Uri? =
+        throw UnsupportedOperationException("Exports are read-only")
+
+    override fun update(uri: Uri, values: ContentValues?, selection: String?, selectionArgs: Array<out String>?): Int =
+        throw UnsupportedOperationException("Exports are read-only")
+
+    override fun delete(uri: Uri, selection: String?, selectionArgs: Array<out String>?): Int =
+        throw UnsupportedOperationException("Exports are read-only")
+}
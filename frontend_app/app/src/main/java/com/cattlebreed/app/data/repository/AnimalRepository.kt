@@ -1,26 +1,94 @@
 package com.cattlebreed.app.data.repository
 
-import com.cattlebreed.app.data.dao.AnimalRecordDao
+import androidx.room.withTransaction
+import com.cattlebreed.app.data.dao.RecordSearch
+import com.cattlebreed.app.data.database.AppDatabase
 import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.entity.OutboxOperation
+import com.cattlebreed.app.data.entity.OutboxOperationType
+import com.cattlebreed.app.data.entity.RecordSummary
+import com.cattlebreed.app.data.storage.StorageManager
+import com.cattlebreed.app.data.sync.SyncScheduler
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import java.util.Date
 
+/**
+ * Every mutating call appends to the sync outbox in the same transaction as
+ * the record change, so no local edit can be lost before it is propagated.
+ */
 class AnimalRepository(
-    private val animalRecordDao: AnimalRecordDao
+    private val database: AppDatabase,
+    private val syncScheduler: SyncScheduler = SyncScheduler.NONE,
+    private val storageManager: StorageManager? = null
 ) {
     
+    private val animalRecordDao = database.tracedAnimalRecordDao()
+    private val outboxDao = database.outboxDao()
+    private val summaryDao = database.recordSummaryDao()
+    
     fun getAllRecords(): Flow<List<AnimalRecord>> = animalRecordDao.getAllRecords()
     
+    fun searchRecords(search: RecordSearch): Flow<List<AnimalRecord>> =
+        animalRecordDao.searchRecords(search.toQuery())
+    
+    /**
+     * The page after [after] (or the first page), newest first like [getAllRecords]
+     */
+    suspend fun getRecordsPage(after: AnimalRecord?, limit: Int): List<AnimalRecord> =
+        animalRecordDao.getRecordsPage(after?.date ?: Date(Long.MAX_VALUE), after?.id ?: Long.MAX_VALUE, limit)
+    
     suspend fun getRecordById(id: Long): AnimalRecord? = animalRecordDao.getRecordById(id)
     
-    suspend fun insertRecord(record: AnimalRecord): Long = animalRecordDao.insertRecord(record)
+    /**
+     * Totals over all records, read from the trigger-maintained summary row
+     */
+    fun observeSummary(): Flow<RecordSummary> = summaryDao.observeSummary().map { it ?: RecordSummary() }
+    
+    suspend fun getSummary(): RecordSummary = summaryDao.getSummary() ?: RecordSummary()
     
-    suspend fun updateRecord(record: AnimalRecord) = animalRecordDao.updateRecord(record)
+    fun observePendingSyncCount(): Flow<Int> = outboxDao.observePendingCount()
     
-    suspend fun deleteRecord(record: AnimalRecord) = animalRecordDao.deleteRecord(record)
+    suspend fun insertRecord(record: AnimalRecord): Long {
+        val id = database.withTransaction {
+            val id = animalRecordDao.insertRecord(record.copy(synced = false, updatedAt = Date()))
+            outboxDao.enqueue(outboxOperation(id, record.animalId, OutboxOperationType.INSERT))
+            id
+        }
+        syncScheduler.requestSync()
+        return id
+    }
     
-    suspend fun deleteAllRecords() = animalRecordDao.deleteAllRecords()
+    suspend fun updateRecord(record: AnimalRecord) {
+        database.withTransaction {
+            animalRecordDao.updateRecord(record.copy(synced = false, updatedAt = Date()))
+            outboxDao.enqueue(outboxOperation(record.id, record.animalId, OutboxOperationType.UPDATE))
+        }
+        syncScheduler.requestSync()
+    }
+    
+    suspend fun deleteRecord(record: AnimalRecord) {
+        database.withTransaction {
+            animalRecordDao.deleteRecord(record)
+            outboxDao.enqueue(outboxOperation(record.id, record.animalId, OutboxOperationType.DELETE))
+        }
+        // Only once the row is gone; photos of a bulk delete are left to the daily orphan sweep
+        storageManager?.releaseFiles(record)
+        syncScheduler.requestSync()
+    }
+    
+    suspend fun deleteAllRecords() {
+        database.withTransaction {
+            outboxDao.enqueueDeleteForAllRecords(Date())
+            animalRecordDao.deleteAllRecords()
+        }
+        syncScheduler.requestSync()
+    }
     
     suspend fun getUnsyncedRecords(): List<AnimalRecord> = animalRecordDao.getUnsyncedRecords()
     
     suspend fun markAsSynced(id: Long) = animalRecordDao.markAsSynced(id)
-}
\ No newline at end of file
+    
+    private fun outboxOperation(recordId: Long, animalId: String, type: OutboxOperationType) =
+        OutboxOperation(recordId = recordId, animalId = animalId, operation = type)
+}
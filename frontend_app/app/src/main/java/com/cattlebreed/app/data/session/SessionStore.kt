@@ -0,0 +1,151 @@
+package com.cattlebreed.app.data.session
+
+import android.content.Context
+import androidx.datastore.core.CorruptionException
+import androidx.datastore.core.DataStore
+import androidx.datastore.core.Serializer
+import androidx.datastore.core.handlers.ReplaceFileCorruptionHandler
+import androidx.datastore.dataStore
+import androidx.datastore.migrations.SharedPreferencesMigration
+import com.google.protobuf.InvalidProtocolBufferException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * Who is using the app: the signed-in farmer or guest mode, and the
+ * languages they picked. Backed by a Proto DataStore (session.proto).
+ *
+ * The file is read once, on DataStore's IO dispatcher, into [session];
+ * after that every read is an in-memory lookup. Writes go through
+ * [update], which is a suspending transactional write, so nothing touches
+ * disk on the main thread and there is no apply() queue to flush on pause.
+ */
+class SessionStore private constructor(private val dataStore: DataStore<StoredSession>) {
+
+    companion object {
+        const val DEFAULT_LANGUAGE = "en"
+
+        // The SharedPreferences file and keys the session used to live in
+        private const val LEGACY_PREFS_NAME = "cattle_breed_prefs"
+        private const val LEGACY_PHONE = "current_user_phone"
+        private const val LEGACY_TOKEN = "auth_token"
+        private const val LEGACY_GUEST = "is_guest_mode"
+        private const val LEGACY_PREFERRED_LANGUAGE = "preferred_language"
+        private const val LEGACY_SELECTED_LANGUAGE = "selected_language"
+
+        private val Context.sessionDataStore: DataStore<StoredSession> by dataStore(
+            fileName = "session.pb",
+            serializer = StoredSessionSerializer,
+            // An unreadable file signs the user out instead of crashing every launch
+            corruptionHandler = ReplaceFileCorruptionHandler { StoredSession.getDefaultInstance() },
+            produceMigrations = { context -> listOf(legacyPreferencesMigration(context)) }
+        )
+
+        @Volatile
+        private var INSTANCE: SessionStore? = null
+
+        fun getInstance(context: Context): SessionStore {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: SessionStore(context.applicationContext.sessionDataStore)
+                    .also { INSTANCE = it }
+            }
+        }
+
+        /**
+         * Copies the old session keys over on first read, then removes them
+         * from the SharedPreferences file (and the file, once it is empty)
+         */
+        private fun legacyPreferencesMigration(context: Context) = SharedPreferencesMigration<StoredSession>(
+            context = context,
+            sharedPreferencesName = LEGACY_PREFS_NAME,
+            keysToMigrate = setOf(
+                LEGACY_PHONE,
+                LEGACY_TOKEN,
+                LEGACY_GUEST,
+                LEGACY_PREFERRED_LANGUAGE,
+                LEGACY_SELECTED_LANGUAGE
+            )
+        ) { prefs, stored ->
+            stored.toBuilder()
+                .setPhoneNumber(prefs.getString(LEGACY_PHONE, "") ?: "")
+                .setAuthToken(prefs.getString(LEGACY_TOKEN, "") ?: "")
+                .setGuestMode(prefs.getBoolean(LEGACY_GUEST, false))
+                .setPreferredLanguage(prefs.getString(LEGACY_PREFERRED_LANGUAGE, "") ?: "")
+                .setSelectedLanguage(prefs.getString(LEGACY_SELECTED_LANGUAGE, "") ?: "")
+                .build()
+        }
+    }
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    /**
+     * Latest session; null only until the file has been read the first time
+     */
+    val session: StateFlow<Session?> = dataStore.data
+        .map { it.toSession() }
+        .stateIn(scope, SharingStarted.Eagerly, null)
+
+    /**
+     * The session, waiting for the first read if it has not finished yet
+     */
+    suspend fun current(): Session = session.value ?: session.filterNotNull().first()
+
+    /**
+     * For callers already off the main thread that can't suspend, such as
+     * OkHttp interceptors. Only blocks before the first read has finished.
+     */
+    fun currentBlocking(): Session = session.value ?: runBlocking { current() }
+
+    suspend fun update(transform: StoredSession.Builder.() -> Unit) {
+        dataStore.updateData { it.toBuilder().apply(transform).build() }
+    }
+
+    /**
+     * [update] for non-suspending callers; the write completes in the background
+     */
+    fun updateAsync(transform: StoredSession.Builder.() -> Unit) {
+        scope.launch { update(transform) }
+    }
+
+    private fun StoredSession.toSession() = Session(
+        phoneNumber = phoneNumber.ifEmpty { null },
+        authToken = authToken.ifEmpty { null },
+        isGuest = guestMode,
+        preferredLanguage = preferredLanguage.ifEmpty { DEFAULT_LANGUAGE },
+        selectedLanguage = selectedLanguage.ifEmpty { DEFAULT_LANGUAGE }
+    )
+}
+
+data class Session(
+    val phoneNumber: String?,
+    val authToken: String?,
+    val isGuest: Boolean,
+    val preferredLanguage: String,
+    val selectedLanguage: String
+)
+
+private object StoredSessionSerializer : Serializer<StoredSession> {
+
+    override val defaultValue: StoredSession = StoredSession.getDefaultInstance()
+
+    override suspend fun readFrom(input: InputStream): StoredSession {
+        try {
+            return StoredSession.parseFrom(input)
+        } catch (e: InvalidProtocolBufferException) {
+            throw CorruptionException("Cannot read session", e)
+        }
+    }
+
+    override suspend fun writeTo(t: StoredSession, output: OutputStream) = t.writeTo(output)
+}
@@ -0,0 +1,70 @@
+package com.cattlebreed.app.data.storage
+
+import android.content.Context
+import android.util.Log
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import com.cattlebreed.app.data.database.AppDatabase
+import java.util.concurrent.TimeUnit
+
+/**
+ * Runs [StorageManager.runMaintenance] once a day while the device is idle
+ * and the battery is not low. The report is logged and returned as the
+ * work's output data.
+ */
+class StorageMaintenanceWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val TAG = "StorageMaintenance"
+        private const val PERIODIC_WORK_NAME = "storage_maintenance"
+
+        const val KEY_BYTES_RECLAIMED = "bytes_reclaimed"
+        const val KEY_ORPHANS_DELETED = "orphans_deleted"
+        const val KEY_ORIGINALS_SHRUNK = "originals_shrunk"
+        const val KEY_EXPORTS_PRUNED = "exports_pruned"
+        const val KEY_IMAGE_BYTES = "image_bytes"
+
+        fun schedulePeriodic(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .setRequiresDeviceIdle(true)
+                .build()
+            val request = PeriodicWorkRequestBuilder<StorageMaintenanceWorker>(1, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(PERIODIC_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request)
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        val storageManager = StorageManager(
+            applicationContext,
+            AppDatabase.getDatabase(applicationContext).tracedAnimalRecordDao()
+        )
+        val report = storageManager.runMaintenance()
+        Log.i(
+            TAG,
+            "Reclaimed ${report.bytesReclaimed} bytes: ${report.orphansDeleted} orphans, " +
+                "${report.originalsShrunk} originals shrunk, ${report.exportsPruned} old exports; " +
+                "photos now ${report.imageBytesAfter} bytes"
+        )
+        return Result.success(
+            workDataOf(
+                KEY_BYTES_RECLAIMED to report.bytesReclaimed,
+                KEY_ORPHANS_DELETED to report.orphansDeleted,
+                KEY_ORIGINALS_SHRUNK to report.originalsShrunk,
+                KEY_EXPORTS_PRUNED to report.exportsPruned,
+                KEY_IMAGE_BYTES to report.imageBytesAfter
+            )
+        )
+    }
+}
@@ -0,0 +1,203 @@
+package com.cattlebreed.app.data.storage
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.os.Environment
+import android.util.Log
+import com.cattlebreed.app.data.dao.AnimalRecordDao
+import com.cattlebreed.app.data.entity.AnimalRecord
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.io.FileOutputStream
+import java.util.concurrent.TimeUnit
+
+/**
+ * Limits for [StorageManager]
+ */
+data class StoragePolicy(
+    // Photos (originals and thumbnails) above this are shrunk, oldest uploaded record first
+    val imageQuotaBytes: Long = 512L * 1024 * 1024,
+    // Off until the app uploads photos: without a server copy, the original is the only one
+    val shrinkUploadedOriginals: Boolean = false,
+    val exportMaxAgeMillis: Long = TimeUnit.DAYS.toMillis(14),
+    // A photo is written before its record; younger unreferenced files may still be claimed
+    val orphanGraceMillis: Long = TimeUnit.HOURS.toMillis(1),
+    val thumbnailMaxSide: Int = 320
+)
+
+/**
+ * What one [StorageManager.runMaintenance] pass freed
+ */
+data class StorageReport(
+    val orphansDeleted: Int = 0,
+    val orphanBytes: Long = 0,
+    val originalsShrunk: Int = 0,
+    val shrunkBytes: Long = 0,
+    val exportsPruned: Int = 0,
+    val exportBytes: Long = 0,
+    val imageBytesAfter: Long = 0
+) {
+    val bytesReclaimed: Long get() = orphanBytes + shrunkBytes + exportBytes
+}
+
+/**
+ * Owns the app's files on disk: captured photos in filesDir/images and
+ * exports in filesDir/exports and the external cattle_exports directory.
+ *
+ * A photo belongs to the record whose imagePath points at it; anything
+ * under images/ that no record points at is an orphan. When photos exceed
+ * the quota, and [StoragePolicy.shrinkUploadedOriginals] is on, originals
+ * whose upload has completed (imageUrl set) are replaced by a small
+ * thumbnail in images/thumbs, so history and reports keep a picture. A
+ * photo without a server copy is never shrunk.
+ */
+class StorageManager(
+    context: Context,
+    private val animalRecordDao: AnimalRecordDao,
+    private val policy: StoragePolicy = StoragePolicy(),
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    companion object {
+        private const val TAG = "StorageManager"
+        private const val THUMBNAIL_QUALITY = 80
+    }
+
+    private val appContext = context.applicationContext
+    private val imageDir = File(appContext.filesDir, "images")
+    private val thumbnailDir = File(imageDir, "thumbs")
+
+    private val exportDirs: List<File>
+        get() = listOfNotNull(
+            File(appContext.filesDir, "exports"),
+            appContext.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS)?.let { File(it, "cattle_exports") }
+        )
+
+    /**
+     * Deletes the photo of a record that has just been deleted
+     */
+    suspend fun releaseFiles(record: AnimalRecord) = withContext(Dispatchers.IO) {
+        ownedFile(record.imagePath)?.delete()
+        Unit
+    }
+
+    suspend fun runMaintenance(): StorageReport = withContext(Dispatchers.IO) {
+        var report = deleteOrphans(StorageReport())
+        report = enforceQuota(report)
+        report = pruneExports(report)
+        report.copy(imageBytesAfter = imageBytes())
+    }
+
+    private suspend fun deleteOrphans(report: StorageReport): StorageReport {
+        val referenced = animalRecordDao.getImagePaths().mapNotNullTo(HashSet()) { ownedFile(it)?.canonicalPath }
+        val cutoff = clock() - policy.orphanGraceMillis
+        var deleted = 0
+        var bytes = 0L
+        imageFiles().forEach { file ->
+            if (file.lastModified() < cutoff && file.canonicalPath !in referenced) {
+                val length = file.length()
+                if (file.delete()) {
+                    deleted++
+                    bytes += length
+                }
+            }
+        }
+        return report.copy(orphansDeleted = deleted, orphanBytes = bytes)
+    }
+
+    private suspend fun enforceQuota(report: StorageReport): StorageReport {
+        var total = imageBytes()
+        if (total <= policy.imageQuotaBytes) {
+            return report
+        }
+        if (!policy.shrinkUploadedOriginals) {
+            Log.w(TAG, "Photos use $total bytes, over the ${policy.imageQuotaBytes} byte quota; shrinking is off")
+            return report
+        }
+        var shrunk = 0
+        var bytes = 0L
+        for (image in animalRecordDao.getUploadedRecordImages()) {
+            if (total <= policy.imageQuotaBytes) break
+            val original = ownedFile(image.imagePath) ?: continue
+            if (original.parentFile == thumbnailDir || !original.exists()) continue
+
+            val thumbnail = File(thumbnailDir, "${image.id}.jpg")
+            if (!writeThumbnail(original, thumbnail)) continue
+            // Repoint first: if the record changed meanwhile, its original is left alone
+            if (animalRecordDao.replaceImagePath(image.id, image.imagePath, thumbnail.absolutePath) == 0) {
+                thumbnail.delete()
+                continue
+            }
+            val freed = original.length() - thumbnail.length()
+            original.delete()
+            total -= freed
+            bytes += freed
+            shrunk++
+        }
+        if (total > policy.imageQuotaBytes) {
+            Log.w(TAG, "Photos still use $total bytes after shrinking every uploaded original")
+        }
+        return report.copy(originalsShrunk = shrunk, shrunkBytes = bytes)
+    }
+
+    private fun pruneExports(report: StorageReport): StorageReport {
+        val cutoff = clock() - policy.exportMaxAgeMillis
+        var pruned = 0
+        var bytes = 0L
+        exportDirs.forEach { dir ->
+            dir.listFiles()?.forEach { file ->
+                if (file.isFile && file.lastModified() < cutoff) {
+                    val length = file.length()
+                    if (file.delete()) {
+                        pruned++
+                        bytes += length
+                    }
+                }
+            }
+        }
+        return report.copy(exportsPruned = pruned, exportBytes = bytes)
+    }
+
+    /**
+     * Downsamples while decoding, so a 12 MP photo never sits in memory at full size
+     */
+    private fun writeThumbnail(original: File, thumbnail: File): Boolean {
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        BitmapFactory.decodeFile(original.path, bounds)
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            return false
+        }
+        var sampleSize = 1
+        while (maxOf(bounds.outWidth, bounds.outHeight) / (sampleSize * 2) >= policy.thumbnailMaxSide) {
+            sampleSize *= 2
+        }
+        val bitmap = BitmapFactory.decodeFile(
+            original.path,
+            BitmapFactory.Options().apply { inSampleSize = sampleSize }
+        ) ?: return false
+        return try {
+            thumbnailDir.mkdirs()
+            FileOutputStream(thumbnail).use { out ->
+                bitmap.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, out)
+            }
+        } finally {
+            bitmap.recycle()
+        }
+    }
+
+    /**
+     * The file at [path] if it lives in our image directory; records
+     * pulled from the server can carry another device's path
+     */
+    private fun ownedFile(path: String): File? {
+        if (path.isBlank()) return null
+        val file = File(path)
+        return if (file.canonicalPath.startsWith(imageDir.canonicalPath + File.separator)) file else null
+    }
+
+    private fun imageFiles(): Sequence<File> = imageDir.walkTopDown().filter { it.isFile }
+
+    private fun imageBytes(): Long = imageFiles().sumOf { it.length() }
+}
@@ -0,0 +1,220 @@
+package com.cattlebreed.app.data.sync
+
+import android.content.SharedPreferences
+import androidx.room.withTransaction
+import com.cattlebreed.app.data.database.AppDatabase
+import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.entity.OutboxOperation
+import com.cattlebreed.app.data.entity.OutboxOperationType
+import com.cattlebreed.app.data.session.SessionStore
+import com.cattlebreed.app.network.AnimalRecordDtoMapper
+import com.cattlebreed.app.network.ApiException
+import com.cattlebreed.app.network.CattleApi
+import com.cattlebreed.app.network.ConflictType
+import com.cattlebreed.app.network.SyncAnimalRecordsRequest
+import com.cattlebreed.app.network.SyncData
+import kotlinx.coroutines.CancellationException
+import java.io.IOException
+
+/**
+ * Pushes the sync outbox to the server in batches, and pulls the server's
+ * changes with every batch until the device has caught up.
+ *
+ * Operations are read in insertion order and coalesced per record before
+ * sending, so a record created and edited many times while offline costs
+ * one upsert, and a record created and deleted offline costs nothing.
+ */
+class OutboxDrainer(
+    private val database: AppDatabase,
+    private val api: CattleApi,
+    private val sessionStore: SessionStore,
+    private val syncStatePreferences: SharedPreferences,
+    private val syncMetrics: SyncMetrics
+) {
+
+    companion object {
+        const val SYNC_STATE_PREFS = "cattle_sync_state"
+        private const val PREF_LAST_SYNC_TIMESTAMP = "last_sync_timestamp"
+
+        // Keeps the id list well below SQLite's bound parameter limit
+        private const val BATCH_SIZE = 200
+    }
+
+    private val animalRecordDao = database.tracedAnimalRecordDao()
+    private val outboxDao = database.outboxDao()
+
+    suspend fun drain(): DrainResult {
+        val userId = sessionStore.current().phoneNumber
+            ?: return DrainResult.NotSignedIn
+        val mapper = AnimalRecordDtoMapper(userId)
+
+        var operations = 0
+        var batches = 0
+        while (true) {
+            val tracer = SyncBatchTracer()
+            var pending = emptyList<OutboxOperation>()
+            try {
+                pending = tracer.phase(SyncPhase.QUERY) { outboxDao.getPending(BATCH_SIZE) }
+                val batch = tracer.phase(SyncPhase.QUERY) { coalesce(pending) }
+                tracer.operations = pending.size
+                tracer.records = batch.upserts.size
+                tracer.deletes = batch.deletedAnimalIds.size
+
+                // Sent even when there is nothing to push, to pull changes made on other devices
+                val request = tracer.phase(SyncPhase.MAP) {
+                    SyncAnimalRecordsRequest(
+                        records = batch.upserts.map { mapper.toDto(it) },
+                        lastSyncTimestamp = lastSyncTimestamp(),
+                        deletedRecordIds = batch.deletedAnimalIds
+                    )
+                }
+                val body = tracer.phase(SyncPhase.ENCODE) { api.encodeSyncRequest(request) }
+                tracer.requestJsonBytes = body.size.toLong()
+
+                val wire = tracer.phase(SyncPhase.NETWORK) { api.syncRecords(body) }.getOrThrow()
+                tracer.requestBytes = wire.requestBytes
+                tracer.responseBytes = wire.responseBytes
+                tracer.responseJsonBytes = wire.body.toByteArray(Charsets.UTF_8).size.toLong()
+                val response = tracer.phase(SyncPhase.DECODE) { api.decodeSyncResponse(wire.body) }
+                if (!response.success) {
+                    throw IllegalStateException(response.message)
+                }
+                tracer.phase(SyncPhase.APPLY) { applyServerChanges(response.data, mapper) }
+
+                if (pending.isNotEmpty()) {
+                    tracer.phase(SyncPhase.COMMIT) { commit(pending, batch) }
+                }
+                syncMetrics.record(tracer.finish())
+                operations += pending.size
+                batches++
+
+                // A full outbox page or a full page of server changes means there is more to do
+                if (pending.size < BATCH_SIZE && response.data?.hasMore != true) {
+                    return DrainResult.Drained(operations, batches)
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                syncMetrics.record(tracer.finish(e))
+                if (pending.isNotEmpty()) {
+                    runCatching { outboxDao.recordFailure(pending.map { it.id }, e.message) }
+                }
+                return DrainResult.Failed(e)
+            }
+        }
+    }
+
+    /**
+     * Collapses the operations of each record into at most one upsert or delete
+     */
+    private suspend fun coalesce(pending: List<OutboxOperation>): OutboxBatch {
+        val upsertIds = mutableListOf<Long>()
+        val deletedAnimalIds = mutableListOf<String>()
+
+        pending.groupBy { it.recordId }.forEach { (recordId, operations) ->
+            val first = operations.first().operation
+            val last = operations.last().operation
+            when {
+                // Never reached the server, nothing to propagate
+                first == OutboxOperationType.INSERT && last == OutboxOperationType.DELETE -> Unit
+                last == OutboxOperationType.DELETE -> deletedAnimalIds += operations.last().animalId
+                else -> upsertIds += recordId
+            }
+        }
+
+        // Rows deleted after this batch was read are skipped; their DELETE follows in a later batch
+        val upserts = if (upsertIds.isEmpty()) emptyList() else animalRecordDao.getRecordsByIds(upsertIds)
+        return OutboxBatch(upserts, deletedAnimalIds)
+    }
+
+    /**
+     * Acknowledges the sent operations. Records edited again while the batch
+     * was in flight keep their new outbox entries and stay unsynced.
+     */
+    private suspend fun commit(pending: List<OutboxOperation>, batch: OutboxBatch) {
+        database.withTransaction {
+            outboxDao.deleteByIds(pending.map { it.id })
+            batch.upserts.forEach { record ->
+                if (outboxDao.countForRecord(record.id) == 0) {
+                    animalRecordDao.markAsSynced(record.id)
+                }
+            }
+        }
+    }
+
+    private suspend fun applyServerChanges(data: SyncData?, mapper: AnimalRecordDtoMapper) {
+        data ?: return
+        database.withTransaction {
+            // Only rows the server knew: a new capture reusing the animal id is still in the outbox
+            data.deletedRecords.forEach { animalId ->
+                animalRecordDao.getRecordsByAnimalId(animalId)
+                    .filter { it.synced && outboxDao.countForRecord(it.id) == 0 }
+                    .forEach { animalRecordDao.deleteRecord(it) }
+            }
+
+            // Conflicts are resolved by the server, so its version wins. They name the row that was
+            // sent by its local id, since an animal id can be reused once its record is deleted.
+            data.conflicts.forEach { conflict ->
+                val existing = conflict.localRecord.localId?.let { animalRecordDao.getRecordById(it) }
+                    ?: return@forEach
+                if (conflict.conflictType == ConflictType.DELETED_ON_SERVER) {
+                    val deletedAt = mapper.parseDate(conflict.serverRecord.updatedAt)
+                    // Edited again after the delete: kept, and its pending edit revives it on the server
+                    if (deletedAt != null && existing.updatedAt.after(deletedAt)) return@forEach
+                    animalRecordDao.deleteRecord(existing)
+                } else {
+                    upsertServerRecord(mapper.toEntity(conflict.serverRecord, existing), existing)
+                }
+                outboxDao.deleteForRecord(existing.id)
+            }
+
+            data.serverRecords.forEach { dto ->
+                val existing = animalRecordDao.getRecordByAnimalId(dto.animalId)
+                // Local edits still waiting in the outbox win until they are pushed
+                if (existing == null || outboxDao.countForRecord(existing.id) == 0) {
+                    upsertServerRecord(mapper.toEntity(dto, existing), existing)
+                }
+            }
+        }
+        syncStatePreferences.edit()
+            .putLong(PREF_LAST_SYNC_TIMESTAMP, data.lastSyncTimestamp)
+            .apply()
+    }
+
+    private suspend fun upsertServerRecord(record: AnimalRecord, existing: AnimalRecord?) {
+        if (existing == null) {
+            animalRecordDao.insertRecord(record)
+        } else {
+            animalRecordDao.updateRecord(record)
+        }
+    }
+
+    private fun lastSyncTimestamp(): Long? {
+        return if (syncStatePreferences.contains(PREF_LAST_SYNC_TIMESTAMP)) {
+            syncStatePreferences.getLong(PREF_LAST_SYNC_TIMESTAMP, 0L)
+        } else null
+    }
+
+    private data class OutboxBatch(
+        val upserts: List<AnimalRecord>,
+        val deletedAnimalIds: List<String>
+    )
+}
+
+sealed class DrainResult {
+    data class Drained(val operations: Int, val batches: Int) : DrainResult()
+    object NotSignedIn : DrainResult()
+    data class Failed(val error: Throwable) : DrainResult() {
+        /**
+         * Whether running the same batch again can succeed: I/O errors and
+         * server-side responses (5xx, 408, 429) pass on their own, but any
+         * other 4xx or an unreadable response fails the same way every time
+         */
+        val retryable: Boolean
+            get() = when (error) {
+                is ApiException -> error.code >= 500 || error.code == 408 || error.code == 429
+                is IOException -> true
+                else -> false
+            }
+    }
+}
@@ -0,0 +1,95 @@
+package com.cattlebreed.app.data.sync
+
+import android.content.Context
+import android.util.Log
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.CoroutineWorker
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.WorkerParameters
+import com.cattlebreed.app.data.database.AppDatabase
+import com.cattlebreed.app.data.session.SessionStore
+import com.cattlebreed.app.network.CattleApi
+import java.util.concurrent.TimeUnit
+
+/**
+ * Drains the sync outbox whenever the device is online.
+ * WorkManager persists the request, so pending changes survive process
+ * death and reboots and go out on the first connection after days offline.
+ */
+class OutboxSyncWorker(
+    context: Context,
+    params: WorkerParameters
+) : CoroutineWorker(context, params) {
+
+    companion object {
+        private const val TAG = "OutboxSyncWorker"
+        private const val ONE_TIME_WORK_NAME = "outbox_sync"
+        private const val PERIODIC_WORK_NAME = "outbox_sync_periodic"
+
+        // Lets a burst of edits settle into one batch
+        private const val SETTLE_DELAY_SECONDS = 5L
+
+        private val networkConstraints = Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build()
+
+        fun enqueue(context: Context) {
+            val request = OneTimeWorkRequestBuilder<OutboxSyncWorker>()
+                .setConstraints(networkConstraints)
+                .setInitialDelay(SETTLE_DELAY_SECONDS, TimeUnit.SECONDS)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .build()
+            // KEEP folds writes made while a run is already queued into that run
+            WorkManager.getInstance(context)
+                .enqueueUniqueWork(ONE_TIME_WORK_NAME, ExistingWorkPolicy.KEEP, request)
+        }
+
+        /**
+         * Safety net for writes that raced with a finishing run
+         */
+        fun schedulePeriodic(context: Context) {
+            val request = PeriodicWorkRequestBuilder<OutboxSyncWorker>(6, TimeUnit.HOURS)
+                .setConstraints(networkConstraints)
+                .build()
+            WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(PERIODIC_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request)
+        }
+
+        fun scheduler(context: Context): SyncScheduler {
+            val appContext = context.applicationContext
+            return SyncScheduler { enqueue(appContext) }
+        }
+    }
+
+    override suspend fun doWork(): Result {
+        val drainer = OutboxDrainer(
+            database = AppDatabase.getDatabase(applicationContext),
+            api = CattleApi(applicationContext),
+            sessionStore = SessionStore.getInstance(applicationContext),
+            syncStatePreferences = applicationContext.getSharedPreferences(OutboxDrainer.SYNC_STATE_PREFS, Context.MODE_PRIVATE),
+            syncMetrics = SyncMetrics.getInstance(applicationContext)
+        )
+
+        return when (val result = drainer.drain()) {
+            is DrainResult.Drained -> {
+                Log.d(TAG, "Synced ${result.operations} operations in ${result.batches} batches")
+                Result.success()
+            }
+            DrainResult.NotSignedIn -> Result.success()
+            is DrainResult.Failed -> if (result.retryable) {
+                Log.w(TAG, "Outbox sync failed, will retry", result.error)
+                Result.retry()
+            } else {
+                // The batch keeps its lastError; the next edit or the periodic run tries it again
+                Log.e(TAG, "Outbox sync rejected, not retrying", result.error)
+                Result.failure()
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.cattlebreed.app.data.sync
+
+import android.content.Context
+import android.database.SQLException
+import android.os.Build
+import android.util.Log
+import com.cattlebreed.app.network.AlertType
+import com.cattlebreed.app.network.ApiException
+import com.google.gson.GsonBuilder
+import com.google.gson.JsonParseException
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.net.ConnectException
+import java.net.SocketTimeoutException
+import java.net.UnknownHostException
+import java.util.Date
+
+/**
+ * Phases of one sync batch, in execution order
+ */
+enum class SyncPhase {
+    QUERY,      // Outbox read and record load
+    MAP,        // Entity -> DTO mapping
+    ENCODE,     // JSON encoding
+    NETWORK,    // Request/response round trip, up to the last body byte
+    DECODE,     // JSON decoding of the response
+    APPLY,      // Applying server changes locally
+    COMMIT      // Outbox acknowledgement and markAsSynced
+}
+
+/**
+ * Why a sync batch failed, mapped onto the admin panel's [AlertType]
+ */
+enum class SyncFailure(val alertType: AlertType) {
+    NETWORK_UNREACHABLE(AlertType.API_FAILURE),
+    TIMEOUT(AlertType.API_FAILURE),
+    SERVER_ERROR(AlertType.API_FAILURE),
+    REJECTED(AlertType.API_FAILURE),
+    RATE_LIMITED(AlertType.HIGH_LOAD),
+    UNAUTHORIZED(AlertType.SECURITY_CONCERN),
+    LOCAL_DATABASE(AlertType.DATABASE_ISSUE),
+    SERIALIZATION(AlertType.SYSTEM_ERROR),
+    UNKNOWN(AlertType.SYSTEM_ERROR);
+
+    companion object {
+        fun classify(error: Throwable): SyncFailure = when (error) {
+            is ApiException -> when (error.code) {
+                401, 403 -> UNAUTHORIZED
+                408 -> TIMEOUT
+                429 -> RATE_LIMITED
+                in 500..599 -> SERVER_ERROR
+                else -> REJECTED
+            }
+            is SocketTimeoutException -> TIMEOUT
+            is UnknownHostException, is ConnectException -> NETWORK_UNREACHABLE
+            is JsonParseException -> SERIALIZATION
+            is SQLException -> LOCAL_DATABASE
+            is IOException -> NETWORK_UNREACHABLE
+            else -> UNKNOWN
+        }
+    }
+}
+
+/**
+ * Timing and size of one sync batch. Byte counts are as sent and received
+ * on the wire, after compression; the JSON sizes are before it.
+ */
+data class SyncBatchTrace(
+    val startedAt: Date,
+    val phaseMillis: Map<SyncPhase, Double>,
+    val operations: Int,
+    val records: Int,
+    val deletes: Int,
+    val requestBytes: Long,
+    val responseBytes: Long,
+    val requestJsonBytes: Long,
+    val responseJsonBytes: Long,
+    val failure: SyncFailure?,
+    val alertType: AlertType?,
+    val errorMessage: String?
+)
+
+/**
+ * Collects phase timings while a batch runs
+ */
+class SyncBatchTracer {
+    private val startedAt = Date()
+    private val phaseNanos = LongArray(SyncPhase.values().size)
+
+    var operations = 0
+    var records = 0
+    var deletes = 0
+    var requestBytes = 0L
+    var responseBytes = 0L
+    var requestJsonBytes = 0L
+    var responseJsonBytes = 0L
+
+    inline fun <T> phase(phase: SyncPhase, block: () -> T): T {
+        val start = System.nanoTime()
+        try {
+            return block()
+        } finally {
+            addPhaseNanos(phase, System.nanoTime() - start)
+        }
+    }
+
+    fun addPhaseNanos(phase: SyncPhase, nanos: Long) {
+        phaseNanos[phase.ordinal] += nanos
+    }
+
+    fun finish(error: Throwable? = null): SyncBatchTrace {
+        val failure = error?.let { SyncFailure.classify(it) }
+        return SyncBatchTrace(
+            startedAt = startedAt,
+            phaseMillis = SyncPhase.values().associateWith { phaseNanos[it.ordinal] / 1_000_000.0 },
+            operations = operations,
+            records = records,
+            deletes = deletes,
+            requestBytes = requestBytes,
+            responseBytes = responseBytes,
+            requestJsonBytes = requestJsonBytes,
+            responseJsonBytes = responseJsonBytes,
+            failure = failure,
+            alertType = failure?.alertType,
+            errorMessage = error?.message
+        )
+    }
+}
+
+/**
+ * Fixed-bucket histogram; bucket i counts values <= bounds[i], the last bucket the overflow
+ */
+class Histogram(private val bounds: LongArray) {
+    private val counts = LongArray(bounds.size + 1)
+    private var sum = 0L
+    private var count = 0L
+
+    @Synchronized
+    fun record(value: Long) {
+        var index = bounds.indexOfFirst { value <= it }
+        if (index < 0) index = bounds.size
+        counts[index]++
+        sum += value
+        count++
+    }
+
+    @Synchronized
+    fun snapshot(): HistogramSnapshot = HistogramSnapshot(
+        bounds = bounds.toList(),
+        counts = counts.toList(),
+        count = count,
+        mean = if (count == 0L) 0.0 else sum.toDouble() / count
+    )
+}
+
+data class HistogramSnapshot(
+    val bounds: List<Long>,
+    val counts: List<Long>,
+    val count: Long,
+    val mean: Double
+)
+
+/**
+ * Sync diagnostics, kept in a small JSON-lines file so batches traced by a
+ * worker in another process still reach the export. Every batch is appended
+ * under a file lock; counters and histograms are computed over the retained
+ * batches when a snapshot is taken. Exported next to the JSON data export.
+ */
+class SyncMetrics internal constructor(private val file: File) {
+
+    companion object {
+        private const val TAG = "SyncMetrics"
+        private const val FILE_NAME = "sync_metrics.jsonl"
+
+        // Batches kept, and the file size past which older ones are dropped
+        private const val MAX_BATCHES = 500
+        private const val TRIM_BYTES = 512L * 1024
+
+        @Volatile
+        private var INSTANCE: SyncMetrics? = null
+
+        fun getInstance(context: Context): SyncMetrics {
+            return INSTANCE ?: synchronized(this) {
+                INSTANCE ?: SyncMetrics(File(context.applicationContext.filesDir, FILE_NAME)).also { INSTANCE = it }
+            }
+        }
+    }
+
+    private val gson = GsonBuilder()
+        .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+        .create()
+
+    /**
+     * Never throws: losing a sample must not fail the sync it describes
+     */
+    @Synchronized
+    fun record(trace: SyncBatchTrace) {
+        try {
+            locked { raf ->
+                val line = (gson.toJson(trace) + "\n").toByteArray(Charsets.UTF_8)
+                raf.seek(raf.length())
+                raf.write(line)
+                if (raf.length() > TRIM_BYTES) {
+                    val kept = readLines(raf).takeLast(MAX_BATCHES)
+                    raf.setLength(0)
+                    raf.write(kept.joinToString(separator = "\n", postfix = "\n").toByteArray(Charsets.UTF_8))
+                }
+            }
+        } catch (e: IOException) {
+            Log.w(TAG, "Could not persist sync batch: ${e.message}")
+        }
+    }
+
+    @Synchronized
+    fun snapshot(): SyncMetricsSnapshot {
+        val batches = try {
+            locked { raf -> readLines(raf) }
+                // A line cut short by a crash mid-append is skipped
+                .mapNotNull { runCatching { gson.fromJson(it, SyncBatchTrace::class.java) }.getOrNull() }
+                .takeLast(MAX_BATCHES)
+        } catch (e: IOException) {
+            Log.w(TAG, "Could not read sync batches: ${e.message}")
+            emptyList()
+        }
+
+        val failureCounts = IntArray(SyncFailure.values().size)
+        val bytesPerBatch = Histogram(longArrayOf(1_024, 8_192, 32_768, 131_072, 524_288, 2_097_152))
+        val recordsPerBatch = Histogram(longArrayOf(1, 5, 20, 50, 100, 200))
+        val phaseHistograms = SyncPhase.values().associateWith {
+            Histogram(longArrayOf(5, 20, 50, 100, 250, 1_000, 5_000, 30_000))
+        }
+        batches.forEach { trace ->
+            trace.failure?.let { failureCounts[it.ordinal]++ }
+            bytesPerBatch.record(trace.requestBytes)
+            recordsPerBatch.record(trace.records.toLong())
+            trace.phaseMillis.forEach { (phase, millis) ->
+                phaseHistograms.getValue(phase).record(millis.toLong())
+            }
+        }
+
+        return SyncMetricsSnapshot(
+            capturedAt = Date(),
+            device = "${Build.MANUFACTURER} ${Build.MODEL}",
+            sdkInt = Build.VERSION.SDK_INT,
+            batches = batches.size.toLong(),
+            records = batches.sumOf { it.records.toLong() },
+            bytes = batches.sumOf { it.requestBytes + it.responseBytes },
+            failures = SyncFailure.values()
+                .filter { failureCounts[it.ordinal] > 0 }
+                .associate { it.name to failureCounts[it.ordinal] },
+            bytesPerBatch = bytesPerBatch.snapshot(),
+            recordsPerBatch = recordsPerBatch.snapshot(),
+            phaseMillis = phaseHistograms.mapKeys { it.key.name }.mapValues { it.value.snapshot() },
+            recentBatches = batches
+        )
+    }
+
+    // The file lock serializes processes; @Synchronized serializes threads, which one JVM can't lock twice
+    private inline fun <T> locked(block: (RandomAccessFile) -> T): T =
+        RandomAccessFile(file, "rw").use { raf ->
+            raf.channel.lock().use { block(raf) }
+        }
+
+    private fun readLines(raf: RandomAccessFile): List<String> {
+        val bytes = ByteArray(raf.length().toInt())
+        raf.seek(0)
+        raf.readFully(bytes)
+        return String(bytes, Charsets.UTF_8).lines().filter { it.isNotBlank() }
+    }
+}
+
+/**
+ * Totals and histograms cover the retained batches in [recentBatches]
+ */
+data class SyncMetricsSnapshot(
+    val capturedAt: Date,
+    val device: String,
+    val sdkInt: Int,
+    val batches: Long,
+    val records: Long,
+    val bytes: Long,
+    val failures: Map<String, Int>,
+    val bytesPerBatch: HistogramSnapshot,
+    val recordsPerBatch: HistogramSnapshot,
+    val phaseMillis: Map<String, HistogramSnapshot>,
+    val recentBatches: List<SyncBatchTrace>
+)
@@ -0,0 +1,12 @@
+package com.cattlebreed.app.data.sync
+
+/**
+ * Requests that pending outbox operations be pushed to the server
+ */
+fun interface SyncScheduler {
+    fun requestSync()
+
+    companion object {
+        val NONE = SyncScheduler { }
+    }
+}
@@ -0,0 +1,162 @@
+package com.cattlebreed.app.metrics
+
+import android.os.Build
+import android.os.SystemClock
+import com.cattlebreed.app.data.sync.Histogram
+import com.cattlebreed.app.data.sync.HistogramSnapshot
+import java.util.Date
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The last [capacity] samples of one metric, each with the time it was taken.
+ * Percentiles are computed over the samples younger than the window.
+ */
+class RollingWindow(private val capacity: Int) {
+    private val values = LongArray(capacity)
+    private val takenAt = LongArray(capacity)
+    private var next = 0
+    private var size = 0
+
+    @Synchronized
+    fun record(value: Long, now: Long) {
+        values[next] = value
+        takenAt[next] = now
+        next = (next + 1) % capacity
+        if (size < capacity) size++
+    }
+
+    @Synchronized
+    fun snapshot(since: Long, scale: Double): WindowSnapshot {
+        val recent = (0 until size)
+            .filter { takenAt[it] >= since }
+            .map { values[it] }
+            .sorted()
+        if (recent.isEmpty()) {
+            return WindowSnapshot()
+        }
+        fun percentile(p: Double) = recent[((recent.size - 1) * p).toInt()] / scale
+        return WindowSnapshot(
+            count = recent.size,
+            min = recent.first() / scale,
+            p50 = percentile(0.50),
+            p90 = percentile(0.90),
+            p99 = percentile(0.99),
+            max = recent.last() / scale,
+            mean = recent.average() / scale
+        )
+    }
+
+    @Synchronized
+    fun clear() {
+        next = 0
+        size = 0
+    }
+}
+
+data class WindowSnapshot(
+    val count: Int = 0,
+    val min: Double = 0.0,
+    val p50: Double = 0.0,
+    val p90: Double = 0.0,
+    val p99: Double = 0.0,
+    val max: Double = 0.0,
+    val mean: Double = 0.0
+)
+
+/**
+ * Process-wide counters, timers and value histograms for the hot paths
+ * (capture, analysis, database, export). Timers are fed by [traced],
+ * which also emits an androidx.tracing section under the same name, so a
+ * slow entry here can be found in a Perfetto trace.
+ *
+ * Each timer keeps a cumulative bucket histogram since process start and
+ * a rolling window of recent samples for percentiles; the snapshot is what
+ * the debug metrics screen shows and exports.
+ */
+object MetricsRegistry {
+    private const val WINDOW_SAMPLES = 512
+    val WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(30)
+
+    // Milliseconds; the top bucket catches multi-second exports and analyses
+    private val LATENCY_BOUNDS = longArrayOf(1, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 10_000)
+
+    private class Timer {
+        val window = RollingWindow(WINDOW_SAMPLES)
+        val distribution = Histogram(LATENCY_BOUNDS)
+        val count = AtomicLong()
+    }
+
+    private val counters = ConcurrentHashMap<String, AtomicLong>()
+    private val timers = ConcurrentHashMap<String, Timer>()
+    private val values = ConcurrentHashMap<String, RollingWindow>()
+
+    @Volatile
+    private var startedAt = Date()
+
+    fun increment(name: String, by: Long = 1) {
+        counters.getOrPut(name) { AtomicLong() }.addAndGet(by)
+    }
+
+    fun recordTime(name: String, nanos: Long) {
+        val timer = timers.getOrPut(name) { Timer() }
+        timer.window.record(nanos, SystemClock.elapsedRealtime())
+        timer.distribution.record(TimeUnit.NANOSECONDS.toMillis(nanos))
+        timer.count.incrementAndGet()
+    }
+
+    /**
+     * Records a size or count, e.g. bytes written by an export
+     */
+    fun recordValue(name: String, value: Long) {
+        values.getOrPut(name) { RollingWindow(WINDOW_SAMPLES) }.record(value, SystemClock.elapsedRealtime())
+    }
+
+    fun snapshot(): MetricsSnapshot {
+        val since = SystemClock.elapsedRealtime() - WINDOW_MILLIS
+        return MetricsSnapshot(
+            capturedAt = Date(),
+            since = startedAt,
+            windowMinutes = TimeUnit.MILLISECONDS.toMinutes(WINDOW_MILLIS),
+            device = "${Build.MANUFACTURER} ${Build.MODEL}",
+            sdkInt = Build.VERSION.SDK_INT,
+            counters = counters.toSortedMap().mapValues { it.value.get() },
+            timersMillis = timers.toSortedMap().mapValues { (_, timer) ->
+                TimerSnapshot(
+                    count = timer.count.get(),
+                    window = timer.window.snapshot(since, 1_000_000.0),
+                    distribution = timer.distribution.snapshot()
+                )
+            },
+            values = values.toSortedMap().mapValues { it.value.snapshot(since, 1.0) }
+        )
+    }
+
+    /**
+     * Starts a fresh measurement, e.g. before reproducing a field report
+     */
+    fun reset() {
+        counters.clear()
+        timers.clear()
+        values.clear()
+        startedAt = Date()
+    }
+}
+
+data class TimerSnapshot(
+    val count: Long,
+    val window: WindowSnapshot,
+    val distribution: HistogramSnapshot
+)
+
+data class MetricsSnapshot(
+    val capturedAt: Date,
+    val since: Date,
+    val windowMinutes: Long,
+    val device: String,
+    val sdkInt: Int,
+    val counters: Map<String, Long>,
+    val timersMillis: Map<String, TimerSnapshot>,
+    val values: Map<String, WindowSnapshot>
+)
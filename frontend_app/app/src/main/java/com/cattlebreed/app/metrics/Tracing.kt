@@ -0,0 +1,90 @@
+package com.cattlebreed.app.metrics
+
+import androidx.tracing.Trace
+import kotlinx.coroutines.CancellationException
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Runs [block] inside a trace section named [name] and records its
+ * duration in [MetricsRegistry]. A failure counts towards `<name>.errors`
+ * instead of the timer, so error paths don't skew the percentiles.
+ *
+ * Only for code that stays on one thread; use [tracedSuspend] or
+ * [TraceSpan] for anything that suspends or finishes in a callback.
+ */
+inline fun <T> traced(name: String, block: () -> T): T {
+    Trace.beginSection(name)
+    val start = System.nanoTime()
+    try {
+        val result = block()
+        MetricsRegistry.recordTime(name, System.nanoTime() - start)
+        return result
+    } catch (e: Throwable) {
+        MetricsRegistry.increment("$name.errors")
+        throw e
+    } finally {
+        Trace.endSection()
+    }
+}
+
+suspend inline fun <T> tracedSuspend(name: String, crossinline block: suspend () -> T): T {
+    val span = TraceSpan.start(name)
+    try {
+        return block().also { span.end() }
+    } catch (e: CancellationException) {
+        span.cancel()
+        throw e
+    } catch (e: Throwable) {
+        span.fail()
+        throw e
+    }
+}
+
+/**
+ * An async trace section that may end on another thread than it started;
+ * only the first of [end], [fail] and [cancel] has an effect
+ */
+class TraceSpan private constructor(private val name: String) {
+
+    companion object {
+        private val cookies = AtomicInteger()
+
+        fun start(name: String) = TraceSpan(name)
+    }
+
+    private val cookie = cookies.incrementAndGet()
+    private val start = System.nanoTime()
+    private val finished = AtomicBoolean()
+
+    init {
+        Trace.beginAsyncSection(name, cookie)
+    }
+
+    fun end() {
+        if (close()) {
+            MetricsRegistry.recordTime(name, System.nanoTime() - start)
+        }
+    }
+
+    fun fail() {
+        if (close()) {
+            MetricsRegistry.increment("$name.errors")
+        }
+    }
+
+    /**
+     * Closes the section without recording anything, e.g. when the caller went away
+     */
+    fun cancel() {
+        close()
+    }
+
+    private fun close(): Boolean {
+        if (!finished.compareAndSet(false, true)) {
+            return false
+        }
+        Trace.endAsyncSection(name, cookie)
+        return true
+    }
+}
@@ -11,7 +11,10 @@ enum class NavigationDestination(val route: String) {
     HISTORY("history"),
     EXPORT("export"),
     SETTINGS("settings"),
-    ANIMAL_DETAIL("animal_detail/{animalId}")
+    ANIMAL_DETAIL("animal_detail/{animalId}"),
+    
+    // Debug builds only
+    METRICS("metrics")
 }
 
 object NavigationArguments {
@@ -0,0 +1,66 @@
+package com.cattlebreed.app.network
+
+import com.cattlebreed.app.data.entity.AnimalRecord
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.TimeZone
+
+/**
+ * Converts between Room entities and API DTOs for one user.
+ * Not thread-safe: create one mapper per sync run.
+ */
+class AnimalRecordDtoMapper(private val userId: String) {
+    
+    private val isoFormat = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US).apply {
+        timeZone = TimeZone.getTimeZone("UTC")
+    }
+    
+    fun toDto(record: AnimalRecord): AnimalRecordDto {
+        val date = isoFormat.format(record.date)
+        return AnimalRecordDto(
+            id = null,
+            localId = record.id,
+            animalId = record.animalId,
+            userId = userId,
+            imagePath = record.imagePath,
+            imageUrl = null,
+            date = date,
+            bodyLength = record.bodyLength,
+            height = record.height,
+            chestWidth = record.chestWidth,
+            rumpAngle = record.rumpAngle,
+            atcScore = record.atcScore,
+            synced = record.synced,
+            aiAnalysis = null,
+            location = null,
+            notes = record.notes,
+            createdAt = date,
+            updatedAt = isoFormat.format(record.updatedAt)
+        )
+    }
+    
+    /**
+     * Builds the local row for a server record, keeping the local id and image when present
+     */
+    fun toEntity(dto: AnimalRecordDto, existing: AnimalRecord?): AnimalRecord {
+        return AnimalRecord(
+            id = existing?.id ?: 0,
+            animalId = dto.animalId,
+            date = parseDate(dto.date) ?: existing?.date ?: Date(),
+            imagePath = existing?.imagePath ?: dto.imagePath.orEmpty(),
+            bodyLength = dto.bodyLength,
+            height = dto.height,
+            chestWidth = dto.chestWidth,
+            rumpAngle = dto.rumpAngle,
+            atcScore = dto.atcScore,
+            synced = true,
+            breed = dto.aiAnalysis?.breedClassification ?: existing?.breed,
+            notes = dto.notes ?: existing?.notes,
+            updatedAt = parseDate(dto.updatedAt) ?: existing?.updatedAt ?: Date(),
+            imageUrl = dto.imageUrl ?: existing?.imageUrl
+        )
+    }
+    
+    fun parseDate(value: String): Date? = runCatching { isoFormat.parse(value) }.getOrNull()
+}
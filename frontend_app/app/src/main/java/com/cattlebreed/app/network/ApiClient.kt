@@ -0,0 +1,147 @@
+package com.cattlebreed.app.network
+
+import android.content.Context
+import com.cattlebreed.app.BuildConfig
+import com.google.gson.Gson
+import com.google.gson.GsonBuilder
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.suspendCancellableCoroutine
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.ConnectionPool
+import okhttp3.HttpUrl
+import okhttp3.HttpUrl.Companion.toHttpUrl
+import okhttp3.Interceptor
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.brotli.BrotliInterceptor
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/**
+ * Process-wide HTTP client shared by every screen and background job.
+ *
+ * All endpoint classes derive from one base [OkHttpClient], so they share a
+ * single connection pool and dispatcher, and later calls to the same host reuse
+ * a kept-alive connection instead of opening a new one. Over HTTPS the server
+ * can negotiate HTTP/2 through ALPN, and calls then multiplex on one
+ * connection. The cleartext development URL (http://10.0.2.2) always speaks
+ * HTTP/1.1, because OkHttp does not upgrade cleartext connections to HTTP/2.
+ */
+class ApiClient internal constructor(
+    val baseUrl: HttpUrl,
+    // Null in tests, which call the API anonymously
+    sessionInterceptor: Interceptor?
+) {
+
+    private constructor(context: Context) : this(BuildConfig.API_BASE_URL.toHttpUrl(), SessionInterceptor(context))
+
+    companion object {
+        private const val MAX_IDLE_CONNECTIONS = 5
+        private const val KEEP_ALIVE_MINUTES = 5L
+
+        @Volatile
+        private var INSTANCE: ApiClient? = null
+
+        fun getInstance(context: Context): ApiClient {
+            return INSTANCE ?: synchronized(this) {
+                // Re-checked under the lock, so racing callers can't build two pools
+                INSTANCE ?: ApiClient(context.applicationContext).also { INSTANCE = it }
+            }
+        }
+    }
+
+    val gson: Gson = GsonBuilder().create()
+
+    private val baseClient: OkHttpClient = OkHttpClient.Builder()
+        .connectionPool(ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+        .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+        .apply { sessionInterceptor?.let { addInterceptor(it) } }
+        // Advertises "br,gzip" and transparently decodes either
+        .addInterceptor(BrotliInterceptor)
+        .addInterceptor(GzipRequestInterceptor())
+        .addNetworkInterceptor(WireSizeInterceptor())
+        .build()
+
+    private val clients: Map<EndpointClass, OkHttpClient> = EndpointClass.values().associateWith { endpointClass ->
+        // newBuilder() keeps the pool, dispatcher and interceptors of the base client
+        baseClient.newBuilder()
+            .connectTimeout(endpointClass.connectTimeoutSeconds, TimeUnit.SECONDS)
+            .readTimeout(endpointClass.readTimeoutSeconds, TimeUnit.SECONDS)
+            .writeTimeout(endpointClass.writeTimeoutSeconds, TimeUnit.SECONDS)
+            .build()
+    }
+
+    fun url(path: String): HttpUrl = baseUrl.resolve(path)
+        ?: throw IllegalArgumentException("Invalid API path: $path")
+
+    fun newRequest(endpointClass: EndpointClass, path: String): Request.Builder {
+        return Request.Builder()
+            .url(url(path))
+            .tag(EndpointClass::class.java, endpointClass)
+    }
+
+    /**
+     * Executes the call on OkHttp's dispatcher and suspends until the response
+     * headers arrive, repeating transient failures as [RetryPolicy] allows.
+     * Cancelling the coroutine cancels the call or the wait between attempts.
+     */
+    suspend fun execute(endpointClass: EndpointClass, request: Request): Response {
+        val client = clients.getValue(endpointClass)
+        val policy = RetryPolicy(endpointClass)
+        var attempt = 0
+        while (true) {
+            val delayMs = try {
+                val response = client.newCall(request).await()
+                if (!policy.isRetryable(response) || !policy.canRetry(request, attempt)) {
+                    return response
+                }
+                response.close()
+                policy.delayMillis(attempt, response)
+            } catch (e: IOException) {
+                if (!policy.canRetry(request, attempt)) {
+                    throw e
+                }
+                policy.delayMillis(attempt, null)
+            }
+            delay(delayMs)
+            attempt++
+        }
+    }
+
+    /**
+     * Drops idle connections, e.g. after the device switched networks.
+     */
+    fun evictConnections() {
+        baseClient.connectionPool.evictAll()
+    }
+
+    private suspend fun Call.await(): Response = suspendCancellableCoroutine { continuation ->
+        enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) {
+                continuation.resume(response) { response.close() }
+            }
+
+            override fun onFailure(call: Call, e: IOException) {
+                if (!continuation.isCancelled) {
+                    continuation.resumeWithException(e)
+                }
+            }
+        })
+        continuation.invokeOnCancellation {
+            runCatching { cancel() }
+        }
+    }
+}
+
+/**
+ * Non-2xx response from the API
+ */
+class ApiException(
+    val code: Int,
+    message: String
+) : IOException("HTTP $code: $message")
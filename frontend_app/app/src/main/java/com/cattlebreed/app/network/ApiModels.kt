@@ -50,7 +50,8 @@ enum class UserRole {
 // Animal Record APIs
 data class SyncAnimalRecordsRequest(
     val records: List<AnimalRecordDto>,
-    val lastSyncTimestamp: Long?
+    val lastSyncTimestamp: Long?,
+    val deletedRecordIds: List<String> = emptyList() // animalIds deleted on the device
 )
 
 data class SyncAnimalRecordsResponse(
@@ -64,7 +65,8 @@ data class SyncData(
     val conflicts: List<ConflictRecord>,
     val serverRecords: List<AnimalRecordDto>, // New records from server
     val deletedRecords: List<String>, // Record IDs deleted on server
-    val lastSyncTimestamp: Long
+    val lastSyncTimestamp: Long,
+    val hasMore: Boolean = false // More server changes follow lastSyncTimestamp
 )
 
 data class ConflictRecord(
@@ -117,7 +119,9 @@ data class LocationDto(
     val latitude: Double?,
     val longitude: Double?,
     val address: String?,
-    val farmName: String?
+    val farmName: String?,
+    val state: String? = null, // Drives the state/district ATS dashboards
+    val district: String? = null
 )
 
 // File Upload APIs
@@ -179,6 +183,24 @@ data class BenchmarkData(
     val ranking: String // TOP_10_PERCENT, ABOVE_AVERAGE, etc.
 )
 
+data class RegionTrendResponse(
+    val success: Boolean,
+    val data: RegionTrendData?
+)
+
+data class RegionTrendData(
+    val region: String?, // state, or null for national
+    val resolution: String, // DAY, WEEK or MONTH
+    val points: List<TrendPoint>
+)
+
+data class TrendPoint(
+    val date: String, // first day of the bucket
+    val animalCount: Int,
+    val averageAtcScore: Float,
+    val averageHealth: Float? // null when no record in the bucket has an AI health score
+)
+
 // Admin Panel APIs (for web app integration)
 data class AdminDashboardRequest(
     val dateRange: String, // "7d", "30d", "90d", "1y"
@@ -294,7 +316,9 @@ data class PaginatedRequest(
     val limit: Int = 20,
     val sortBy: String? = null,
     val sortOrder: String = "desc", // asc or desc
-    val filters: Map<String, String>? = null
+    val filters: Map<String, String>? = null,
+    val cursor: String? = null, // nextCursor of the previous page; takes precedence over page
+    val includeTotal: Boolean = true // false skips totalItems/totalPages (reported as -1)
 )
 
 data class PaginatedResponse<T>(
@@ -308,5 +332,6 @@ data class PaginationInfo(
     val totalItems: Int,
     val itemsPerPage: Int,
     val hasNext: Boolean,
-    val hasPrevious: Boolean
+    val hasPrevious: Boolean,
+    val nextCursor: String? = null
 )
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.cattlebreed.app.network
+
+import android.content.Context
+import com.cattlebreed.app.data.auth.AuthResponse
+import com.cattlebreed.app.data.auth.SendOTPRequest
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.Request
+import okhttp3.RequestBody
+import okhttp3.RequestBody.Companion.asRequestBody
+import okhttp3.RequestBody.Companion.toRequestBody
+import java.io.File
+
+/**
+ * Typed access to the backend API.
+ * All calls go through the shared [ApiClient] and report failures as [Result].
+ */
+class CattleApi internal constructor(
+    private val apiClient: ApiClient,
+    private val configCacheDir: File
+) {
+
+    constructor(context: Context, apiClient: ApiClient = ApiClient.getInstance(context)) :
+        this(apiClient, context.cacheDir)
+
+    companion object {
+        private val JSON = "application/json; charset=utf-8".toMediaType()
+        private const val CONFIG_CACHE_FILE = "app_config.json"
+        private const val CONFIG_ETAG_FILE = "app_config.etag"
+    }
+
+    private val gson = apiClient.gson
+
+    @Volatile
+    private var cachedConfig: CachedConfig? = null
+
+    // Authentication
+
+    suspend fun sendOTP(request: SendOTPRequest): Result<AuthResponse> =
+        post(EndpointClass.AUTH, "auth/otp/send", request)
+
+    suspend fun login(request: LoginRequest): Result<LoginResponse> =
+        post(EndpointClass.AUTH, "auth/otp/verify", request)
+
+    // Records
+
+    suspend fun syncRecords(request: SyncAnimalRecordsRequest): Result<SyncAnimalRecordsResponse> =
+        syncRecords(encodeSyncRequest(request)).map { decodeSyncResponse(it.body) }
+
+    /**
+     * Encodes the sync payload up front so callers can measure encode time and payload size
+     */
+    fun encodeSyncRequest(request: SyncAnimalRecordsRequest): ByteArray =
+        gson.toJson(request).toByteArray(Charsets.UTF_8)
+
+    /**
+     * Sends an encoded sync payload and reads the response body, leaving
+     * decoding to [decodeSyncResponse] so the two can be timed apart
+     */
+    suspend fun syncRecords(encodedRequest: ByteArray): Result<WireResponse> {
+        val wireSize = WireSize()
+        val request = apiClient.newRequest(EndpointClass.SYNC, "records/sync")
+            .tag(WireSize::class.java, wireSize)
+            .post(encodedRequest.toRequestBody(JSON))
+            .build()
+        return call(EndpointClass.SYNC, request) { json ->
+            WireResponse(json, wireSize.requestBytes, wireSize.responseBytes)
+        }
+    }
+
+    fun decodeSyncResponse(json: String): SyncAnimalRecordsResponse =
+        gson.fromJson(json, SyncAnimalRecordsResponse::class.java)
+
+    // Images
+
+    suspend fun requestImageUpload(request: ImageUploadRequest): Result<ImageUploadResponse> =
+        post(EndpointClass.UPLOAD, "uploads", request)
+
+    suspend fun uploadImage(uploadUrl: String, imageFile: File, contentType: String): Result<Unit> {
+        val request = apiClient.newRequest(EndpointClass.UPLOAD, uploadUrl)
+            .put(imageFile.asRequestBody(contentType.toMediaType()))
+            .build()
+        return call(EndpointClass.UPLOAD, request) { }
+    }
+
+    // Analytics
+
+    suspend fun getFarmAnalytics(request: FarmAnalyticsRequest): Result<FarmAnalyticsResponse> =
+        post(EndpointClass.ANALYTICS, "analytics/farm", request)
+
+    // Configuration
+
+    /**
+     * Fetches the app configuration, revalidating the cached copy with
+     * If-None-Match so an unchanged config costs a bodiless 304.
+     */
+    suspend fun getAppConfig(): Result<AppConfigResponse> {
+        val cached = cachedConfig ?: withContext(Dispatchers.IO) { readConfigCache() }?.also { cachedConfig = it }
+
+        val builder = apiClient.newRequest(EndpointClass.CONFIG, "config").get()
+        cached?.let { builder.header("If-None-Match", it.etag) }
+
+        return runCatching {
+            apiClient.execute(EndpointClass.CONFIG, builder.build()).use { response ->
+                when {
+                    response.code == 304 && cached != null -> cached.response
+                    response.isSuccessful -> {
+                        val json = withContext(Dispatchers.IO) { response.body?.string() }
+                            ?: throw ApiException(response.code, "Empty response body")
+                        val config = gson.fromJson(json, AppConfigResponse::class.java)
+                        response.header("ETag")?.let { etag ->
+                            val entry = CachedConfig(etag, config)
+                            cachedConfig = entry
+                            withContext(Dispatchers.IO) { writeConfigCache(etag, json) }
+                        }
+                        config
+                    }
+                    else -> throw ApiException(response.code, response.message)
+                }
+            }
+        }
+    }
+
+    // Helpers
+
+    private suspend inline fun <reified T> post(endpointClass: EndpointClass, path: String, payload: Any): Result<T> {
+        val request = apiClient.newRequest(endpointClass, path)
+            .post(jsonBody(payload))
+            .build()
+        return call(endpointClass, request) { json -> gson.fromJson(json, T::class.java) }
+    }
+
+    private fun jsonBody(payload: Any): RequestBody = gson.toJson(payload).toRequestBody(JSON)
+
+    private suspend fun <T> call(endpointClass: EndpointClass, request: Request, parse: (String) -> T): Result<T> {
+        return runCatching {
+            apiClient.execute(endpointClass, request).use { response ->
+                if (!response.isSuccessful) {
+                    throw ApiException(response.code, response.message)
+                }
+                val json = withContext(Dispatchers.IO) { response.body?.string().orEmpty() }
+                parse(json)
+            }
+        }
+    }
+
+    private fun readConfigCache(): CachedConfig? {
+        val etagFile = File(configCacheDir, CONFIG_ETAG_FILE)
+        val bodyFile = File(configCacheDir, CONFIG_CACHE_FILE)
+        if (!etagFile.exists() || !bodyFile.exists()) return null
+        return runCatching {
+            CachedConfig(etagFile.readText(), gson.fromJson(bodyFile.readText(), AppConfigResponse::class.java))
+        }.getOrNull()
+    }
+
+    private fun writeConfigCache(etag: String, json: String) {
+        File(configCacheDir, CONFIG_CACHE_FILE).writeText(json)
+        File(configCacheDir, CONFIG_ETAG_FILE).writeText(etag)
+    }
+
+    /**
+     * A response body with the bytes the call cost on the wire
+     */
+    data class WireResponse(
+        val body: String,
+        val requestBytes: Long,
+        val responseBytes: Long
+    )
+
+    private data class CachedConfig(
+        val etag: String,
+        val response: AppConfigResponse
+    )
+}
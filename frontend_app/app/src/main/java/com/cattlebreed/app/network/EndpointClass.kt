@@ -0,0 +1,28 @@
+package com.cattlebreed.app.network
+
+/**
+ * Groups API endpoints that share timeout and retry behaviour.
+ * Every class is served from the same connection pool, only the
+ * per-call policy differs.
+ */
+enum class EndpointClass(
+    val connectTimeoutSeconds: Long,
+    val readTimeoutSeconds: Long,
+    val writeTimeoutSeconds: Long,
+    val maxRetries: Int,
+    val compressRequestBody: Boolean,
+    val retryNonIdempotent: Boolean
+) {
+    // OTP send/verify must not be replayed blindly
+    AUTH(10, 15, 15, 1, false, false),
+
+    // Sync batches are upserts keyed by record version, so replays are safe
+    SYNC(15, 60, 60, 3, true, true),
+
+    // JPEG payloads are already compressed
+    UPLOAD(15, 120, 120, 2, false, false),
+
+    ANALYTICS(10, 30, 15, 2, false, true),
+
+    CONFIG(10, 15, 15, 3, false, true)
+}
@@ -0,0 +1,140 @@
+package com.cattlebreed.app.network
+
+import android.content.Context
+import com.cattlebreed.app.data.session.SessionStore
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.asResponseBody
+import okio.Buffer
+import okio.BufferedSink
+import okio.ForwardingSink
+import okio.ForwardingSource
+import okio.GzipSink
+import okio.buffer
+
+/**
+ * Attaches the session token and user id of the signed-in farmer.
+ * Guests call the API anonymously.
+ */
+class SessionInterceptor(context: Context) : Interceptor {
+
+    private val sessionStore = SessionStore.getInstance(context)
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        // Runs on an OkHttp thread; after the first read this is a memory lookup
+        val session = sessionStore.currentBlocking()
+        val token = session.authToken
+        val userId = session.phoneNumber
+        if (token == null || userId == null) {
+            return chain.proceed(chain.request())
+        }
+
+        val request = chain.request().newBuilder()
+            .header("Authorization", "Bearer $token")
+            .header("X-User-Id", userId)
+            .build()
+        return chain.proceed(request)
+    }
+}
+
+/**
+ * Gzips request bodies for endpoint classes that opt in. Sync batches are
+ * repetitive JSON and shrink by roughly an order of magnitude.
+ */
+class GzipRequestInterceptor : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val original = chain.request()
+        val body = original.body
+        val endpointClass = original.tag(EndpointClass::class.java)
+
+        if (body == null || endpointClass?.compressRequestBody != true || original.header("Content-Encoding") != null) {
+            return chain.proceed(original)
+        }
+
+        val compressed = original.newBuilder()
+            .header("Content-Encoding", "gzip")
+            .method(original.method, GzipRequestBody(body))
+            .build()
+        return chain.proceed(compressed)
+    }
+
+    private class GzipRequestBody(private val delegate: RequestBody) : RequestBody() {
+        override fun contentType(): MediaType? = delegate.contentType()
+
+        // Compressed size is unknown up front, so the body is sent chunked
+        override fun contentLength(): Long = -1L
+
+        override fun writeTo(sink: BufferedSink) {
+            GzipSink(sink).buffer().use { delegate.writeTo(it) }
+        }
+    }
+}
+
+/**
+ * Bytes a call actually sent and received, after compression. Attach one
+ * as a request tag to have [WireSizeInterceptor] fill it in.
+ */
+class WireSize {
+    @Volatile
+    var requestBytes = 0L
+        internal set
+
+    @Volatile
+    var responseBytes = 0L
+        internal set
+}
+
+/**
+ * Network interceptor that counts body bytes as they cross the socket, for
+ * requests tagged with a [WireSize]. A retried call reports its last attempt.
+ */
+class WireSizeInterceptor : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val wireSize = request.tag(WireSize::class.java) ?: return chain.proceed(request)
+        wireSize.requestBytes = 0L
+        wireSize.responseBytes = 0L
+
+        val counted = request.body?.let { body ->
+            request.newBuilder().method(request.method, CountingRequestBody(body, wireSize)).build()
+        } ?: request
+        val response = chain.proceed(counted)
+        val body = response.body ?: return response
+
+        val source = object : ForwardingSource(body.source()) {
+            override fun read(sink: Buffer, byteCount: Long): Long {
+                val read = super.read(sink, byteCount)
+                if (read > 0) wireSize.responseBytes += read
+                return read
+            }
+        }
+        return response.newBuilder()
+            .body(source.buffer().asResponseBody(body.contentType(), body.contentLength()))
+            .build()
+    }
+
+    private class CountingRequestBody(
+        private val delegate: RequestBody,
+        private val wireSize: WireSize
+    ) : RequestBody() {
+        override fun contentType(): MediaType? = delegate.contentType()
+
+        override fun contentLength(): Long = delegate.contentLength()
+
+        override fun writeTo(sink: BufferedSink) {
+            val counting = object : ForwardingSink(sink) {
+                override fun write(source: Buffer, byteCount: Long) {
+                    super.write(source, byteCount)
+                    wireSize.requestBytes += byteCount
+                }
+            }.buffer()
+            delegate.writeTo(counting)
+            // Bodies like GzipRequestBody close the sink they were given
+            if (counting.isOpen) counting.emit()
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.cattlebreed.app.network
+
+import okhttp3.Request
+import okhttp3.Response
+import kotlin.random.Random
+
+/**
+ * When and how long [ApiClient.execute] waits before repeating a call:
+ * exponential backoff with jitter, or the server's Retry-After on 429/503.
+ * Non-idempotent calls are only repeated when the endpoint class declares
+ * them safe to replay.
+ *
+ * The wait is a coroutine delay in the caller, not a sleep inside an
+ * interceptor, so it holds no OkHttp dispatcher thread and ends as soon as
+ * the caller is cancelled.
+ */
+internal class RetryPolicy(private val endpointClass: EndpointClass) {
+
+    companion object {
+        private const val INITIAL_BACKOFF_MS = 500L
+        private const val MAX_BACKOFF_MS = 8_000L
+        private val IDEMPOTENT_METHODS = setOf("GET", "HEAD", "PUT", "DELETE")
+        private val RETRYABLE_CODES = setOf(408, 429, 500, 502, 503, 504)
+    }
+
+    fun canRetry(request: Request, attempt: Int): Boolean =
+        (endpointClass.retryNonIdempotent || request.method in IDEMPOTENT_METHODS) &&
+            attempt < endpointClass.maxRetries
+
+    fun isRetryable(response: Response): Boolean = response.code in RETRYABLE_CODES
+
+    /**
+     * Wait before the next attempt after a retryable [response], or after an I/O error when it is null
+     */
+    fun delayMillis(attempt: Int, response: Response?): Long {
+        return response?.let { retryAfterMillis(it) } ?: backoffMillis(attempt)
+    }
+
+    private fun backoffMillis(attempt: Int): Long {
+        val exponential = (INITIAL_BACKOFF_MS shl attempt).coerceAtMost(MAX_BACKOFF_MS)
+        // Full jitter so devices that failed together do not retry together
+        return Random.nextLong(exponential / 2, exponential + 1)
+    }
+
+    private fun retryAfterMillis(response: Response): Long? {
+        val seconds = response.header("Retry-After")?.toLongOrNull() ?: return null
+        return (seconds * 1000).coerceAtMost(MAX_BACKOFF_MS)
+    }
+}
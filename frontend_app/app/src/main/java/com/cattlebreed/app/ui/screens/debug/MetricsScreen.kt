@@ -0,0 +1,158 @@
+package com.cattlebreed.app.ui.screens.debug
+
+import android.content.Intent
+import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
+import androidx.compose.material.icons.Icons
+import androidx.compose.material.icons.filled.ArrowBack
+import androidx.compose.material.icons.filled.DeleteSweep
+import androidx.compose.material.icons.filled.Share
+import androidx.compose.material3.*
+import androidx.compose.runtime.*
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.text.font.FontFamily
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.unit.dp
+import androidx.core.content.FileProvider
+import com.cattlebreed.app.metrics.MetricsRegistry
+import com.cattlebreed.app.metrics.MetricsSnapshot
+import com.cattlebreed.app.metrics.TimerSnapshot
+import com.cattlebreed.app.metrics.WindowSnapshot
+import com.cattlebreed.app.utils.FileUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+private const val REFRESH_MILLIS = 2_000L
+
+/**
+ * Debug builds only: live latency percentiles from [MetricsRegistry],
+ * with a JSON export to attach to field reports
+ */
+@OptIn(ExperimentalMaterial3Api::class)
+@Composable
+fun MetricsScreen(
+    fileUtils: FileUtils,
+    onNavigateBack: () -> Unit
+) {
+    val context = LocalContext.current
+    val scope = rememberCoroutineScope()
+    var snapshot by remember { mutableStateOf<MetricsSnapshot?>(null) }
+    var refreshKey by remember { mutableIntStateOf(0) }
+
+    LaunchedEffect(refreshKey) {
+        while (true) {
+            snapshot = withContext(Dispatchers.Default) { MetricsRegistry.snapshot() }
+            delay(REFRESH_MILLIS)
+        }
+    }
+
+    Scaffold(
+        topBar = {
+            TopAppBar(
+                title = { Text("Metrics", fontWeight = FontWeight.Bold) },
+                navigationIcon = {
+                    IconButton(onClick = onNavigateBack) {
+                        Icon(Icons.Default.ArrowBack, contentDescription = "Back")
+                    }
+                },
+                actions = {
+                    IconButton(onClick = {
+                        MetricsRegistry.reset()
+                        refreshKey++
+                    }) {
+                        Icon(Icons.Default.DeleteSweep, contentDescription = "Reset")
+                    }
+                    IconButton(onClick = {
+                        scope.launch {
+                            val file = withContext(Dispatchers.IO) {
+                                fileUtils.exportMetrics(MetricsRegistry.snapshot())
+                            }
+                            val uri = FileProvider.getUriForFile(context, "${context.packageName}.fileprovider", file)
+                            val send = Intent(Intent.ACTION_SEND)
+                                .setType("application/json")
+                                .putExtra(Intent.EXTRA_STREAM, uri)
+                                .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+                            context.startActivity(Intent.createChooser(send, file.name))
+                        }
+                    }) {
+                        Icon(Icons.Default.Share, contentDescription = "Export JSON")
+                    }
+                }
+            )
+        }
+    ) { innerPadding ->
+        val current = snapshot
+        LazyColumn(
+            modifier = Modifier
+                .fillMaxSize()
+                .padding(innerPadding),
+            contentPadding = PaddingValues(16.dp),
+            verticalArrangement = Arrangement.spacedBy(8.dp)
+        ) {
+            if (current == null) {
+                return@LazyColumn
+            }
+            item {
+                Text(
+                    text = "Last ${current.windowMinutes} min, ${current.device} (API ${current.sdkInt})",
+                    style = MaterialTheme.typography.bodyMedium,
+                    color = MaterialTheme.colorScheme.onSurfaceVariant
+                )
+            }
+
+            item { SectionTitle("Timers (ms)") }
+            items(current.timersMillis.entries.toList(), key = { "timer:${it.key}" }) { (name, timer) ->
+                TimerRow(name, timer)
+            }
+
+            item { SectionTitle("Values") }
+            items(current.values.entries.toList(), key = { "value:${it.key}" }) { (name, window) ->
+                MetricRow(name, window.describe())
+            }
+
+            item { SectionTitle("Counters") }
+            items(current.counters.entries.toList(), key = { "counter:${it.key}" }) { (name, count) ->
+                MetricRow(name, count.toString())
+            }
+        }
+    }
+}
+
+@Composable
+private fun SectionTitle(text: String) {
+    Text(
+        text = text,
+        style = MaterialTheme.typography.titleMedium,
+        fontWeight = FontWeight.Medium,
+        color = MaterialTheme.colorScheme.primary,
+        modifier = Modifier.padding(top = 8.dp)
+    )
+}
+
+@Composable
+private fun TimerRow(name: String, timer: TimerSnapshot) {
+    MetricRow(name, "${timer.window.describe()}  (${timer.count} total)")
+}
+
+@Composable
+private fun MetricRow(name: String, value: String) {
+    Column(modifier = Modifier.fillMaxWidth()) {
+        Text(text = name, style = MaterialTheme.typography.bodyMedium, fontWeight = FontWeight.Medium)
+        Text(
+            text = value,
+            style = MaterialTheme.typography.bodySmall,
+            fontFamily = FontFamily.Monospace,
+            color = MaterialTheme.colorScheme.onSurfaceVariant
+        )
+    }
+}
+
+private fun WindowSnapshot.describe(): String =
+    if (count == 0) "no samples in window"
+    else "n=$count p50=${p50.short()} p90=${p90.short()} p99=${p99.short()} max=${max.short()}"
+
+private fun Double.short(): String = if (this >= 100) "%.0f".format(this) else "%.1f".format(this)
@@ -1,5 +1,6 @@
 package com.cattlebreed.app.ui.screens.export
 
+import android.content.Intent
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.verticalScroll
@@ -9,10 +10,14 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
+import androidx.core.content.FileProvider
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
+import com.cattlebreed.app.data.export.ExportFormat
+import com.cattlebreed.app.data.export.ExportStreamProvider
 import com.cattlebreed.app.viewmodel.ExportViewModel
 import java.io.File
 
@@ -25,6 +30,7 @@ fun ExportScreen(
     val isExporting by viewModel.isExporting.collectAsStateWithLifecycle()
     val exportMessage by viewModel.exportMessage.collectAsStateWithLifecycle()
     val exportedFiles by viewModel.exportedFiles.collectAsStateWithLifecycle()
+    val context = LocalContext.current
     
     var showMessageDialog by remember { mutableStateOf(false) }
     
@@ -73,6 +79,9 @@ fun ExportScreen(
                 isLoading = isExporting,
                 onClick = {
                     viewModel.exportToJson()
+                },
+                onShare = {
+                    context.startActivity(ExportStreamProvider.shareIntent(ExportFormat.JSON))
                 }
             )
             
@@ -84,6 +93,9 @@ fun ExportScreen(
                 isLoading = isExporting,
                 onClick = {
                     viewModel.exportToCsv()
+                },
+                onShare = {
+                    context.startActivity(ExportStreamProvider.shareIntent(ExportFormat.CSV))
                 }
             )
             
@@ -95,6 +107,18 @@ fun ExportScreen(
                 isLoading = isExporting,
                 onClick = {
                     viewModel.exportToPdf()
+                },
+                // Built from every record in memory, so it is saved first and shared as a file
+                shareText = "Save and share",
+                onShare = {
+                    viewModel.exportToPdf { file ->
+                        val uri = FileProvider.getUriForFile(context, "${context.packageName}.fileprovider", file)
+                        val send = Intent(Intent.ACTION_SEND)
+                            .setType(ExportFormat.PDF.mimeType)
+                            .putExtra(Intent.EXTRA_STREAM, uri)
+                            .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION)
+                        context.startActivity(Intent.createChooser(send, file.name))
+                    }
                 }
             )
             
@@ -207,7 +231,9 @@ private fun ExportOptionCard(
     icon: androidx.compose.ui.graphics.vector.ImageVector,
     buttonText: String,
     isLoading: Boolean,
-    onClick: () -> Unit
+    onClick: () -> Unit,
+    onShare: () -> Unit,
+    shareText: String = "Share without saving"
 ) {
     ElevatedCard(
         modifier = Modifier.fillMaxWidth()
@@ -288,6 +314,28 @@ private fun ExportOptionCard(
                     )
                 }
             }
+            
+            // Unless shareText says otherwise, generated as the other app reads it
+            OutlinedButton(
+                onClick = onShare,
+                modifier = Modifier
+                    .fillMaxWidth()
+                    .height(48.dp),
+                enabled = !isLoading,
+                shape = MaterialTheme.shapes.medium
+            ) {
+                Icon(
+                    Icons.Default.Share,
+                    contentDescription = null,
+                    modifier = Modifier.size(20.dp)
+                )
+                Spacer(modifier = Modifier.width(8.dp))
+                Text(
+                    shareText,
+                    style = MaterialTheme.typography.labelLarge,
+                    fontWeight = FontWeight.Medium
+                )
+            }
         }
     }
 }
@@ -1,32 +1,45 @@
 package com.cattlebreed.app.ui.screens.history
 
 import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.items
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.*
 import androidx.compose.material3.*
 import androidx.compose.runtime.*
+import androidx.compose.runtime.saveable.rememberSaveable
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.draw.clip
+import androidx.compose.ui.layout.ContentScale
+import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
-import com.cattlebreed.app.data.entity.AnimalRecord
-import com.cattlebreed.app.utils.FileUtils
+import coil.compose.AsyncImage
+import com.cattlebreed.app.data.dao.RecordSearch
 import com.cattlebreed.app.viewmodel.MainViewModel
+import com.cattlebreed.app.viewmodel.RecordRow
+import com.cattlebreed.app.viewmodel.ScoreBucket
+import java.io.File
+
+// Resource id of the record list for UiAutomator (see :benchmark)
+const val HISTORY_LIST_TAG = "history_list"
+
+private const val RECORD_CONTENT_TYPE = "record"
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun HistoryScreen(
     viewModel: MainViewModel,
-    fileUtils: FileUtils,
     onNavigateBack: () -> Unit,
     onNavigateToDetail: (Long) -> Unit
 ) {
-    val records by viewModel.allRecords.collectAsStateWithLifecycle()
+    val records by viewModel.historyRows.collectAsStateWithLifecycle()
+    val search by viewModel.search.collectAsStateWithLifecycle()
     
     Scaffold(
         topBar = {
@@ -46,39 +59,122 @@ fun HistoryScreen(
         }
     ) { innerPadding ->
         
-        if (records.isEmpty()) {
-            EmptyHistoryState(
-                modifier = Modifier.padding(innerPadding)
-            )
-        } else {
-            LazyColumn(
-                modifier = Modifier
-                    .fillMaxSize()
-                    .padding(innerPadding),
-                contentPadding = PaddingValues(horizontal = 16.dp, vertical = 12.dp),
-                verticalArrangement = Arrangement.spacedBy(12.dp)
-            ) {
-                items(records) { record ->
-                    AnimalRecordCard(
-                        record = record,
-                        fileUtils = fileUtils,
-                        onClick = { onNavigateToDetail(record.id) }
-                    )
+        Column(
+            modifier = Modifier
+                .fillMaxSize()
+                .padding(innerPadding)
+        ) {
+            if (records.isNotEmpty() || !search.isEmpty) {
+                RecordSearchBar(
+                    search = search,
+                    onSearchChange = viewModel::updateSearch
+                )
+            }
+            
+            when {
+                records.isEmpty() && search.isEmpty -> EmptyHistoryState()
+                records.isEmpty() -> NoMatchesState()
+                else -> LazyColumn(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .testTag(HISTORY_LIST_TAG),
+                    contentPadding = PaddingValues(horizontal = 16.dp, vertical = 12.dp),
+                    verticalArrangement = Arrangement.spacedBy(12.dp)
+                ) {
+                    // Keyed by id so an insert at the top moves cards instead of rebinding every one
+                    items(
+                        items = records,
+                        key = { it.id },
+                        contentType = { RECORD_CONTENT_TYPE }
+                    ) { row ->
+                        AnimalRecordCard(
+                            row = row,
+                            onClick = onNavigateToDetail
+                        )
+                    }
+                }
+            }
+        }
+    }
+}
+
+/**
+ * Search field (animal id, breed, notes) and ATC score filters
+ */
+@OptIn(ExperimentalMaterial3Api::class)
+@Composable
+private fun RecordSearchBar(
+    search: RecordSearch,
+    onSearchChange: (RecordSearch) -> Unit
+) {
+    Column(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(start = 16.dp, end = 16.dp, top = 12.dp),
+        verticalArrangement = Arrangement.spacedBy(8.dp)
+    ) {
+        // Held locally so the cursor never waits on the view model's round trip
+        var text by rememberSaveable { mutableStateOf(search.text) }
+        OutlinedTextField(
+            value = text,
+            onValueChange = {
+                text = it
+                onSearchChange(search.copy(text = it))
+            },
+            modifier = Modifier.fillMaxWidth(),
+            placeholder = { Text("Search by animal ID, breed or notes") },
+            leadingIcon = { Icon(Icons.Default.Search, contentDescription = null) },
+            trailingIcon = {
+                if (text.isNotEmpty()) {
+                    IconButton(onClick = {
+                        text = ""
+                        onSearchChange(search.copy(text = ""))
+                    }) {
+                        Icon(Icons.Default.Clear, contentDescription = "Clear search")
+                    }
                 }
+            },
+            singleLine = true
+        )
+        
+        Row(horizontalArrangement = Arrangement.spacedBy(8.dp)) {
+            for (minScore in listOf(70, 85)) {
+                val selected = search.minAtcScore == minScore
+                FilterChip(
+                    selected = selected,
+                    onClick = { onSearchChange(search.copy(minAtcScore = if (selected) null else minScore)) },
+                    label = { Text("ATC $minScore+") }
+                )
             }
         }
     }
 }
 
+@Composable
+private fun NoMatchesState() {
+    Box(
+        modifier = Modifier
+            .fillMaxSize()
+            .padding(32.dp),
+        contentAlignment = Alignment.TopCenter
+    ) {
+        Text(
+            text = "No records match your search.",
+            style = MaterialTheme.typography.bodyLarge,
+            color = MaterialTheme.colorScheme.onSurfaceVariant,
+            textAlign = TextAlign.Center
+        )
+    }
+}
+
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 private fun AnimalRecordCard(
-    record: AnimalRecord,
-    fileUtils: FileUtils,
-    onClick: () -> Unit
+    row: RecordRow,
+    onClick: (Long) -> Unit
 ) {
     ElevatedCard(
-        onClick = onClick,
+        onClick = { onClick(row.id) },
         modifier = Modifier.fillMaxWidth()
     ) {
         Column(
@@ -93,12 +189,24 @@ private fun AnimalRecordCard(
                 horizontalArrangement = Arrangement.SpaceBetween,
                 verticalAlignment = Alignment.CenterVertically
             ) {
+                if (row.thumbnailPath != null) {
+                    AsyncImage(
+                        model = File(row.thumbnailPath),
+                        contentDescription = null,
+                        contentScale = ContentScale.Crop,
+                        modifier = Modifier
+                            .size(48.dp)
+                            .clip(RoundedCornerShape(8.dp))
+                    )
+                    Spacer(modifier = Modifier.width(12.dp))
+                }
+                
                 Column(
                     modifier = Modifier.weight(1f),
                     verticalArrangement = Arrangement.spacedBy(4.dp)
                 ) {
                     Text(
-                        text = record.animalId,
+                        text = row.animalId,
                         style = MaterialTheme.typography.titleMedium,
                         fontWeight = FontWeight.SemiBold,
                         color = MaterialTheme.colorScheme.primary,
@@ -106,7 +214,7 @@ private fun AnimalRecordCard(
                     )
                     
                     Text(
-                        text = fileUtils.formatDate(record.date),
+                        text = row.formattedDate,
                         style = MaterialTheme.typography.bodyMedium,
                         color = MaterialTheme.colorScheme.onSurfaceVariant,
                         maxLines = 1
@@ -116,21 +224,21 @@ private fun AnimalRecordCard(
                 // ATC Score Badge with proper alignment
                 Surface(
                     shape = MaterialTheme.shapes.medium,
-                    color = when {
-                        record.atcScore >= 85 -> MaterialTheme.colorScheme.primaryContainer
-                        record.atcScore >= 70 -> MaterialTheme.colorScheme.secondaryContainer
-                        else -> MaterialTheme.colorScheme.tertiaryContainer
+                    color = when (row.scoreBucket) {
+                        ScoreBucket.HIGH -> MaterialTheme.colorScheme.primaryContainer
+                        ScoreBucket.MEDIUM -> MaterialTheme.colorScheme.secondaryContainer
+                        ScoreBucket.LOW -> MaterialTheme.colorScheme.tertiaryContainer
                     }
                 ) {
                     Text(
-                        text = "ATC: ${record.atcScore}",
+                        text = "ATC: ${row.atcScore}",
                         modifier = Modifier.padding(horizontal = 10.dp, vertical = 6.dp),
                         style = MaterialTheme.typography.labelMedium,
                         fontWeight = FontWeight.Bold,
-                        color = when {
-                            record.atcScore >= 85 -> MaterialTheme.colorScheme.onPrimaryContainer
-                            record.atcScore >= 70 -> MaterialTheme.colorScheme.onSecondaryContainer
-                            else -> MaterialTheme.colorScheme.onTertiaryContainer
+                        color = when (row.scoreBucket) {
+                            ScoreBucket.HIGH -> MaterialTheme.colorScheme.onPrimaryContainer
+                            ScoreBucket.MEDIUM -> MaterialTheme.colorScheme.onSecondaryContainer
+                            ScoreBucket.LOW -> MaterialTheme.colorScheme.onTertiaryContainer
                         }
                     )
                 }
@@ -143,19 +251,19 @@ private fun AnimalRecordCard(
             ) {
                 MeasurementChip(
                     label = "Length",
-                    value = "${record.bodyLength.toInt()}cm",
+                    value = "${row.bodyLengthCm}cm",
                     modifier = Modifier.weight(1f)
                 )
                 
                 MeasurementChip(
                     label = "Height",
-                    value = "${record.height.toInt()}cm",
+                    value = "${row.heightCm}cm",
                     modifier = Modifier.weight(1f)
                 )
                 
                 MeasurementChip(
                     label = "Width",
-                    value = "${record.chestWidth.toInt()}cm",
+                    value = "${row.chestWidthCm}cm",
                     modifier = Modifier.weight(1f)
                 )
             }
@@ -166,16 +274,16 @@ private fun AnimalRecordCard(
                 horizontalArrangement = Arrangement.spacedBy(4.dp)
             ) {
                 Icon(
-                    imageVector = if (record.synced) Icons.Default.CloudDone else Icons.Default.CloudOff,
+                    imageVector = if (row.synced) Icons.Default.CloudDone else Icons.Default.CloudOff,
                     contentDescription = null,
-                    tint = if (record.synced) MaterialTheme.colorScheme.primary else MaterialTheme.colorScheme.onSurfaceVariant,
+                    tint = if (row.synced) MaterialTheme.colorScheme.primary else MaterialTheme.colorScheme.onSurfaceVariant,
                     modifier = Modifier.size(16.dp)
                 )
                 
                 Text(
-                    text = if (record.synced) "Synced" else "Not synced",
+                    text = if (row.synced) "Synced" else "Not synced",
                     style = MaterialTheme.typography.labelSmall,
-                    color = if (record.synced) MaterialTheme.colorScheme.primary else MaterialTheme.colorScheme.onSurfaceVariant
+                    color = if (row.synced) MaterialTheme.colorScheme.primary else MaterialTheme.colorScheme.onSurfaceVariant
                 )
             }
         }
@@ -12,11 +12,13 @@ import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.tooling.preview.Preview
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
+import com.cattlebreed.app.data.entity.RecordSummary
 import com.cattlebreed.app.ui.theme.CattleBreedAppTheme
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun HomeScreen(
+    summary: RecordSummary?,
     onNavigateToCapture: () -> Unit,
     onNavigateToHistory: () -> Unit,
     onNavigateToExport: () -> Unit,
@@ -77,7 +79,11 @@ fun HomeScreen(
                 )
             }
             
-            Spacer(modifier = Modifier.height(12.dp))
+            if (summary != null && summary.recordCount > 0) {
+                RecordSummaryCard(summary = summary)
+            } else {
+                Spacer(modifier = Modifier.height(12.dp))
+            }
             
             // Main Action Buttons
             HomeActionButton(
@@ -168,11 +174,52 @@ private fun HomeActionButton(
     }
 }
 
+@Composable
+private fun RecordSummaryCard(summary: RecordSummary) {
+    Surface(
+        modifier = Modifier.fillMaxWidth(),
+        shape = MaterialTheme.shapes.medium,
+        color = MaterialTheme.colorScheme.surfaceVariant.copy(alpha = 0.7f)
+    ) {
+        Row(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(vertical = 12.dp),
+            horizontalArrangement = Arrangement.SpaceEvenly
+        ) {
+            SummaryStat(value = summary.recordCount.toString(), label = "Animals")
+            SummaryStat(value = "%.1f".format(summary.averageAtcScore), label = "Avg ATC")
+            SummaryStat(value = summary.excellentCount.toString(), label = "ATC 85+")
+        }
+    }
+}
+
+@Composable
+private fun SummaryStat(value: String, label: String) {
+    Column(
+        horizontalAlignment = Alignment.CenterHorizontally,
+        verticalArrangement = Arrangement.spacedBy(2.dp)
+    ) {
+        Text(
+            text = value,
+            style = MaterialTheme.typography.titleLarge,
+            fontWeight = FontWeight.Bold,
+            color = MaterialTheme.colorScheme.primary
+        )
+        Text(
+            text = label,
+            style = MaterialTheme.typography.labelMedium,
+            color = MaterialTheme.colorScheme.onSurfaceVariant
+        )
+    }
+}
+
 @Preview(showBackground = true)
 @Composable
 fun HomeScreenPreview() {
     CattleBreedAppTheme {
         HomeScreen(
+            summary = RecordSummary(recordCount = 12, atcScoreSum = 936, excellentCount = 4),
             onNavigateToCapture = {},
             onNavigateToHistory = {},
             onNavigateToExport = {},
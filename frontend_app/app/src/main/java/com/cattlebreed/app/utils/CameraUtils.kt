@@ -6,6 +6,8 @@ import androidx.camera.core.*
 import androidx.camera.lifecycle.ProcessCameraProvider
 import androidx.core.content.ContextCompat
 import androidx.lifecycle.LifecycleOwner
+import com.cattlebreed.app.metrics.MetricsRegistry
+import com.cattlebreed.app.metrics.TraceSpan
 import java.io.File
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
@@ -68,17 +70,22 @@ class CameraUtils(private val context: Context) {
         onError: (Exception) -> Unit
     ) {
         val outputOptions = ImageCapture.OutputFileOptions.Builder(outputFile).build()
+        // Shutter to file on disk
+        val span = TraceSpan.start("camera.capture")
         
         imageCapture.takePicture(
             outputOptions,
             cameraExecutor,
             object : ImageCapture.OnImageSavedCallback {
                 override fun onImageSaved(output: ImageCapture.OutputFileResults) {
+                    span.end()
+                    MetricsRegistry.recordValue("camera.capture.bytes", outputFile.length())
                     onImageSaved(outputFile.absolutePath)
                     Log.d(TAG, "Photo saved successfully: ${outputFile.absolutePath}")
                 }
                 
                 override fun onError(exception: ImageCaptureException) {
+                    span.fail()
                     onError(exception)
                     Log.e(TAG, "Photo capture failed: ${exception.message}", exception)
                 }
@@ -3,10 +3,15 @@ package com.cattlebreed.app.utils
 import android.content.Context
 import android.os.Environment
 import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.sync.SyncMetricsSnapshot
+import com.cattlebreed.app.metrics.MetricsRegistry
+import com.cattlebreed.app.metrics.MetricsSnapshot
+import com.cattlebreed.app.metrics.traced
 import com.google.gson.Gson
 import com.google.gson.GsonBuilder
 import java.io.File
 import java.io.FileWriter
+import java.io.Writer
 import java.text.SimpleDateFormat
 import java.util.*
 
@@ -27,9 +32,24 @@ class FileUtils(private val context: Context) {
         return File(storageDir, "${imageFileName}.jpg")
     }
     
-    fun exportToJson(records: List<AnimalRecord>): File {
+    fun exportToJson(records: List<AnimalRecord>): File =
+        tracedExport("export.json") { writeJson(records) }
+    
+    fun exportToCsv(records: List<AnimalRecord>): File =
+        tracedExport("export.csv") { writeCsv(records) }
+    
+    /**
+     * Writes the sync diagnostics ring buffer next to the data exports
+     */
+    fun exportSyncMetrics(snapshot: SyncMetricsSnapshot): File =
+        tracedExport("export.syncMetrics") { writeSyncMetrics(snapshot) }
+    
+    /**
+     * Writes the hot-path metrics snapshot next to the data exports
+     */
+    fun exportMetrics(snapshot: MetricsSnapshot): File {
         val timeStamp = dateFormat.format(Date())
-        val fileName = "cattle_records_${timeStamp}.json"
+        val fileName = "metrics_${timeStamp}.json"
         val exportDir = File(context.filesDir, "exports")
         
         if (!exportDir.exists()) {
@@ -38,20 +58,36 @@ class FileUtils(private val context: Context) {
         
         val file = File(exportDir, fileName)
         val gson = GsonBuilder()
-            .setDateFormat("yyyy-MM-dd HH:mm:ss")
+            .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS")
             .setPrettyPrinting()
             .create()
         
-        val jsonData = gson.toJson(records)
+        FileWriter(file).use { writer ->
+            gson.toJson(snapshot, writer)
+        }
+        
+        return file
+    }
+    
+    private fun writeJson(records: List<AnimalRecord>): File {
+        val timeStamp = dateFormat.format(Date())
+        val fileName = "cattle_records_${timeStamp}.json"
+        val exportDir = File(context.filesDir, "exports")
+        
+        if (!exportDir.exists()) {
+            exportDir.mkdirs()
+        }
+        
+        val file = File(exportDir, fileName)
         
         FileWriter(file).use { writer ->
-            writer.write(jsonData)
+            writeRecordsJson(records.asSequence(), writer)
         }
         
         return file
     }
     
-    fun exportToCsv(records: List<AnimalRecord>): File {
+    private fun writeCsv(records: List<AnimalRecord>): File {
         val timeStamp = dateFormat.format(Date())
         val fileName = "cattle_records_${timeStamp}.csv"
         val exportDir = File(context.filesDir, "exports")
@@ -63,27 +99,81 @@ class FileUtils(private val context: Context) {
         val file = File(exportDir, fileName)
         
         FileWriter(file).use { writer ->
-            // Write CSV header
-            writer.write("ID,Animal ID,Date,Image Path,Body Length,Height,Chest Width,Rump Angle,ATC Score,Synced\n")
-            
-            // Write data rows
-            records.forEach { record ->
-                writer.write("${record.id},")
-                writer.write("${record.animalId},")
-                writer.write("${displayDateFormat.format(record.date)},")
-                writer.write("${record.imagePath},")
-                writer.write("${record.bodyLength},")
-                writer.write("${record.height},")
-                writer.write("${record.chestWidth},")
-                writer.write("${record.rumpAngle},")
-                writer.write("${record.atcScore},")
-                writer.write("${record.synced}\n")
-            }
+            writeRecordsCsv(records.asSequence(), writer)
         }
         
         return file
     }
     
+    /**
+     * Streams records as the same JSON array [exportToJson] writes, one
+     * record at a time, so [records] can be paged from the database
+     */
+    fun writeRecordsJson(records: Sequence<AnimalRecord>, writer: Writer) {
+        val gson = GsonBuilder()
+            .setDateFormat("yyyy-MM-dd HH:mm:ss")
+            .setPrettyPrinting()
+            .create()
+        val json = gson.newJsonWriter(writer)
+        json.beginArray()
+        records.forEach { record ->
+            gson.toJson(record, AnimalRecord::class.java, json)
+        }
+        json.endArray()
+        json.flush()
+    }
+    
+    fun writeRecordsCsv(records: Sequence<AnimalRecord>, writer: Writer) {
+        // Own instance: this also runs on the share provider's threads
+        val rowDateFormat = SimpleDateFormat("MMM dd, yyyy HH:mm", Locale.getDefault())
+        
+        // Write CSV header
+        writer.write("ID,Animal ID,Date,Image Path,Body Length,Height,Chest Width,Rump Angle,ATC Score,Synced\n")
+        
+        // Write data rows
+        records.forEach { record ->
+            writer.write("${record.id},")
+            writer.write("${record.animalId},")
+            writer.write("${rowDateFormat.format(record.date)},")
+            writer.write("${record.imagePath},")
+            writer.write("${record.bodyLength},")
+            writer.write("${record.height},")
+            writer.write("${record.chestWidth},")
+            writer.write("${record.rumpAngle},")
+            writer.write("${record.atcScore},")
+            writer.write("${record.synced}\n")
+        }
+        writer.flush()
+    }
+    
+    private fun writeSyncMetrics(snapshot: SyncMetricsSnapshot): File {
+        val timeStamp = dateFormat.format(Date())
+        val fileName = "sync_metrics_${timeStamp}.json"
+        val exportDir = File(context.filesDir, "exports")
+        
+        if (!exportDir.exists()) {
+            exportDir.mkdirs()
+        }
+        
+        val file = File(exportDir, fileName)
+        val gson = GsonBuilder()
+            .setDateFormat("yyyy-MM-dd HH:mm:ss.SSS")
+            .setPrettyPrinting()
+            .create()
+        
+        FileWriter(file).use { writer ->
+            gson.toJson(snapshot, writer)
+        }
+        
+        return file
+    }
+    
+    /**
+     * Times an export under [name] and records the size of the file it wrote
+     */
+    private inline fun tracedExport(name: String, write: () -> File): File =
+        traced(name, write).also { MetricsRegistry.recordValue("$name.bytes", it.length()) }
+    
     fun formatDate(date: Date): String {
         return displayDateFormat.format(date)
     }
@@ -1,35 +1,35 @@
 package com.cattlebreed.app.utils
 
 import android.content.Context
-import android.content.SharedPreferences
 import androidx.appcompat.app.AppCompatDelegate
 import androidx.core.os.LocaleListCompat
+import com.cattlebreed.app.data.session.SessionStore
 import java.util.Locale
 
 /**
  * Language manager for handling multi-language support
  * Supports major Indian languages
+ *
+ * The selection lives in [SessionStore]; reads come from its in-memory
+ * snapshot and writes finish in the background.
  */
 class LanguageManager(
     private val context: Context,
-    private val preferences: SharedPreferences
+    private val sessionStore: SessionStore
 ) {
     
     companion object {
-        private const val PREF_LANGUAGE_CODE = "selected_language"
-        private const val DEFAULT_LANGUAGE = "en"
+        private const val DEFAULT_LANGUAGE = SessionStore.DEFAULT_LANGUAGE
         
         /**
          * Static helper methods for use without instance
          */
         fun getCurrentLanguage(context: Context): String {
-            val prefs = context.getSharedPreferences("cattle_breed_prefs", Context.MODE_PRIVATE)
-            return prefs.getString(PREF_LANGUAGE_CODE, DEFAULT_LANGUAGE) ?: DEFAULT_LANGUAGE
+            return SessionStore.getInstance(context).session.value?.selectedLanguage ?: DEFAULT_LANGUAGE
         }
         
         fun setLanguage(context: Context, languageCode: String) {
-            val prefs = context.getSharedPreferences("cattle_breed_prefs", Context.MODE_PRIVATE)
-            prefs.edit().putString(PREF_LANGUAGE_CODE, languageCode).apply()
+            SessionStore.getInstance(context).updateAsync { setSelectedLanguage(languageCode) }
             
             // Apply language change
             val localeList = LocaleListCompat.forLanguageTags(languageCode)
@@ -78,18 +78,16 @@ class LanguageManager(
      * Get current selected language
      */
     fun getCurrentLanguage(): SupportedLanguage {
-        val savedLanguage = preferences.getString(PREF_LANGUAGE_CODE, DEFAULT_LANGUAGE)
-        return SupportedLanguage.fromCode(savedLanguage ?: DEFAULT_LANGUAGE) ?: SupportedLanguage.ENGLISH
+        val savedLanguage = sessionStore.session.value?.selectedLanguage ?: DEFAULT_LANGUAGE
+        return SupportedLanguage.fromCode(savedLanguage) ?: SupportedLanguage.ENGLISH
     }
     
     /**
      * Set application language
      */
     fun setLanguage(language: SupportedLanguage) {
-        // Save to preferences
-        preferences.edit()
-            .putString(PREF_LANGUAGE_CODE, language.code)
-            .apply()
+        // Save to the session store
+        sessionStore.updateAsync { setSelectedLanguage(language.code) }
         
         // Apply to app
         applyLanguage(language)
@@ -7,9 +7,12 @@ import android.graphics.Paint
 import android.graphics.pdf.PdfDocument
 import android.graphics.pdf.PdfDocument.PageInfo
 import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.entity.RecordSummary
+import com.cattlebreed.app.metrics.MetricsRegistry
+import com.cattlebreed.app.metrics.traced
 import java.io.File
 import java.io.FileOutputStream
-import java.io.IOException
+import java.io.OutputStream
 import java.text.SimpleDateFormat
 import java.util.*
 
@@ -26,11 +29,26 @@ class PDFUtils(private val context: Context) {
         private const val SMALL_SIZE = 12f
     }
     
-    fun exportToPDF(records: List<AnimalRecord>, outputDir: File): File {
+    fun exportToPDF(records: List<AnimalRecord>, summary: RecordSummary, outputDir: File): File =
+        traced("export.pdf") { writePDF(records, summary, outputDir) }
+            .also { MetricsRegistry.recordValue("export.pdf.bytes", it.length()) }
+    
+    private fun writePDF(records: List<AnimalRecord>, summary: RecordSummary, outputDir: File): File {
         val timestamp = SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(Date())
         val fileName = "cattle_records_$timestamp.pdf"
         val outputFile = File(outputDir, fileName)
         
+        FileOutputStream(outputFile).use { out ->
+            renderPDF(records, summary, out)
+        }
+        
+        return outputFile
+    }
+    
+    /**
+     * Renders the report straight into [out], e.g. a share pipe; the caller closes it
+     */
+    fun renderPDF(records: List<AnimalRecord>, summary: RecordSummary, out: OutputStream) {
         val document = PdfDocument()
         
         try {
@@ -44,21 +62,14 @@ class PDFUtils(private val context: Context) {
             
             // Create summary page
             if (records.isNotEmpty()) {
-                createSummaryPage(document, records)
+                createSummaryPage(document, summary)
             }
             
             // Save document
-            val fileOutputStream = FileOutputStream(outputFile)
-            document.writeTo(fileOutputStream)
-            fileOutputStream.close()
+            document.writeTo(out)
+        } finally {
             document.close()
-            
-        } catch (e: IOException) {
-            document.close()
-            throw e
         }
-        
-        return outputFile
     }
     
     private fun createCoverPage(document: PdfDocument, recordCount: Int) {
@@ -248,7 +259,7 @@ class PDFUtils(private val context: Context) {
         document.finishPage(page)
     }
     
-    private fun createSummaryPage(document: PdfDocument, records: List<AnimalRecord>) {
+    private fun createSummaryPage(document: PdfDocument, summary: RecordSummary) {
         val pageInfo = PageInfo.Builder(PAGE_WIDTH, PAGE_HEIGHT, document.pages.size + 1).create()
         val page = document.startPage(pageInfo)
         val canvas = page.canvas
@@ -270,30 +281,20 @@ class PDFUtils(private val context: Context) {
         canvas.drawText("सारांश / Summary", MARGIN.toFloat(), yPos, headingPaint)
         yPos += 40
         
-        // Statistics
-        val totalRecords = records.size
-        val avgAtcScore = records.map { it.atcScore }.average()
-        val excellentCount = records.count { it.atcScore >= 85 }
-        val goodCount = records.count { it.atcScore >= 70 && it.atcScore < 85 }
-        val fairCount = records.count { it.atcScore < 70 }
-        
-        val avgBodyLength = records.map { it.bodyLength }.average()
-        val avgHeight = records.map { it.height }.average()
-        val avgChestWidth = records.map { it.chestWidth }.average()
-        
+        // Statistics, from the running totals rather than a pass over every record
         val summaryData = listOf(
-            "कुल पशु / Total Animals: $totalRecords",
-            "औसत ATC स्कोर / Average ATC Score: ${"%.1f".format(avgAtcScore)}",
+            "कुल पशु / Total Animals: ${summary.recordCount}",
+            "औसत ATC स्कोर / Average ATC Score: ${"%.1f".format(summary.averageAtcScore)}",
             "",
             "ATC स्कोर वितरण / ATC Score Distribution:",
-            "  उत्कृष्ट (85+) / Excellent (85+): $excellentCount",
-            "  अच्छा (70-84) / Good (70-84): $goodCount", 
-            "  सामान्य (<70) / Fair (<70): $fairCount",
+            "  उत्कृष्ट (85+) / Excellent (85+): ${summary.excellentCount}",
+            "  अच्छा (70-84) / Good (70-84): ${summary.goodCount}", 
+            "  सामान्य (<70) / Fair (<70): ${summary.fairCount}",
             "",
             "औसत माप / Average Measurements:",
-            "  शरीर की लंबाई / Body Length: ${"%.1f".format(avgBodyLength)} cm",
-            "  ऊंचाई / Height: ${"%.1f".format(avgHeight)} cm",
-            "  छाती की चौड़ाई / Chest Width: ${"%.1f".format(avgChestWidth)} cm"
+            "  शरीर की लंबाई / Body Length: ${"%.1f".format(summary.averageBodyLength)} cm",
+            "  ऊंचाई / Height: ${"%.1f".format(summary.averageHeight)} cm",
+            "  छाती की चौड़ाई / Chest Width: ${"%.1f".format(summary.averageChestWidth)} cm"
         )
         
         summaryData.forEach { data ->
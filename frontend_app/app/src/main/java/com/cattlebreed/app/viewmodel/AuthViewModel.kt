@@ -14,32 +14,14 @@ class AuthViewModel(
     private val authRepository: AuthRepository
 ) : ViewModel() {
     
-    private val _authState = MutableStateFlow<AuthState>(AuthState.Unauthenticated)
+    private val _authState = MutableStateFlow(authRepository.authState.value)
     val authState: StateFlow<AuthState> = _authState.asStateFlow()
     
     init {
-        // Check if user is already authenticated on app start
-        checkAuthenticationStatus()
-    }
-    
-    private fun checkAuthenticationStatus() {
+        // The repository restores the saved session itself (see AppContainer.warmUp),
+        // so this only follows its state instead of reading preferences a second time
         viewModelScope.launch {
-            try {
-                val isAuthenticated = authRepository.isAuthenticated()
-                if (isAuthenticated) {
-                    val userInfo = authRepository.getCurrentUser()
-                    if (userInfo != null) {
-                        _authState.value = AuthState.Authenticated(userInfo)
-                    } else {
-                        _authState.value = AuthState.Unauthenticated
-                    }
-                } else {
-                    _authState.value = AuthState.Unauthenticated
-                }
-            } catch (e: Exception) {
-                Log.e("AuthViewModel", "Error checking auth status", e)
-                _authState.value = AuthState.Unauthenticated
-            }
+            authRepository.authState.collect { _authState.value = it }
         }
     }
     
@@ -107,7 +89,9 @@ class AuthViewModel(
     }
     
     fun skipLogin() {
-        authRepository.setGuestMode()
+        viewModelScope.launch {
+            authRepository.setGuestMode()
+        }
     }
     
     fun clearError() {
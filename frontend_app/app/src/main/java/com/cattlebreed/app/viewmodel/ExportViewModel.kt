@@ -4,6 +4,7 @@ import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.cattlebreed.app.data.entity.AnimalRecord
 import com.cattlebreed.app.data.repository.AnimalRepository
+import com.cattlebreed.app.data.sync.SyncMetrics
 import com.cattlebreed.app.utils.FileUtils
 import com.cattlebreed.app.utils.PDFUtils
 import kotlinx.coroutines.flow.MutableStateFlow
@@ -16,7 +17,8 @@ import java.io.File
 class ExportViewModel(
     private val repository: AnimalRepository,
     private val fileUtils: FileUtils,
-    private val pdfUtils: PDFUtils
+    private val pdfUtils: PDFUtils,
+    private val syncMetrics: SyncMetrics
 ) : ViewModel() {
     
     private val _isExporting = MutableStateFlow(false)
@@ -34,7 +36,8 @@ class ExportViewModel(
             try {
                 val records = repository.getAllRecords().first()
                 val file = fileUtils.exportToJson(records)
-                _exportedFiles.value = _exportedFiles.value + file
+                val metricsFile = fileUtils.exportSyncMetrics(syncMetrics.snapshot())
+                _exportedFiles.value = _exportedFiles.value + file + metricsFile
                 _exportMessage.value = "Data exported to JSON successfully! File saved at: ${file.absolutePath}"
             } catch (e: Exception) {
                 _exportMessage.value = "Error exporting to JSON: ${e.message}"
@@ -60,15 +63,19 @@ class ExportViewModel(
         }
     }
     
-    fun exportToPdf() {
+    /**
+     * Saves the PDF report, then hands the file to [onSaved], e.g. to share it
+     */
+    fun exportToPdf(onSaved: (File) -> Unit = {}) {
         viewModelScope.launch {
             _isExporting.value = true
             try {
                 val records = repository.getAllRecords().first()
                 val outputDir = fileUtils.getExportDirectory()
-                val file = pdfUtils.exportToPDF(records, outputDir)
+                val file = pdfUtils.exportToPDF(records, repository.getSummary(), outputDir)
                 _exportedFiles.value = _exportedFiles.value + file
                 _exportMessage.value = "Data exported to PDF successfully! Bilingual report saved at: ${file.absolutePath}"
+                onSaved(file)
             } catch (e: Exception) {
                 _exportMessage.value = "Error exporting to PDF: ${e.message}"
             } finally {
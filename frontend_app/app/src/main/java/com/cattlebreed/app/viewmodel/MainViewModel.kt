@@ -2,28 +2,75 @@ package com.cattlebreed.app.viewmodel
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import com.cattlebreed.app.data.dao.RecordSearch
 import com.cattlebreed.app.data.entity.AnimalRecord
+import com.cattlebreed.app.data.entity.RecordSummary
 import com.cattlebreed.app.data.repository.AnimalRepository
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.launch
+import java.text.SimpleDateFormat
 import java.util.Date
+import java.util.Locale
 import java.util.UUID
 
 class MainViewModel(
     private val repository: AnimalRepository
 ) : ViewModel() {
     
-    val allRecords: StateFlow<List<AnimalRecord>> = repository.getAllRecords()
+    companion object {
+        // Same as FileUtils.formatDate
+        private const val DISPLAY_DATE_PATTERN = "MMM dd, yyyy HH:mm"
+        private const val SEARCH_DEBOUNCE_MILLIS = 250L
+    }
+    
+    // Last emission's rows by id, so an unchanged record keeps its row instance
+    private var rowCache: Map<Long, Pair<AnimalRecord, RecordRow>> = emptyMap()
+    
+    private val _search = MutableStateFlow(RecordSearch())
+    val search: StateFlow<RecordSearch> = _search.asStateFlow()
+    
+    /**
+     * History cards for the current [search], formatted on a background
+     * dispatcher rather than during composition. Typing is debounced, and a
+     * newer search cancels the one still running.
+     */
+    @OptIn(FlowPreview::class, ExperimentalCoroutinesApi::class)
+    val historyRows: StateFlow<List<RecordRow>> = _search
+        .debounce { if (it.isEmpty) 0L else SEARCH_DEBOUNCE_MILLIS }
+        .distinctUntilChanged()
+        .flatMapLatest { search ->
+            if (search.isEmpty) repository.getAllRecords() else repository.searchRecords(search)
+        }
+        .map { records -> toRows(records) }
+        .flowOn(Dispatchers.Default)
         .stateIn(
             scope = viewModelScope,
             started = SharingStarted.WhileSubscribed(5000),
             initialValue = emptyList()
         )
     
+    /**
+     * Record totals for HomeScreen; one row read, whatever the record count
+     */
+    val summary: StateFlow<RecordSummary?> = repository.observeSummary()
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = null
+        )
+    
     private val _isLoading = MutableStateFlow(false)
     val isLoading: StateFlow<Boolean> = _isLoading.asStateFlow()
     
@@ -56,6 +103,25 @@ class MainViewModel(
         }
     }
     
+    private fun toRows(records: List<AnimalRecord>): List<RecordRow> {
+        // SimpleDateFormat isn't thread-safe, so one per pass
+        val dateFormat = SimpleDateFormat(DISPLAY_DATE_PATTERN, Locale.getDefault())
+        val previous = rowCache
+        val next = HashMap<Long, Pair<AnimalRecord, RecordRow>>(records.size)
+        val rows = records.map { record ->
+            val cached = previous[record.id]
+            val row = if (cached != null && cached.first == record) cached.second else record.toRow(dateFormat)
+            next[record.id] = record to row
+            row
+        }
+        rowCache = next
+        return rows
+    }
+    
+    fun updateSearch(search: RecordSearch) {
+        _search.value = search
+    }
+    
     fun clearMessage() {
         _message.value = null
     }
@@ -0,0 +1,52 @@
+package com.cattlebreed.app.viewmodel
+
+import androidx.compose.runtime.Immutable
+import com.cattlebreed.app.data.entity.AnimalRecord
+import java.text.SimpleDateFormat
+
+/**
+ * One HistoryScreen card, with everything it shows already worked out.
+ *
+ * Only vals of stable types, so the card composable is skippable: a card
+ * whose row is unchanged is not recomposed when the list around it changes.
+ */
+@Immutable
+data class RecordRow(
+    val id: Long,
+    val animalId: String,
+    val formattedDate: String,
+    val atcScore: Int,
+    val scoreBucket: ScoreBucket,
+    val bodyLengthCm: Int,
+    val heightCm: Int,
+    val chestWidthCm: Int,
+    val synced: Boolean,
+    val thumbnailPath: String? // null when the record has no image
+)
+
+enum class ScoreBucket {
+    HIGH,   // 85 and above
+    MEDIUM, // 70 to 84
+    LOW;
+
+    companion object {
+        fun of(atcScore: Int) = when {
+            atcScore >= 85 -> HIGH
+            atcScore >= 70 -> MEDIUM
+            else -> LOW
+        }
+    }
+}
+
+internal fun AnimalRecord.toRow(dateFormat: SimpleDateFormat) = RecordRow(
+    id = id,
+    animalId = animalId,
+    formattedDate = dateFormat.format(date),
+    atcScore = atcScore,
+    scoreBucket = ScoreBucket.of(atcScore),
+    bodyLengthCm = bodyLength.toInt(),
+    heightCm = height.toInt(),
+    chestWidthCm = chestWidth.toInt(),
+    synced = synced,
+    thumbnailPath = imagePath.ifBlank { null }
+)
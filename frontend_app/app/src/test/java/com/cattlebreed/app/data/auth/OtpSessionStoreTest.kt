@@ -0,0 +1,111 @@
+package com.cattlebreed.app.data.auth
+
+import com.cattlebreed.app.data.auth.OtpSessionStore.IssueResult
+import com.cattlebreed.app.data.auth.OtpSessionStore.VerifyResult
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class OtpSessionStoreTest {
+
+    private var now = 1_718_173_800_000L
+    private val store = OtpSessionStore(capacity = 2, clock = { now })
+
+    @Test
+    fun aCodeSignsInOnce() {
+        assertEquals(IssueResult.Issued, store.issue(PHONE, "123456"))
+
+        assertEquals(VerifyResult.Verified, store.verify(PHONE, "123456"))
+        assertEquals(VerifyResult.NotRequested, store.verify(PHONE, "123456"))
+    }
+
+    @Test
+    fun thirdWrongGuessBurnsTheCode() {
+        store.issue(PHONE, "123456")
+
+        repeat(OtpSessionStore.MAX_ATTEMPTS) {
+            assertEquals(VerifyResult.Invalid, store.verify(PHONE, "000000"))
+        }
+        assertEquals(VerifyResult.NotRequested, store.verify(PHONE, "123456"))
+    }
+
+    @Test
+    fun concurrentGuessesShareTheAttemptLimit() {
+        store.issue(PHONE, "123456")
+
+        val results = race(50) { store.verify(PHONE, "000000") }
+
+        assertEquals(results.toString(), OtpSessionStore.MAX_ATTEMPTS, results.count { it == VerifyResult.Invalid })
+        assertEquals(VerifyResult.NotRequested, store.verify(PHONE, "123456"))
+    }
+
+    @Test
+    fun concurrentCorrectGuessesSignInOnce() {
+        store.issue(PHONE, "123456")
+
+        val results = race(OtpSessionStore.MAX_ATTEMPTS) { store.verify(PHONE, "123456") }
+
+        assertEquals(results.toString(), 1, results.count { it == VerifyResult.Verified })
+    }
+
+    @Test
+    fun codesExpire() {
+        store.issue(PHONE, "123456")
+        now += OtpSessionStore.CODE_TTL_MILLIS
+
+        assertEquals(VerifyResult.Expired, store.verify(PHONE, "123456"))
+    }
+
+    @Test
+    fun resendsWaitForTheCooldownAndTheWindow() {
+        store.issue(PHONE, "100000")
+        now += 10_000
+        assertEquals(IssueResult.RateLimited(20), store.issue(PHONE, "100001"))
+
+        repeat(OtpSessionStore.MAX_SENDS_PER_WINDOW - 1) {
+            now += OtpSessionStore.RESEND_COOLDOWN_MILLIS
+            assertEquals(IssueResult.Issued, store.issue(PHONE, "10000$it"))
+        }
+        now += OtpSessionStore.RESEND_COOLDOWN_MILLIS
+        // 160 s into the window
+        assertEquals(IssueResult.RateLimited(740), store.issue(PHONE, "100009"))
+
+        now += 740_000
+        assertEquals(IssueResult.Issued, store.issue(PHONE, "100010"))
+    }
+
+    @Test
+    fun aFullStoreSweepsLapsedNumbersBeforeRefusing() {
+        store.issue("9000000001", "111111")
+        store.issue("9000000002", "222222")
+
+        assertEquals(IssueResult.RateLimited(30), store.issue("9000000003", "333333"))
+
+        now += OtpSessionStore.WINDOW_MILLIS
+        assertEquals(IssueResult.Issued, store.issue("9000000003", "333333"))
+        assertEquals(VerifyResult.NotRequested, store.verify("9000000001", "111111"))
+    }
+
+    private fun <T> race(threads: Int, call: () -> T): List<T> {
+        val executor = Executors.newFixedThreadPool(threads)
+        try {
+            val start = CountDownLatch(1)
+            val futures = (1..threads).map {
+                executor.submit<T> {
+                    start.await()
+                    call()
+                }
+            }
+            start.countDown()
+            return futures.map { it.get(10, TimeUnit.SECONDS) }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private companion object {
+        const val PHONE = "9876543210"
+    }
+}
@@ -0,0 +1,81 @@
+package com.cattlebreed.app.network
+
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class CattleApiConfigTest {
+
+    @get:Rule
+    val cacheDir = TemporaryFolder()
+
+    private val configJson = """{"success":true,"data":null}"""
+
+    private lateinit var server: MockWebServer
+    private lateinit var apiClient: ApiClient
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        apiClient = ApiClient(server.url("/api/v1/"), null)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun revalidatesWithTheStoredEtag() = runBlocking {
+        server.enqueue(MockResponse().setHeader("ETag", "\"v1\"").setBody(configJson))
+        server.enqueue(MockResponse().setResponseCode(304))
+        val api = CattleApi(apiClient, cacheDir.root)
+
+        val first = api.getAppConfig().getOrThrow()
+        val second = api.getAppConfig().getOrThrow()
+
+        assertNull(server.takeRequest().getHeader("If-None-Match"))
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"))
+        assertEquals(first, second)
+    }
+
+    @Test
+    fun answersA304FromTheDiskCacheAfterARestart() = runBlocking {
+        server.enqueue(MockResponse().setHeader("ETag", "\"v1\"").setBody(configJson))
+        server.enqueue(MockResponse().setResponseCode(304))
+
+        val first = CattleApi(apiClient, cacheDir.root).getAppConfig().getOrThrow()
+        // A new instance has nothing in memory, as after a process restart
+        val restored = CattleApi(apiClient, cacheDir.root).getAppConfig().getOrThrow()
+
+        server.takeRequest()
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"))
+        assertEquals(first, restored)
+    }
+
+    @Test
+    fun replacesTheCacheWhenTheConfigChanges() = runBlocking {
+        server.enqueue(MockResponse().setHeader("ETag", "\"v1\"").setBody(configJson))
+        server.enqueue(MockResponse().setHeader("ETag", "\"v2\"").setBody("""{"success":false,"data":null}"""))
+        server.enqueue(MockResponse().setResponseCode(304))
+        val api = CattleApi(apiClient, cacheDir.root)
+
+        api.getAppConfig().getOrThrow()
+        val changed = api.getAppConfig().getOrThrow()
+        val revalidated = api.getAppConfig().getOrThrow()
+
+        server.takeRequest()
+        server.takeRequest()
+        assertEquals("\"v2\"", server.takeRequest().getHeader("If-None-Match"))
+        assertEquals(false, changed.success)
+        assertEquals(changed, revalidated)
+    }
+}
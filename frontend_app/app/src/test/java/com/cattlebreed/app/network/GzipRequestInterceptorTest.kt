@@ -0,0 +1,64 @@
+package com.cattlebreed.app.network
+
+import kotlinx.coroutines.runBlocking
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.GzipSource
+import okio.buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Test
+
+class GzipRequestInterceptorTest {
+
+    private val json = "application/json; charset=utf-8".toMediaType()
+    private val payload = """{"records":[${(1..50).joinToString(",") { """{"animalId":"GIR-$it","atcScore":80}""" }}]}"""
+
+    private lateinit var server: MockWebServer
+    private lateinit var apiClient: ApiClient
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        apiClient = ApiClient(server.url("/api/v1/"), null)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun syncBodiesAreSentGzipped() = runBlocking {
+        server.enqueue(MockResponse().setBody("{}"))
+
+        val request = apiClient.newRequest(EndpointClass.SYNC, "records/sync")
+            .post(payload.toRequestBody(json))
+            .build()
+        apiClient.execute(EndpointClass.SYNC, request).close()
+
+        val recorded = server.takeRequest()
+        assertEquals("gzip", recorded.getHeader("Content-Encoding"))
+        val unzipped = GzipSource(recorded.body).buffer().readUtf8()
+        assertEquals(payload, unzipped)
+    }
+
+    @Test
+    fun otherEndpointClassesAreSentAsIs() = runBlocking {
+        server.enqueue(MockResponse().setBody("{}"))
+
+        val request = apiClient.newRequest(EndpointClass.AUTH, "auth/otp/send")
+            .post(payload.toRequestBody(json))
+            .build()
+        apiClient.execute(EndpointClass.AUTH, request).close()
+
+        val recorded = server.takeRequest()
+        assertNull(recorded.getHeader("Content-Encoding"))
+        assertEquals(payload, recorded.body.readUtf8())
+    }
+}
@@ -0,0 +1,96 @@
+package com.cattlebreed.app.network
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.RequestBody.Companion.toRequestBody
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class RetryPolicyTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var apiClient: ApiClient
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        apiClient = ApiClient(server.url("/api/v1/"), null)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun retriesAfterTheDelayTheServerAsksFor() = runBlocking {
+        server.enqueue(MockResponse().setResponseCode(503).setHeader("Retry-After", "1"))
+        server.enqueue(MockResponse().setBody("{}"))
+
+        val start = System.nanoTime()
+        val request = apiClient.newRequest(EndpointClass.CONFIG, "config").get().build()
+        val code = apiClient.execute(EndpointClass.CONFIG, request).use { it.code }
+        val elapsedMillis = (System.nanoTime() - start) / 1_000_000
+
+        assertEquals(200, code)
+        assertEquals(2, server.requestCount)
+        assertTrue("retried after ${elapsedMillis}ms", elapsedMillis >= 1_000)
+    }
+
+    @Test
+    fun retriesSyncPostsUpToTheLimit() = runBlocking {
+        repeat(EndpointClass.SYNC.maxRetries + 1) {
+            server.enqueue(MockResponse().setResponseCode(429).setHeader("Retry-After", "0"))
+        }
+
+        val request = apiClient.newRequest(EndpointClass.SYNC, "records/sync")
+            .post("{}".toRequestBody("application/json".toMediaType()))
+            .build()
+        val code = apiClient.execute(EndpointClass.SYNC, request).use { it.code }
+
+        assertEquals(429, code)
+        assertEquals(EndpointClass.SYNC.maxRetries + 1, server.requestCount)
+    }
+
+    @Test
+    fun doesNotReplayAuthPosts() = runBlocking {
+        // Not 0: OkHttp itself repeats a 503 that asks for an immediate retry
+        server.enqueue(MockResponse().setResponseCode(503).setHeader("Retry-After", "1"))
+        server.enqueue(MockResponse().setBody("{}"))
+
+        val request = apiClient.newRequest(EndpointClass.AUTH, "auth/otp/send")
+            .post("{}".toRequestBody("application/json".toMediaType()))
+            .build()
+        val code = apiClient.execute(EndpointClass.AUTH, request).use { it.code }
+
+        assertEquals(503, code)
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun cancellingStopsTheWaitBetweenAttempts() = runBlocking {
+        server.enqueue(MockResponse().setResponseCode(503).setHeader("Retry-After", "5"))
+        server.enqueue(MockResponse().setBody("{}"))
+
+        val request = apiClient.newRequest(EndpointClass.CONFIG, "config").get().build()
+        val call = async { apiClient.execute(EndpointClass.CONFIG, request).close() }
+        withContext(Dispatchers.IO) { server.takeRequest() }
+
+        val start = System.nanoTime()
+        call.cancelAndJoin()
+        val elapsedMillis = (System.nanoTime() - start) / 1_000_000
+
+        assertTrue("cancelled after ${elapsedMillis}ms", elapsedMillis < 1_000)
+        assertEquals(1, server.requestCount)
+    }
+}
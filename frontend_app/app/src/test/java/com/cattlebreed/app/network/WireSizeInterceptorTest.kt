@@ -0,0 +1,75 @@
+package com.cattlebreed.app.network
+
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.Buffer
+import okio.GzipSink
+import okio.buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class WireSizeInterceptorTest {
+
+    private val responseJson = """{"success":true,"message":"ok","data":{"syncedRecords":[${
+        (1..200).joinToString(",") { "\"GIR-$it\"" }
+    }],"conflicts":[],"serverRecords":[],"deletedRecords":[],"lastSyncTimestamp":7,"hasMore":false}}"""
+
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private lateinit var server: MockWebServer
+    private lateinit var api: CattleApi
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        api = CattleApi(ApiClient(server.url("/api/v1/"), null), tempFolder.root)
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun syncReportsCompressedSizesOnBothSides() = runBlocking {
+        val gzipped = Buffer().also { buffer ->
+            GzipSink(buffer).buffer().use { it.writeUtf8(responseJson) }
+        }
+        val gzippedSize = gzipped.size
+        server.enqueue(MockResponse().setHeader("Content-Encoding", "gzip").setBody(gzipped))
+
+        val request = SyncAnimalRecordsRequest(
+            records = emptyList(),
+            lastSyncTimestamp = null,
+            deletedRecordIds = (1..200).map { "GIR-$it" }
+        )
+        val encoded = api.encodeSyncRequest(request)
+        val wire = api.syncRecords(encoded).getOrThrow()
+
+        val recorded = server.takeRequest()
+        assertEquals(recorded.bodySize, wire.requestBytes)
+        assertTrue(wire.requestBytes < encoded.size)
+        assertEquals(gzippedSize, wire.responseBytes)
+        assertEquals(responseJson, wire.body)
+        assertEquals(7L, api.decodeSyncResponse(wire.body).data?.lastSyncTimestamp)
+    }
+
+    @Test
+    fun untaggedCallsAreLeftAlone() = runBlocking {
+        server.enqueue(MockResponse().setBody("{}"))
+
+        val client = ApiClient(server.url("/api/v1/"), null)
+        val request = client.newRequest(EndpointClass.CONFIG, "config").get().build()
+        client.execute(EndpointClass.CONFIG, request).use { response ->
+            assertEquals("{}", response.body?.string())
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cattlebreed.benchmark
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule
+import androidx.test.filters.LargeTest
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+/**
+ * Records the classes and methods the benchmark journeys touch. Needs a
+ * device on API 33+ (or rooted API 28+). Copy the resulting
+ * `BaselineProfileGenerator_generate-baseline-prof.txt` from the test
+ * output to app/src/main/baseline-prof.txt; the app ships no profile until then.
+ */
+@LargeTest
+class BaselineProfileGenerator {
+
+    @get:Rule
+    val baselineProfileRule = BaselineProfileRule()
+
+    @Before
+    fun seed() = seedRecords()
+
+    @Test
+    fun generate() = baselineProfileRule.collect(
+        packageName = TARGET_PACKAGE,
+        includeInStartupProfile = true
+    ) {
+        pressHome()
+        startActivityAndWait()
+        waitForHome()
+
+        openHistory()
+        scrollHistory()
+        openFirstRecord()
+        device.pressBack()
+        device.pressBack()
+
+        exportCsv()
+        device.pressBack()
+    }
+}
@@ -0,0 +1,70 @@
+package com.cattlebreed.benchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.FrameTimingMetric
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.filters.LargeTest
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Jank on the screens users spend time in, over 10k seeded records. Each
+ * iteration starts warm on HomeScreen; only the journey itself is traced.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class JourneyBenchmarks(private val compilationMode: CompilationMode) {
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "compilation={0}")
+        fun compilationModes() = listOf(
+            CompilationMode.None(),
+            CompilationMode.Partial(BaselineProfileMode.Require)
+        )
+    }
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Before
+    fun seed() = seedRecords()
+
+    @Test
+    fun scrollHistory() = measure(setup = { openHistory() }) {
+        scrollHistory()
+    }
+
+    @Test
+    fun openRecordDetail() = measure(setup = { openHistory() }) {
+        openFirstRecord()
+    }
+
+    @Test
+    fun exportCsv() = measure {
+        exportCsv()
+    }
+
+    private fun measure(
+        setup: MacrobenchmarkScope.() -> Unit = {},
+        journey: MacrobenchmarkScope.() -> Unit
+    ) = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(FrameTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.WARM,
+        iterations = 5,
+        setupBlock = {
+            startActivityAndWait()
+            waitForHome()
+            setup()
+        },
+        measureBlock = journey
+    )
+}
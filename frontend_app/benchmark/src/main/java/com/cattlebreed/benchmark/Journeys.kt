@@ -0,0 +1,85 @@
+package com.cattlebreed.benchmark
+
+import androidx.benchmark.macro.MacrobenchmarkScope
+import androidx.test.platform.app.InstrumentationRegistry
+import androidx.test.uiautomator.By
+import androidx.test.uiautomator.BySelector
+import androidx.test.uiautomator.Direction
+import androidx.test.uiautomator.UiDevice
+import androidx.test.uiautomator.UiObject2
+import androidx.test.uiautomator.Until
+
+/**
+ * User journeys shared by the benchmarks and the baseline profile generator
+ */
+
+const val TARGET_PACKAGE = "com.cattlebreed.app"
+
+const val SEEDED_RECORDS = 10_000
+
+private const val UI_TIMEOUT_MS = 5_000L
+private const val SEED_ACTION = "com.cattlebreed.app.benchmark.SEED_RECORDS"
+private const val SEED_RECEIVER = "com.cattlebreed.app/.benchmark.SeedRecordsReceiver"
+
+// HISTORY_LIST_TAG in the app's HistoryScreen
+private const val HISTORY_LIST = "history_list"
+
+/**
+ * Fills the app with [count] records and enters guest mode. The receiver
+ * only exists in the app's benchmark build type. Called once per test rather
+ * than per iteration, since the data survives process kills and recompiles.
+ */
+fun seedRecords(count: Int = SEEDED_RECORDS) {
+    val device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation())
+    val output = device.executeShellCommand(
+        "am broadcast -a $SEED_ACTION -n $SEED_RECEIVER --ei count $count --include-stopped-packages"
+    )
+    check("Broadcast completed" in output) { "Seeding failed: $output" }
+}
+
+fun MacrobenchmarkScope.waitForHome() {
+    waitFor(By.text("View History"))
+}
+
+fun MacrobenchmarkScope.openHistory() {
+    waitFor(By.text("View History")).click()
+    waitFor(By.res(HISTORY_LIST))
+}
+
+/**
+ * Flings the history list down and back up a few times
+ */
+fun MacrobenchmarkScope.scrollHistory() {
+    val list = waitFor(By.res(HISTORY_LIST))
+    // Keeps the fling clear of the system gesture area
+    list.setGestureMargin(device.displayWidth / 5)
+    repeat(3) {
+        list.fling(Direction.DOWN)
+        device.waitForIdle()
+    }
+    repeat(3) {
+        list.fling(Direction.UP)
+        device.waitForIdle()
+    }
+}
+
+fun MacrobenchmarkScope.openFirstRecord() {
+    waitFor(By.res(HISTORY_LIST)).children.first().click()
+    waitFor(By.text("Animal Information"))
+}
+
+fun MacrobenchmarkScope.exportCsv() {
+    waitFor(By.text("Export Data")).click()
+    waitFor(By.text("Export CSV")).click()
+    // The dialog appears once the file is written
+    waitFor(By.text("Export Complete"), timeoutMs = 60_000L)
+    device.findObject(By.text("OK"))?.click()
+}
+
+private fun MacrobenchmarkScope.waitFor(
+    selector: BySelector,
+    timeoutMs: Long = UI_TIMEOUT_MS
+): UiObject2 {
+    return device.wait(Until.findObject(selector), timeoutMs)
+        ?: error("Timed out waiting for $selector")
+}
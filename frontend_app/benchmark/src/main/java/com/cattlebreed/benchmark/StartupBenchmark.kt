@@ -0,0 +1,53 @@
+package com.cattlebreed.benchmark
+
+import androidx.benchmark.macro.BaselineProfileMode
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.filters.LargeTest
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+/**
+ * Cold start to a filled HomeScreen, with and without the baseline profile.
+ * The gap between the two is what the shipped profile buys on first launch.
+ * The profiled run fails until app/src/main/baseline-prof.txt is generated.
+ */
+@LargeTest
+@RunWith(Parameterized::class)
+class StartupBenchmark(private val compilationMode: CompilationMode) {
+
+    companion object {
+        @JvmStatic
+        @Parameterized.Parameters(name = "compilation={0}")
+        fun compilationModes() = listOf(
+            CompilationMode.None(),
+            CompilationMode.Partial(BaselineProfileMode.Require)
+        )
+    }
+
+    @get:Rule
+    val benchmarkRule = MacrobenchmarkRule()
+
+    @Before
+    fun seed() = seedRecords()
+
+    @Test
+    fun coldStartToHome() = benchmarkRule.measureRepeated(
+        packageName = TARGET_PACKAGE,
+        metrics = listOf(StartupTimingMetric()),
+        compilationMode = compilationMode,
+        startupMode = StartupMode.COLD,
+        iterations = 10,
+        setupBlock = {
+            pressHome()
+        }
+    ) {
+        startActivityAndWait()
+        waitForHome()
+    }
+}
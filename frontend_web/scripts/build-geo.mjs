@@ -0,0 +1,128 @@
+// Builds the offline map assets in public/geo from source GeoJSON.
+//
+//   npm run geo            # rebuild every layer (maintainers; output is committed)
+//   npm run geo -- --stale # only layers whose files are missing or older than the source
+//   npm run geo:check      # fail if a generated file is missing (for CI)
+//
+// The generated files are committed, so `npm run dev` and `npm run build`
+// never rebuild them. Their hooks only run `--check --warn`, which touches
+// no network and warns about missing files; the map then shows no shapes.
+//
+// For each layer (states, districts) and detail level (lo, mid, hi) this
+// writes public/geo/<layer>-<level>.topo.json. Simplification runs on the
+// TopoJSON arcs, so neighbouring regions share simplified borders and never
+// gap or overlap. Properties are reduced to `name` (and `state` for
+// districts) so the map doesn't depend on the source's field names.
+//
+// Sources are read from geo-src/ (or GEO_STATES_SRC / GEO_DISTRICTS_SRC) and
+// are committed next to the output. Both layers are required: the district
+// borders are what the hi level draws. mapshaper is fetched by npx, so only
+// a full rebuild needs the network.
+import { spawnSync } from 'node:child_process'
+import { existsSync, mkdirSync, readFileSync, rmSync, statSync, writeFileSync } from 'node:fs'
+import { dirname, join, resolve } from 'node:path'
+import { fileURLToPath } from 'node:url'
+
+// Exact version, so the same sources always simplify to the same files
+const MAPSHAPER = 'mapshaper@0.6.25'
+
+const root = resolve(dirname(fileURLToPath(import.meta.url)), '..')
+const outDir = join(root, 'public', 'geo')
+const tmpDir = join(root, 'geo-src', '.tmp')
+
+// Keep in step with levelForZoom in src/data/geoAssets.ts
+const LEVELS = [
+  { name: 'lo', keep: '3%', quantization: 10000 }, // whole country
+  { name: 'mid', keep: '12%', quantization: 50000 }, // a few states
+  { name: 'hi', keep: '40%', quantization: 100000 }, // a state and its districts
+]
+
+const STATE_FIELDS = ['st_nm', 'ST_NM', 'NAME_1', 'state', 'name']
+const DISTRICT_FIELDS = ['district', 'DISTRICT', 'dtname', 'NAME_2', 'name']
+
+const LAYERS = [
+  {
+    name: 'states',
+    src: process.env.GEO_STATES_SRC ?? join(root, 'geo-src', 'india_states.geojson'),
+    properties: p => ({ name: pick(p, STATE_FIELDS) }),
+  },
+  {
+    name: 'districts',
+    src: process.env.GEO_DISTRICTS_SRC ?? join(root, 'geo-src', 'india_districts.geojson'),
+    properties: p => ({ name: pick(p, DISTRICT_FIELDS), state: pick(p, STATE_FIELDS.filter(f => f !== 'name')) }),
+  },
+]
+
+function pick(properties, fields) {
+  for (const field of fields) {
+    const value = properties?.[field]
+    if (typeof value === 'string' && value.trim()) return value.trim().replace(/\s+/g, ' ')
+  }
+  return ''
+}
+
+function source(layer) {
+  if (!existsSync(layer.src)) throw new Error(`No ${layer.name} source at ${layer.src}`)
+  return JSON.parse(readFileSync(layer.src, 'utf8'))
+}
+
+function mapshaper(args) {
+  const result = spawnSync('npx', ['--yes', MAPSHAPER, ...args], { stdio: 'inherit', shell: process.platform === 'win32' })
+  if (result.status !== 0) throw new Error(`mapshaper failed: ${args.join(' ')}`)
+}
+
+function outputs(layer) {
+  return LEVELS.map(level => join(outDir, `${layer.name}-${level.name}.topo.json`))
+}
+
+// Built files exist and, when the source is at hand, are newer than it
+function upToDate(layer) {
+  const files = outputs(layer)
+  if (!files.every(f => existsSync(f))) return false
+  if (!existsSync(layer.src)) return true
+  const sourceTime = statSync(layer.src).mtimeMs
+  return files.every(f => statSync(f).mtimeMs >= sourceTime)
+}
+
+const staleOnly = process.argv.includes('--stale')
+
+if (process.argv.includes('--check')) {
+  const missing = LAYERS.flatMap(outputs).filter(f => !existsSync(f))
+  if (missing.length) {
+    const message = `Map assets missing; run \`npm run geo\` and commit public/geo:\n  ${missing.join('\n  ')}`
+    if (!process.argv.includes('--warn')) {
+      console.error(message)
+      process.exit(1)
+    }
+    console.warn(message)
+  }
+  process.exit(0)
+}
+
+mkdirSync(outDir, { recursive: true })
+mkdirSync(tmpDir, { recursive: true })
+try {
+  for (const layer of LAYERS) {
+    if (staleOnly && upToDate(layer)) continue
+    const geojson = source(layer)
+    const features = geojson.features.map(f => ({ ...f, properties: layer.properties(f.properties) }))
+    const unnamed = features.filter(f => !f.properties.name).length
+    if (unnamed) console.warn(`${layer.name}: ${unnamed} features without a recognised name field`)
+
+    const normalized = join(tmpDir, `${layer.name}.geojson`)
+    writeFileSync(normalized, JSON.stringify({ type: 'FeatureCollection', features }))
+
+    for (const level of LEVELS) {
+      const out = join(outDir, `${layer.name}-${level.name}.topo.json`)
+      mapshaper([
+        '-i', normalized,
+        '-simplify', `percentage=${level.keep}`, 'keep-shapes',
+        '-rename-layers', layer.name,
+        '-o', out, 'format=topojson', `quantization=${level.quantization}`, 'force',
+      ])
+      console.log(`${out}: ${(statSync(out).size / 1024).toFixed(0)} KB`)
+    }
+  }
+} finally {
+  rmSync(tmpDir, { recursive: true, force: true })
+}
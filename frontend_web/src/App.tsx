@@ -1,10 +1,10 @@
 import { useMemo, useState } from 'react'
-import { ATSRow, ATSState, YearType } from './types'
+import { ATSRow, YearType } from './types'
 import Filters from './ui/Filters'
 import SummaryCards from './ui/SummaryCards'
 import IndiaMap from './ui/IndiaMap'
 import DataTable from './ui/DataTable'
-import { INDIAN_STATES } from './data/stateList'
+import { useAtsData } from './data/useAtsData'
 
 export default function App() {
   const [state, setState] = useState<string>('')
@@ -12,45 +12,13 @@ export default function App() {
   const [yearType, setYearType] = useState<YearType>('Calendar')
   const [year, setYear] = useState<number>(2024)
 
-  // Generate deterministic mock data for every state
-  const DATA: ATSState[] = useMemo(() => {
-    const hash = (str: string) =>
-      str.split('').reduce((acc, ch) => (acc * 31 + ch.charCodeAt(0)) >>> 0, 7)
-    return INDIAN_STATES.map((name) => {
-      const h = hash(name)
-      const mid = 55 + (h % 36) // 55..90
-      const width = 4 + (Math.floor(h / 101) % 8) // 4..11
-      const low = Math.max(0, Math.round(mid - width / 2))
-      const high = Math.min(100, Math.round(mid + width / 2))
-      const total = 50000 + (h % 1950000)
-      const cattle = Math.round(total * (50 + (h % 30)) / 100)
-      const buffalo = total - cattle
-      const districts: ATSRow[] = [1, 2, 3].slice(0, 2 + (h % 2)).map((i) => ({
-        state: name,
-        district: `${name.split(' ')[0]} Dist ${i}`,
-        totalEvaluated: Math.round(total / (2 + (h % 2)) * (0.8 + 0.4 * (i / 3))),
-        cattle: Math.round(cattle / (2 + (h % 2)) * (0.8 + 0.4 * (i / 3))),
-        buffalo: Math.round(buffalo / (2 + (h % 2)) * (0.8 + 0.4 * (i / 3))),
-        avgScore: mid + (i - 2) * 2,
-        avgRange: `${low}–${high}`,
-      }))
-      return {
-        state: name,
-        avgScore: mid,
-        avgRange: `${low}–${high}`,
-        totalEvaluated: total,
-        cattle,
-        buffalo,
-        districts,
-      }
-    })
-  }, [])
+  const { states: DATA, districtRows, loadingDistricts, source, error, prefetch } = useAtsData(state, yearType, year)
 
   const states = useMemo(() => DATA.map(s => s.state).sort(), [DATA])
-  const districts = useMemo(() => {
-    const sObj = DATA.find(ss => ss.state === state)
-    return sObj ? sObj.districts.map(d => d.district!).sort() : []
-  }, [state, DATA])
+  const districts = useMemo(
+    () => districtRows.map(d => d.district!).sort(),
+    [districtRows]
+  )
 
   const filteredRows: ATSRow[] = useMemo(() => {
     if (!state) {
@@ -63,24 +31,35 @@ export default function App() {
         avgScore: s.avgScore,
       }))
     }
-    const sObj = DATA.find(ss => ss.state === state)
-    return sObj ? sObj.districts : []
-  }, [state, DATA])
+    return districtRows
+  }, [state, DATA, districtRows])
 
   // Build range summaries for cards
-  const rangeParts = DATA.map(s => s.avgRange?.split('–').map(n => parseFloat(n)) as [number, number])
-  const nationalLow = Math.min(...rangeParts.map(r => r[0]))
-  const nationalHigh = Math.max(...rangeParts.map(r => r[1]))
-  const nationalText = `${nationalLow}–${nationalHigh}`
+  const nationalText = useMemo(() => {
+    const rangeParts = DATA.filter(s => s.avgRange)
+      .map(s => s.avgRange!.split('–').map(n => parseFloat(n)) as [number, number])
+    if (rangeParts.length === 0) return '–'
+    const nationalLow = Math.min(...rangeParts.map(r => r[0]))
+    const nationalHigh = Math.max(...rangeParts.map(r => r[1]))
+    return `${nationalLow}–${nationalHigh}`
+  }, [DATA])
 
+  const scored = useMemo(() => DATA.filter(s => s.avgScore != null), [DATA])
   const highest = useMemo(() => {
-    const h = DATA.reduce((a, b) => (a.avgScore! > b.avgScore! ? a : b))
+    if (scored.length === 0) return { state: '–', text: undefined }
+    const h = scored.reduce((a, b) => (a.avgScore! > b.avgScore! ? a : b))
     return { state: h.state, text: h.avgRange }
-  }, [DATA])
+  }, [scored])
   const lowest = useMemo(() => {
-    const l = DATA.reduce((a, b) => (a.avgScore! < b.avgScore! ? a : b))
+    if (scored.length === 0) return { state: '–', text: undefined }
+    const l = scored.reduce((a, b) => (a.avgScore! < b.avgScore! ? a : b))
     return { state: l.state, text: l.avgRange }
-  }, [DATA])
+  }, [scored])
+
+  const mapData = useMemo(
+    () => DATA.map(s => ({ id: s.state, value: s.avgScore, range: s.avgRange })),
+    [DATA]
+  )
 
   return (
     <div className="container-max py-6 space-y-6">
@@ -107,19 +86,24 @@ export default function App() {
         {/* Left column (Area Details) */}
         <div className="card p-4 md:p-6 lg:col-span-5 xl:col-span-4 overflow-hidden lg:order-1">
           <h2 className="text-lg font-semibold mb-4">Area Details{state ? ` - ${state}` : ''}</h2>
+          {error && <p className="text-sm text-red-600 mb-2">{error}</p>}
+          {loadingDistricts && <p className="text-sm text-slate-500 mb-2">Loading districts…</p>}
           <DataTable rows={filteredRows} showDistrict={!!state} />
         </div>
         {/* Right column (Map) */}
         <div className="card p-2 md:p-4 lg:col-span-7 xl:col-span-8 lg:order-2">
           <IndiaMap
-            data={DATA.map(s => ({ id: s.state, value: s.avgScore, range: s.avgRange }))}
+            data={mapData}
             selectedState={state}
             onSelectState={setState}
+            onHoverState={prefetch}
           />
         </div>
       </section>
 
-      <footer className="text-center text-xs text-slate-500 pb-6">Data shown is sample for UI only</footer>
+      {source === 'sample' && (
+        <footer className="text-center text-xs text-slate-500 pb-6">Data shown is sample for UI only</footer>
+      )}
     </div>
   )
 }
@@ -0,0 +1,99 @@
+import { ATSState, ATSStatesResponse, DataSource, YearType } from '../types'
+import { mockStates } from './mockData'
+
+const API_BASE = import.meta.env.VITE_API_BASE ?? '/api/v1'
+
+// Reuse a response without asking the server for this long; after that it is
+// revalidated with If-None-Match, which costs a bodiless 304 when unchanged
+const FRESH_MS = 60_000
+
+export type StatesView = { states: ATSState[]; source: DataSource }
+
+type Entry<T> = {
+  value?: T
+  etag?: string
+  fetchedAt: number
+  pending?: Promise<T>
+}
+
+// Keyed by (state, yearType, year); '' is the state-level view
+const cache = new Map<string, Entry<unknown>>()
+
+const keyOf = (state: string, yearType: YearType, year: number) => `${state}|${yearType}|${year}`
+
+const query = (params: Record<string, string | number>) =>
+  Object.entries(params).map(([k, v]) => `${k}=${encodeURIComponent(v)}`).join('&')
+
+async function load<T>(key: string, url: string): Promise<T> {
+  let entry = cache.get(key) as Entry<T> | undefined
+  if (!entry) {
+    entry = { fetchedAt: 0 }
+    cache.set(key, entry)
+  }
+  if (entry.pending) return entry.pending
+  if (entry.value !== undefined && Date.now() - entry.fetchedAt < FRESH_MS) return entry.value
+
+  const current = entry
+  current.pending = (async () => {
+    const res = await fetch(url, { headers: current.etag ? { 'If-None-Match': current.etag } : {} })
+    if (res.status === 304 && current.value !== undefined) {
+      current.fetchedAt = Date.now()
+      return current.value
+    }
+    if (!res.ok) throw new Error(`${res.status} ${res.statusText}`)
+    const value = (await res.json()) as T
+    current.value = value
+    current.etag = res.headers.get('ETag') ?? undefined
+    current.fetchedAt = Date.now()
+    return value
+  })().finally(() => {
+    current.pending = undefined
+  })
+  return current.pending
+}
+
+/** Cached value for instant rendering, or undefined; never fetches */
+export function peekStates(yearType: YearType, year: number): ATSState[] | undefined {
+  return (cache.get(keyOf('', yearType, year)) as Entry<ATSStatesResponse> | undefined)?.value?.states
+}
+
+export function peekDistricts(state: string, yearType: YearType, year: number): ATSState | undefined {
+  return (cache.get(keyOf(state, yearType, year)) as Entry<ATSState> | undefined)?.value
+}
+
+// Falls back to sample data so the dashboard still renders without a backend
+export async function fetchStates(yearType: YearType, year: number): Promise<StatesView> {
+  try {
+    const res = await load<ATSStatesResponse>(
+      keyOf('', yearType, year),
+      `${API_BASE}/ats/states?${query({ yearType, year })}`
+    )
+    return { states: res.states, source: 'api' }
+  } catch {
+    return { states: mockStates().map(s => ({ ...s, districts: [] })), source: 'sample' }
+  }
+}
+
+// Districts of a state shown from sample data are sample data too; a failed
+// call against the real backend is an error, never silently replaced
+export async function fetchDistricts(
+  state: string,
+  yearType: YearType,
+  year: number,
+  source: DataSource
+): Promise<ATSState> {
+  if (source === 'sample') {
+    return mockStates().find(s => s.state === state) ?? { state, districts: [] }
+  }
+  return load<ATSState>(
+    keyOf(state, yearType, year),
+    `${API_BASE}/ats/districts?${query({ state, yearType, year })}`
+  )
+}
+
+/** Warms the cache for a likely next selection; errors are ignored */
+export function prefetchDistricts(state: string, yearType: YearType, year: number) {
+  if (!state || peekDistricts(state, yearType, year)) return
+  load(keyOf(state, yearType, year), `${API_BASE}/ats/districts?${query({ state, yearType, year })}`)
+    .catch(() => undefined)
+}
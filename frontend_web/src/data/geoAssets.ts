@@ -0,0 +1,30 @@
+export type GeoLayer = 'states' | 'districts'
+export type GeoLevel = 'lo' | 'mid' | 'hi'
+
+// Zoom at which each finer level takes over; keep in step with scripts/build-geo.mjs
+export function levelForZoom(zoom: number): GeoLevel {
+  if (zoom < 2) return 'lo'
+  if (zoom < 4) return 'mid'
+  return 'hi'
+}
+
+// One request per file for the life of the page
+const cache = new Map<string, Promise<object | null>>()
+
+const fetchJson = (url: string) =>
+  fetch(url).then(res => {
+    if (!res.ok) throw new Error(`${res.status} ${url}`)
+    // The dev server answers unknown paths with index.html; json() rejects that too
+    return res.json() as Promise<object>
+  })
+
+/** Bundled TopoJSON for a layer and detail level, or null when it isn't built (e.g. districts without a source) */
+export function loadGeo(layer: GeoLayer, level: GeoLevel): Promise<object | null> {
+  const url = `${import.meta.env.BASE_URL}geo/${layer}-${level}.topo.json`
+  let pending = cache.get(url)
+  if (!pending) {
+    pending = fetchJson(url).catch(() => null)
+    cache.set(url, pending)
+  }
+  return pending
+}
@@ -0,0 +1,40 @@
+import { ATSRow, ATSState } from '../types'
+import { INDIAN_STATES } from './stateList'
+
+let cached: ATSState[] | null = null
+
+// Deterministic sample data for every state, used when the backend is unreachable
+export function mockStates(): ATSState[] {
+  if (cached) return cached
+  const hash = (str: string) =>
+    str.split('').reduce((acc, ch) => (acc * 31 + ch.charCodeAt(0)) >>> 0, 7)
+  cached = INDIAN_STATES.map((name) => {
+    const h = hash(name)
+    const mid = 55 + (h % 36) // 55..90
+    const width = 4 + (Math.floor(h / 101) % 8) // 4..11
+    const low = Math.max(0, Math.round(mid - width / 2))
+    const high = Math.min(100, Math.round(mid + width / 2))
+    const total = 50000 + (h % 1950000)
+    const cattle = Math.round(total * (50 + (h % 30)) / 100)
+    const buffalo = total - cattle
+    const districts: ATSRow[] = [1, 2, 3].slice(0, 2 + (h % 2)).map((i) => ({
+      state: name,
+      district: `${name.split(' ')[0]} Dist ${i}`,
+      totalEvaluated: Math.round(total / (2 + (h % 2)) * (0.8 + 0.4 * (i / 3))),
+      cattle: Math.round(cattle / (2 + (h % 2)) * (0.8 + 0.4 * (i / 3))),
+      buffalo: Math.round(buffalo / (2 + (h % 2)) * (0.8 + 0.4 * (i / 3))),
+      avgScore: mid + (i - 2) * 2,
+      avgRange: `${low}–${high}`,
+    }))
+    return {
+      state: name,
+      avgScore: mid,
+      avgRange: `${low}–${high}`,
+      totalEvaluated: total,
+      cattle,
+      buffalo,
+      districts,
+    }
+  })
+  return cached
+}
@@ -0,0 +1,78 @@
+import { useEffect, useState } from 'react'
+import { ATSState, DataSource, YearType } from '../types'
+import { fetchDistricts, fetchStates, peekDistricts, peekStates, prefetchDistricts } from './atsApi'
+
+// States whose districts are fetched in the background once the map is up
+const PREFETCH_TOP_STATES = 3
+
+// Safari has no requestIdleCallback
+const whenIdle = (fn: () => void) =>
+  typeof window.requestIdleCallback === 'function' ? window.requestIdleCallback(fn) : window.setTimeout(fn, 200)
+
+/**
+ * State-level aggregates for the period, plus district rows for the selected
+ * state only. Districts are fetched when a state is selected and served from
+ * cache when it (or a prefetch) already loaded them.
+ */
+export function useAtsData(state: string, yearType: YearType, year: number) {
+  const [states, setStates] = useState<ATSState[]>(() => peekStates(yearType, year) ?? [])
+  // Unknown until the state-level call settles; district loads wait for it
+  const [source, setSource] = useState<DataSource | undefined>()
+  const [selected, setSelected] = useState<ATSState | undefined>()
+  const [loadingDistricts, setLoadingDistricts] = useState(false)
+  const [error, setError] = useState<string | undefined>()
+
+  useEffect(() => {
+    let active = true
+    const cached = peekStates(yearType, year)
+    if (cached) setStates(cached)
+    fetchStates(yearType, year).then(view => {
+      if (!active) return
+      setStates(view.states)
+      setSource(view.source)
+      if (view.source === 'api') {
+        // The busiest states are the likeliest next clicks
+        whenIdle(() => {
+          [...view.states]
+            .sort((a, b) => (b.totalEvaluated ?? 0) - (a.totalEvaluated ?? 0))
+            .slice(0, PREFETCH_TOP_STATES)
+            .forEach(s => prefetchDistricts(s.state, yearType, year))
+        })
+      }
+    })
+    return () => {
+      active = false
+    }
+  }, [yearType, year])
+
+  useEffect(() => {
+    if (!state || !source) {
+      setSelected(undefined)
+      return
+    }
+    let active = true
+    const cached = source === 'api' ? peekDistricts(state, yearType, year) : undefined
+    setSelected(cached)
+    setLoadingDistricts(!cached)
+    setError(undefined)
+    fetchDistricts(state, yearType, year, source)
+      .then(result => {
+        if (active) setSelected(result)
+      })
+      .catch((e: Error) => {
+        if (active) setError(`Could not load districts of ${state}: ${e.message}`)
+      })
+      .finally(() => {
+        if (active) setLoadingDistricts(false)
+      })
+    return () => {
+      active = false
+    }
+  }, [state, yearType, year, source])
+
+  const prefetch = (name: string) => {
+    if (source === 'api') prefetchDistricts(name, yearType, year)
+  }
+
+  return { states, districtRows: selected?.districts ?? [], loadingDistricts, source, error, prefetch }
+}
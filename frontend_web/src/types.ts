@@ -19,3 +19,14 @@ export type ATSState = {
   buffalo?: number
   districts: ATSRow[]
 }
+
+// GET /api/v1/ats/states: state-level rows only, districts are loaded per state
+export type ATSStatesResponse = {
+  success: boolean
+  yearType: YearType
+  year: number
+  national: ATSRow
+  states: ATSState[]
+}
+
+export type DataSource = 'api' | 'sample'
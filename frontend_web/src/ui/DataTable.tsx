@@ -1,30 +1,142 @@
+import { useEffect, useMemo, useRef, useState } from 'react'
 import { ATSRow } from '../types'
 
+// One formatter for the page: building Intl formatters is the slow part of toLocaleString
+const NUMBER = new Intl.NumberFormat()
+const fmt = (n?: number) => (n == null ? '--' : NUMBER.format(n))
+const fmtScore = (n?: number) => (n == null ? '--' : n.toFixed(1))
+
+// Rows are a fixed height so the visible window is plain arithmetic
+const ROW_HEIGHT = 44
+const VIEWPORT_HEIGHT = 560
+const OVERSCAN = 8
+
+type SortKey = 'name' | 'totalEvaluated' | 'cattle' | 'buffalo' | 'avgScore'
+type Sort = { key: SortKey; desc: boolean }
+
+const COLUMNS: { key: SortKey; label: string; align: 'left' | 'right' }[] = [
+  { key: 'name', label: '', align: 'left' },
+  { key: 'totalEvaluated', label: 'Total Evaluated', align: 'right' },
+  { key: 'cattle', label: 'Cattle', align: 'right' },
+  { key: 'buffalo', label: 'Buffalo', align: 'right' },
+  { key: 'avgScore', label: 'Avg. ATS Range', align: 'right' }, // ranges sort by their mean score
+]
+
+const collator = new Intl.Collator(undefined, { sensitivity: 'base', numeric: true })
+
+/**
+ * Row order for one column, ascending, as a typed array of row positions.
+ * Missing values sort last. Descending order reads the same index backwards
+ * (missing values then come first), so flipping direction costs nothing.
+ */
+function buildIndex(rows: ATSRow[], key: SortKey, showDistrict: boolean): Uint32Array {
+  const index = new Uint32Array(rows.length)
+  for (let i = 0; i < rows.length; i++) index[i] = i
+  if (key === 'name') {
+    const names = rows.map(r => (showDistrict ? r.district : r.state) ?? '')
+    return index.sort((a, b) => collator.compare(names[a], names[b]) || a - b)
+  }
+  const values = new Float64Array(rows.length)
+  for (let i = 0; i < rows.length; i++) values[i] = rows[i][key] ?? Number.POSITIVE_INFINITY
+  return index.sort((a, b) => values[a] - values[b] || a - b)
+}
+
 export default function DataTable({ rows, showDistrict }: { rows: ATSRow[]; showDistrict: boolean }) {
-  const fmt = (n?: number) => (n == null ? '--' : n.toLocaleString())
-  const fmtScore = (n?: number) => (n == null ? '--' : n.toFixed(1))
+  const [sort, setSort] = useState<Sort | null>(null)
+  const [scrollTop, setScrollTop] = useState(0)
+  const viewport = useRef<HTMLDivElement>(null)
+  const frame = useRef(0)
+
+  // Indexes are built on first use per column and kept until the rows change
+  const indexes = useMemo(() => new Map<SortKey, Uint32Array>(), [rows, showDistrict])
+  const order = useMemo(() => {
+    if (!sort) return null
+    let index = indexes.get(sort.key)
+    if (!index) {
+      index = buildIndex(rows, sort.key, showDistrict)
+      indexes.set(sort.key, index)
+    }
+    return index
+  }, [indexes, sort, rows, showDistrict])
+
+  // A new row set starts at the top
+  useEffect(() => {
+    viewport.current?.scrollTo({ top: 0 })
+    setScrollTop(0)
+  }, [rows])
+
+  useEffect(() => () => cancelAnimationFrame(frame.current), [])
+
+  const onScroll = () => {
+    // At most one state update per frame, however many scroll events arrive
+    cancelAnimationFrame(frame.current)
+    frame.current = requestAnimationFrame(() => setScrollTop(viewport.current?.scrollTop ?? 0))
+  }
+
+  const toggleSort = (key: SortKey) => {
+    setSort(s => (s?.key !== key ? { key, desc: key !== 'name' } : { key, desc: !s.desc }))
+  }
+
+  const count = rows.length
+  const first = Math.max(0, Math.floor(scrollTop / ROW_HEIGHT) - OVERSCAN)
+  const last = Math.min(count, Math.ceil((scrollTop + VIEWPORT_HEIGHT) / ROW_HEIGHT) + OVERSCAN)
+  const rowAt = (position: number) => {
+    if (!order) return position
+    return order[sort!.desc ? count - 1 - position : position]
+  }
+
+  const visible: JSX.Element[] = []
+  for (let position = first; position < last; position++) {
+    const idx = rowAt(position)
+    const r = rows[idx]
+    visible.push(
+      <tr
+        key={idx}
+        style={{ height: ROW_HEIGHT }}
+        className={position % 2 === 0 ? 'bg-white' : 'bg-slate-50/50'}
+      >
+        <td className="px-4 py-3 whitespace-nowrap">{showDistrict ? r.district : r.state}</td>
+        <td className="px-4 py-3 text-right tabular-nums">{fmt(r.totalEvaluated)}</td>
+        <td className="px-4 py-3 text-right tabular-nums">{fmt(r.cattle)}</td>
+        <td className="px-4 py-3 text-right tabular-nums">{fmt(r.buffalo)}</td>
+        <td className="px-4 py-3 text-right font-medium text-slate-800">{r.avgRange ?? fmtScore(r.avgScore)}</td>
+      </tr>
+    )
+  }
+
   return (
-    <div className="overflow-auto">
+    <div ref={viewport} onScroll={onScroll} className="overflow-auto" style={{ maxHeight: VIEWPORT_HEIGHT }}>
       <table className="min-w-full text-sm">
-        <thead>
+        <thead className="sticky top-0 z-10">
           <tr className="bg-primary-50 text-slate-700">
-            <th className="text-left font-medium px-4 py-3">{showDistrict ? 'District' : 'State'}</th>
-            <th className="text-right font-medium px-4 py-3">Total Evaluated</th>
-            <th className="text-right font-medium px-4 py-3">Cattle</th>
-            <th className="text-right font-medium px-4 py-3">Buffalo</th>
-            <th className="text-right font-medium px-4 py-3">Avg. ATS Range</th>
+            {COLUMNS.map(col => {
+              const active = sort?.key === col.key
+              return (
+                <th
+                  key={col.key}
+                  scope="col"
+                  tabIndex={0}
+                  aria-sort={active ? (sort!.desc ? 'descending' : 'ascending') : 'none'}
+                  onClick={() => toggleSort(col.key)}
+                  onKeyDown={e => {
+                    if (e.key === 'Enter' || e.key === ' ') {
+                      e.preventDefault()
+                      toggleSort(col.key)
+                    }
+                  }}
+                  className={`${col.align === 'left' ? 'text-left' : 'text-right'} font-medium px-4 py-3 cursor-pointer select-none whitespace-nowrap hover:text-primary-500`}
+                >
+                  {col.key === 'name' ? (showDistrict ? 'District' : 'State') : col.label}
+                  <span className="ml-1 inline-block w-3 text-primary-400">{active ? (sort!.desc ? '▼' : '▲') : ''}</span>
+                </th>
+              )
+            })}
           </tr>
         </thead>
         <tbody>
-          {rows.map((r, idx) => (
-            <tr key={(r.district || r.state) + idx} className={idx % 2 === 0 ? 'bg-white' : 'bg-slate-50/50'}>
-              <td className="px-4 py-3 whitespace-nowrap">{showDistrict ? r.district : r.state}</td>
-              <td className="px-4 py-3 text-right tabular-nums">{fmt(r.totalEvaluated)}</td>
-              <td className="px-4 py-3 text-right tabular-nums">{fmt(r.cattle)}</td>
-              <td className="px-4 py-3 text-right tabular-nums">{fmt(r.buffalo)}</td>
-              <td className="px-4 py-3 text-right font-medium text-slate-800">{r.avgRange ?? fmtScore(r.avgScore)}</td>
-            </tr>
-          ))}
+          {first > 0 && <tr aria-hidden style={{ height: first * ROW_HEIGHT }} />}
+          {visible}
+          {last < count && <tr aria-hidden style={{ height: (count - last) * ROW_HEIGHT }} />}
         </tbody>
       </table>
     </div>
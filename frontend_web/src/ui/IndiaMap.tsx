@@ -1,19 +1,49 @@
-import { ComposableMap, Geographies, Geography } from 'react-simple-maps'
-import { useMemo } from 'react'
+import { ComposableMap, Geographies, ZoomableGroup } from 'react-simple-maps'
+import { memo, useEffect, useMemo, useState } from 'react'
 import { Tooltip } from 'react-tooltip'
-
-// You can replace this with a local file later if you have a preferred source.
-// This URL should point to a GeoJSON/TopoJSON of India states (Admin-1 level).
-const INDIA_GEO_URL =
-  'https://cdn.jsdelivr.net/npm/india-geojson@1/india_states.geojson'
+import { GeoLayer, GeoLevel, levelForZoom, loadGeo } from '../data/geoAssets'
 
 type IndiaMapProps = {
   data: { id: string; value?: number; range?: string }[] // id = state name
   selectedState: string
   onSelectState: (s: string) => void
+  onHoverState?: (s: string) => void // lets the caller prefetch a likely click
 }
 
-export default function IndiaMap({ data, selectedState, onSelectState }: IndiaMapProps) {
+const INDIA_CENTER: [number, number] = [82.8, 22.5]
+
+const color = (v?: number) => {
+  if (v == null) return '#E5F4EA' // very light
+  if (v >= 85) return '#1f9254'
+  if (v >= 75) return '#2bb673'
+  if (v >= 65) return '#66cdaa'
+  if (v >= 55) return '#a8e7cc'
+  return '#dff6ea'
+}
+
+// build-geo.mjs reduces every source's fields to `name` (and `state` for districts)
+const nameOf = (geo: any): string => geo.properties?.name || ''
+
+function useGeo(layer: GeoLayer | null, level: GeoLevel) {
+  const [geo, setGeo] = useState<object | null>(null)
+  useEffect(() => {
+    if (!layer) {
+      setGeo(null)
+      return
+    }
+    let active = true
+    // The previous level stays on screen until the new one has loaded
+    loadGeo(layer, level).then(g => {
+      if (active && g) setGeo(g)
+    })
+    return () => {
+      active = false
+    }
+  }, [layer, level])
+  return geo
+}
+
+export default function IndiaMap({ data, selectedState, onSelectState, onHoverState }: IndiaMapProps) {
 
   const valueById = useMemo(() => {
     const map = new Map<string, number | undefined>()
@@ -27,43 +57,96 @@ export default function IndiaMap({ data, selectedState, onSelectState }: IndiaMa
     return map
   }, [data])
 
-  const color = (v?: number) => {
-    if (v == null) return '#E5F4EA' // very light
-    if (v >= 85) return '#1f9254'
-    if (v >= 75) return '#2bb673'
-    if (v >= 65) return '#66cdaa'
-    if (v >= 55) return '#a8e7cc'
-    return '#dff6ea'
-  }
+  const [zoom, setZoom] = useState(1)
+  const level = levelForZoom(zoom)
+  const states = useGeo('states', level)
+  const districts = useGeo(selectedState ? 'districts' : null, level)
 
   return (
     <div className="w-full h-[520px]">
       <ComposableMap projectionConfig={{ scale: 900 }} data-tip="" style={{ width: '100%', height: '100%' }}>
-        <Geographies geography={INDIA_GEO_URL}>
-          {({ geographies }: any) =>
-            (geographies as any[]).map((geo: any) => {
-              const name = (geo.properties as any).st_nm || (geo.properties as any).name || ''
-              const v = valueById.get(name)
-              const isSelected = selectedState && selectedState === name
-              return (
-                <Geography
-                  key={geo.rsmKey}
-                  geography={geo}
-                  onClick={() => onSelectState(name === selectedState ? '' : name)}
-                  data-tooltip-id="india-tip"
-                  data-tooltip-content={`${name}: ${rangeById.get(name) ?? 'NA'}`}
-                  style={{
-                    default: { fill: color(v), outline: 'none', stroke: isSelected ? '#124C60' : '#cbd5e1', strokeWidth: isSelected ? 2 : 1 },
-                    hover: { fill: v ? '#17637d' : '#d3e5ea', outline: 'none' },
-                    pressed: { fill: v ? '#0f3f50' : '#c3dbe1', outline: 'none' },
-                  }}
+        <ZoomableGroup center={INDIA_CENTER} minZoom={1} maxZoom={8} onMoveEnd={({ zoom }: { zoom: number }) => setZoom(zoom)}>
+          {states && (
+            <Geographies geography={states}>
+              {({ geographies, path }: any) => (
+                <StatePaths
+                  geographies={geographies}
+                  path={path}
+                  valueById={valueById}
+                  rangeById={rangeById}
+                  selectedState={selectedState}
+                  onSelectState={onSelectState}
+                  onHoverState={onHoverState}
                 />
-              )
-            })
-          }
-        </Geographies>
+              )}
+            </Geographies>
+          )}
+          {districts && selectedState && (
+            <Geographies geography={districts}>
+              {({ geographies, path }: any) => (
+                <DistrictBorders geographies={geographies} path={path} state={selectedState} />
+              )}
+            </Geographies>
+          )}
+        </ZoomableGroup>
       </ComposableMap>
       <Tooltip id="india-tip" />
     </div>
   )
 }
+
+type StatePathsProps = {
+  geographies: any[]
+  path: (geo: any) => string | null
+  valueById: Map<string, number | undefined>
+  rangeById: Map<string, string | undefined>
+  selectedState: string
+  onSelectState: (s: string) => void
+  onHoverState?: (s: string) => void
+}
+
+// Geographies projects each feature once per detail level (svgPath). Panning
+// and zooming only move the parent group's transform, and plain <path>s with
+// CSS hover keep per-shape state out of React, so a zoom frame re-renders nothing here.
+const StatePaths = memo(function StatePaths({
+  geographies, path, valueById, rangeById, selectedState, onSelectState, onHoverState,
+}: StatePathsProps) {
+  const shapes = useMemo(
+    () => geographies.map(geo => ({ key: geo.rsmKey as string, name: nameOf(geo), d: geo.svgPath ?? path(geo) ?? '' })),
+    [geographies, path]
+  )
+
+  return (
+    <g>
+      {shapes.map(({ key, name, d }) => {
+        const v = valueById.get(name)
+        const isSelected = !!selectedState && selectedState === name
+        return (
+          <path
+            key={key}
+            d={d}
+            fill={color(v)}
+            stroke={isSelected ? '#124C60' : '#cbd5e1'}
+            strokeWidth={isSelected ? 2 : 1}
+            vectorEffect="non-scaling-stroke"
+            className={`outline-none cursor-pointer ${v ? 'hover:fill-[#17637d] active:fill-[#0f3f50]' : 'hover:fill-[#d3e5ea] active:fill-[#c3dbe1]'}`}
+            onClick={() => onSelectState(name === selectedState ? '' : name)}
+            onMouseEnter={() => name && onHoverState?.(name)}
+            data-tooltip-id="india-tip"
+            data-tooltip-content={`${name}: ${rangeById.get(name) ?? 'NA'}`}
+          />
+        )
+      })}
+    </g>
+  )
+})
+
+const DistrictBorders = memo(function DistrictBorders({
+  geographies, path, state,
+}: { geographies: any[]; path: (geo: any) => string | null; state: string }) {
+  const d = useMemo(
+    () => geographies.filter(geo => geo.properties?.state === state).map(geo => geo.svgPath ?? path(geo) ?? '').join(''),
+    [geographies, path, state]
+  )
+  return <path d={d} fill="none" stroke="#124C60" strokeOpacity={0.5} strokeWidth={0.5} vectorEffect="non-scaling-stroke" pointerEvents="none" />
+})
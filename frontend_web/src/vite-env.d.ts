@@ -0,0 +1,6 @@
+/// <reference types="vite/client" />
+
+interface ImportMetaEnv {
+  // Base URL of the backend API; defaults to the dev-server proxy at /api/v1
+  readonly VITE_API_BASE?: string
+}
@@ -5,6 +5,10 @@ export default defineConfig({
   plugins: [react()],
   server: {
     port: 5173,
-    host: true
+    host: true,
+    // The dashboard calls the backend at /api/v1; see backend/README.md
+    proxy: {
+      '/api': process.env.VITE_BACKEND_URL || 'http://localhost:8080'
+    }
   }
 })